@@ -1,11 +1,14 @@
 package com.vtoldb.config;
 
 import com.vtoldb.websocket.handler.FleetWebSocketHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
 @Configuration
 @EnableWebSocket
@@ -22,4 +25,14 @@ public class FleetWebSocketConfig implements WebSocketConfigurer {
         registry.addHandler(fleetWebSocketHandler, "/ws/fleet")
                 .setAllowedOriginPatterns("*");
     }
+
+    // The container's 8 KB default is too small for TELEMETRY_BATCH frames
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer(
+            @Value("${websocket.fleet.max-message-bytes:524288}") int maxMessageBytes) {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxMessageBytes);
+        container.setMaxBinaryMessageBufferSize(maxMessageBytes);
+        return container;
+    }
 }
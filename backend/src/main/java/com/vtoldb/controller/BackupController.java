@@ -0,0 +1,44 @@
+/**
+ * REST controller for backups: list the manifest, start a backup, verify checksums
+ */
+package com.vtoldb.controller;
+
+import com.vtoldb.model.BackupRecord;
+import com.vtoldb.service.BackupService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/backups")
+@CrossOrigin(origins = "*")
+public class BackupController {
+    private final BackupService backupService;
+
+    public BackupController(BackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<BackupRecord>> listBackups() {
+        return ResponseEntity.ok(backupService.listBackups());
+    }
+
+    // Runs in the background; poll GET /api/backups for the result
+    @PostMapping
+    public ResponseEntity<Map<String, String>> startBackup() {
+        if (!backupService.trigger()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "A backup is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("status", "started"));
+    }
+
+    @PostMapping("/verify")
+    public ResponseEntity<Map<Long, Boolean>> verifyBackups() {
+        return ResponseEntity.ok(backupService.verifyAll());
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * STOMP controller serving the drone change feed to dashboard clients
+ * Subscribing to /app/drones/changes returns one DroneChangeFeedDTO to the subscriber;
+ * the optional since and epoch headers on the SUBSCRIBE frame select the resume point
+ */
+package com.vtoldb.controller;
+
+import com.vtoldb.dto.DroneChangeFeedDTO;
+import com.vtoldb.service.DroneService;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+@Controller
+public class DroneChangeFeedController {
+    private final DroneService droneService;
+
+    public DroneChangeFeedController(DroneService droneService) {
+        this.droneService = droneService;
+    }
+
+    // Pair with a /topic/drones subscription made first, so no change falls between the two
+    @SubscribeMapping("/drones/changes")
+    public DroneChangeFeedDTO subscribeChanges(@Header(name = "since", required = false) Long since,
+                                               @Header(name = "epoch", required = false) String epoch) {
+        return droneService.getChangesSince(since, epoch);
+    }
+}
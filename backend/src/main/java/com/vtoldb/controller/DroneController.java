@@ -4,22 +4,41 @@
  */
 package com.vtoldb.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.dto.DroneChangeFeedDTO;
 import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DronePageDTO;
+import com.vtoldb.dto.FleetSummaryDTO;
+import com.vtoldb.model.DroneStatus;
+import com.vtoldb.repository.VersionConflictException;
 import com.vtoldb.service.DroneService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/drones")
 @CrossOrigin(origins = "*")
 public class DroneController {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STREAM_FLUSH_EVERY = 256;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final DroneService droneService;
+    private final ObjectMapper objectMapper;
 
-    public DroneController(DroneService droneService) {
+    public DroneController(DroneService droneService, ObjectMapper objectMapper) {
         this.droneService = droneService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -33,39 +52,213 @@ public class DroneController {
     }
 
     @GetMapping
-    public ResponseEntity<List<DroneDTO>> getAllDrones() {
-        List<DroneDTO> drones = droneService.getAllDrones();
+    public ResponseEntity<List<DroneDTO>> getAllDrones(@RequestParam(required = false) DroneStatus status,
+                                                       @RequestParam(required = false) String role,
+                                                       @RequestParam(required = false) String connectionType,
+                                                       @RequestParam(required = false) String capability) {
+        if (status == null && role == null && connectionType == null && capability == null) {
+            return ResponseEntity.ok(droneService.getAllDrones());
+        }
+        List<DroneDTO> drones = droneService.findDrones(status, role, connectionType, capability);
         return ResponseEntity.ok(drones);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<?> getDronePage(@RequestParam(required = false) String cursor,
+                                          @RequestParam(defaultValue = "100") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            DronePageDTO page = droneService.getDronePage(cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // One JSON drone per line, written while the repository is iterated
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamDrones() {
+        StreamingResponseBody body = outputStream -> {
+            try (Stream<DroneDTO> drones = droneService.streamDrones()) {
+                Iterator<DroneDTO> iterator = drones.iterator();
+                int written = 0;
+                while (iterator.hasNext()) {
+                    outputStream.write(objectMapper.writeValueAsBytes(iterator.next()));
+                    outputStream.write('\n');
+                    if (++written % STREAM_FLUSH_EVERY == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    @GetMapping("/status-counts")
+    public ResponseEntity<Map<DroneStatus, Long>> getStatusCounts() {
+        return ResponseEntity.ok(droneService.getStatusCounts());
+    }
+
+    // Aggregates over live state; lowBattery is a percentage, staleAfterMs an age threshold for lastSeen
+    @GetMapping("/summary")
+    public ResponseEntity<FleetSummaryDTO> getFleetSummary(@RequestParam(defaultValue = "20") double lowBattery,
+                                                           @RequestParam(defaultValue = "60000") long staleAfterMs) {
+        return ResponseEntity.ok(droneService.getFleetSummary(lowBattery, staleAfterMs));
+    }
+
+    // Changes since a sequence of the given epoch; falls back to the whole fleet (reset = true)
+    @GetMapping("/changes")
+    public ResponseEntity<DroneChangeFeedDTO> getChanges(@RequestParam(required = false) Long since,
+                                                         @RequestParam(required = false) String epoch) {
+        return ResponseEntity.ok(droneService.getChangesSince(since, epoch));
+    }
+
+    @GetMapping("/within")
+    public ResponseEntity<?> getDronesInBox(@RequestParam double minLat, @RequestParam double minLon,
+                                            @RequestParam double maxLat, @RequestParam double maxLon) {
+        try {
+            return ResponseEntity.ok(droneService.findDronesInBox(minLat, minLon, maxLat, maxLon));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/nearby")
+    public ResponseEntity<?> getDronesNearby(@RequestParam double lat, @RequestParam double lon,
+                                             @RequestParam(defaultValue = "2000") double radius) {
+        try {
+            return ResponseEntity.ok(droneService.findDronesWithinRadius(lat, lon, radius));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getNearestDrones(@RequestParam double lat, @RequestParam double lon,
+                                              @RequestParam(defaultValue = "5") int k) {
+        try {
+            return ResponseEntity.ok(droneService.findNearestDrones(lat, lon, k));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/serial/{serialNumber}")
+    public ResponseEntity<DroneDTO> getDroneBySerialNumber(@PathVariable String serialNumber) {
+        DroneDTO drone = droneService.getDroneBySerialNumber(serialNumber);
+        if (drone == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(drone);
+    }
+
+    // If-None-Match with the current ETag (version and live fields) answers 304 without a body
     @GetMapping("/{id}")
-    public ResponseEntity<DroneDTO> getDroneById(@PathVariable String id) {
+    public ResponseEntity<DroneDTO> getDroneById(@PathVariable String id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         DroneDTO drone = droneService.getDroneById(id);
         if (drone == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(drone);
+        String eTag = eTag(drone);
+        if (matchesAny(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
+        return ResponseEntity.ok().eTag(eTag).body(drone);
     }
 
+    // If-Match makes the update conditional on the drone's current version (its ETag)
     @PutMapping("/{id}")
-    public ResponseEntity<DroneDTO> updateDrone(@PathVariable String id, @RequestBody DroneDTO droneDTO) {
+    public ResponseEntity<?> updateDrone(@PathVariable String id, @RequestBody DroneDTO droneDTO,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         try {
-            DroneDTO updated = droneService.updateDrone(id, droneDTO);
+            DroneDTO updated = droneService.updateDrone(id, droneDTO, parseIfMatch(ifMatch));
             if (updated == null) {
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(updated);
+            return ResponseEntity.ok().eTag(eTag(updated)).body(updated);
+        } catch (VersionConflictException e) {
+            return preconditionFailed(id, e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteDrone(@PathVariable String id) {
-        boolean deleted = droneService.deleteDrone(id);
-        if (!deleted) {
-            return ResponseEntity.notFound().build();
+    public ResponseEntity<?> deleteDrone(@PathVariable String id,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        try {
+            boolean deleted = droneService.deleteDrone(id, parseIfMatch(ifMatch));
+            if (!deleted) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.noContent().build();
+        } catch (VersionConflictException e) {
+            return preconditionFailed(id, e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // "<version>.<live>": the live part hashes the telemetry-driven fields served with the drone, so a
+    // cached copy is revalidated when the drone moves, while If-Match only compares the version
+    private static String eTag(DroneDTO drone) {
+        int live = Objects.hash(drone.getLastSeen(), drone.getLatitude(), drone.getLongitude(),
+                drone.getAltitude(), drone.getBatteryLevel());
+        return "\"" + drone.getVersion() + "." + Integer.toHexString(live) + "\"";
+    }
+
+    // Weak comparison against a comma-separated If-None-Match list; * matches any existing drone
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Accepts "7", "7.<live>", W/"7" or *; * (any current version) is the same as no header
+    private static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        tag = tag.replace("\"", "");
+        int live = tag.indexOf('.');
+        if (live >= 0) {
+            tag = tag.substring(0, live);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid If-Match header: " + ifMatch);
+        }
+    }
+
+    // Carries the same ETag a GET would return now, so the client can retry with it
+    private ResponseEntity<Map<String, Object>> preconditionFailed(String id, VersionConflictException e) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.PRECONDITION_FAILED);
+        DroneDTO current = droneService.getDroneById(id);
+        if (current != null) {
+            response.eTag(eTag(current));
         }
-        return ResponseEntity.noContent().build();
+        return response.body(Map.of("error", e.getMessage(), "currentVersion", e.getCurrentVersion()));
     }
 }
@@ -0,0 +1,55 @@
+/**
+ * REST controller for connected worker sessions and their outbound queues
+ */
+package com.vtoldb.controller;
+
+import com.vtoldb.dto.FleetSessionDTO;
+import com.vtoldb.websocket.outbound.OutboundQueue;
+import com.vtoldb.websocket.outbound.OutboundQueueManager;
+import com.vtoldb.websocket.session.FleetSession;
+import com.vtoldb.websocket.session.FleetSessionManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/fleet")
+@CrossOrigin(origins = "*")
+public class FleetSessionController {
+    private final FleetSessionManager sessionManager;
+    private final OutboundQueueManager outboundQueues;
+
+    public FleetSessionController(FleetSessionManager sessionManager, OutboundQueueManager outboundQueues) {
+        this.sessionManager = sessionManager;
+        this.outboundQueues = outboundQueues;
+    }
+
+    // Registered sessions ordered by drone id, with each session's send queue stats
+    @GetMapping("/sessions")
+    public ResponseEntity<List<FleetSessionDTO>> getSessions() {
+        List<FleetSessionDTO> sessions = sessionManager.getAllSessions().stream()
+                .sorted(Comparator.comparing(FleetSession::getDroneId))
+                .map(this::toDTO)
+                .toList();
+        return ResponseEntity.ok(sessions);
+    }
+
+    private FleetSessionDTO toDTO(FleetSession session) {
+        FleetSessionDTO dto = new FleetSessionDTO();
+        dto.setSessionId(session.getSessionId());
+        dto.setWorkerId(session.getWorkerId());
+        dto.setDroneId(session.getDroneId());
+        dto.setProtocolVersion(session.getProtocolVersion());
+        dto.setTelemetryInterval(session.getTelemetryInterval());
+        dto.setConnectedAt(session.getConnectedAt());
+        dto.setIdleMillis(session.getIdleMillis());
+        if (session.getWebSocketSession() != null) {
+            outboundQueues.getQueue(session.getWebSocketSession())
+                    .map(OutboundQueue::getStats)
+                    .ifPresent(dto::setOutbound);
+        }
+        return dto;
+    }
+}
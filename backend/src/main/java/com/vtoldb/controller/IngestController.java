@@ -0,0 +1,44 @@
+/**
+ * REST controller for worker ingest metrics
+ */
+package com.vtoldb.controller;
+
+import com.vtoldb.dto.IngestMetricsDTO;
+import com.vtoldb.service.TelemetryHistoryService;
+import com.vtoldb.service.TelemetryRateService;
+import com.vtoldb.websocket.handler.TelemetryHandler;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/ingest")
+@CrossOrigin(origins = "*")
+public class IngestController {
+    private final IngestLaneExecutor ingestExecutor;
+    private final TelemetryRateService rateService;
+    private final TelemetryHandler telemetryHandler;
+    private final TelemetryHistoryService historyService;
+
+    public IngestController(IngestLaneExecutor ingestExecutor, TelemetryRateService rateService,
+                            TelemetryHandler telemetryHandler, TelemetryHistoryService historyService) {
+        this.ingestExecutor = ingestExecutor;
+        this.rateService = rateService;
+        this.telemetryHandler = telemetryHandler;
+        this.historyService = historyService;
+    }
+
+    // Queue depth and throughput per ingest lane, the rate controller's view of the load, delta telemetry
+    // counters and samples the history rollups had to skip
+    @GetMapping("/metrics")
+    public ResponseEntity<IngestMetricsDTO> getMetrics() {
+        IngestMetricsDTO metrics = ingestExecutor.getMetrics();
+        metrics.setTelemetryRate(rateService.getMeasuredRate());
+        metrics.setTelemetryBudget(rateService.getBudgetPerSecond());
+        metrics.setThrottle(rateService.getThrottle());
+        metrics.setDeltasApplied(telemetryHandler.getDeltasApplied());
+        metrics.setKeyframeRequests(telemetryHandler.getKeyframeRequests());
+        metrics.setRollupDropped(historyService.getRollupDropped());
+        return ResponseEntity.ok(metrics);
+    }
+}
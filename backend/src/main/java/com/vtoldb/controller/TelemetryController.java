@@ -0,0 +1,84 @@
+/**
+ * REST controller for telemetry history queries
+ * Timestamps are epoch milliseconds; resolution defaults to roughly MAX_POINTS buckets per range
+ */
+package com.vtoldb.controller;
+
+import com.vtoldb.dto.TelemetrySeriesDTO;
+import com.vtoldb.model.TelemetryField;
+import com.vtoldb.service.TelemetryHistoryService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/api/telemetry")
+@CrossOrigin(origins = "*")
+public class TelemetryController {
+    private static final Logger logger = LoggerFactory.getLogger(TelemetryController.class);
+
+    private static final int MAX_POINTS = 1000;
+    private static final long DEFAULT_RANGE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final TelemetryHistoryService historyService;
+
+    public TelemetryController(TelemetryHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    @GetMapping("/{droneId}/history")
+    public ResponseEntity<?> getHistory(@PathVariable String droneId,
+                                        @RequestParam String field,
+                                        @RequestParam(required = false) Long from,
+                                        @RequestParam(required = false) Long to,
+                                        @RequestParam(required = false) Long resolution) {
+        try {
+            TelemetryField telemetryField = TelemetryField.fromKey(field);
+            long end = to != null ? to : System.currentTimeMillis();
+            long start = from != null ? from : end - DEFAULT_RANGE_MS;
+            return ResponseEntity.ok(historyService.query(
+                    droneId, telemetryField, start, end, resolutionFor(start, end, resolution)));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Telemetry history query rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Same series for several drones, e.g. ?droneIds=a,b,c
+    @GetMapping("/history")
+    public ResponseEntity<?> getFleetHistory(@RequestParam List<String> droneIds,
+                                             @RequestParam String field,
+                                             @RequestParam(required = false) Long from,
+                                             @RequestParam(required = false) Long to,
+                                             @RequestParam(required = false) Long resolution) {
+        try {
+            TelemetryField telemetryField = TelemetryField.fromKey(field);
+            long end = to != null ? to : System.currentTimeMillis();
+            long start = from != null ? from : end - DEFAULT_RANGE_MS;
+            List<TelemetrySeriesDTO> series = historyService.query(
+                    droneIds, telemetryField, start, end, resolutionFor(start, end, resolution));
+            return ResponseEntity.ok(series);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Telemetry history query rejected: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    private static long resolutionFor(long from, long to, Long resolution) {
+        if (to < from) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (resolution != null) {
+            if (resolution < 0) {
+                throw new IllegalArgumentException("resolution must be >= 0");
+            }
+            return resolution;
+        }
+        return (to - from) / MAX_POINTS;
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * Data Transfer Object describing which live drone fields a telemetry sample changed
+ * Only changed fields are set; dashboards merge them into the drone they already hold
+ */
+package com.vtoldb.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.vtoldb.model.DroneStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DroneChangeDTO {
+    private DroneStatus status;
+    // Kept as epoch millis and only formatted when the change is serialized for broadcast
+    private long lastSeenMillis;
+    private Double latitude;
+    private Double longitude;
+    private Double altitude;
+    private Double batteryLevel;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return status == null && latitude == null && longitude == null && altitude == null && batteryLevel == null;
+    }
+
+    // Getters and Setters
+    public DroneStatus getStatus() { return status; }
+    public void setStatus(DroneStatus status) { this.status = status; }
+
+    public String getLastSeen() {
+        return lastSeenMillis > 0
+                ? LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeenMillis), ZoneId.systemDefault())
+                        .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                : null;
+    }
+
+    @JsonIgnore
+    public long getLastSeenMillis() { return lastSeenMillis; }
+    public void setLastSeenMillis(long lastSeenMillis) { this.lastSeenMillis = lastSeenMillis; }
+
+    public Double getLatitude() { return latitude; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+
+    public Double getLongitude() { return longitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+
+    public Double getAltitude() { return altitude; }
+    public void setAltitude(Double altitude) { this.altitude = altitude; }
+
+    public Double getBatteryLevel() { return batteryLevel; }
+    public void setBatteryLevel(Double batteryLevel) { this.batteryLevel = batteryLevel; }
+}
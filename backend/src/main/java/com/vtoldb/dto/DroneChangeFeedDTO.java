@@ -0,0 +1,35 @@
+/**
+ * Data Transfer Object for a change feed read
+ * Either the events after the requested sequence, or (reset = true) the whole fleet
+ * when those events are no longer retained; sequence is the position to resume from
+ */
+package com.vtoldb.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DroneChangeFeedDTO {
+    private String epoch;
+    private long sequence;
+    private boolean reset;
+    private List<DroneEventDTO> changes;
+    private List<DroneDTO> drones;
+
+    // Getters and Setters
+    public String getEpoch() { return epoch; }
+    public void setEpoch(String epoch) { this.epoch = epoch; }
+
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+
+    public List<DroneEventDTO> getChanges() { return changes; }
+    public void setChanges(List<DroneEventDTO> changes) { this.changes = changes; }
+
+    public List<DroneDTO> getDrones() { return drones; }
+    public void setDrones(List<DroneDTO> drones) { this.drones = drones; }
+}
@@ -28,6 +28,9 @@ public class DroneDTO {
     private List<String> capabilities;
     private String rtspEndpoint;
 
+    // Read-only; sent back as the ETag and checked through If-Match
+    private Long version;
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -80,4 +83,7 @@ public class DroneDTO {
 
     public String getRtspEndpoint() { return rtspEndpoint; }
     public void setRtspEndpoint(String rtspEndpoint) { this.rtspEndpoint = rtspEndpoint; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
 }
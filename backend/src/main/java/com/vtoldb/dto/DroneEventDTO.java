@@ -0,0 +1,48 @@
+/**
+ * Data Transfer Object for one entry of the drone change feed
+ * Created and updated events carry the full drone in data, telemetry events carry
+ * only the changed fields in changes, and deleted events carry neither
+ */
+package com.vtoldb.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class DroneEventDTO {
+    public static final String CREATED = "DRONE_CREATED";
+    public static final String UPDATED = "DRONE_UPDATED";
+    public static final String TELEMETRY = "DRONE_TELEMETRY";
+    public static final String DELETED = "DRONE_DELETED";
+
+    private long sequence;
+    private String updateType;
+    private String droneId;
+    private DroneDTO data;
+    private DroneChangeDTO changes;
+
+    public DroneEventDTO() {}
+
+    public DroneEventDTO(long sequence, String updateType, String droneId, DroneDTO data, DroneChangeDTO changes) {
+        this.sequence = sequence;
+        this.updateType = updateType;
+        this.droneId = droneId;
+        this.data = data;
+        this.changes = changes;
+    }
+
+    // Getters and Setters
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+
+    public String getUpdateType() { return updateType; }
+    public void setUpdateType(String updateType) { this.updateType = updateType; }
+
+    public String getDroneId() { return droneId; }
+    public void setDroneId(String droneId) { this.droneId = droneId; }
+
+    public DroneDTO getData() { return data; }
+    public void setData(DroneDTO data) { this.data = data; }
+
+    public DroneChangeDTO getChanges() { return changes; }
+    public void setChanges(DroneChangeDTO changes) { this.changes = changes; }
+}
@@ -0,0 +1,26 @@
+/**
+ * Data Transfer Object for one page of a cursor-paginated drone listing
+ * nextCursor is opaque to clients and null on the last page
+ */
+package com.vtoldb.dto;
+
+import java.util.List;
+
+public class DronePageDTO {
+    private List<DroneDTO> items;
+    private String nextCursor;
+
+    public DronePageDTO() {}
+
+    public DronePageDTO(List<DroneDTO> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters and Setters
+    public List<DroneDTO> getItems() { return items; }
+    public void setItems(List<DroneDTO> items) { this.items = items; }
+
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
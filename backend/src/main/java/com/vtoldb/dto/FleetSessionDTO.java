@@ -0,0 +1,43 @@
+/**
+ * Data Transfer Object for a connected worker session
+ * idleMillis is the time since the worker last sent anything
+ */
+package com.vtoldb.dto;
+
+import java.time.Instant;
+
+public class FleetSessionDTO {
+    private String sessionId;
+    private String workerId;
+    private String droneId;
+    private String protocolVersion;
+    private long telemetryInterval;
+    private Instant connectedAt;
+    private long idleMillis;
+    private OutboundQueueDTO outbound;
+
+    // Getters and Setters
+    public String getSessionId() { return sessionId; }
+    public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getWorkerId() { return workerId; }
+    public void setWorkerId(String workerId) { this.workerId = workerId; }
+
+    public String getDroneId() { return droneId; }
+    public void setDroneId(String droneId) { this.droneId = droneId; }
+
+    public String getProtocolVersion() { return protocolVersion; }
+    public void setProtocolVersion(String protocolVersion) { this.protocolVersion = protocolVersion; }
+
+    public long getTelemetryInterval() { return telemetryInterval; }
+    public void setTelemetryInterval(long telemetryInterval) { this.telemetryInterval = telemetryInterval; }
+
+    public Instant getConnectedAt() { return connectedAt; }
+    public void setConnectedAt(Instant connectedAt) { this.connectedAt = connectedAt; }
+
+    public long getIdleMillis() { return idleMillis; }
+    public void setIdleMillis(long idleMillis) { this.idleMillis = idleMillis; }
+
+    public OutboundQueueDTO getOutbound() { return outbound; }
+    public void setOutbound(OutboundQueueDTO outbound) { this.outbound = outbound; }
+}
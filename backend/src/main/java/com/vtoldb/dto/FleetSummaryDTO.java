@@ -0,0 +1,64 @@
+/**
+ * Data Transfer Object for fleet-wide aggregates over live drone state
+ * Bounds and averages are null when no drone reports the underlying value
+ */
+package com.vtoldb.dto;
+
+import com.vtoldb.model.DroneStatus;
+import java.util.Map;
+
+public class FleetSummaryDTO {
+    private long total;
+    private Map<DroneStatus, Long> byStatus;
+    private long withPosition;
+    private Double minLatitude;
+    private Double minLongitude;
+    private Double maxLatitude;
+    private Double maxLongitude;
+    private Double averageAltitude;
+    private Double maxAltitude;
+    private Double averageBattery;
+    private Double minBattery;
+    private long lowBattery;
+    private long stale;
+
+    // Getters and Setters
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+
+    public Map<DroneStatus, Long> getByStatus() { return byStatus; }
+    public void setByStatus(Map<DroneStatus, Long> byStatus) { this.byStatus = byStatus; }
+
+    public long getWithPosition() { return withPosition; }
+    public void setWithPosition(long withPosition) { this.withPosition = withPosition; }
+
+    public Double getMinLatitude() { return minLatitude; }
+    public void setMinLatitude(Double minLatitude) { this.minLatitude = minLatitude; }
+
+    public Double getMinLongitude() { return minLongitude; }
+    public void setMinLongitude(Double minLongitude) { this.minLongitude = minLongitude; }
+
+    public Double getMaxLatitude() { return maxLatitude; }
+    public void setMaxLatitude(Double maxLatitude) { this.maxLatitude = maxLatitude; }
+
+    public Double getMaxLongitude() { return maxLongitude; }
+    public void setMaxLongitude(Double maxLongitude) { this.maxLongitude = maxLongitude; }
+
+    public Double getAverageAltitude() { return averageAltitude; }
+    public void setAverageAltitude(Double averageAltitude) { this.averageAltitude = averageAltitude; }
+
+    public Double getMaxAltitude() { return maxAltitude; }
+    public void setMaxAltitude(Double maxAltitude) { this.maxAltitude = maxAltitude; }
+
+    public Double getAverageBattery() { return averageBattery; }
+    public void setAverageBattery(Double averageBattery) { this.averageBattery = averageBattery; }
+
+    public Double getMinBattery() { return minBattery; }
+    public void setMinBattery(Double minBattery) { this.minBattery = minBattery; }
+
+    public long getLowBattery() { return lowBattery; }
+    public void setLowBattery(long lowBattery) { this.lowBattery = lowBattery; }
+
+    public long getStale() { return stale; }
+    public void setStale(long stale) { this.stale = stale; }
+}
@@ -0,0 +1,94 @@
+/**
+ * Data Transfer Object for the worker ingest lanes
+ * Counters are cumulative since startup; depth is the number of tasks queued right now
+ * shed counts telemetry messages dropped because their session's mailbox was full
+ * telemetryRate is the measured messages per second over the last rate-control period
+ * keyframeRequests counts KEYFRAME_REQUESTs sent after gaps in workers' delta sequences
+ * rollupDropped counts history samples left out of the rollup tiers because aggregation fell behind
+ */
+package com.vtoldb.dto;
+
+import java.util.List;
+
+public class IngestMetricsDTO {
+    private long queued;
+    private long completed;
+    private long failed;
+    private long shed;
+    private double telemetryRate;
+    private double telemetryBudget;
+    private double throttle;
+    private long deltasApplied;
+    private long keyframeRequests;
+    private long rollupDropped;
+    private List<Lane> lanes;
+
+    // Getters and Setters
+    public long getQueued() { return queued; }
+    public void setQueued(long queued) { this.queued = queued; }
+
+    public long getCompleted() { return completed; }
+    public void setCompleted(long completed) { this.completed = completed; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public long getShed() { return shed; }
+    public void setShed(long shed) { this.shed = shed; }
+
+    public double getTelemetryRate() { return telemetryRate; }
+    public void setTelemetryRate(double telemetryRate) { this.telemetryRate = telemetryRate; }
+
+    public double getTelemetryBudget() { return telemetryBudget; }
+    public void setTelemetryBudget(double telemetryBudget) { this.telemetryBudget = telemetryBudget; }
+
+    public double getThrottle() { return throttle; }
+    public void setThrottle(double throttle) { this.throttle = throttle; }
+
+    public long getDeltasApplied() { return deltasApplied; }
+    public void setDeltasApplied(long deltasApplied) { this.deltasApplied = deltasApplied; }
+
+    public long getKeyframeRequests() { return keyframeRequests; }
+    public void setKeyframeRequests(long keyframeRequests) { this.keyframeRequests = keyframeRequests; }
+
+    public long getRollupDropped() { return rollupDropped; }
+    public void setRollupDropped(long rollupDropped) { this.rollupDropped = rollupDropped; }
+
+    public List<Lane> getLanes() { return lanes; }
+    public void setLanes(List<Lane> lanes) { this.lanes = lanes; }
+
+    public static class Lane {
+        private int index;
+        private long depth;
+        private long priorityDepth;
+        private long maxDepth;
+        private long submitted;
+        private long completed;
+        private long failed;
+        private long shed;
+
+        public int getIndex() { return index; }
+        public void setIndex(int index) { this.index = index; }
+
+        public long getDepth() { return depth; }
+        public void setDepth(long depth) { this.depth = depth; }
+
+        public long getPriorityDepth() { return priorityDepth; }
+        public void setPriorityDepth(long priorityDepth) { this.priorityDepth = priorityDepth; }
+
+        public long getMaxDepth() { return maxDepth; }
+        public void setMaxDepth(long maxDepth) { this.maxDepth = maxDepth; }
+
+        public long getSubmitted() { return submitted; }
+        public void setSubmitted(long submitted) { this.submitted = submitted; }
+
+        public long getCompleted() { return completed; }
+        public void setCompleted(long completed) { this.completed = completed; }
+
+        public long getFailed() { return failed; }
+        public void setFailed(long failed) { this.failed = failed; }
+
+        public long getShed() { return shed; }
+        public void setShed(long shed) { this.shed = shed; }
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Data Transfer Object for one worker session's outbound queue
+ * Counters are cumulative for the life of the session; queued and bufferedBytes are right now
+ * replaced counts messages coalesced into a queued message of the same type
+ * sendingMillis is how long the send in progress has taken, 0 when idle
+ */
+package com.vtoldb.dto;
+
+public class OutboundQueueDTO {
+    private int queued;
+    private long bufferedBytes;
+    private long maxBufferedBytes;
+    private long sent;
+    private long sentBytes;
+    private long dropped;
+    private long replaced;
+    private long failed;
+    private long sendingMillis;
+
+    // Getters and Setters
+    public int getQueued() { return queued; }
+    public void setQueued(int queued) { this.queued = queued; }
+
+    public long getBufferedBytes() { return bufferedBytes; }
+    public void setBufferedBytes(long bufferedBytes) { this.bufferedBytes = bufferedBytes; }
+
+    public long getMaxBufferedBytes() { return maxBufferedBytes; }
+    public void setMaxBufferedBytes(long maxBufferedBytes) { this.maxBufferedBytes = maxBufferedBytes; }
+
+    public long getSent() { return sent; }
+    public void setSent(long sent) { this.sent = sent; }
+
+    public long getSentBytes() { return sentBytes; }
+    public void setSentBytes(long sentBytes) { this.sentBytes = sentBytes; }
+
+    public long getDropped() { return dropped; }
+    public void setDropped(long dropped) { this.dropped = dropped; }
+
+    public long getReplaced() { return replaced; }
+    public void setReplaced(long replaced) { this.replaced = replaced; }
+
+    public long getFailed() { return failed; }
+    public void setFailed(long failed) { this.failed = failed; }
+
+    public long getSendingMillis() { return sendingMillis; }
+    public void setSendingMillis(long sendingMillis) { this.sendingMillis = sendingMillis; }
+}
@@ -0,0 +1,70 @@
+/**
+ * Data Transfer Object for telemetry history queries
+ * One field of one drone, bucketed at the requested resolution
+ */
+package com.vtoldb.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TelemetrySeriesDTO {
+    private String droneId;
+    private String field;
+    private String tier;
+    private long resolutionMs;
+    private List<Point> points = new ArrayList<>();
+
+    // Getters and Setters
+    public String getDroneId() { return droneId; }
+    public void setDroneId(String droneId) { this.droneId = droneId; }
+
+    public String getField() { return field; }
+    public void setField(String field) { this.field = field; }
+
+    public String getTier() { return tier; }
+    public void setTier(String tier) { this.tier = tier; }
+
+    public long getResolutionMs() { return resolutionMs; }
+    public void setResolutionMs(long resolutionMs) { this.resolutionMs = resolutionMs; }
+
+    public List<Point> getPoints() { return points; }
+    public void setPoints(List<Point> points) { this.points = points; }
+
+    public static class Point {
+        private long timestamp;
+        private double min;
+        private double max;
+        private double avg;
+        private double last;
+        private long count;
+
+        public Point() {}
+
+        public Point(long timestamp, double min, double max, double avg, double last, long count) {
+            this.timestamp = timestamp;
+            this.min = min;
+            this.max = max;
+            this.avg = avg;
+            this.last = last;
+            this.count = count;
+        }
+
+        public long getTimestamp() { return timestamp; }
+        public void setTimestamp(long timestamp) { this.timestamp = timestamp; }
+
+        public double getMin() { return min; }
+        public void setMin(double min) { this.min = min; }
+
+        public double getMax() { return max; }
+        public void setMax(double max) { this.max = max; }
+
+        public double getAvg() { return avg; }
+        public void setAvg(double avg) { this.avg = avg; }
+
+        public double getLast() { return last; }
+        public void setLast(double last) { this.last = last; }
+
+        public long getCount() { return count; }
+        public void setCount(long count) { this.count = count; }
+    }
+}
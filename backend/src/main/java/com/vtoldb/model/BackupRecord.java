@@ -0,0 +1,65 @@
+/**
+ * Manifest entry describing one backup file
+ * A full backup holds every drone; an incremental holds drones changed in
+ * (fromSequence, toSequence] plus ids deleted in that range, and depends on parentId
+ */
+package com.vtoldb.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class BackupRecord {
+    private long id;
+    private String type;
+    private String fileName;
+    private long createdAt;
+    private String epoch;
+    private long fromSequence;
+    private long toSequence;
+    private Long parentId;
+    private int droneCount;
+    private int deletedCount;
+    private long sizeBytes;
+    private String sha256;
+
+    @JsonIgnore
+    public boolean isFull() {
+        return "full".equals(type);
+    }
+
+    // Getters and Setters
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public long getCreatedAt() { return createdAt; }
+    public void setCreatedAt(long createdAt) { this.createdAt = createdAt; }
+
+    public String getEpoch() { return epoch; }
+    public void setEpoch(String epoch) { this.epoch = epoch; }
+
+    public long getFromSequence() { return fromSequence; }
+    public void setFromSequence(long fromSequence) { this.fromSequence = fromSequence; }
+
+    public long getToSequence() { return toSequence; }
+    public void setToSequence(long toSequence) { this.toSequence = toSequence; }
+
+    public Long getParentId() { return parentId; }
+    public void setParentId(Long parentId) { this.parentId = parentId; }
+
+    public int getDroneCount() { return droneCount; }
+    public void setDroneCount(int droneCount) { this.droneCount = droneCount; }
+
+    public int getDeletedCount() { return deletedCount; }
+    public void setDeletedCount(int deletedCount) { this.deletedCount = deletedCount; }
+
+    public long getSizeBytes() { return sizeBytes; }
+    public void setSizeBytes(long sizeBytes) { this.sizeBytes = sizeBytes; }
+
+    public String getSha256() { return sha256; }
+    public void setSha256(String sha256) { this.sha256 = sha256; }
+}
@@ -6,6 +6,7 @@
 package com.vtoldb.model;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Drone {
@@ -29,6 +30,12 @@ public class Drone {
     private List<String> capabilities;
     private String rtspEndpoint;
 
+    // Incremented by the repository on every write except live-state syncs; used for optimistic concurrency
+    private long version;
+    // Incremented instead of version when telemetry-driven live state is synced back onto the drone,
+    // so a flying drone's ETag only changes when someone edits it
+    private long stateVersion;
+
     // Constructors
     public Drone() {
         this.status = DroneStatus.OFFLINE;
@@ -43,6 +50,29 @@ public class Drone {
         this.serialNumber = serialNumber;
     }
 
+    // Copy used by compare-and-set updates so the cached instance is never mutated in place
+    public Drone(Drone other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.model = other.model;
+        this.serialNumber = other.serialNumber;
+        this.status = other.status;
+        this.lastSeen = other.lastSeen;
+        this.latitude = other.latitude;
+        this.longitude = other.longitude;
+        this.altitude = other.altitude;
+        this.batteryLevel = other.batteryLevel;
+        this.ipAddress = other.ipAddress;
+        this.port = other.port;
+        this.role = other.role;
+        this.protocol = other.protocol;
+        this.connectionType = other.connectionType;
+        this.capabilities = other.capabilities != null ? new ArrayList<>(other.capabilities) : null;
+        this.rtspEndpoint = other.rtspEndpoint;
+        this.version = other.version;
+        this.stateVersion = other.stateVersion;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -95,4 +125,10 @@ public class Drone {
 
     public String getRtspEndpoint() { return rtspEndpoint; }
     public void setRtspEndpoint(String rtspEndpoint) { this.rtspEndpoint = rtspEndpoint; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    public long getStateVersion() { return stateVersion; }
+    public void setStateVersion(long stateVersion) { this.stateVersion = stateVersion; }
 }
@@ -0,0 +1,39 @@
+/**
+ * Numeric telemetry fields kept in the time-series history
+ * The key matches the field's path inside TelemetryPayload
+ */
+package com.vtoldb.model;
+
+public enum TelemetryField {
+    LATITUDE("position.latitude"),
+    LONGITUDE("position.longitude"),
+    ALTITUDE("position.altitude"),
+    HEADING("position.heading"),
+    SPEED("position.speed"),
+    BATTERY_LEVEL("battery.level"),
+    BATTERY_VOLTAGE("battery.voltage"),
+    BATTERY_CURRENT("battery.current"),
+    BATTERY_TEMPERATURE("battery.temperature"),
+    GPS_FIX_TYPE("sensors.gpsFixType"),
+    SATELLITE_COUNT("sensors.satelliteCount"),
+    SIGNAL_STRENGTH("sensors.signalStrength");
+
+    private final String key;
+
+    TelemetryField(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static TelemetryField fromKey(String key) {
+        for (TelemetryField field : values()) {
+            if (field.key.equalsIgnoreCase(key) || field.name().equalsIgnoreCase(key)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown telemetry field: " + key);
+    }
+}
@@ -5,13 +5,50 @@
 package com.vtoldb.repository;
 
 import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface DroneRepository {
     Drone save(Drone drone);
+    // Saves several drones with a single write to the backing store
+    List<Drone> saveAll(List<Drone> drones);
+
+    // Optimistic concurrency: every write increments Drone.version
+    // update runs the mutator on a private copy and retries it if another writer got in first
+    Optional<Drone> update(String id, Consumer<Drone> mutator);
+    List<Drone> updateAll(Collection<String> ids, Consumer<Drone> mutator);
+    // Like updateAll for live state synced from telemetry: bumps Drone.stateVersion instead of
+    // version, so the sync never makes a conditional (If-Match) update fail
+    List<Drone> updateLiveState(Collection<String> ids, Consumer<Drone> mutator);
+    // Throw VersionConflictException when the stored version is not expectedVersion
+    Drone saveIfVersion(Drone drone, long expectedVersion);
+    boolean deleteByIdIfVersion(String id, long expectedVersion);
     Optional<Drone> findById(String id);
     List<Drone> findAll();
     void deleteById(String id);
     boolean existsById(String id);
+
+    // Indexed finders; cost is proportional to the result size
+    List<Drone> findByStatus(DroneStatus status);
+    Optional<Drone> findBySerialNumber(String serialNumber);
+    List<Drone> findByRole(String role);
+    List<Drone> findByConnectionType(String connectionType);
+    List<Drone> findByCapability(String capability);
+    long countByStatus(DroneStatus status);
+    Map<DroneStatus, Long> countAllByStatus();
+
+    // Id-ordered access; afterId == null starts from the beginning
+    List<Drone> findPage(String afterId, int limit);
+    Stream<Drone> streamAll();
+
+    // Change feed for incremental backups; sequences restart (and the epoch changes) with the process
+    String changeEpoch();
+    long currentChangeSequence();
+    List<String> changedIdsBetween(long afterSequence, long upToSequence);
+    void forgetDeletedUpTo(long upToSequence);
 }
@@ -1,12 +1,20 @@
 /**
  * Repository interface for Settings persistence
+ * get() returns a shared snapshot that must be treated as read-only;
+ * changes go through save() or update(), which publish a new snapshot
  */
 package com.vtoldb.repository;
 
 import com.vtoldb.model.settings.AppSettings;
 
+import java.util.function.Consumer;
+
 public interface SettingsRepository {
     AppSettings get();
     AppSettings save(AppSettings settings);
+
+    // Applies the mutator to a private copy of the current snapshot and publishes the result
+    AppSettings update(Consumer<AppSettings> mutator);
+
     void reload();
 }
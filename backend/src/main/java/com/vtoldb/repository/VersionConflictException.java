@@ -0,0 +1,23 @@
+/**
+ * Thrown when a conditional write finds a different drone version than the caller expected
+ */
+package com.vtoldb.repository;
+
+public class VersionConflictException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final String droneId;
+    private final long expectedVersion;
+    private final long currentVersion;
+
+    public VersionConflictException(String droneId, long expectedVersion, long currentVersion) {
+        super("Drone " + droneId + " is at version " + currentVersion + ", expected " + expectedVersion);
+        this.droneId = droneId;
+        this.expectedVersion = expectedVersion;
+        this.currentVersion = currentVersion;
+    }
+
+    public String getDroneId() { return droneId; }
+    public long getExpectedVersion() { return expectedVersion; }
+    public long getCurrentVersion() { return currentVersion; }
+}
@@ -0,0 +1,338 @@
+/**
+ * Scheduled backup engine driven by BackupSettings
+ * Writes gzip-compressed JSON backups on its own thread while saves continue:
+ * a full backup every backup.full-every runs, incrementals in between that contain only
+ * drones changed since the previous backup (found through the repository's change sequences)
+ * Backups are fuzzy rather than point-in-time: drones are read live, so a backup covers every
+ * change up to its toSequence and may also hold later ones. Those are written again by the next
+ * incremental, and applying a drone's newer state twice is harmless
+ * Every file is checksummed (SHA-256) and re-read before it enters the manifest
+ */
+package com.vtoldb.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.BackupRecord;
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.settings.BackupSettings;
+import com.vtoldb.repository.DroneRepository;
+import com.vtoldb.repository.SettingsRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+@Service
+public class BackupService {
+    private static final Logger log = LoggerFactory.getLogger(BackupService.class);
+
+    private static final String MANIFEST_FILE = "manifest.json";
+
+    private final DroneRepository droneRepository;
+    private final SettingsRepository settingsRepository;
+    private final int fullEvery;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService backupExecutor;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    // Set when deletion tombstones were dropped without a full backup; the next backup must be full
+    private boolean tombstonesDropped;
+
+    public BackupService(DroneRepository droneRepository,
+                         SettingsRepository settingsRepository,
+                         @Value("${backup.full-every:7}") int fullEvery) {
+        this.droneRepository = droneRepository;
+        this.settingsRepository = settingsRepository;
+        this.fullEvery = Math.max(1, fullEvery);
+        this.objectMapper.registerModule(new JavaTimeModule());
+        // Drones are streamed one by one into gzip; flushing after each would defeat buffering
+        this.objectMapper.disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.backupExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backup-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Starts a backup once intervalHours have passed since the last one
+    @Scheduled(fixedDelayString = "${backup.check-interval-ms:60000}")
+    public void checkSchedule() {
+        BackupSettings settings = settingsRepository.get().getBackup();
+        if (!settings.isEnabled()) {
+            dropTombstones();
+            return;
+        }
+        List<BackupRecord> manifest = readManifest(Paths.get(settings.getDirectoryPath()));
+        long intervalMs = TimeUnit.HOURS.toMillis(settings.getIntervalHours());
+        if (manifest.isEmpty() || System.currentTimeMillis() - last(manifest).getCreatedAt() >= intervalMs) {
+            trigger();
+        }
+    }
+
+    // Queues a backup on the backup thread; returns false if one is already running
+    public boolean trigger() {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        backupExecutor.execute(() -> {
+            try {
+                runBackup();
+            } catch (Exception e) {
+                log.error("Backup failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    public List<BackupRecord> listBackups() {
+        return readManifest(backupDirectory());
+    }
+
+    // Re-reads every backup in the manifest and compares it with its recorded checksum
+    public synchronized Map<Long, Boolean> verifyAll() {
+        Path directory = backupDirectory();
+        Map<Long, Boolean> results = new LinkedHashMap<>();
+        for (BackupRecord record : readManifest(directory)) {
+            boolean valid = verify(directory.resolve(record.getFileName()), record.getSha256());
+            if (!valid) {
+                log.error("Backup {} failed checksum verification", record.getFileName());
+            }
+            results.put(record.getId(), valid);
+        }
+        return results;
+    }
+
+    synchronized BackupRecord runBackup() throws IOException {
+        BackupSettings settings = settingsRepository.get().getBackup();
+        Path directory = Paths.get(settings.getDirectoryPath());
+        Files.createDirectories(directory);
+
+        List<BackupRecord> manifest = readManifest(directory);
+        BackupRecord previous = manifest.isEmpty() ? null : last(manifest);
+        String epoch = droneRepository.changeEpoch();
+        long upTo = droneRepository.currentChangeSequence();
+        // Sequences restart with the process, so the first backup after a restart is always full
+        boolean full = previous == null
+                || tombstonesDropped
+                || !epoch.equals(previous.getEpoch())
+                || runsSinceFull(manifest) >= fullEvery - 1;
+
+        BackupRecord record = new BackupRecord();
+        record.setId(previous != null ? previous.getId() + 1 : 1);
+        record.setType(full ? "full" : "incremental");
+        record.setFileName(String.format("backup-%06d-%s.json.gz", record.getId(), record.getType()));
+        record.setCreatedAt(System.currentTimeMillis());
+        record.setEpoch(epoch);
+        record.setFromSequence(full ? 0 : previous.getToSequence());
+        record.setToSequence(upTo);
+        record.setParentId(full ? null : previous.getId());
+
+        Path target = directory.resolve(record.getFileName());
+        Path temp = directory.resolve(record.getFileName() + ".tmp");
+        try {
+            record.setSha256(write(temp, record));
+            if (!verify(temp, record.getSha256())) {
+                throw new IOException("Checksum mismatch after writing " + temp);
+            }
+            record.setSizeBytes(Files.size(temp));
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        manifest.add(record);
+        prune(directory, manifest, settings.getRetentionCount());
+        writeManifest(directory, manifest);
+        if (full) {
+            // A full backup records absence directly, so older tombstones are no longer needed
+            droneRepository.forgetDeletedUpTo(upTo);
+            tombstonesDropped = false;
+        }
+
+        log.info("Wrote {} backup {} ({} drones, {} deletions, {} bytes)", record.getType(),
+                record.getFileName(), record.getDroneCount(), record.getDeletedCount(), record.getSizeBytes());
+        return record;
+    }
+
+    // With backups off nothing consumes tombstones, so they are dropped instead of piling up.
+    // Synchronized with runBackup so a manual incremental never loses deletions mid-run
+    private synchronized void dropTombstones() {
+        tombstonesDropped = true;
+        droneRepository.forgetDeletedUpTo(droneRepository.currentChangeSequence());
+    }
+
+    // Streams drones into gzip through a digest; returns the hex SHA-256 of the compressed file
+    private String write(Path file, BackupRecord record) throws IOException {
+        MessageDigest digest = sha256();
+        int drones = 0;
+        int deleted = 0;
+        try (OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+             DigestOutputStream digestOut = new DigestOutputStream(fileOut, digest);
+             GZIPOutputStream gzipOut = new GZIPOutputStream(digestOut);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzipOut)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", record.getType());
+            generator.writeNumberField("createdAt", record.getCreatedAt());
+            generator.writeStringField("epoch", record.getEpoch());
+            generator.writeNumberField("fromSequence", record.getFromSequence());
+            generator.writeNumberField("toSequence", record.getToSequence());
+            generator.writeFieldName("settings");
+            objectMapper.writeValue(generator, settingsRepository.get());
+
+            generator.writeArrayFieldStart("drones");
+            List<String> deletedIds = new ArrayList<>();
+            if (record.isFull()) {
+                try (Stream<Drone> all = droneRepository.streamAll()) {
+                    Iterator<Drone> iterator = all.iterator();
+                    while (iterator.hasNext()) {
+                        objectMapper.writeValue(generator, iterator.next());
+                        drones++;
+                    }
+                }
+            } else {
+                for (String id : droneRepository.changedIdsBetween(record.getFromSequence(), record.getToSequence())) {
+                    Optional<Drone> drone = droneRepository.findById(id);
+                    if (drone.isPresent()) {
+                        objectMapper.writeValue(generator, drone.get());
+                        drones++;
+                    } else {
+                        deletedIds.add(id);
+                    }
+                }
+            }
+            generator.writeEndArray();
+
+            generator.writeArrayFieldStart("deleted");
+            for (String id : deletedIds) {
+                generator.writeString(id);
+            }
+            deleted = deletedIds.size();
+            generator.writeEndArray();
+            generator.writeEndObject();
+        }
+        record.setDroneCount(drones);
+        record.setDeletedCount(deleted);
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Checks the file checksum and that the gzip stream and JSON decode cleanly to the end
+    private boolean verify(Path file, String expectedSha256) {
+        MessageDigest digest = sha256();
+        JsonFactory factory = objectMapper.getFactory();
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(file));
+             DigestInputStream digestIn = new DigestInputStream(fileIn, digest);
+             GZIPInputStream gzipIn = new GZIPInputStream(digestIn);
+             JsonParser parser = factory.createParser(gzipIn)) {
+            // Keep gzipIn open at end of input so the trailer can still be drained below
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            while (parser.nextToken() != null) {
+                // Walk every token; truncation or corruption surfaces as an exception
+            }
+            // Drain the gzip trailer (CRC check) and any bytes the parser left unread
+            gzipIn.transferTo(OutputStream.nullOutputStream());
+            digestIn.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException e) {
+            log.warn("Backup {} is unreadable: {}", file.getFileName(), e.getMessage());
+            return false;
+        }
+        return HexFormat.of().formatHex(digest.digest()).equals(expectedSha256);
+    }
+
+    // Keeps the newest retentionCount backups plus the older ones they depend on
+    private void prune(Path directory, List<BackupRecord> manifest, int retentionCount) {
+        int keepFrom = Math.max(0, manifest.size() - Math.max(1, retentionCount));
+        while (keepFrom > 0 && !manifest.get(keepFrom).isFull()) {
+            keepFrom--;
+        }
+        List<BackupRecord> expired = new ArrayList<>(manifest.subList(0, keepFrom));
+        for (BackupRecord record : expired) {
+            try {
+                Files.deleteIfExists(directory.resolve(record.getFileName()));
+                log.info("Pruned backup {}", record.getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete expired backup {}", record.getFileName(), e);
+            }
+        }
+        manifest.subList(0, keepFrom).clear();
+    }
+
+    private int runsSinceFull(List<BackupRecord> manifest) {
+        int runs = 0;
+        for (int i = manifest.size() - 1; i >= 0 && !manifest.get(i).isFull(); i--) {
+            runs++;
+        }
+        return runs;
+    }
+
+    private List<BackupRecord> readManifest(Path directory) {
+        Path file = directory.resolve(MANIFEST_FILE);
+        if (!Files.exists(file)) {
+            return new ArrayList<>();
+        }
+        try {
+            return new ArrayList<>(objectMapper.readValue(file.toFile(), new TypeReference<List<BackupRecord>>() {}));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read backup manifest " + file, e);
+        }
+    }
+
+    private void writeManifest(Path directory, List<BackupRecord> manifest) throws IOException {
+        Path file = directory.resolve(MANIFEST_FILE);
+        Path temp = directory.resolve(MANIFEST_FILE + ".tmp");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), manifest);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path backupDirectory() {
+        return Paths.get(settingsRepository.get().getBackup().getDirectoryPath());
+    }
+
+    private static BackupRecord last(List<BackupRecord> manifest) {
+        return manifest.get(manifest.size() - 1);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        backupExecutor.shutdown();
+        try {
+            backupExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
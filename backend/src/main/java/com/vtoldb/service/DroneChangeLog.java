@@ -0,0 +1,57 @@
+/**
+ * Bounded in-memory log of drone change events with a global sequence
+ * The newest capacity events are kept in a ring; older ones are overwritten
+ * Sequences restart with the process; the epoch tells consumers when that happened
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.dto.DroneChangeDTO;
+import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneEventDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class DroneChangeLog {
+    private final String epoch = UUID.randomUUID().toString();
+    private final DroneEventDTO[] ring;
+    // Guarded by this; sequence 0 means nothing has been logged yet
+    private long sequence;
+
+    DroneChangeLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Change log capacity must be positive");
+        }
+        this.ring = new DroneEventDTO[capacity];
+    }
+
+    String epoch() {
+        return epoch;
+    }
+
+    synchronized long currentSequence() {
+        return sequence;
+    }
+
+    // Assigns the next sequence under the lock, so log order and sequence order agree
+    synchronized DroneEventDTO append(String updateType, String droneId, DroneDTO data, DroneChangeDTO changes) {
+        DroneEventDTO event = new DroneEventDTO(++sequence, updateType, droneId, data, changes);
+        ring[(int) (sequence % ring.length)] = event;
+        return event;
+    }
+
+    // Events in (afterSequence, current], or null if any of them has been evicted
+    // or there are more than maxEvents of them
+    synchronized List<DroneEventDTO> since(long afterSequence, int maxEvents) {
+        long oldest = Math.max(1, sequence - ring.length + 1);
+        if (afterSequence < oldest - 1 || afterSequence > sequence || sequence - afterSequence > maxEvents) {
+            return null;
+        }
+        List<DroneEventDTO> events = new ArrayList<>((int) (sequence - afterSequence));
+        for (long next = afterSequence + 1; next <= sequence; next++) {
+            events.add(ring[(int) (next % ring.length)]);
+        }
+        return events;
+    }
+}
@@ -4,24 +4,123 @@
  */
 package com.vtoldb.service;
 
+import com.vtoldb.dto.DroneChangeDTO;
+import com.vtoldb.dto.DroneChangeFeedDTO;
 import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneEventDTO;
+import com.vtoldb.dto.DronePageDTO;
+import com.vtoldb.dto.FleetSummaryDTO;
 import com.vtoldb.model.Drone;
 import com.vtoldb.model.DroneStatus;
 import com.vtoldb.repository.DroneRepository;
+import com.vtoldb.storage.fleet.FleetStateTable;
+import com.vtoldb.storage.spatial.GeoGridIndex;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class DroneService {
+    private static final Logger log = LoggerFactory.getLogger(DroneService.class);
+
     private final DroneRepository droneRepository;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private final GeoGridIndex spatialIndex;
+    // Live position, battery, status and last-seen; authoritative over the same fields on Drone
+    private final FleetStateTable fleetState;
+    // Every mutation below is logged here with a global sequence before it is broadcast
+    private final DroneChangeLog changeLog;
+    private final FleetBroadcastService broadcastService;
+    // Striped per-drone locks: a drone's write, its log append and its broadcast happen under one
+    // lock, so each drone's events are logged in the order they were applied
+    private final Object[] droneLocks = new Object[64];
 
-    public DroneService(DroneRepository droneRepository) {
+    public DroneService(DroneRepository droneRepository,
+                        FleetBroadcastService broadcastService,
+                        @Value("${storage.spatial.cell-degrees:0.01}") double cellDegrees,
+                        @Value("${storage.change-log.capacity:10000}") int changeLogCapacity) {
         this.droneRepository = droneRepository;
+        this.broadcastService = broadcastService;
+        this.spatialIndex = new GeoGridIndex(cellDegrees);
+        this.changeLog = new DroneChangeLog(changeLogCapacity);
+        for (int i = 0; i < droneLocks.length; i++) {
+            droneLocks[i] = new Object();
+        }
+        List<Drone> drones = droneRepository.findAll();
+        this.fleetState = new FleetStateTable(drones.size() * 2);
+        drones.forEach(this::indexDrone);
+    }
+
+    private Object lockFor(String droneId) {
+        return droneLocks[Math.floorMod(droneId.hashCode(), droneLocks.length)];
+    }
+
+    // Seeds or replaces a drone's live state and spatial index entry from the entity
+    private void indexDrone(Drone drone) {
+        fleetState.put(drone.getId(), orUnknown(drone.getLatitude()), orUnknown(drone.getLongitude()),
+                orUnknown(drone.getAltitude()), orUnknown(drone.getBatteryLevel()), drone.getStatus(),
+                toMillis(drone.getLastSeen()));
+        indexPosition(drone);
+    }
+
+    // Keeps the spatial index in step with a drone's last known position
+    private void indexPosition(Drone drone) {
+        indexPosition(drone.getId(), orUnknown(drone.getLatitude()), orUnknown(drone.getLongitude()));
+    }
+
+    private void indexPosition(String id, double latitude, double longitude) {
+        // NaN fails every comparison, so unknown positions are removed
+        if (latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180) {
+            spatialIndex.update(id, latitude, longitude);
+        } else {
+            spatialIndex.remove(id);
+        }
+    }
+
+    // Copies the live columns onto the entity before it is persisted
+    private static void applyLiveState(Drone drone, FleetStateTable.Row row) {
+        drone.setLatitude(orNull(row.latitude()));
+        drone.setLongitude(orNull(row.longitude()));
+        drone.setAltitude(orNull(row.altitude()));
+        drone.setBatteryLevel(orNull(row.batteryLevel()));
+        drone.setLastSeen(toDateTime(row.lastSeenMillis()));
+    }
+
+    private static double orUnknown(Double value) {
+        return value != null ? value : FleetStateTable.UNKNOWN;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return millis > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()) : null;
     }
 
     // Converts Drone entity to DTO for API response
@@ -32,11 +131,21 @@ public class DroneService {
         dto.setModel(drone.getModel());
         dto.setSerialNumber(drone.getSerialNumber());
         dto.setStatus(drone.getStatus());
-        dto.setLastSeen(drone.getLastSeen() != null ? drone.getLastSeen().format(dateFormatter) : null);
-        dto.setLatitude(drone.getLatitude());
-        dto.setLongitude(drone.getLongitude());
-        dto.setAltitude(drone.getAltitude());
-        dto.setBatteryLevel(drone.getBatteryLevel());
+        FleetStateTable.Row live = fleetState.get(drone.getId());
+        if (live != null) {
+            LocalDateTime lastSeen = toDateTime(live.lastSeenMillis());
+            dto.setLastSeen(lastSeen != null ? lastSeen.format(dateFormatter) : null);
+            dto.setLatitude(orNull(live.latitude()));
+            dto.setLongitude(orNull(live.longitude()));
+            dto.setAltitude(orNull(live.altitude()));
+            dto.setBatteryLevel(orNull(live.batteryLevel()));
+        } else {
+            dto.setLastSeen(drone.getLastSeen() != null ? drone.getLastSeen().format(dateFormatter) : null);
+            dto.setLatitude(drone.getLatitude());
+            dto.setLongitude(drone.getLongitude());
+            dto.setAltitude(drone.getAltitude());
+            dto.setBatteryLevel(drone.getBatteryLevel());
+        }
         // Networking fields
         dto.setIpAddress(drone.getIpAddress());
         dto.setPort(drone.getPort());
@@ -45,6 +154,7 @@ public class DroneService {
         dto.setConnectionType(drone.getConnectionType());
         dto.setCapabilities(drone.getCapabilities());
         dto.setRtspEndpoint(drone.getRtspEndpoint());
+        dto.setVersion(drone.getVersion());
         return dto;
     }
 
@@ -52,6 +162,12 @@ public class DroneService {
     private Drone toEntity(DroneDTO dto) {
         Drone drone = new Drone();
         drone.setId(dto.getId());
+        applyDTO(dto, drone);
+        return drone;
+    }
+
+    // Copies every client-editable field; id and version stay under repository control
+    private void applyDTO(DroneDTO dto, Drone drone) {
         drone.setName(dto.getName());
         drone.setModel(dto.getModel());
         drone.setSerialNumber(dto.getSerialNumber());
@@ -70,13 +186,21 @@ public class DroneService {
         drone.setConnectionType(dto.getConnectionType());
         drone.setCapabilities(dto.getCapabilities());
         drone.setRtspEndpoint(dto.getRtspEndpoint());
-        return drone;
     }
 
     public DroneDTO createDrone(DroneDTO droneDTO) {
-        Drone drone = toEntity(droneDTO);
-        Drone saved = droneRepository.save(drone);
-        return toDTO(saved);
+        return createDrone(toEntity(droneDTO));
+    }
+
+    // Logs a change and pushes it to dashboards; a failed broadcast never fails the write
+    // Callers hold the drone's lock from the write through to this call
+    private void publish(String updateType, String droneId, DroneDTO data, DroneChangeDTO changes) {
+        DroneEventDTO event = changeLog.append(updateType, droneId, data, changes);
+        try {
+            broadcastService.broadcastDroneEvent(event);
+        } catch (Exception e) {
+            log.error("Failed to broadcast change {} for drone: {}", event.getSequence(), droneId, e);
+        }
     }
 
     public List<DroneDTO> getAllDrones() {
@@ -85,6 +209,93 @@ public class DroneService {
                 .collect(Collectors.toList());
     }
 
+    // Pages are ordered by drone id; the cursor encodes the last id of the previous page
+    public DronePageDTO getDronePage(String cursor, int limit) {
+        String afterId = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+        List<Drone> drones = droneRepository.findPage(afterId, limit + 1);
+        boolean more = drones.size() > limit;
+        List<DroneDTO> items = drones.stream()
+                .limit(limit)
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+        String nextCursor = more ? encodeCursor(items.get(items.size() - 1).getId()) : null;
+        return new DronePageDTO(items, nextCursor);
+    }
+
+    // Lazily converts drones in id order; callers must consume it before the request ends
+    public Stream<DroneDTO> streamDrones() {
+        return droneRepository.streamAll().map(this::toDTO);
+    }
+
+    private static String encodeCursor(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // Uses one secondary index to find candidates and filters them by the remaining criteria
+    public List<DroneDTO> findDrones(DroneStatus status, String role, String connectionType, String capability) {
+        List<Drone> candidates;
+        if (status != null) {
+            candidates = droneRepository.findByStatus(status);
+        } else if (capability != null) {
+            candidates = droneRepository.findByCapability(capability);
+        } else if (role != null) {
+            candidates = droneRepository.findByRole(role);
+        } else if (connectionType != null) {
+            candidates = droneRepository.findByConnectionType(connectionType);
+        } else {
+            candidates = droneRepository.findAll();
+        }
+        return candidates.stream()
+                .filter(drone -> status == null || drone.getStatus() == status)
+                .filter(drone -> role == null || role.equals(drone.getRole()))
+                .filter(drone -> connectionType == null || connectionType.equals(drone.getConnectionType()))
+                .filter(drone -> capability == null
+                        || (drone.getCapabilities() != null && drone.getCapabilities().contains(capability)))
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    public DroneDTO getDroneBySerialNumber(String serialNumber) {
+        return droneRepository.findBySerialNumber(serialNumber)
+                .map(this::toDTO)
+                .orElse(null);
+    }
+
+    public Map<DroneStatus, Long> getStatusCounts() {
+        return droneRepository.countAllByStatus();
+    }
+
+    // Drones whose last position lies in the box; minLongitude > maxLongitude wraps the antimeridian
+    public List<DroneDTO> findDronesInBox(double minLatitude, double minLongitude,
+                                          double maxLatitude, double maxLongitude) {
+        return resolveHits(spatialIndex.withinBox(minLatitude, minLongitude, maxLatitude, maxLongitude));
+    }
+
+    // Drones within radiusMeters of the point, nearest first
+    public List<DroneDTO> findDronesWithinRadius(double latitude, double longitude, double radiusMeters) {
+        return resolveHits(spatialIndex.withinRadius(latitude, longitude, radiusMeters));
+    }
+
+    public List<DroneDTO> findNearestDrones(double latitude, double longitude, int count) {
+        return resolveHits(spatialIndex.nearest(latitude, longitude, count));
+    }
+
+    private List<DroneDTO> resolveHits(List<GeoGridIndex.Hit> hits) {
+        return hits.stream()
+                .map(hit -> droneRepository.findById(hit.id()))
+                .flatMap(Optional::stream)
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+    }
+
     public DroneDTO getDroneById(String id) {
         return droneRepository.findById(id)
                 .map(this::toDTO)
@@ -92,35 +303,291 @@ public class DroneService {
     }
 
     public DroneDTO updateDrone(String id, DroneDTO droneDTO) {
-        if (!droneRepository.existsById(id)) {
+        return updateDrone(id, droneDTO, null);
+    }
+
+    // With expectedVersion (from If-Match) the update fails with VersionConflictException
+    // unless the stored drone is still at that version; returns null if the drone does not exist
+    public DroneDTO updateDrone(String id, DroneDTO droneDTO, Long expectedVersion) {
+        droneDTO.setId(id);
+        synchronized (lockFor(id)) {
+            return applyUpdate(id, droneDTO, expectedVersion);
+        }
+    }
+
+    private DroneDTO applyUpdate(String id, DroneDTO droneDTO, Long expectedVersion) {
+        Drone updated;
+        if (expectedVersion == null) {
+            updated = droneRepository.update(id, drone -> applyDTO(droneDTO, drone)).orElse(null);
+        } else if (droneRepository.existsById(id)) {
+            updated = droneRepository.saveIfVersion(toEntity(droneDTO), expectedVersion);
+        } else {
+            updated = null;
+        }
+        if (updated == null) {
             return null;
         }
-        droneDTO.setId(id);
-        Drone drone = toEntity(droneDTO);
-        Drone updated = droneRepository.save(drone);
-        return toDTO(updated);
+        indexDrone(updated);
+        DroneDTO dto = toDTO(updated);
+        publish(DroneEventDTO.UPDATED, id, dto, null);
+        return dto;
     }
 
     public boolean deleteDrone(String id) {
-        if (!droneRepository.existsById(id)) {
+        return deleteDrone(id, null);
+    }
+
+    public boolean deleteDrone(String id, Long expectedVersion) {
+        synchronized (lockFor(id)) {
+            return applyDelete(id, expectedVersion);
+        }
+    }
+
+    private boolean applyDelete(String id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            if (!droneRepository.deleteByIdIfVersion(id, expectedVersion)) {
+                return false;
+            }
+        } else if (droneRepository.existsById(id)) {
+            droneRepository.deleteById(id);
+        } else {
             return false;
         }
-        droneRepository.deleteById(id);
+        spatialIndex.remove(id);
+        fleetState.remove(id);
+        publish(DroneEventDTO.DELETED, id, null, null);
         return true;
     }
 
     // Create drone from entity (for WebSocket registration)
     public DroneDTO createDrone(Drone drone) {
-        Drone saved = droneRepository.save(drone);
-        return toDTO(saved);
+        // The id is needed up front to pick the lock
+        if (drone.getId() == null || drone.getId().isEmpty()) {
+            drone.setId(UUID.randomUUID().toString());
+        }
+        synchronized (lockFor(drone.getId())) {
+            Drone saved = droneRepository.save(drone);
+            indexDrone(saved);
+            DroneDTO dto = toDTO(saved);
+            publish(DroneEventDTO.CREATED, saved.getId(), dto, null);
+            return dto;
+        }
     }
 
-    // Update drone status (for WebSocket handlers)
-    public void updateDroneStatus(String droneId, DroneStatus status) {
-        droneRepository.findById(droneId).ifPresent(drone -> {
+    // Live position, battery and status straight from the fleet state table, or null if unknown
+    public FleetStateTable.Row getLiveState(String droneId) {
+        return fleetState.get(droneId);
+    }
+
+    // Update drone status (for WebSocket handlers); returns false if the drone does not exist
+    public boolean updateDroneStatus(String droneId, DroneStatus status) {
+        synchronized (lockFor(droneId)) {
+            Optional<Drone> updated = persistStatus(droneId, status);
+            updated.ifPresent(drone -> publish(DroneEventDTO.UPDATED, droneId, toDTO(drone), null));
+            return updated.isPresent();
+        }
+    }
+
+    private Optional<Drone> persistStatus(String droneId, DroneStatus status) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Drone> updated = droneRepository.update(droneId, drone -> {
+            FleetStateTable.Row live = fleetState.get(droneId);
+            if (live != null) {
+                applyLiveState(drone, live);
+            }
             drone.setStatus(status);
-            drone.setLastSeen(LocalDateTime.now());
-            droneRepository.save(drone);
+            drone.setLastSeen(now);
+        });
+        updated.ifPresent(drone -> fleetState.update(droneId, FleetStateTable.UNKNOWN, FleetStateTable.UNKNOWN,
+                FleetStateTable.UNKNOWN, FleetStateTable.UNKNOWN, status, toMillis(now)));
+        return updated;
+    }
+
+    // Telemetry fast path: writes the sample's values into the fleet state table in place, without
+    // loading, copying or saving the Drone entity. Status changes are persisted immediately since
+    // the status index depends on them. Non-empty changes are logged and broadcast.
+    // Returns only the fields that changed, or null for unknown drones
+    public DroneChangeDTO applyTelemetry(String droneId, TelemetryPayload telemetry) {
+        DroneChangeDTO change = new DroneChangeDTO();
+        synchronized (lockFor(droneId)) {
+            if (!applySample(droneId, telemetry, change)) {
+                return null;
+            }
+            commitChange(droneId, change);
+        }
+        return change;
+    }
+
+    // Applies each drone's samples in order, then indexes, persists and broadcasts its net change once.
+    // Returns the net change per known drone; samples for unknown drones are skipped
+    public Map<String, DroneChangeDTO> applyTelemetryBatch(List<TelemetryPayload> samples) {
+        Map<String, List<TelemetryPayload>> byDrone = new LinkedHashMap<>();
+        for (TelemetryPayload sample : samples) {
+            if (sample.getDroneId() != null) {
+                byDrone.computeIfAbsent(sample.getDroneId(), id -> new ArrayList<>()).add(sample);
+            }
+        }
+        Map<String, DroneChangeDTO> changes = new LinkedHashMap<>();
+        byDrone.forEach((droneId, droneSamples) -> {
+            DroneChangeDTO change = new DroneChangeDTO();
+            synchronized (lockFor(droneId)) {
+                for (TelemetryPayload sample : droneSamples) {
+                    if (!applySample(droneId, sample, change)) {
+                        return;
+                    }
+                }
+                commitChange(droneId, change);
+            }
+            changes.put(droneId, change);
+        });
+        return changes;
+    }
+
+    // Writes one sample into the fleet state table and folds the fields it changed into change,
+    // so later samples overwrite earlier ones; returns false for unknown drones
+    private boolean applySample(String droneId, TelemetryPayload telemetry, DroneChangeDTO change) {
+        double latitude = FleetStateTable.UNKNOWN;
+        double longitude = FleetStateTable.UNKNOWN;
+        double altitude = FleetStateTable.UNKNOWN;
+        double batteryLevel = FleetStateTable.UNKNOWN;
+        TelemetryPayload.Position position = telemetry.getPosition();
+        if (position != null) {
+            latitude = orUnknown(position.getLatitude());
+            longitude = orUnknown(position.getLongitude());
+            altitude = orUnknown(position.getAltitude());
+        }
+        if (telemetry.getBattery() != null) {
+            batteryLevel = orUnknown(telemetry.getBattery().getLevel());
+        }
+        DroneStatus status = parseStatus(telemetry.getStatus());
+        // Last-seen is when the server received the sample: a worker clock running ahead would pin it
+        // in the future. The worker's own timestamp is only used for history
+        long timestamp = System.currentTimeMillis();
+
+        int changed = fleetState.update(droneId, latitude, longitude, altitude, batteryLevel, status, timestamp);
+        if (changed == FleetStateTable.NOT_FOUND) {
+            return false;
+        }
+        if (changed == 0) {
+            return true;
+        }
+        if ((changed & FleetStateTable.CHANGED_STATUS) != 0) change.setStatus(status);
+        if ((changed & FleetStateTable.CHANGED_LATITUDE) != 0) change.setLatitude(latitude);
+        if ((changed & FleetStateTable.CHANGED_LONGITUDE) != 0) change.setLongitude(longitude);
+        if ((changed & FleetStateTable.CHANGED_ALTITUDE) != 0) change.setAltitude(altitude);
+        if ((changed & FleetStateTable.CHANGED_BATTERY) != 0) change.setBatteryLevel(batteryLevel);
+        change.setLastSeenMillis(timestamp);
+        return true;
+    }
+
+    // Updates the spatial index, persists a status change and publishes the change
+    private void commitChange(String droneId, DroneChangeDTO change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        if (change.getLatitude() != null && change.getLongitude() != null) {
+            indexPosition(droneId, change.getLatitude(), change.getLongitude());
+        } else if (change.getLatitude() != null || change.getLongitude() != null) {
+            // Only one coordinate changed; the other comes from the table
+            FleetStateTable.Row row = fleetState.get(droneId);
+            if (row != null) {
+                indexPosition(droneId, row.latitude(), row.longitude());
+            }
+        }
+        if (change.getStatus() != null) {
+            persistStatus(droneId, change.getStatus());
+        }
+        publish(DroneEventDTO.TELEMETRY, droneId, null, change);
+    }
+
+    private static DroneStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return DroneStatus.valueOf(status);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid status in telemetry: {}", status);
+            return null;
+        }
+    }
+
+    // Copies rows changed by telemetry back onto their Drone entities in one batched save
+    @Scheduled(fixedDelayString = "${storage.fleet-state.sync-interval-ms:5000}")
+    public void syncFleetState() {
+        Map<String, FleetStateTable.Row> rows = new HashMap<>();
+        Map<String, Long> versions = new HashMap<>();
+        fleetState.forEachDirty((row, version) -> {
+            rows.put(row.id(), row);
+            versions.put(row.id(), version);
         });
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<Drone> changed;
+        try {
+            changed = droneRepository.updateLiveState(rows.keySet(),
+                    drone -> applyLiveState(drone, rows.get(drone.getId())));
+        } catch (RuntimeException e) {
+            log.error("Failed to persist live state for {} drones", rows.size(), e);
+            return;
+        }
+        for (Drone drone : changed) {
+            fleetState.markClean(drone.getId(), versions.get(drone.getId()));
+        }
+        log.debug("Persisted live state for {} drones", changed.size());
+    }
+
+    // Single pass over the fleet state columns
+    public FleetSummaryDTO getFleetSummary(double lowBatteryThreshold, long staleAfterMs) {
+        FleetStateTable.Summary summary = fleetState.summarize(lowBatteryThreshold,
+                System.currentTimeMillis() - staleAfterMs);
+        Map<DroneStatus, Long> byStatus = new EnumMap<>(DroneStatus.class);
+        for (DroneStatus status : DroneStatus.values()) {
+            byStatus.put(status, summary.getStatusCount(status));
+        }
+        FleetSummaryDTO dto = new FleetSummaryDTO();
+        dto.setTotal(summary.getTotal());
+        dto.setByStatus(byStatus);
+        dto.setWithPosition(summary.getWithPosition());
+        dto.setMinLatitude(orNull(summary.getMinLatitude()));
+        dto.setMinLongitude(orNull(summary.getMinLongitude()));
+        dto.setMaxLatitude(orNull(summary.getMaxLatitude()));
+        dto.setMaxLongitude(orNull(summary.getMaxLongitude()));
+        dto.setAverageAltitude(orNull(summary.getAverageAltitude()));
+        dto.setMaxAltitude(orNull(summary.getMaxAltitude()));
+        dto.setAverageBattery(orNull(summary.getAverageBattery()));
+        dto.setMinBattery(orNull(summary.getMinBattery()));
+        dto.setLowBattery(summary.getLowBattery());
+        dto.setStale(summary.getStale());
+        return dto;
+    }
+
+    // Changes after sinceSequence from this epoch, or the whole fleet when the caller has no
+    // position, the epoch changed, the events were evicted, or there are more events than drones
+    public DroneChangeFeedDTO getChangesSince(Long sinceSequence, String epoch) {
+        DroneChangeFeedDTO feed = new DroneChangeFeedDTO();
+        feed.setEpoch(changeLog.epoch());
+        if (sinceSequence != null && changeLog.epoch().equals(epoch)) {
+            List<DroneEventDTO> changes = changeLog.since(sinceSequence, Math.max(fleetState.size(), 1));
+            if (changes != null) {
+                feed.setSequence(changes.isEmpty() ? sinceSequence : changes.get(changes.size() - 1).getSequence());
+                feed.setChanges(changes);
+                return feed;
+            }
+        }
+        // Read the sequence first: changes racing with the snapshot are replayed on top of it.
+        // That is harmless because events carry absolute values and each drone's events are
+        // logged in apply order, under the drone's lock, so a replay never rolls a drone back
+        feed.setSequence(changeLog.currentSequence());
+        feed.setReset(true);
+        feed.setDrones(getAllDrones());
+        return feed;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // Runs before the repository closes, so the last telemetry is persisted
+        syncFleetState();
     }
 }
@@ -1,6 +1,7 @@
 package com.vtoldb.service;
 
 import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneEventDTO;
 import com.vtoldb.websocket.protocol.FleetMessage;
 import com.vtoldb.websocket.protocol.MessageType;
 import org.slf4j.Logger;
@@ -25,42 +26,12 @@ public class FleetBroadcastService {
         this.messagingTemplate = messagingTemplate;
     }
 
-    public void broadcastDroneUpdate(DroneDTO drone) {
-        Map<String, Object> payload = Map.of(
-            "updateType", "DRONE_UPDATED",
-            "droneId", drone.getId(),
-            "data", drone
-        );
-
-        FleetMessage<Map<String, Object>> message = FleetMessage.of(MessageType.UPDATE, "drones", payload);
-        messagingTemplate.convertAndSend(TOPIC_DRONES, message);
-
-        log.debug("Broadcast drone update for: {}", drone.getId());
-    }
-
-    public void broadcastDroneCreated(DroneDTO drone) {
-        Map<String, Object> payload = Map.of(
-            "updateType", "DRONE_CREATED",
-            "droneId", drone.getId(),
-            "data", drone
-        );
-
-        FleetMessage<Map<String, Object>> message = FleetMessage.of(MessageType.UPDATE, "drones", payload);
-        messagingTemplate.convertAndSend(TOPIC_DRONES, message);
-
-        log.debug("Broadcast drone created: {}", drone.getId());
-    }
-
-    public void broadcastDroneDeleted(String droneId) {
-        Map<String, Object> payload = Map.of(
-            "updateType", "DRONE_DELETED",
-            "droneId", droneId
-        );
-
-        FleetMessage<Map<String, Object>> message = FleetMessage.of(MessageType.UPDATE, "drones", payload);
+    // Every drone change goes out with its change log sequence so dashboards can detect gaps
+    public void broadcastDroneEvent(DroneEventDTO event) {
+        FleetMessage<DroneEventDTO> message = FleetMessage.of(MessageType.UPDATE, "drones", event);
         messagingTemplate.convertAndSend(TOPIC_DRONES, message);
 
-        log.debug("Broadcast drone deleted: {}", droneId);
+        log.debug("Broadcast {} #{} for: {}", event.getUpdateType(), event.getSequence(), event.getDroneId());
     }
 
     public void broadcastFleetSnapshot(List<DroneDTO> drones) {
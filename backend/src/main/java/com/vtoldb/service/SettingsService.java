@@ -32,16 +32,13 @@ public class SettingsService {
     }
 
     public SettingsDTO updateSettings(SettingsDTO dto) {
-        AppSettings current = settingsRepository.get();
-        AppSettings updated = mergeFromDTO(current, dto);
-        AppSettings saved = settingsRepository.save(updated);
+        AppSettings saved = settingsRepository.update(draft -> mergeFromDTO(draft, dto));
         logger.info("Settings updated");
         return toDTO(saved);
     }
 
     public SettingsDTO resetToDefaults() {
-        AppSettings defaults = new AppSettings();
-        settingsRepository.save(defaults);
+        AppSettings defaults = settingsRepository.save(new AppSettings());
         logger.info("Settings reset to defaults");
         return toDTO(defaults);
     }
@@ -51,9 +48,7 @@ public class SettingsService {
         secureRandom.nextBytes(bytes);
         String key = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
 
-        AppSettings settings = settingsRepository.get();
-        settings.getSecurity().setWorkerAuthKey(key);
-        settingsRepository.save(settings);
+        settingsRepository.update(draft -> draft.getSecurity().setWorkerAuthKey(key));
 
         logger.info("Generated new worker auth key");
         return key;
@@ -116,7 +111,7 @@ public class SettingsService {
         return dto;
     }
 
-    // Merge DTO changes into existing settings (null means no change)
+    // Merge DTO changes into a draft copy of the settings (null means no change)
     private AppSettings mergeFromDTO(AppSettings current, SettingsDTO dto) {
         if (dto.getDatabase() != null) {
             mergeDatabaseSettings(current.getDatabase(), dto.getDatabase());
@@ -0,0 +1,328 @@
+/**
+ * Per-drone telemetry history backed by compressed time-series chunks
+ * Keeps every numeric TelemetryPayload field, not just the latest Drone state
+ * Raw samples are rolled up into 1m and 15m min/max/avg/last tiers on a background thread,
+ * so ingest only pays for the raw append; queries read the coarsest tier that still
+ * satisfies the requested resolution. If that thread falls behind, samples skip the
+ * rollups (the raw tier still has them) rather than hold up ingest
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.dto.TelemetrySeriesDTO;
+import com.vtoldb.model.TelemetryField;
+import com.vtoldb.storage.timeseries.ChunkedSeriesStore;
+import com.vtoldb.storage.timeseries.RollupAggregator;
+import com.vtoldb.storage.timeseries.SeriesChunk;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class TelemetryHistoryService {
+    private static final Logger log = LoggerFactory.getLogger(TelemetryHistoryService.class);
+
+    private static final TelemetryField[] FIELDS = TelemetryField.values();
+    private static final int ROLLUP_COLUMNS = FIELDS.length * RollupAggregator.STATS_PER_FIELD;
+
+    // Buckets are sealed once their end is this far in the past, leaving room for slightly late samples
+    private static final long SEAL_GRACE_MS = 60_000;
+
+    private final boolean enabled;
+    private final ChunkedSeriesStore rawStore;
+    private final List<Tier> tiers = new ArrayList<>();
+    private final RollupAggregator minuteRollup;
+    private final RollupAggregator quarterHourRollup;
+    private final ExecutorService rollupExecutor;
+    private final AtomicLong rollupDropped = new AtomicLong();
+
+    // A resolution level of the history; bucketMs is 0 for the raw tier
+    private record Tier(String name, long bucketMs, long retentionDays, ChunkedSeriesStore store) {}
+
+    public TelemetryHistoryService(
+            @Value("${telemetry.history.enabled:true}") boolean enabled,
+            @Value("${telemetry.history.path:./data/telemetry}") String path,
+            @Value("${telemetry.history.chunk-size:64}") int chunkSize,
+            @Value("${telemetry.history.max-chunk-age-ms:600000}") long maxChunkAgeMs,
+            @Value("${telemetry.history.retention-days:14}") long retentionDays,
+            @Value("${telemetry.history.rollup.enabled:true}") boolean rollupEnabled,
+            @Value("${telemetry.history.rollup.minute-retention-days:90}") long minuteRetentionDays,
+            @Value("${telemetry.history.rollup.quarter-hour-retention-days:730}") long quarterHourRetentionDays,
+            @Value("${telemetry.history.rollup.queue-capacity:8192}") int rollupQueueCapacity) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.rawStore = null;
+            this.minuteRollup = null;
+            this.quarterHourRollup = null;
+            this.rollupExecutor = null;
+            return;
+        }
+
+        Path base = Paths.get(path);
+        this.rawStore = new ChunkedSeriesStore(base.resolve("raw"), FIELDS.length, chunkSize, maxChunkAgeMs);
+        tiers.add(new Tier("raw", 0, retentionDays, rawStore));
+
+        if (rollupEnabled) {
+            long minuteMs = TimeUnit.MINUTES.toMillis(1);
+            long quarterHourMs = TimeUnit.MINUTES.toMillis(15);
+            // A rollup tier gets one bucket per bucket width, so its max chunk age grows with the width;
+            // otherwise the 15m tier would seal chunks of a single sample that gain nothing from compression
+            ChunkedSeriesStore minuteStore = new ChunkedSeriesStore(
+                    base.resolve("1m"), ROLLUP_COLUMNS, chunkSize, maxChunkAgeMs);
+            ChunkedSeriesStore quarterHourStore = new ChunkedSeriesStore(
+                    base.resolve("15m"), ROLLUP_COLUMNS, chunkSize, maxChunkAgeMs * (quarterHourMs / minuteMs));
+            tiers.add(new Tier("1m", minuteMs, minuteRetentionDays, minuteStore));
+            tiers.add(new Tier("15m", quarterHourMs, quarterHourRetentionDays, quarterHourStore));
+
+            this.quarterHourRollup = new RollupAggregator(quarterHourMs, FIELDS.length, quarterHourStore, null);
+            this.minuteRollup = new RollupAggregator(minuteMs, FIELDS.length, minuteStore, quarterHourRollup);
+            this.rollupExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(rollupQueueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "telemetry-rollup");
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    (task, executor) -> {
+                        if (executor.isShutdown()) {
+                            throw new RejectedExecutionException("Telemetry rollup has shut down");
+                        }
+                        // Never blocks the ingest lane; the sample is already in the raw tier
+                        if (rollupDropped.incrementAndGet() == 1) {
+                            log.warn("Telemetry rollup queue is full; samples now skip the 1m and 15m tiers until it drains");
+                        }
+                    });
+        } else {
+            this.minuteRollup = null;
+            this.quarterHourRollup = null;
+            this.rollupExecutor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Samples left out of the rollup tiers because the rollup thread had fallen behind
+    public long getRollupDropped() {
+        return rollupDropped.get();
+    }
+
+    public void record(String droneId, long timestamp, TelemetryPayload telemetry) {
+        if (!enabled) {
+            return;
+        }
+        double[] values = new double[FIELDS.length];
+        Arrays.fill(values, Double.NaN);
+
+        TelemetryPayload.Position position = telemetry.getPosition();
+        if (position != null) {
+            values[TelemetryField.LATITUDE.ordinal()] = valueOf(position.getLatitude());
+            values[TelemetryField.LONGITUDE.ordinal()] = valueOf(position.getLongitude());
+            values[TelemetryField.ALTITUDE.ordinal()] = valueOf(position.getAltitude());
+            values[TelemetryField.HEADING.ordinal()] = valueOf(position.getHeading());
+            values[TelemetryField.SPEED.ordinal()] = valueOf(position.getSpeed());
+        }
+        TelemetryPayload.Battery battery = telemetry.getBattery();
+        if (battery != null) {
+            values[TelemetryField.BATTERY_LEVEL.ordinal()] = valueOf(battery.getLevel());
+            values[TelemetryField.BATTERY_VOLTAGE.ordinal()] = valueOf(battery.getVoltage());
+            values[TelemetryField.BATTERY_CURRENT.ordinal()] = valueOf(battery.getCurrent());
+            values[TelemetryField.BATTERY_TEMPERATURE.ordinal()] = valueOf(battery.getTemperature());
+        }
+        TelemetryPayload.Sensors sensors = telemetry.getSensors();
+        if (sensors != null) {
+            values[TelemetryField.GPS_FIX_TYPE.ordinal()] = valueOf(sensors.getGpsFixType());
+            values[TelemetryField.SATELLITE_COUNT.ordinal()] = valueOf(sensors.getSatelliteCount());
+            values[TelemetryField.SIGNAL_STRENGTH.ordinal()] = valueOf(sensors.getSignalStrength());
+        }
+
+        rawStore.append(droneId, timestamp, values);
+        if (minuteRollup != null) {
+            // One thread keeps each drone's samples in arrival order, which the buckets rely on
+            rollupExecutor.execute(() -> minuteRollup.addSample(droneId, timestamp, values));
+        }
+    }
+
+    // Raw samples for one drone; column i of each chunk is TelemetryField.values()[i]
+    public List<SeriesChunk> readRaw(String droneId, long from, long to) {
+        if (!enabled) {
+            return List.of();
+        }
+        return rawStore.read(droneId, from, to);
+    }
+
+    // resolutionMs of 0 returns raw samples; larger values are served from the coarsest tier that fits
+    public TelemetrySeriesDTO query(String droneId, TelemetryField field, long from, long to, long resolutionMs) {
+        TelemetrySeriesDTO series = new TelemetrySeriesDTO();
+        series.setDroneId(droneId);
+        series.setField(field.getKey());
+        if (!enabled) {
+            series.setTier("disabled");
+            return series;
+        }
+
+        Tier tier = selectTier(from, resolutionMs);
+        long effectiveResolution = Math.max(resolutionMs, tier.bucketMs());
+        series.setTier(tier.name());
+        series.setResolutionMs(effectiveResolution);
+
+        List<TelemetrySeriesDTO.Point> points = readPoints(tier, droneId, field, from, to);
+        series.setPoints(effectiveResolution > 0 ? rebucket(points, effectiveResolution) : points);
+        return series;
+    }
+
+    public List<TelemetrySeriesDTO> query(List<String> droneIds, TelemetryField field, long from, long to, long resolutionMs) {
+        return droneIds.stream()
+                .map(droneId -> query(droneId, field, from, to, resolutionMs))
+                .toList();
+    }
+
+    // Coarsest tier no wider than the resolution; falls back to coarser tiers when retention has dropped `from`
+    private Tier selectTier(long from, long resolutionMs) {
+        int selected = 0;
+        for (int i = 1; i < tiers.size(); i++) {
+            if (tiers.get(i).bucketMs() <= resolutionMs) {
+                selected = i;
+            }
+        }
+        long now = System.currentTimeMillis();
+        while (selected < tiers.size() - 1
+                && from < now - TimeUnit.DAYS.toMillis(tiers.get(selected).retentionDays())) {
+            selected++;
+        }
+        return tiers.get(selected);
+    }
+
+    private List<TelemetrySeriesDTO.Point> readPoints(Tier tier, String droneId, TelemetryField field, long from, long to) {
+        boolean raw = tier.bucketMs() == 0;
+        long start = raw ? from : Math.floorDiv(from, tier.bucketMs()) * tier.bucketMs();
+        int base = field.ordinal() * RollupAggregator.STATS_PER_FIELD;
+
+        List<TelemetrySeriesDTO.Point> points = new ArrayList<>();
+        for (SeriesChunk chunk : tier.store().read(droneId, start, to)) {
+            for (int i = 0; i < chunk.getCount(); i++) {
+                long timestamp = chunk.getTimestamp(i);
+                if (timestamp < start || timestamp > to) {
+                    continue;
+                }
+                if (raw) {
+                    double value = chunk.getValue(field.ordinal(), i);
+                    if (!Double.isNaN(value)) {
+                        points.add(new TelemetrySeriesDTO.Point(timestamp, value, value, value, value, 1));
+                    }
+                } else {
+                    long count = (long) chunk.getValue(base + RollupAggregator.COUNT, i);
+                    if (count > 0) {
+                        points.add(new TelemetrySeriesDTO.Point(timestamp,
+                                chunk.getValue(base + RollupAggregator.MIN, i),
+                                chunk.getValue(base + RollupAggregator.MAX, i),
+                                chunk.getValue(base + RollupAggregator.AVG, i),
+                                chunk.getValue(base + RollupAggregator.LAST, i),
+                                count));
+                    }
+                }
+            }
+        }
+        points.sort(Comparator.comparingLong(TelemetrySeriesDTO.Point::getTimestamp));
+        return points;
+    }
+
+    // Merges sorted points into resolution-wide buckets; also folds duplicate buckets left by a restart
+    private static List<TelemetrySeriesDTO.Point> rebucket(List<TelemetrySeriesDTO.Point> points, long resolutionMs) {
+        List<TelemetrySeriesDTO.Point> merged = new ArrayList<>();
+        TelemetrySeriesDTO.Point current = null;
+        double sum = 0;
+        for (TelemetrySeriesDTO.Point point : points) {
+            long bucket = Math.floorDiv(point.getTimestamp(), resolutionMs) * resolutionMs;
+            if (current == null || current.getTimestamp() != bucket) {
+                if (current != null) {
+                    current.setAvg(sum / current.getCount());
+                }
+                current = new TelemetrySeriesDTO.Point(bucket, point.getMin(), point.getMax(), 0, point.getLast(), 0);
+                sum = 0;
+                merged.add(current);
+            }
+            current.setMin(Math.min(current.getMin(), point.getMin()));
+            current.setMax(Math.max(current.getMax(), point.getMax()));
+            current.setLast(point.getLast());
+            current.setCount(current.getCount() + point.getCount());
+            sum += point.getAvg() * point.getCount();
+        }
+        if (current != null) {
+            current.setAvg(sum / current.getCount());
+        }
+        return merged;
+    }
+
+    @Scheduled(fixedDelayString = "${telemetry.history.flush-check-interval:30000}")
+    public void flushIdleChunks() {
+        if (!enabled) {
+            return;
+        }
+        if (minuteRollup != null) {
+            // Seal buckets of drones that stopped reporting; the 15m tier waits for the last minute to land
+            long now = System.currentTimeMillis();
+            minuteRollup.sealBefore(now - SEAL_GRACE_MS);
+            quarterHourRollup.sealBefore(now - 2 * SEAL_GRACE_MS);
+        }
+        for (Tier tier : tiers) {
+            tier.store().flushIdle();
+        }
+    }
+
+    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void applyRetention() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Tier tier : tiers) {
+            int deleted = tier.store().deleteOlderThan(now - TimeUnit.DAYS.toMillis(tier.retentionDays()));
+            if (deleted > 0) {
+                log.info("Telemetry retention removed {} {} day files", deleted, tier.name());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) {
+            return;
+        }
+        // Partial buckets are written now; a restart inside the same bucket is merged at query time
+        if (minuteRollup != null) {
+            rollupExecutor.shutdown();
+            try {
+                rollupExecutor.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            minuteRollup.sealAll();
+            quarterHourRollup.sealAll();
+        }
+        for (Tier tier : tiers) {
+            tier.store().close();
+        }
+    }
+
+    private static double valueOf(Number value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,210 @@
+/**
+ * Server-driven telemetry rate control
+ * Periodically picks a telemetry interval for every connected drone from what it is doing:
+ * drones in alarm (recent ALERT or low battery) report fastest, drones in flight fast, and
+ * idle or landed drones slowly. When the planned rate would exceed the fleet's ingest budget,
+ * non-alarm intervals are stretched by a common throttle factor. The plan is tightened when
+ * the measured ingest rate exceeds the rate workers were asked for, so workers that send
+ * faster than told, or ignore RATE_CONTROL, are accounted for
+ * Workers receive their interval in REGISTER_ACK and any later change as RATE_CONTROL
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.model.DroneStatus;
+import com.vtoldb.repository.SettingsRepository;
+import com.vtoldb.storage.fleet.FleetStateTable;
+import com.vtoldb.websocket.handler.FleetWebSocketHandler;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
+import com.vtoldb.websocket.protocol.FleetMessage;
+import com.vtoldb.websocket.protocol.MessageType;
+import com.vtoldb.websocket.protocol.RateControlPayload;
+import com.vtoldb.websocket.session.FleetSession;
+import com.vtoldb.websocket.session.FleetSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class TelemetryRateService {
+    private static final Logger log = LoggerFactory.getLogger(TelemetryRateService.class);
+
+    // Interval changes smaller than this fraction are not sent, to avoid chatter
+    private static final double MIN_CHANGE = 0.1;
+    // Weight of the newest period in the smoothed ingest rate; one period can be a burst
+    private static final double RATE_SMOOTHING = 0.3;
+    // Upper bound on how far the measured/assigned ratio may tighten the budget in one step
+    private static final double MAX_COMPLIANCE = 4.0;
+
+    private final FleetSessionManager sessionManager;
+    private final DroneService droneService;
+    private final SettingsRepository settingsRepository;
+    private final IngestLaneExecutor ingestExecutor;
+    private final FleetWebSocketHandler webSocketHandler;
+
+    @Value("${websocket.fleet.rate-control.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.fleet.rate-control.budget-per-second:1000}")
+    private double budgetPerSecond;
+
+    @Value("${websocket.fleet.rate-control.alarm-interval-ms:250}")
+    private long alarmInterval;
+
+    @Value("${websocket.fleet.rate-control.flight-interval-ms:1000}")
+    private long flightInterval;
+
+    @Value("${websocket.fleet.rate-control.idle-interval-ms:15000}")
+    private long idleInterval;
+
+    @Value("${websocket.fleet.rate-control.max-interval-ms:60000}")
+    private long maxInterval;
+
+    @Value("${websocket.fleet.rate-control.flight-altitude:2.0}")
+    private double flightAltitude;
+
+    @Value("${websocket.fleet.rate-control.low-battery:20}")
+    private double lowBattery;
+
+    @Value("${websocket.fleet.rate-control.alarm-hold-ms:60000}")
+    private long alarmHold;
+
+    // Only touched by the scheduler thread
+    private long lastCheckMillis;
+    private long lastReceived;
+    private double assignedRate;
+
+    private volatile double measuredRate;
+    private volatile double throttle = 1.0;
+
+    public TelemetryRateService(FleetSessionManager sessionManager,
+                                DroneService droneService,
+                                SettingsRepository settingsRepository,
+                                IngestLaneExecutor ingestExecutor,
+                                @Lazy FleetWebSocketHandler webSocketHandler) {
+        this.sessionManager = sessionManager;
+        this.droneService = droneService;
+        this.settingsRepository = settingsRepository;
+        this.ingestExecutor = ingestExecutor;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    // Interval a newly registered worker starts with, until the next adjustment
+    public long getInitialInterval() {
+        return settingsRepository.get().getFleet().getDefaultTelemetryInterval();
+    }
+
+    public double getMeasuredRate() {
+        return measuredRate;
+    }
+
+    public double getBudgetPerSecond() {
+        return budgetPerSecond;
+    }
+
+    public double getThrottle() {
+        return throttle;
+    }
+
+    @Scheduled(fixedRateString = "${websocket.fleet.rate-control.check-interval-ms:5000}")
+    public void adjustRates() {
+        long now = System.currentTimeMillis();
+        long received = ingestExecutor.getTelemetryReceived();
+        if (lastCheckMillis > 0 && now > lastCheckMillis) {
+            double rate = (received - lastReceived) * 1000.0 / (now - lastCheckMillis);
+            measuredRate = measuredRate + RATE_SMOOTHING * (rate - measuredRate);
+        }
+        lastCheckMillis = now;
+        lastReceived = received;
+
+        List<Plan> plans = new ArrayList<>();
+        double alarmRate = 0;
+        double otherRate = 0;
+        long defaultInterval = getInitialInterval();
+        for (FleetSession session : sessionManager.getAllSessions()) {
+            if (!session.isAcknowledged()) {
+                continue;
+            }
+            String mode = enabled ? classify(session, now) : RateControlPayload.DEFAULT;
+            long desired = switch (mode) {
+                case RateControlPayload.ALARM -> alarmInterval;
+                case RateControlPayload.FLIGHT -> flightInterval;
+                case RateControlPayload.IDLE -> idleInterval;
+                default -> defaultInterval;
+            };
+            plans.add(new Plan(session, mode, desired));
+            if (RateControlPayload.ALARM.equals(mode)) {
+                alarmRate += 1000.0 / desired;
+            } else {
+                otherRate += 1000.0 / desired;
+            }
+        }
+
+        double factor = 1.0;
+        if (enabled) {
+            // How much faster than asked workers sent last period; sending slower never loosens
+            // the budget, since workers that were just sped up have not caught up yet
+            double compliance = assignedRate > 0
+                    ? Math.max(1.0, Math.min(MAX_COMPLIANCE, measuredRate / assignedRate))
+                    : 1.0;
+            double budget = budgetPerSecond / compliance;
+            // Alarm drones are never throttled; the rest share what they leave, but never less than a tenth
+            double room = Math.max(budget - alarmRate, budget * 0.1);
+            if (otherRate > room) {
+                factor = otherRate / room;
+            }
+        }
+        if (Math.abs(factor - throttle) > MIN_CHANGE * throttle) {
+            log.info("Telemetry throttle {} -> {} (measured {} msg/s, budget {} msg/s)",
+                    String.format("%.2f", throttle), String.format("%.2f", factor),
+                    String.format("%.0f", measuredRate), String.format("%.0f", budgetPerSecond));
+        }
+        throttle = factor;
+
+        double assigned = 0;
+        for (Plan plan : plans) {
+            boolean throttled = factor > 1.0 && !RateControlPayload.ALARM.equals(plan.mode);
+            long interval = throttled ? Math.min(maxInterval, Math.round(plan.desired * factor)) : plan.desired;
+            assign(plan.session, interval, plan.mode, throttled);
+            assigned += 1000.0 / plan.session.getTelemetryInterval();
+        }
+        assignedRate = assigned;
+    }
+
+    private String classify(FleetSession session, long now) {
+        if (session.getLastAlertMillis() > 0 && now - session.getLastAlertMillis() < alarmHold) {
+            return RateControlPayload.ALARM;
+        }
+        FleetStateTable.Row live = droneService.getLiveState(session.getDroneId());
+        if (live == null) {
+            return RateControlPayload.DEFAULT;
+        }
+        if (!Double.isNaN(live.batteryLevel()) && live.batteryLevel() < lowBattery) {
+            return RateControlPayload.ALARM;
+        }
+        if (live.status() == DroneStatus.ACTIVE && !Double.isNaN(live.altitude()) && live.altitude() > flightAltitude) {
+            return RateControlPayload.FLIGHT;
+        }
+        return RateControlPayload.IDLE;
+    }
+
+    // Sends RATE_CONTROL only when the interval moved noticeably
+    private void assign(FleetSession session, long interval, String reason, boolean throttled) {
+        long current = session.getTelemetryInterval();
+        if (current > 0 && Math.abs(interval - current) <= current * MIN_CHANGE) {
+            return;
+        }
+        session.setTelemetryInterval(interval);
+        FleetMessage<RateControlPayload> message = FleetMessage.of(MessageType.RATE_CONTROL,
+                new RateControlPayload(interval, reason, throttled));
+        webSocketHandler.sendToWorker(session, message);
+        log.debug("Telemetry interval for drone {} set to {}ms ({})", session.getDroneId(), interval, reason);
+    }
+
+    private record Plan(FleetSession session, String mode, long desired) {}
+}
@@ -1,11 +1,11 @@
 package com.vtoldb.service;
 
 import com.vtoldb.model.DroneStatus;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
 import com.vtoldb.websocket.session.FleetSession;
 import com.vtoldb.websocket.session.FleetSessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
@@ -21,26 +21,33 @@ public class WorkerHealthService {
     private final FleetSessionManager sessionManager;
     private final DroneService droneService;
     private final FleetBroadcastService broadcastService;
-
-    @Value("${websocket.fleet.idle-timeout:60000}")
-    private long idleTimeout;
+    private final IngestLaneExecutor ingestExecutor;
 
     public WorkerHealthService(FleetSessionManager sessionManager,
                                 DroneService droneService,
-                                FleetBroadcastService broadcastService) {
+                                FleetBroadcastService broadcastService,
+                                IngestLaneExecutor ingestExecutor) {
         this.sessionManager = sessionManager;
         this.droneService = droneService;
         this.broadcastService = broadcastService;
+        this.ingestExecutor = ingestExecutor;
     }
 
-    @Scheduled(fixedRateString = "${websocket.fleet.health-check-interval:10000}")
+    // Runs once per liveness wheel tick, so an idle worker is noticed within a tick of its timeout
+    @Scheduled(fixedRateString = "${websocket.fleet.health-check-interval:1000}")
     public void checkWorkerHealth() {
-        List<FleetSession> expiredSessions = sessionManager.getExpiredSessions(idleTimeout);
+        List<FleetSession> expiredSessions = sessionManager.getExpiredSessions();
 
         for (FleetSession session : expiredSessions) {
             log.warn("Worker session expired due to inactivity: {} (drone: {})",
                     session.getSessionId(), session.getDroneId());
 
+            // Mark drone as offline, after the telemetry already queued for it. Queued before the
+            // close below, which can release the session and let a reconnect queue its ACTIVE
+            String droneId = session.getDroneId();
+            ingestExecutor.executeAfterPending(session.getIngestMailbox(), droneId,
+                    () -> droneService.updateDroneStatus(droneId, DroneStatus.OFFLINE));
+
             // Close the WebSocket connection if still open
             if (session.isOpen()) {
                 try {
@@ -50,10 +57,6 @@ public class WorkerHealthService {
                 }
             }
 
-            // Mark drone as offline
-            String droneId = session.getDroneId();
-            droneService.updateDroneStatus(droneId, DroneStatus.OFFLINE);
-
             // Remove the session
             sessionManager.removeSession(session.getSessionId());
 
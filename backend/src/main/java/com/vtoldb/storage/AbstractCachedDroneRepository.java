@@ -0,0 +1,442 @@
+/**
+ * Base class for DroneRepository implementations that serve reads from an
+ * in-memory cache and hand every mutation to a durable storage backend
+ * With write-behind enabled, mutations only mark the drone dirty and are
+ * persisted in batches off the caller's thread
+ * Secondary indexes are updated on every save/delete so filtered lookups avoid scanning the cache
+ * An id-ordered view backs cursor pagination and streaming without copying the whole cache
+ * Every save/delete is stamped with a change sequence so incremental readers touch only what changed
+ * Writes bump Drone.version inside the per-key cache lock; update() swaps in a modified copy only if
+ * the cached instance is unchanged, so concurrent writers never lose each other's changes
+ * Live-state syncs bump Drone.stateVersion instead; every write bumps exactly one of the two,
+ * so their sum (revision) orders all writes of a drone for the storage backends
+ * Without write-behind, each write holds its drones' stripe locks across the cache update and persist,
+ * so the backend sees a drone's writes in the same order as the cache
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+import com.vtoldb.repository.DroneRepository;
+import com.vtoldb.repository.VersionConflictException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public abstract class AbstractCachedDroneRepository implements DroneRepository {
+    protected final Map<String, Drone> droneCache = new ConcurrentHashMap<>();
+
+    private final DroneIndex index = new DroneIndex();
+    private final NavigableSet<String> orderedIds = new ConcurrentSkipListSet<>();
+    private final ChangeTracker changes = new ChangeTracker();
+    private final Set<String> deletedIds = ConcurrentHashMap.newKeySet();
+
+    private final WriteBehindBuffer writeBehind;
+    // Only used without write-behind; the flush always reads the latest cached state, so order can't go stale
+    private final ReentrantLock[] writeLocks = new ReentrantLock[64];
+
+    protected AbstractCachedDroneRepository(WriteBehindProperties writeBehindProperties) {
+        this.writeBehind = writeBehindProperties.isEnabled()
+                ? new WriteBehindBuffer(this::flushDirty,
+                        writeBehindProperties.getFlushIntervalMs(), writeBehindProperties.getMaxDirty())
+                : null;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
+    }
+
+    // Makes the given mutations durable; called after the cache has been updated
+    protected abstract void persist(Collection<Drone> upserts, Collection<String> deletes);
+
+    // Releases storage resources once pending writes have been flushed
+    protected void closeStorage() {
+    }
+
+    // Seeds the cache from the backing store during construction
+    protected void loadIntoCache(Collection<Drone> drones) {
+        droneCache.clear();
+        index.clear();
+        orderedIds.clear();
+        drones.forEach(drone -> {
+            droneCache.put(drone.getId(), drone);
+            index.index(drone);
+            orderedIds.add(drone.getId());
+        });
+    }
+
+    @PostConstruct
+    public void startWriteBehind() {
+        if (writeBehind != null) {
+            writeBehind.start();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (writeBehind != null) {
+            writeBehind.shutdown();
+        }
+        closeStorage();
+    }
+
+    @Override
+    public Drone save(Drone drone) {
+        assignId(drone);
+        return sequenced(List.of(drone.getId()), () -> {
+            cache(drone);
+            persistUpserts(List.of(drone));
+            return drone;
+        });
+    }
+
+    @Override
+    public List<Drone> saveAll(List<Drone> drones) {
+        drones.forEach(AbstractCachedDroneRepository::assignId);
+        return sequenced(drones.stream().map(Drone::getId).toList(), () -> {
+            drones.forEach(this::cache);
+            persistUpserts(drones);
+            return drones;
+        });
+    }
+
+    @Override
+    public Optional<Drone> update(String id, Consumer<Drone> mutator) {
+        return sequenced(List.of(id), () -> {
+            Drone updated = swap(id, mutator, false);
+            if (updated == null) {
+                return Optional.empty();
+            }
+            persistUpserts(List.of(updated));
+            return Optional.of(updated);
+        });
+    }
+
+    @Override
+    public List<Drone> updateAll(Collection<String> ids, Consumer<Drone> mutator) {
+        return swapAll(ids, mutator, false);
+    }
+
+    @Override
+    public List<Drone> updateLiveState(Collection<String> ids, Consumer<Drone> mutator) {
+        return swapAll(ids, mutator, true);
+    }
+
+    // Orders two writes of the same drone; higher is newer
+    protected static long revision(Drone drone) {
+        return drone.getVersion() + drone.getStateVersion();
+    }
+
+    private List<Drone> swapAll(Collection<String> ids, Consumer<Drone> mutator, boolean liveState) {
+        return sequenced(ids, () -> {
+            List<Drone> updated = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                Drone drone = swap(id, mutator, liveState);
+                if (drone != null) {
+                    updated.add(drone);
+                }
+            }
+            persistUpserts(updated);
+            return updated;
+        });
+    }
+
+    // Runs a write while holding the stripe locks of the given ids, taken in index order so batches can't deadlock
+    private <T> T sequenced(Collection<String> ids, Supplier<T> write) {
+        if (writeBehind != null) {
+            return write.get();
+        }
+        BitSet stripes = new BitSet(writeLocks.length);
+        ids.forEach(id -> stripes.set(Math.floorMod(id.hashCode(), writeLocks.length)));
+        stripes.stream().forEach(stripe -> writeLocks[stripe].lock());
+        try {
+            return write.get();
+        } finally {
+            stripes.stream().forEach(stripe -> writeLocks[stripe].unlock());
+        }
+    }
+
+    @Override
+    public Drone saveIfVersion(Drone drone, long expectedVersion) {
+        return sequenced(List.of(drone.getId()), () -> saveIfVersionLocked(drone, expectedVersion));
+    }
+
+    private Drone saveIfVersionLocked(Drone drone, long expectedVersion) {
+        long[] found = {0};
+        Drone result = droneCache.compute(drone.getId(), (id, previous) -> {
+            found[0] = previous != null ? previous.getVersion() : 0;
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            drone.setVersion(expectedVersion + 1);
+            drone.setStateVersion(previous.getStateVersion());
+            index.index(drone);
+            changes.record(id);
+            return drone;
+        });
+        if (result != drone) {
+            throw new VersionConflictException(drone.getId(), expectedVersion, found[0]);
+        }
+        persistUpserts(List.of(drone));
+        return drone;
+    }
+
+    @Override
+    public boolean deleteByIdIfVersion(String id, long expectedVersion) {
+        return sequenced(List.of(id), () -> deleteByIdIfVersionLocked(id, expectedVersion));
+    }
+
+    private boolean deleteByIdIfVersionLocked(String id, long expectedVersion) {
+        long[] found = {-1};
+        droneCache.computeIfPresent(id, (key, previous) -> {
+            found[0] = previous.getVersion();
+            if (previous.getVersion() != expectedVersion) {
+                return previous;
+            }
+            unlink(key);
+            return null;
+        });
+        if (found[0] < 0) {
+            return false;
+        }
+        if (found[0] != expectedVersion) {
+            throw new VersionConflictException(id, expectedVersion, found[0]);
+        }
+        persistDelete(id);
+        return true;
+    }
+
+    // Copy, mutate, then replace only if the cached instance is still the one copied; retries otherwise
+    // Returns null if the drone does not exist (or was deleted meanwhile). The mutator may run more than once
+    private Drone swap(String id, Consumer<Drone> mutator, boolean liveState) {
+        while (true) {
+            Drone current = droneCache.get(id);
+            if (current == null) {
+                return null;
+            }
+            Drone next = new Drone(current);
+            mutator.accept(next);
+            next.setId(id);
+            next.setVersion(current.getVersion() + (liveState ? 0 : 1));
+            next.setStateVersion(current.getStateVersion() + (liveState ? 1 : 0));
+            Drone result = droneCache.computeIfPresent(id, (key, existing) -> {
+                if (existing != current) {
+                    return existing;
+                }
+                index.index(next);
+                changes.record(key);
+                return next;
+            });
+            if (result == null || result == next) {
+                return result;
+            }
+        }
+    }
+
+    private void persistUpserts(List<Drone> drones) {
+        if (writeBehind != null) {
+            drones.forEach(drone -> writeBehind.markDirty(drone.getId()));
+        } else if (!drones.isEmpty()) {
+            persist(drones, List.of());
+        }
+    }
+
+    private void persistDelete(String id) {
+        if (writeBehind != null) {
+            writeBehind.markDirty(id);
+        } else {
+            persist(List.of(), List.of(id));
+        }
+    }
+
+    private static void assignId(Drone drone) {
+        if (drone.getId() == null || drone.getId().isEmpty()) {
+            drone.setId(UUID.randomUUID().toString());
+        }
+    }
+
+    private void cache(Drone drone) {
+        // The index is updated inside the cache's per-key lock so concurrent save/delete can't leave stale entries
+        droneCache.compute(drone.getId(), (id, previous) -> {
+            drone.setVersion(previous != null ? previous.getVersion() + 1 : Math.max(1, drone.getVersion()));
+            if (previous != null) {
+                drone.setStateVersion(previous.getStateVersion());
+            }
+            index.index(drone);
+            orderedIds.add(id);
+            deletedIds.remove(id);
+            changes.record(id);
+            return drone;
+        });
+    }
+
+    @Override
+    public Optional<Drone> findById(String id) {
+        return Optional.ofNullable(droneCache.get(id));
+    }
+
+    @Override
+    public List<Drone> findAll() {
+        return new ArrayList<>(droneCache.values());
+    }
+
+    @Override
+    public void deleteById(String id) {
+        sequenced(List.of(id), () -> {
+            boolean[] removed = {false};
+            droneCache.computeIfPresent(id, (key, previous) -> {
+                unlink(key);
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                persistDelete(id);
+            }
+            return null;
+        });
+    }
+
+    // Drops a drone from the indexes; called inside the cache's per-key lock
+    private void unlink(String id) {
+        index.remove(id);
+        orderedIds.remove(id);
+        deletedIds.add(id);
+        changes.record(id);
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        return droneCache.containsKey(id);
+    }
+
+    @Override
+    public List<Drone> findByStatus(DroneStatus status) {
+        return resolve(index.idsByStatus(status), drone -> drone.getStatus() == status);
+    }
+
+    @Override
+    public Optional<Drone> findBySerialNumber(String serialNumber) {
+        return resolve(index.idsBySerialNumber(serialNumber),
+                drone -> Objects.equals(drone.getSerialNumber(), serialNumber)).stream().findFirst();
+    }
+
+    @Override
+    public List<Drone> findByRole(String role) {
+        return resolve(index.idsByRole(role), drone -> Objects.equals(drone.getRole(), role));
+    }
+
+    @Override
+    public List<Drone> findByConnectionType(String connectionType) {
+        return resolve(index.idsByConnectionType(connectionType),
+                drone -> Objects.equals(drone.getConnectionType(), connectionType));
+    }
+
+    @Override
+    public List<Drone> findByCapability(String capability) {
+        return resolve(index.idsByCapability(capability),
+                drone -> drone.getCapabilities() != null && drone.getCapabilities().contains(capability));
+    }
+
+    @Override
+    public long countByStatus(DroneStatus status) {
+        return index.countByStatus(status);
+    }
+
+    @Override
+    public Map<DroneStatus, Long> countAllByStatus() {
+        Map<DroneStatus, Long> counts = new EnumMap<>(DroneStatus.class);
+        for (DroneStatus status : DroneStatus.values()) {
+            counts.put(status, (long) index.countByStatus(status));
+        }
+        return counts;
+    }
+
+    // Weakly consistent: drones added or removed while paging may or may not be seen, but none repeat
+    @Override
+    public List<Drone> findPage(String afterId, int limit) {
+        NavigableSet<String> ids = afterId != null ? orderedIds.tailSet(afterId, false) : orderedIds;
+        List<Drone> page = new ArrayList<>(Math.min(limit, 1024));
+        for (String id : ids) {
+            if (page.size() >= limit) {
+                break;
+            }
+            Drone drone = droneCache.get(id);
+            if (drone != null) {
+                page.add(drone);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public Stream<Drone> streamAll() {
+        return orderedIds.stream()
+                .map(droneCache::get)
+                .filter(Objects::nonNull);
+    }
+
+    @Override
+    public String changeEpoch() {
+        return changes.epoch();
+    }
+
+    @Override
+    public long currentChangeSequence() {
+        return changes.current();
+    }
+
+    // Deleted drones are reported too; callers tell them apart by findById
+    @Override
+    public List<String> changedIdsBetween(long afterSequence, long upToSequence) {
+        return changes.changedBetween(afterSequence, upToSequence);
+    }
+
+    @Override
+    public void forgetDeletedUpTo(long upToSequence) {
+        for (String id : deletedIds) {
+            // compute() serializes with save/delete of the same id; an absent key stays absent
+            droneCache.compute(id, (key, drone) -> {
+                if (drone == null) {
+                    changes.forget(key, upToSequence);
+                    deletedIds.remove(key);
+                }
+                return drone;
+            });
+        }
+    }
+
+    // The index and cache are each updated under the key's lock, but a drone can change between reading
+    // its id from the index and fetching it here, so candidates are re-checked against the drone
+    private List<Drone> resolve(Set<String> ids, Predicate<Drone> matches) {
+        List<Drone> drones = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Drone drone = droneCache.get(id);
+            if (drone != null && matches.test(drone)) {
+                drones.add(drone);
+            }
+        }
+        return drones;
+    }
+
+    // Dirty ids still in the cache are upserts with their latest state, missing ones are deletes
+    private void flushDirty(Set<String> dirtyIds) {
+        List<Drone> upserts = new ArrayList<>(dirtyIds.size());
+        List<String> deletes = new ArrayList<>();
+        for (String id : dirtyIds) {
+            Drone drone = droneCache.get(id);
+            if (drone != null) {
+                upserts.add(drone);
+            } else {
+                deletes.add(id);
+            }
+        }
+        persist(upserts, deletes);
+    }
+}
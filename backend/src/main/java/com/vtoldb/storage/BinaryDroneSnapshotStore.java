@@ -0,0 +1,345 @@
+/**
+ * Versioned binary snapshot format for fast fleet startup
+ * The file is memory-mapped on load and records are decoded in parallel
+ * through an offset index, so no intermediate JSON tree is built
+ *
+ * Layout (big-endian):
+ *   header  32 bytes: magic "VTDS", u16 version, u16 flags, u32 count,
+ *                     u32 crc32 of everything after the header, u64 index offset, 8 reserved
+ *   records count entries: u32 presence bitmask followed by each present field
+ *   index   count x u64 absolute record offsets
+ * A snapshot is built in one byte array and read through one mapping, so it is limited to 2 GB
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.stream.IntStream;
+
+public class BinaryDroneSnapshotStore implements DroneSnapshotStore {
+    private static final Logger logger = LoggerFactory.getLogger(BinaryDroneSnapshotStore.class);
+
+    static final int MAGIC = 0x56544453; // "VTDS"
+    static final short FORMAT_VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    // Largest array and mapping the JVM allows; offsets within the file are then safe as ints
+    static final long MAX_FILE_SIZE = Integer.MAX_VALUE - 8;
+
+    // Presence bits, one per nullable Drone field, in encoding order
+    private static final int F_ID = 1;
+    private static final int F_NAME = 1 << 1;
+    private static final int F_MODEL = 1 << 2;
+    private static final int F_SERIAL = 1 << 3;
+    private static final int F_STATUS = 1 << 4;
+    private static final int F_LAST_SEEN = 1 << 5;
+    private static final int F_LATITUDE = 1 << 6;
+    private static final int F_LONGITUDE = 1 << 7;
+    private static final int F_ALTITUDE = 1 << 8;
+    private static final int F_BATTERY = 1 << 9;
+    private static final int F_IP = 1 << 10;
+    private static final int F_PORT = 1 << 11;
+    private static final int F_ROLE = 1 << 12;
+    private static final int F_PROTOCOL = 1 << 13;
+    private static final int F_CONNECTION = 1 << 14;
+    private static final int F_CAPABILITIES = 1 << 15;
+    private static final int F_RTSP = 1 << 16;
+    private static final int F_VERSION = 1 << 17;
+    private static final int F_STATE_VERSION = 1 << 18;
+
+    private final Path path;
+    private final DroneSnapshotStore legacySource;
+
+    // legacySource is converted on first load when no binary snapshot exists yet
+    public BinaryDroneSnapshotStore(Path path, DroneSnapshotStore legacySource) {
+        this.path = path;
+        this.legacySource = legacySource;
+    }
+
+    // drones.json -> drones.bin
+    public static Path binaryPathFor(Path jsonPath) {
+        String fileName = jsonPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        String baseName = extension > 0 ? fileName.substring(0, extension) : fileName;
+        return jsonPath.resolveSibling(baseName + ".bin");
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize binary snapshot " + path, e);
+        }
+        if (!Files.exists(path)) {
+            List<Drone> legacy = legacySource != null && Files.exists(legacySource.path())
+                    ? legacySource.load()
+                    : List.of();
+            write(legacy);
+            if (!legacy.isEmpty()) {
+                logger.info("Converted {} drones from {} to binary snapshot {}",
+                        legacy.size(), legacySource.path().getFileName(), path.getFileName());
+            }
+        }
+    }
+
+    @Override
+    public List<Drone> load() {
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        Reader reader = open(path);
+        List<Drone> drones = reader.decodeAll();
+        logger.info("Decoded {} drones from binary snapshot in {}ms",
+                drones.size(), (System.nanoTime() - start) / 1_000_000);
+        return drones;
+    }
+
+    @Override
+    public void write(Collection<Drone> drones) {
+        try {
+            Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+            writeSnapshot(tempFile, drones);
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write binary snapshot " + path, e);
+        }
+    }
+
+    @Override
+    public Path path() {
+        return path;
+    }
+
+    // Encodes all drones into a single file written through one channel
+    static void writeSnapshot(Path target, Collection<Drone> drones) throws IOException {
+        ByteArrayOutputStream records = new ByteArrayOutputStream(Math.max(1024, drones.size() * 256));
+        DataOutputStream out = new DataOutputStream(records);
+        long[] offsets = new long[drones.size()];
+        long indexSize = (long) offsets.length * Long.BYTES;
+        int index = 0;
+        for (Drone drone : drones) {
+            offsets[index++] = HEADER_SIZE + out.size();
+            encode(out, drone);
+            if (HEADER_SIZE + (long) out.size() + indexSize > MAX_FILE_SIZE) {
+                throw new IllegalStateException("Binary snapshot of " + drones.size()
+                        + " drones would exceed " + MAX_FILE_SIZE + " bytes; use the json snapshot format");
+            }
+        }
+        out.flush();
+
+        ByteBuffer indexBuffer = ByteBuffer.allocate(offsets.length * Long.BYTES);
+        for (long offset : offsets) {
+            indexBuffer.putLong(offset);
+        }
+        indexBuffer.flip();
+        ByteBuffer body = ByteBuffer.wrap(records.toByteArray());
+
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        crc.update(indexBuffer.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putShort(FORMAT_VERSION);
+        header.putShort((short) 0);
+        header.putInt(offsets.length);
+        header.putInt((int) crc.getValue());
+        header.putLong(HEADER_SIZE + (long) body.remaining());
+        header.putLong(0L);
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer[] parts = {header, body, indexBuffer};
+            long remaining = header.remaining() + body.remaining() + indexBuffer.remaining();
+            while (remaining > 0) {
+                remaining -= channel.write(parts);
+            }
+            channel.force(false);
+        }
+    }
+
+    public static Reader open(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_SIZE) {
+                throw new IllegalStateException("Binary snapshot " + path + " is " + channel.size()
+                        + " bytes, more than the " + MAX_FILE_SIZE + " that can be mapped");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Reader(path, buffer);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map binary snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Random-access view over a mapped snapshot; get(i) decodes a single record on demand
+     */
+    public static class Reader {
+        private final ByteBuffer buffer;
+        private final int count;
+        private final long indexOffset;
+
+        Reader(Path path, ByteBuffer buffer) {
+            this.buffer = buffer;
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Not a drone snapshot: " + path);
+            }
+            short version = buffer.getShort(4);
+            if (version != FORMAT_VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version " + version + " in " + path);
+            }
+            this.count = buffer.getInt(8);
+            this.indexOffset = buffer.getLong(16);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_SIZE, buffer.limit() - HEADER_SIZE));
+            if ((int) crc.getValue() != buffer.getInt(12)) {
+                throw new IllegalStateException("Checksum mismatch in snapshot " + path);
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        public Drone get(int index) {
+            int start = (int) buffer.getLong((int) indexOffset + index * Long.BYTES);
+            int end = index + 1 < count
+                    ? (int) buffer.getLong((int) indexOffset + (index + 1) * Long.BYTES)
+                    : (int) indexOffset;
+            return decode(buffer.slice(start, end - start));
+        }
+
+        // Records are independent, so large snapshots are decoded across all cores
+        public List<Drone> decodeAll() {
+            return IntStream.range(0, count).parallel()
+                    .mapToObj(this::get)
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    private static void encode(DataOutputStream out, Drone drone) throws IOException {
+        int presence = 0;
+        if (drone.getId() != null) presence |= F_ID;
+        if (drone.getName() != null) presence |= F_NAME;
+        if (drone.getModel() != null) presence |= F_MODEL;
+        if (drone.getSerialNumber() != null) presence |= F_SERIAL;
+        if (drone.getStatus() != null) presence |= F_STATUS;
+        if (drone.getLastSeen() != null) presence |= F_LAST_SEEN;
+        if (drone.getLatitude() != null) presence |= F_LATITUDE;
+        if (drone.getLongitude() != null) presence |= F_LONGITUDE;
+        if (drone.getAltitude() != null) presence |= F_ALTITUDE;
+        if (drone.getBatteryLevel() != null) presence |= F_BATTERY;
+        if (drone.getIpAddress() != null) presence |= F_IP;
+        if (drone.getPort() != null) presence |= F_PORT;
+        if (drone.getRole() != null) presence |= F_ROLE;
+        if (drone.getProtocol() != null) presence |= F_PROTOCOL;
+        if (drone.getConnectionType() != null) presence |= F_CONNECTION;
+        if (drone.getCapabilities() != null) presence |= F_CAPABILITIES;
+        if (drone.getRtspEndpoint() != null) presence |= F_RTSP;
+        if (drone.getVersion() != 0) presence |= F_VERSION;
+        if (drone.getStateVersion() != 0) presence |= F_STATE_VERSION;
+        out.writeInt(presence);
+
+        if ((presence & F_ID) != 0) writeString(out, drone.getId());
+        if ((presence & F_NAME) != 0) writeString(out, drone.getName());
+        if ((presence & F_MODEL) != 0) writeString(out, drone.getModel());
+        if ((presence & F_SERIAL) != 0) writeString(out, drone.getSerialNumber());
+        // Status is stored by name so reordering the enum cannot corrupt old snapshots
+        if ((presence & F_STATUS) != 0) writeString(out, drone.getStatus().name());
+        if ((presence & F_LAST_SEEN) != 0) {
+            out.writeLong(drone.getLastSeen().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(drone.getLastSeen().getNano());
+        }
+        if ((presence & F_LATITUDE) != 0) out.writeDouble(drone.getLatitude());
+        if ((presence & F_LONGITUDE) != 0) out.writeDouble(drone.getLongitude());
+        if ((presence & F_ALTITUDE) != 0) out.writeDouble(drone.getAltitude());
+        if ((presence & F_BATTERY) != 0) out.writeDouble(drone.getBatteryLevel());
+        if ((presence & F_IP) != 0) writeString(out, drone.getIpAddress());
+        if ((presence & F_PORT) != 0) out.writeInt(drone.getPort());
+        if ((presence & F_ROLE) != 0) writeString(out, drone.getRole());
+        if ((presence & F_PROTOCOL) != 0) writeString(out, drone.getProtocol());
+        if ((presence & F_CONNECTION) != 0) writeString(out, drone.getConnectionType());
+        if ((presence & F_CAPABILITIES) != 0) {
+            out.writeInt(drone.getCapabilities().size());
+            for (String capability : drone.getCapabilities()) {
+                writeString(out, capability);
+            }
+        }
+        if ((presence & F_RTSP) != 0) writeString(out, drone.getRtspEndpoint());
+        if ((presence & F_VERSION) != 0) out.writeLong(drone.getVersion());
+        if ((presence & F_STATE_VERSION) != 0) out.writeLong(drone.getStateVersion());
+    }
+
+    private static Drone decode(ByteBuffer in) {
+        Drone drone = new Drone();
+        int presence = in.getInt();
+
+        drone.setId((presence & F_ID) != 0 ? readString(in) : null);
+        drone.setName((presence & F_NAME) != 0 ? readString(in) : null);
+        drone.setModel((presence & F_MODEL) != 0 ? readString(in) : null);
+        drone.setSerialNumber((presence & F_SERIAL) != 0 ? readString(in) : null);
+        drone.setStatus((presence & F_STATUS) != 0 ? DroneStatus.valueOf(readString(in)) : null);
+        if ((presence & F_LAST_SEEN) != 0) {
+            long epochSecond = in.getLong();
+            int nano = in.getInt();
+            drone.setLastSeen(LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC));
+        } else {
+            drone.setLastSeen(null);
+        }
+        if ((presence & F_LATITUDE) != 0) drone.setLatitude(in.getDouble());
+        if ((presence & F_LONGITUDE) != 0) drone.setLongitude(in.getDouble());
+        if ((presence & F_ALTITUDE) != 0) drone.setAltitude(in.getDouble());
+        if ((presence & F_BATTERY) != 0) drone.setBatteryLevel(in.getDouble());
+        if ((presence & F_IP) != 0) drone.setIpAddress(readString(in));
+        if ((presence & F_PORT) != 0) drone.setPort(in.getInt());
+        if ((presence & F_ROLE) != 0) drone.setRole(readString(in));
+        if ((presence & F_PROTOCOL) != 0) drone.setProtocol(readString(in));
+        if ((presence & F_CONNECTION) != 0) drone.setConnectionType(readString(in));
+        if ((presence & F_CAPABILITIES) != 0) {
+            int size = in.getInt();
+            List<String> capabilities = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                capabilities.add(readString(in));
+            }
+            drone.setCapabilities(capabilities);
+        }
+        if ((presence & F_RTSP) != 0) drone.setRtspEndpoint(readString(in));
+        if ((presence & F_VERSION) != 0) drone.setVersion(in.getLong());
+        if ((presence & F_STATE_VERSION) != 0) drone.setStateVersion(in.getLong());
+        return drone;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Per-drone change sequence numbers for incremental consumers such as backups
+ * Each id keeps only its latest sequence, so the ids changed since any point are found
+ * by a range scan whose cost follows the number of changed drones
+ * Sequences restart with the process; the epoch tells consumers when that happened
+ * A sequence is allocated and published in one step, so every change up to current() is
+ * already visible to changedBetween()
+ */
+package com.vtoldb.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+class ChangeTracker {
+    private final String epoch = UUID.randomUUID().toString();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Long> sequenceById = new ConcurrentHashMap<>();
+    private final NavigableMap<Long, String> idBySequence = new ConcurrentSkipListMap<>();
+
+    String epoch() {
+        return epoch;
+    }
+
+    long current() {
+        return sequence.get();
+    }
+
+    // Called inside the cache's per-key compute; the lock orders changes across ids and is
+    // held only for the map updates. The counter advances last, which publishes the change
+    synchronized void record(String id) {
+        long next = sequence.get() + 1;
+        idBySequence.put(next, id);
+        Long previous = sequenceById.put(id, next);
+        if (previous != null) {
+            idBySequence.remove(previous);
+        }
+        sequence.set(next);
+    }
+
+    // Ids whose latest change lies in (afterSequence, upToSequence]
+    List<String> changedBetween(long afterSequence, long upToSequence) {
+        return new ArrayList<>(idBySequence.subMap(afterSequence, false, upToSequence, true).values());
+    }
+
+    // Drops deleted ids once a full copy no longer needs their tombstones
+    void forget(String id, long upToSequence) {
+        sequenceById.computeIfPresent(id, (key, latest) -> {
+            if (latest > upToSequence) {
+                return latest;
+            }
+            idBySequence.remove(latest);
+            return null;
+        });
+    }
+}
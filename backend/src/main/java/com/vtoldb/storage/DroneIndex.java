@@ -0,0 +1,139 @@
+/**
+ * Secondary indexes over the drone cache (status, serial number, role, connection type, capability)
+ * Writes hand over only the new drone snapshot (a saved instance or the copy swapped in by update()),
+ * never the one it replaces, so the keys each id was last indexed under are remembered and used to
+ * unlink stale entries
+ * Lookups are lock-free and return candidate ids; callers re-check them against the cache
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+class DroneIndex {
+    private final Map<DroneStatus, Set<String>> byStatus = new EnumMap<>(DroneStatus.class);
+    private final Map<String, Set<String>> bySerialNumber = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byRole = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byConnectionType = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byCapability = new ConcurrentHashMap<>();
+    private final Map<String, Keys> keysById = new HashMap<>();
+
+    // Keys a drone is currently indexed under
+    private record Keys(DroneStatus status, String serialNumber, String role,
+                        String connectionType, Set<String> capabilities) {
+
+        static Keys of(Drone drone) {
+            Set<String> capabilities = drone.getCapabilities() != null
+                    ? drone.getCapabilities().stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet())
+                    : Set.of();
+            return new Keys(drone.getStatus(), drone.getSerialNumber(), drone.getRole(),
+                    drone.getConnectionType(), capabilities);
+        }
+    }
+
+    DroneIndex() {
+        // Every status bucket exists up front so the EnumMap is never structurally modified
+        for (DroneStatus status : DroneStatus.values()) {
+            byStatus.put(status, ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    synchronized void index(Drone drone) {
+        Keys current = Keys.of(drone);
+        Keys previous = keysById.put(drone.getId(), current);
+        if (current.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(drone.getId(), previous);
+        }
+        link(drone.getId(), current);
+    }
+
+    synchronized void remove(String id) {
+        Keys previous = keysById.remove(id);
+        if (previous != null) {
+            unlink(id, previous);
+        }
+    }
+
+    synchronized void clear() {
+        byStatus.values().forEach(Set::clear);
+        bySerialNumber.clear();
+        byRole.clear();
+        byConnectionType.clear();
+        byCapability.clear();
+        keysById.clear();
+    }
+
+    Set<String> idsByStatus(DroneStatus status) {
+        return byStatus.get(status);
+    }
+
+    Set<String> idsBySerialNumber(String serialNumber) {
+        return lookup(bySerialNumber, serialNumber);
+    }
+
+    Set<String> idsByRole(String role) {
+        return lookup(byRole, role);
+    }
+
+    Set<String> idsByConnectionType(String connectionType) {
+        return lookup(byConnectionType, connectionType);
+    }
+
+    Set<String> idsByCapability(String capability) {
+        return lookup(byCapability, capability);
+    }
+
+    int countByStatus(DroneStatus status) {
+        return byStatus.get(status).size();
+    }
+
+    private void link(String id, Keys keys) {
+        if (keys.status() != null) {
+            byStatus.get(keys.status()).add(id);
+        }
+        add(bySerialNumber, keys.serialNumber(), id);
+        add(byRole, keys.role(), id);
+        add(byConnectionType, keys.connectionType(), id);
+        keys.capabilities().forEach(capability -> add(byCapability, capability, id));
+    }
+
+    private void unlink(String id, Keys keys) {
+        if (keys.status() != null) {
+            byStatus.get(keys.status()).remove(id);
+        }
+        remove(bySerialNumber, keys.serialNumber(), id);
+        remove(byRole, keys.role(), id);
+        remove(byConnectionType, keys.connectionType(), id);
+        keys.capabilities().forEach(capability -> remove(byCapability, capability, id));
+    }
+
+    private static Set<String> lookup(Map<String, Set<String>> index, String key) {
+        if (key == null) {
+            return Set.of();
+        }
+        return index.getOrDefault(key, Set.of());
+    }
+
+    private static void add(Map<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    // Empty buckets are dropped so one-off values (serial numbers) don't accumulate
+    private static void remove(Map<String, Set<String>> index, String key, String id) {
+        if (key != null) {
+            index.computeIfPresent(key, (k, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/**
+ * Append-only write-ahead log of drone mutations
+ * Each mutation is one compact JSON line in a numbered segment file; segments
+ * are rolled on compaction and removed once a snapshot covers them
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.model.Drone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public class DroneJournal implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(DroneJournal.class);
+
+    private final Path directory;
+    private final String segmentPrefix;
+    private final ObjectMapper objectMapper;
+    private final boolean fsync;
+
+    private FileChannel activeChannel;
+    private long activeSegment;
+
+    public DroneJournal(Path directory, String baseName, ObjectMapper objectMapper, boolean fsync) {
+        this.directory = directory;
+        this.segmentPrefix = baseName + ".journal.";
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    // Single journal line: PUT carries the full drone, DEL only the id
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class Record {
+        private String op;
+        private String id;
+        private Drone drone;
+
+        public Record() {}
+
+        static Record put(Drone drone) {
+            Record record = new Record();
+            record.op = "PUT";
+            record.drone = drone;
+            return record;
+        }
+
+        static Record delete(String id) {
+            Record record = new Record();
+            record.op = "DEL";
+            record.id = id;
+            return record;
+        }
+
+        public String getOp() { return op; }
+        public void setOp(String op) { this.op = op; }
+        public String getId() { return id; }
+        public void setId(String id) { this.id = id; }
+        public Drone getDrone() { return drone; }
+        public void setDrone(Drone drone) { this.drone = drone; }
+    }
+
+    // Replays every existing segment in order; returns the number of segments read
+    public int replay(Consumer<Record> consumer) {
+        List<Path> segments = listSegments();
+        for (int i = 0; i < segments.size(); i++) {
+            replaySegment(segments.get(i), i == segments.size() - 1, consumer);
+        }
+        return segments.size();
+    }
+
+    private void replaySegment(Path segment, boolean lastSegment, Consumer<Record> consumer) {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                if (!line.isBlank()) {
+                    try {
+                        consumer.accept(objectMapper.readValue(line, Record.class));
+                    } catch (IOException e) {
+                        // A torn final record is expected after a crash mid-append
+                        if (lastSegment && next == null) {
+                            logger.warn("Ignoring truncated trailing record in {}", segment.getFileName());
+                            return;
+                        }
+                        throw new RuntimeException("Corrupt journal record in " + segment, e);
+                    }
+                }
+                line = next;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to replay journal segment " + segment, e);
+        }
+    }
+
+    // Opens a fresh segment after the highest existing one so replayed files are never appended to
+    public synchronized void open() {
+        long highest = listSegments().stream()
+                .mapToLong(this::segmentNumber)
+                .max()
+                .orElse(0);
+        openSegment(highest + 1);
+    }
+
+    public synchronized void append(Collection<Drone> upserts, Collection<String> deletes) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(256 * (upserts.size() + deletes.size()));
+            for (Drone drone : upserts) {
+                objectMapper.writeValue(buffer, Record.put(drone));
+                buffer.write('\n');
+            }
+            for (String id : deletes) {
+                objectMapper.writeValue(buffer, Record.delete(id));
+                buffer.write('\n');
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+            while (bytes.hasRemaining()) {
+                activeChannel.write(bytes);
+            }
+            if (fsync) {
+                activeChannel.force(false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to append to drone journal", e);
+        }
+    }
+
+    public synchronized long activeSegmentSize() {
+        try {
+            return activeChannel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Seals the active segment and starts a new one; returns the number of the sealed segment
+    public synchronized long roll() {
+        long sealed = activeSegment;
+        closeActive();
+        openSegment(sealed + 1);
+        return sealed;
+    }
+
+    // Removes segments whose contents are fully covered by a snapshot
+    public void deleteSegmentsUpTo(long segmentNumber) {
+        for (Path segment : listSegments()) {
+            if (segmentNumber(segment) <= segmentNumber) {
+                try {
+                    Files.deleteIfExists(segment);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete compacted journal segment {}", segment, e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closeActive();
+    }
+
+    private void openSegment(long number) {
+        try {
+            Path segment = directory.resolve(segmentPrefix + String.format("%06d", number));
+            activeChannel = FileChannel.open(segment,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            activeSegment = number;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open journal segment", e);
+        }
+    }
+
+    private void closeActive() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeChannel.force(false);
+            activeChannel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close journal segment {}", activeSegment, e);
+        }
+        activeChannel = null;
+    }
+
+    private List<Path> listSegments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> path.getFileName().toString().startsWith(segmentPrefix))
+                    .filter(path -> segmentNumber(path) >= 0)
+                    .sorted(Comparator.comparingLong(this::segmentNumber))
+                    .toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list journal segments", e);
+        }
+    }
+
+    private long segmentNumber(Path segment) {
+        try {
+            return Long.parseLong(segment.getFileName().toString().substring(segmentPrefix.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/**
+ * Full-fleet snapshot file used by the flatfile storage modes
+ * Implementations replace the snapshot atomically so a crash never leaves a partial file
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.model.Drone;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+public interface DroneSnapshotStore {
+    // Creates parent directories and an empty snapshot when none exists yet
+    void initialize();
+
+    List<Drone> load();
+
+    void write(Collection<Drone> drones);
+
+    Path path();
+
+    // Selects the snapshot format configured by storage.flatfile.format
+    static DroneSnapshotStore create(String format, Path jsonPath, ObjectMapper objectMapper) {
+        return switch (format.toLowerCase()) {
+            case "json" -> new JsonDroneSnapshotStore(jsonPath, objectMapper);
+            case "binary" -> new BinaryDroneSnapshotStore(BinaryDroneSnapshotStore.binaryPathFor(jsonPath),
+                    new JsonDroneSnapshotStore(jsonPath, objectMapper));
+            default -> throw new IllegalArgumentException("Unknown snapshot format: " + format);
+        };
+    }
+}
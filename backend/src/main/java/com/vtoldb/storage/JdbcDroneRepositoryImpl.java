@@ -0,0 +1,327 @@
+/**
+ * JDBC (PostgreSQL) implementation of DroneRepository
+ * Reads are served from the in-memory cache; writes go to the drones table as
+ * multi-row upserts through prepared statements that are reused across chunks
+ * Combine with storage.write-behind to coalesce telemetry writes into batches
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+
+@Repository
+@ConditionalOnProperty(name = "storage.type", havingValue = "postgresql")
+public class JdbcDroneRepositoryImpl extends AbstractCachedDroneRepository {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcDroneRepositoryImpl.class);
+
+    private static final String[] COLUMNS = {
+        "id", "name", "model", "serial_number", "status", "last_seen",
+        "latitude", "longitude", "altitude", "battery_level",
+        "ip_address", "port", "role", "protocol", "connection_type", "capabilities", "rtsp_endpoint", "version",
+        "state_version"
+    };
+
+    private static final String CREATE_TABLE = """
+            CREATE TABLE IF NOT EXISTS drones (
+                id VARCHAR(255) PRIMARY KEY,
+                name VARCHAR(255),
+                model VARCHAR(255),
+                serial_number VARCHAR(255),
+                status VARCHAR(32),
+                last_seen TIMESTAMP,
+                latitude DOUBLE PRECISION,
+                longitude DOUBLE PRECISION,
+                altitude DOUBLE PRECISION,
+                battery_level DOUBLE PRECISION,
+                ip_address VARCHAR(255),
+                port INTEGER,
+                role VARCHAR(255),
+                protocol VARCHAR(255),
+                connection_type VARCHAR(255),
+                capabilities VARCHAR(4096),
+                rtsp_endpoint VARCHAR(1024),
+                version BIGINT NOT NULL DEFAULT 0,
+                state_version BIGINT NOT NULL DEFAULT 0
+            )""";
+
+    // Tables created before drones carried a version
+    private static final String ADD_VERSION_COLUMN =
+            "ALTER TABLE drones ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0";
+    private static final String ADD_STATE_VERSION_COLUMN =
+            "ALTER TABLE drones ADD COLUMN IF NOT EXISTS state_version BIGINT NOT NULL DEFAULT 0";
+
+    private static final String DELETE_SQL = "DELETE FROM drones WHERE id = ?";
+
+    // PostgreSQL caps a statement at 32767 bind parameters
+    private static final int MAX_BATCH_ROWS = 32767 / COLUMNS.length;
+
+    private final HikariDataSource dataSource;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int batchSize;
+    private final UpsertDialect dialect;
+    private final Map<Integer, String> upsertSqlByRows = new HashMap<>();
+
+    // Embedded stand-ins such as H2 lack ON CONFLICT but support standard MERGE ... USING
+    enum UpsertDialect { POSTGRESQL, MERGE }
+
+    public JdbcDroneRepositoryImpl(
+            @Value("${storage.postgresql.url:}") String url,
+            @Value("${storage.postgresql.host:localhost}") String host,
+            @Value("${storage.postgresql.port:5432}") int port,
+            @Value("${storage.postgresql.database:vtoldb}") String database,
+            @Value("${storage.postgresql.username:}") String username,
+            @Value("${storage.postgresql.password:}") String password,
+            @Value("${storage.postgresql.pool-size:4}") int poolSize,
+            @Value("${storage.postgresql.batch-size:100}") int batchSize,
+            WriteBehindProperties writeBehindProperties) {
+        super(writeBehindProperties);
+        this.batchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_ROWS));
+
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url.isEmpty() ? String.format("jdbc:postgresql://%s:%d/%s", host, port, database) : url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(poolSize);
+        config.setPoolName("drone-jdbc");
+        this.dataSource = new HikariDataSource(config);
+
+        this.dialect = detectDialect();
+        initializeSchema();
+        loadFromDatabase();
+    }
+
+    private UpsertDialect detectDialect() {
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            return "PostgreSQL".equalsIgnoreCase(product) ? UpsertDialect.POSTGRESQL : UpsertDialect.MERGE;
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to connect to drone database", e);
+        }
+    }
+
+    private void initializeSchema() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE);
+            statement.execute(ADD_VERSION_COLUMN);
+            statement.execute(ADD_STATE_VERSION_COLUMN);
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to initialize drones table", e);
+        }
+    }
+
+    private void loadFromDatabase() {
+        List<Drone> drones = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT " + String.join(", ", COLUMNS) + " FROM drones");
+             ResultSet rows = statement.executeQuery()) {
+            while (rows.next()) {
+                drones.add(readDrone(rows));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to load drones from database", e);
+        }
+        loadIntoCache(drones);
+        logger.info("Loaded {} drones from database ({} dialect)", drones.size(), dialect);
+    }
+
+    // Writes a whole batch in one transaction: full chunks share one statement, the remainder uses another
+    @Override
+    protected void persist(Collection<Drone> upserts, Collection<String> deletes) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                upsert(connection, new ArrayList<>(upserts));
+                delete(connection, deletes);
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to persist drones to database", e);
+        }
+    }
+
+    private void upsert(Connection connection, List<Drone> drones) throws SQLException {
+        if (drones.isEmpty()) {
+            return;
+        }
+        int fullChunks = drones.size() / batchSize;
+        if (fullChunks > 0) {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(batchSize))) {
+                for (int chunk = 0; chunk < fullChunks; chunk++) {
+                    bindRows(statement, drones.subList(chunk * batchSize, (chunk + 1) * batchSize));
+                    statement.executeUpdate();
+                }
+            }
+        }
+        List<Drone> remainder = drones.subList(fullChunks * batchSize, drones.size());
+        if (!remainder.isEmpty()) {
+            try (PreparedStatement statement = connection.prepareStatement(upsertSql(remainder.size()))) {
+                bindRows(statement, remainder);
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    private void delete(Connection connection, Collection<String> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
+            for (String id : ids) {
+                statement.setString(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    // SQL text is cached per row count so the driver can reuse its server-side prepared statement
+    // Rows only replace an older revision (version + state_version): concurrent persists commit in separate transactions,
+    // so without the guard an older drone that commits last would overwrite a newer one
+    private synchronized String upsertSql(int rows) {
+        return upsertSqlByRows.computeIfAbsent(rows, count -> {
+            String placeholders = "(" + String.join(", ", Collections.nCopies(COLUMNS.length, "?")) + ")";
+            String values = String.join(", ", Collections.nCopies(count, placeholders));
+            String columns = String.join(", ", COLUMNS);
+
+            if (dialect == UpsertDialect.MERGE) {
+                StringJoiner updates = new StringJoiner(", ");
+                StringJoiner inserts = new StringJoiner(", ");
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    if (i > 0) {
+                        updates.add(COLUMNS[i] + " = source." + COLUMNS[i]);
+                    }
+                    inserts.add("source." + COLUMNS[i]);
+                }
+                // VALUES rows leave parameters untyped, so the revision sum needs explicit casts
+                return "MERGE INTO drones USING (VALUES " + values + ") AS source (" + columns + ")"
+                        + " ON drones.id = source.id"
+                        + " WHEN MATCHED AND drones.version + drones.state_version"
+                        + " < CAST(source.version AS BIGINT) + CAST(source.state_version AS BIGINT)"
+                        + " THEN UPDATE SET " + updates
+                        + " WHEN NOT MATCHED THEN INSERT (" + columns + ") VALUES (" + inserts + ")";
+            }
+            StringJoiner updates = new StringJoiner(", ");
+            for (int i = 1; i < COLUMNS.length; i++) {
+                updates.add(COLUMNS[i] + " = EXCLUDED." + COLUMNS[i]);
+            }
+            return "INSERT INTO drones (" + columns + ") VALUES " + values
+                    + " ON CONFLICT (id) DO UPDATE SET " + updates
+                    + " WHERE drones.version + drones.state_version < EXCLUDED.version + EXCLUDED.state_version";
+        });
+    }
+
+    private void bindRows(PreparedStatement statement, List<Drone> drones) throws SQLException {
+        int index = 1;
+        for (Drone drone : drones) {
+            statement.setString(index++, drone.getId());
+            statement.setString(index++, drone.getName());
+            statement.setString(index++, drone.getModel());
+            statement.setString(index++, drone.getSerialNumber());
+            statement.setString(index++, drone.getStatus() != null ? drone.getStatus().name() : null);
+            statement.setObject(index++, drone.getLastSeen(), Types.TIMESTAMP);
+            setDouble(statement, index++, drone.getLatitude());
+            setDouble(statement, index++, drone.getLongitude());
+            setDouble(statement, index++, drone.getAltitude());
+            setDouble(statement, index++, drone.getBatteryLevel());
+            statement.setString(index++, drone.getIpAddress());
+            if (drone.getPort() != null) {
+                statement.setInt(index++, drone.getPort());
+            } else {
+                statement.setNull(index++, Types.INTEGER);
+            }
+            statement.setString(index++, drone.getRole());
+            statement.setString(index++, drone.getProtocol());
+            statement.setString(index++, drone.getConnectionType());
+            statement.setString(index++, writeCapabilities(drone.getCapabilities()));
+            statement.setString(index++, drone.getRtspEndpoint());
+            statement.setLong(index++, drone.getVersion());
+            statement.setLong(index++, drone.getStateVersion());
+        }
+    }
+
+    private Drone readDrone(ResultSet rows) throws SQLException {
+        Drone drone = new Drone();
+        drone.setId(rows.getString("id"));
+        drone.setName(rows.getString("name"));
+        drone.setModel(rows.getString("model"));
+        drone.setSerialNumber(rows.getString("serial_number"));
+        String status = rows.getString("status");
+        drone.setStatus(status != null ? DroneStatus.valueOf(status) : null);
+        drone.setLastSeen(rows.getObject("last_seen", LocalDateTime.class));
+        drone.setLatitude(getDouble(rows, "latitude"));
+        drone.setLongitude(getDouble(rows, "longitude"));
+        drone.setAltitude(getDouble(rows, "altitude"));
+        drone.setBatteryLevel(getDouble(rows, "battery_level"));
+        drone.setIpAddress(rows.getString("ip_address"));
+        int port = rows.getInt("port");
+        drone.setPort(rows.wasNull() ? null : port);
+        drone.setRole(rows.getString("role"));
+        drone.setProtocol(rows.getString("protocol"));
+        drone.setConnectionType(rows.getString("connection_type"));
+        drone.setCapabilities(readCapabilities(rows.getString("capabilities")));
+        drone.setRtspEndpoint(rows.getString("rtsp_endpoint"));
+        drone.setVersion(rows.getLong("version"));
+        drone.setStateVersion(rows.getLong("state_version"));
+        return drone;
+    }
+
+    private static void setDouble(PreparedStatement statement, int index, Double value) throws SQLException {
+        if (value != null) {
+            statement.setDouble(index, value);
+        } else {
+            statement.setNull(index, Types.DOUBLE);
+        }
+    }
+
+    private static Double getDouble(ResultSet rows, String column) throws SQLException {
+        double value = rows.getDouble(column);
+        return rows.wasNull() ? null : value;
+    }
+
+    private String writeCapabilities(List<String> capabilities) {
+        if (capabilities == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(capabilities);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Unserializable capabilities", e);
+        }
+    }
+
+    private List<String> readCapabilities(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, new TypeReference<List<String>>() {});
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring malformed capabilities column: {}", json);
+            return null;
+        }
+    }
+
+    @Override
+    protected void closeStorage() {
+        dataSource.close();
+    }
+}
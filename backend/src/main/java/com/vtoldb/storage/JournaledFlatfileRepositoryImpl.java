@@ -0,0 +1,133 @@
+/**
+ * Journaled flatfile implementation of DroneRepository
+ * Appends each mutation to a write-ahead log instead of rewriting drones.json,
+ * replays the log on startup and compacts it into the snapshot file in the background
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.Drone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Repository
+@ConditionalOnProperty(name = "storage.type", havingValue = "journal")
+public class JournaledFlatfileRepositoryImpl extends AbstractCachedDroneRepository {
+    private static final Logger logger = LoggerFactory.getLogger(JournaledFlatfileRepositoryImpl.class);
+
+    private final DroneSnapshotStore snapshotStore;
+    private final long compactionThreshold;
+    private final DroneJournal journal;
+    private final ExecutorService compactionExecutor;
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean(false);
+
+    public JournaledFlatfileRepositoryImpl(
+            @Value("${storage.flatfile.path:./data/drones.json}") String snapshotPath,
+            @Value("${storage.flatfile.format:json}") String format,
+            @Value("${storage.journal.compaction-threshold-bytes:8388608}") long compactionThreshold,
+            @Value("${storage.journal.fsync:false}") boolean fsync,
+            WriteBehindProperties writeBehindProperties) {
+        super(writeBehindProperties);
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        Path jsonPath = Paths.get(snapshotPath).toAbsolutePath();
+        this.snapshotStore = DroneSnapshotStore.create(format, jsonPath, objectMapper);
+        this.compactionThreshold = compactionThreshold;
+        this.compactionExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "drone-journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        snapshotStore.initialize();
+        this.journal = new DroneJournal(jsonPath.getParent(), baseName(jsonPath), objectMapper, fsync);
+        recover();
+    }
+
+    // Loads the last snapshot, replays the journal on top of it and opens a new segment
+    private void recover() {
+        loadIntoCache(snapshotStore.load());
+
+        // Concurrent saves of one drone can be journaled in a different order than they were applied,
+        // and a snapshot may already hold a newer revision, so an older PUT never overwrites a newer one
+        int replayed = journal.replay(record -> {
+            if ("PUT".equals(record.getOp()) && record.getDrone() != null) {
+                droneCache.merge(record.getDrone().getId(), record.getDrone(),
+                        (restored, replayedDrone) -> revision(replayedDrone) < revision(restored)
+                                ? restored : replayedDrone);
+            } else if ("DEL".equals(record.getOp())) {
+                droneCache.remove(record.getId());
+            }
+        });
+        // Replay writes straight to the cache; reload it so the secondary indexes see the final state
+        loadIntoCache(new ArrayList<>(droneCache.values()));
+        journal.open();
+
+        logger.info("Recovered {} drones from snapshot and {} journal segments", droneCache.size(), replayed);
+        if (replayed > 0) {
+            scheduleCompaction();
+        }
+    }
+
+    @Override
+    protected void persist(Collection<Drone> upserts, Collection<String> deletes) {
+        journal.append(upserts, deletes);
+        if (journal.activeSegmentSize() >= compactionThreshold) {
+            scheduleCompaction();
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactionExecutor.execute(() -> {
+                try {
+                    compact();
+                } catch (Exception e) {
+                    logger.error("Journal compaction failed", e);
+                } finally {
+                    compactionScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    // Rolls the journal, then writes a snapshot that covers every sealed segment.
+    // Any record appended after the roll lands in a newer segment and is replayed on top.
+    void compact() {
+        long sealed = journal.roll();
+        List<Drone> drones = new ArrayList<>(droneCache.values());
+        snapshotStore.write(drones);
+
+        journal.deleteSegmentsUpTo(sealed);
+        logger.info("Compacted drone journal into snapshot with {} drones", drones.size());
+    }
+
+    @Override
+    protected void closeStorage() {
+        compactionExecutor.shutdown();
+        try {
+            compactionExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    private static String baseName(Path snapshotPath) {
+        String fileName = snapshotPath.getFileName().toString();
+        int extension = fileName.lastIndexOf('.');
+        return extension > 0 ? fileName.substring(0, extension) : fileName;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * JSON snapshot format (the original drones.json layout)
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.model.Drone;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+public class JsonDroneSnapshotStore implements DroneSnapshotStore {
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public JsonDroneSnapshotStore(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void initialize() {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (!Files.exists(path)) {
+                objectMapper.writeValue(path.toFile(), new ArrayList<Drone>());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize JSON snapshot " + path, e);
+        }
+    }
+
+    @Override
+    public List<Drone> load() {
+        try {
+            if (!Files.exists(path) || Files.size(path) == 0) {
+                return new ArrayList<>();
+            }
+            return objectMapper.readValue(path.toFile(), new TypeReference<List<Drone>>() {});
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load JSON snapshot " + path, e);
+        }
+    }
+
+    @Override
+    public void write(Collection<Drone> drones) {
+        try {
+            Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter()
+                    .writeValue(tempFile.toFile(), new ArrayList<>(drones));
+            Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write JSON snapshot " + path, e);
+        }
+    }
+
+    @Override
+    public Path path() {
+        return path;
+    }
+}
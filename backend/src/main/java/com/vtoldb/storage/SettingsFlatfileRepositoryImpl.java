@@ -1,7 +1,8 @@
 /**
  * Flatfile (JSON) implementation of SettingsRepository
- * Stores settings in local JSON file with in-memory caching
- * Thread-safe file operations
+ * Publishes settings as snapshots behind an atomic reference: reads are lock-free,
+ * writes copy the current snapshot, persist it and swap the reference
+ * An optional file watcher picks up external edits to the settings file
  */
 package com.vtoldb.storage;
 
@@ -9,25 +10,52 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.vtoldb.model.settings.AppSettings;
 import com.vtoldb.repository.SettingsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
-import java.io.File;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Repository
 public class SettingsFlatfileRepositoryImpl implements SettingsRepository {
     private static final Logger logger = LoggerFactory.getLogger(SettingsFlatfileRepositoryImpl.class);
 
-    private final String settingsFilePath;
+    private final Path settingsPath;
     private final ObjectMapper objectMapper;
-    private AppSettings cachedSettings;
+    private final boolean watchEnabled;
+    private final long watchDebounceMs;
+    private final AtomicReference<AppSettings> current = new AtomicReference<>();
+
+    // Serializes writers and the watcher; readers never take it
+    private final Object writeLock = new Object();
+    // File contents as last written or loaded, so the watcher can skip its own writes
+    private byte[] lastPersisted = new byte[0];
+
+    private WatchService watchService;
+    private Thread watchThread;
 
     public SettingsFlatfileRepositoryImpl(
-            @Value("${storage.settings.path:./data/settings.json}") String settingsFilePath) {
-        this.settingsFilePath = settingsFilePath;
+            @Value("${storage.settings.path:./data/settings.json}") String settingsFilePath,
+            @Value("${storage.settings.watch:true}") boolean watchEnabled,
+            @Value("${storage.settings.watch-debounce-ms:250}") long watchDebounceMs) {
+        this.settingsPath = Paths.get(settingsFilePath).toAbsolutePath();
+        this.watchEnabled = watchEnabled;
+        this.watchDebounceMs = watchDebounceMs;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
 
@@ -37,66 +65,185 @@ public class SettingsFlatfileRepositoryImpl implements SettingsRepository {
 
     private void initializeStorage() {
         try {
-            File settingsFile = new File(settingsFilePath);
-            File parentDir = settingsFile.getParentFile();
-
-            if (parentDir != null && !parentDir.exists()) {
-                parentDir.mkdirs();
-                logger.info("Created settings directory: {}", parentDir.getAbsolutePath());
+            Path parentDir = settingsPath.getParent();
+            if (!Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
+                logger.info("Created settings directory: {}", parentDir);
             }
 
-            if (!settingsFile.exists()) {
-                settingsFile.createNewFile();
-                AppSettings defaults = new AppSettings();
-                objectMapper.writeValue(settingsFile, defaults);
-                logger.info("Created default settings file: {}", settingsFile.getAbsolutePath());
+            if (!Files.exists(settingsPath)) {
+                writeFile(objectMapper.writeValueAsBytes(new AppSettings()));
+                logger.info("Created default settings file: {}", settingsPath);
             }
         } catch (IOException e) {
             throw new RuntimeException("Failed to initialize settings storage", e);
         }
     }
 
-    private synchronized void loadFromFile() {
-        try {
-            File settingsFile = new File(settingsFilePath);
-            if (settingsFile.length() > 0) {
-                cachedSettings = objectMapper.readValue(settingsFile, AppSettings.class);
-                logger.info("Loaded settings from: {}", settingsFilePath);
-            } else {
-                cachedSettings = new AppSettings();
-                saveToFile();
-                logger.info("Initialized with default settings");
+    // Reads the settings file and publishes it; a broken file keeps the current snapshot
+    private void loadFromFile() {
+        synchronized (writeLock) {
+            try {
+                byte[] bytes = Files.readAllBytes(settingsPath);
+                if (bytes.length > 0) {
+                    current.set(objectMapper.readValue(bytes, AppSettings.class));
+                    lastPersisted = bytes;
+                    logger.info("Loaded settings from: {}", settingsPath);
+                } else {
+                    publish(new AppSettings());
+                    logger.info("Initialized with default settings");
+                }
+            } catch (IOException e) {
+                if (current.get() == null) {
+                    logger.error("Failed to load settings, using defaults", e);
+                    current.set(new AppSettings());
+                } else {
+                    logger.error("Failed to reload settings, keeping current values", e);
+                }
             }
-        } catch (IOException e) {
-            logger.error("Failed to load settings, using defaults", e);
-            cachedSettings = new AppSettings();
         }
     }
 
-    private synchronized void saveToFile() {
+    // Serializes, persists and swaps in a new snapshot; callers hold writeLock
+    private AppSettings publish(AppSettings settings) {
         try {
-            File settingsFile = new File(settingsFilePath);
-            objectMapper.writeValue(settingsFile, cachedSettings);
-            logger.debug("Saved settings to: {}", settingsFilePath);
+            byte[] bytes = objectMapper.writeValueAsBytes(settings);
+            writeFile(bytes);
+            // Publish a private copy so the caller's instance cannot leak into the snapshot
+            AppSettings snapshot = objectMapper.readValue(bytes, AppSettings.class);
+            lastPersisted = bytes;
+            current.set(snapshot);
+            logger.debug("Saved settings to: {}", settingsPath);
+            return snapshot;
         } catch (IOException e) {
             throw new RuntimeException("Failed to save settings to file", e);
         }
     }
 
+    private void writeFile(byte[] bytes) throws IOException {
+        Path tempFile = settingsPath.resolveSibling(settingsPath.getFileName() + ".tmp");
+        Files.write(tempFile, bytes);
+        Files.move(tempFile, settingsPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public AppSettings get() {
+        return current.get();
+    }
+
     @Override
-    public synchronized AppSettings get() {
-        return cachedSettings;
+    public AppSettings save(AppSettings settings) {
+        synchronized (writeLock) {
+            return publish(settings);
+        }
     }
 
     @Override
-    public synchronized AppSettings save(AppSettings settings) {
-        this.cachedSettings = settings;
-        saveToFile();
-        return settings;
+    public AppSettings update(Consumer<AppSettings> mutator) {
+        synchronized (writeLock) {
+            AppSettings draft;
+            try {
+                draft = objectMapper.readValue(objectMapper.writeValueAsBytes(current.get()), AppSettings.class);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to copy settings", e);
+            }
+            // A mutator that throws leaves the published snapshot untouched
+            mutator.accept(draft);
+            return publish(draft);
+        }
     }
 
     @Override
     public void reload() {
         loadFromFile();
     }
+
+    @PostConstruct
+    public void startWatcher() {
+        if (!watchEnabled) {
+            return;
+        }
+        try {
+            watchService = settingsPath.getFileSystem().newWatchService();
+            settingsPath.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Settings file watch unavailable, external edits need a restart: {}", e.getMessage());
+            return;
+        }
+        watchThread = new Thread(this::watchLoop, "settings-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+        logger.info("Watching {} for external changes", settingsPath);
+    }
+
+    @PreDestroy
+    public void stopWatcher() {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            logger.debug("Failed to close settings watcher", e);
+        }
+        watchThread.interrupt();
+    }
+
+    private void watchLoop() {
+        Path fileName = settingsPath.getFileName();
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    touched |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || fileName.equals(event.context());
+                }
+                if (!key.reset()) {
+                    logger.warn("Settings directory is no longer watchable, hot reload stopped");
+                    return;
+                }
+                if (touched) {
+                    // Editors often write in several steps; let them settle before reading
+                    Thread.sleep(watchDebounceMs);
+                    drainEvents();
+                    reloadIfChanged();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shutting down
+        }
+    }
+
+    private void drainEvents() {
+        WatchKey key;
+        while ((key = watchService.poll()) != null) {
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    // Publishes external edits; our own writes and unparseable files are ignored
+    private void reloadIfChanged() {
+        synchronized (writeLock) {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(settingsPath);
+            } catch (IOException e) {
+                logger.warn("Failed to read changed settings file: {}", e.getMessage());
+                return;
+            }
+            if (bytes.length == 0 || Arrays.equals(bytes, lastPersisted)) {
+                return;
+            }
+            try {
+                current.set(objectMapper.readValue(bytes, AppSettings.class));
+                lastPersisted = bytes;
+                logger.info("Reloaded settings after external change to {}", settingsPath);
+            } catch (IOException e) {
+                logger.warn("Ignoring invalid settings file, keeping current values: {}", e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,282 @@
+/**
+ * Sharded flatfile implementation of DroneRepository
+ * Drones are hash-partitioned by id across N snapshot files (JSON or binary), each with its own lock,
+ * so an update rewrites only its shard and writes to different shards run in parallel
+ * Shards are loaded in parallel on startup; changing shard-count rebalances the files once
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.Drone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Repository
+@ConditionalOnProperty(name = "storage.type", havingValue = "sharded")
+public class ShardedFlatfileRepositoryImpl extends AbstractCachedDroneRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedFlatfileRepositoryImpl.class);
+
+    private static final Pattern SHARD_FILE = Pattern.compile("drones-(\\d{3})\\.(json|bin)");
+
+    private final Shard[] shards;
+    private final ExecutorService shardExecutor;
+
+    // One snapshot file plus the ids hashed to it; writes are serialized per shard only
+    private static class Shard {
+        final int number;
+        final DroneSnapshotStore store;
+        final Set<String> ids = ConcurrentHashMap.newKeySet();
+        // Tickets let a writer skip work already covered by a write that started after its change
+        final AtomicLong requested = new AtomicLong();
+        long written;
+
+        Shard(int number, DroneSnapshotStore store) {
+            this.number = number;
+            this.store = store;
+        }
+    }
+
+    public ShardedFlatfileRepositoryImpl(
+            @Value("${storage.sharded.path:./data/shards}") String shardDirectory,
+            @Value("${storage.sharded.shard-count:16}") int shardCount,
+            @Value("${storage.flatfile.path:./data/drones.json}") String legacyPath,
+            @Value("${storage.flatfile.format:json}") String format,
+            WriteBehindProperties writeBehindProperties) {
+        super(writeBehindProperties);
+        if (shardCount < 1 || shardCount > 999) {
+            throw new IllegalArgumentException("storage.sharded.shard-count must be between 1 and 999");
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        Path directory = Paths.get(shardDirectory).toAbsolutePath();
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            Path jsonPath = directory.resolve(String.format("drones-%03d.json", i));
+            shards[i] = new Shard(i, DroneSnapshotStore.create(format, jsonPath, objectMapper));
+        }
+        this.shardExecutor = Executors.newFixedThreadPool(
+                Math.min(shardCount, Runtime.getRuntime().availableProcessors()), runnable -> {
+                    Thread thread = new Thread(runnable, "drone-shard-io");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+
+        load(directory, format, Paths.get(legacyPath), objectMapper);
+    }
+
+    private void load(Path directory, String format, Path legacyPath, ObjectMapper objectMapper) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create shard directory " + directory, e);
+        }
+        boolean binary = "binary".equalsIgnoreCase(format);
+        Map<Integer, Path> existing = listShardFiles(directory, binary ? "bin" : "json");
+        // Shards in the other format are imported once, as the flatfile binary mode does with drones.json
+        Map<Integer, Path> otherFormat = existing.isEmpty()
+                ? listShardFiles(directory, binary ? "json" : "bin")
+                : Map.of();
+
+        DroneSnapshotStore legacyStore = findLegacyStore(binary, legacyPath, objectMapper);
+        List<Drone> drones = new ArrayList<>();
+        boolean rebalance = false;
+        if (!otherFormat.isEmpty()) {
+            loadShards(otherFormat, objectMapper).values().forEach(drones::addAll);
+            rebalance = true;
+            logger.info("Converting {} drones from {} shard files", drones.size(), binary ? "JSON" : "binary");
+        } else if (existing.isEmpty() && legacyStore != null) {
+            // First start after switching from storage.type=flatfile: split the single snapshot
+            drones.addAll(legacyStore.load());
+            rebalance = true;
+            logger.info("Importing {} drones from {} into {} shards", drones.size(), legacyStore.path(), shards.length);
+        } else {
+            for (Map.Entry<Integer, List<Drone>> file : loadShards(existing, objectMapper).entrySet()) {
+                for (Drone drone : file.getValue()) {
+                    // Files written with a different shard count hold drones that now hash elsewhere
+                    rebalance |= shardFor(drone.getId()).number != file.getKey();
+                    drones.add(drone);
+                }
+            }
+            rebalance |= existing.keySet().stream().anyMatch(number -> number >= shards.length);
+        }
+
+        loadIntoCache(drones);
+        for (Drone drone : drones) {
+            shardFor(drone.getId()).ids.add(drone.getId());
+        }
+
+        if (rebalance) {
+            writeShards(Arrays.asList(shards));
+            deleteStaleShardFiles(existing);
+            logger.info("Rebalanced {} drones across {} shards", drones.size(), shards.length);
+        } else {
+            for (Shard shard : shards) {
+                shard.store.initialize();
+            }
+        }
+        logger.info("Loaded {} drones from {} shards", drones.size(), shards.length);
+    }
+
+    // The single flatfile snapshot may be in either format, whatever this mode is configured with;
+    // the configured one wins if both exist. Returns null if there is none
+    private static DroneSnapshotStore findLegacyStore(boolean binary, Path legacyPath, ObjectMapper objectMapper) {
+        for (String format : binary ? List.of("binary", "json") : List.of("json", "binary")) {
+            DroneSnapshotStore store = DroneSnapshotStore.create(format, legacyPath, objectMapper);
+            if (Files.exists(store.path())) {
+                return store;
+            }
+        }
+        return null;
+    }
+
+    // Reads every existing shard file concurrently, whatever shard count it was written with
+    private Map<Integer, List<Drone>> loadShards(Map<Integer, Path> files, ObjectMapper objectMapper) {
+        List<Integer> numbers = new ArrayList<>(files.keySet());
+        List<Callable<List<Drone>>> loads = new ArrayList<>();
+        for (int number : numbers) {
+            Path file = files.get(number);
+            String fileFormat = file.getFileName().toString().endsWith(".bin") ? "binary" : "json";
+            loads.add(DroneSnapshotStore.create(fileFormat, jsonPathFor(file), objectMapper)::load);
+        }
+        Map<Integer, List<Drone>> results = new TreeMap<>();
+        List<Future<List<Drone>>> futures = invokeAll(loads);
+        for (int i = 0; i < numbers.size(); i++) {
+            results.put(numbers.get(i), await(futures.get(i)));
+        }
+        return results;
+    }
+
+    @Override
+    protected void persist(Collection<Drone> upserts, Collection<String> deletes) {
+        Set<Shard> touched = new LinkedHashSet<>();
+        for (Drone drone : upserts) {
+            Shard shard = shardFor(drone.getId());
+            shard.ids.add(drone.getId());
+            touched.add(shard);
+        }
+        for (String id : deletes) {
+            Shard shard = shardFor(id);
+            shard.ids.remove(id);
+            touched.add(shard);
+        }
+        writeShards(touched);
+    }
+
+    // A single shard is written on the caller's thread; several are fanned out to the I/O pool
+    private void writeShards(Collection<Shard> touched) {
+        if (touched.size() == 1) {
+            writeShard(touched.iterator().next());
+            return;
+        }
+        List<Callable<Void>> writes = new ArrayList<>();
+        for (Shard shard : touched) {
+            writes.add(() -> {
+                writeShard(shard);
+                return null;
+            });
+        }
+        for (Future<Void> future : invokeAll(writes)) {
+            await(future);
+        }
+    }
+
+    private void writeShard(Shard shard) {
+        long ticket = shard.requested.incrementAndGet();
+        synchronized (shard) {
+            if (shard.written >= ticket) {
+                return;
+            }
+            long covered = shard.requested.get();
+            List<Drone> drones = new ArrayList<>(shard.ids.size());
+            for (String id : shard.ids) {
+                Drone drone = droneCache.get(id);
+                if (drone != null) {
+                    drones.add(drone);
+                }
+            }
+            shard.store.write(drones);
+            shard.written = covered;
+        }
+    }
+
+    private Shard shardFor(String id) {
+        return shards[Math.floorMod(id.hashCode(), shards.length)];
+    }
+
+    private Map<Integer, Path> listShardFiles(Path directory, String extension) {
+        Map<Integer, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                Matcher matcher = SHARD_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(2).equals(extension)) {
+                    files.put(Integer.parseInt(matcher.group(1)), file);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list shard directory " + directory, e);
+        }
+        return files;
+    }
+
+    private void deleteStaleShardFiles(Map<Integer, Path> existing) {
+        for (Map.Entry<Integer, Path> file : existing.entrySet()) {
+            if (file.getKey() >= shards.length) {
+                try {
+                    Files.deleteIfExists(file.getValue());
+                } catch (IOException e) {
+                    logger.warn("Failed to delete stale shard file {}", file.getValue(), e);
+                }
+            }
+        }
+    }
+
+    // DroneSnapshotStore.create expects the JSON path and derives the .bin name itself
+    private static Path jsonPathFor(Path shardFile) {
+        String name = shardFile.getFileName().toString();
+        return shardFile.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".json");
+    }
+
+    private <T> List<Future<T>> invokeAll(List<Callable<T>> tasks) {
+        try {
+            return shardExecutor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during shard I/O", e);
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during shard I/O", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("Shard I/O failed", e.getCause());
+        }
+    }
+
+    @Override
+    protected void closeStorage() {
+        shardExecutor.shutdown();
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Command-line converter between the JSON and binary drone snapshot formats
+ * Usage: java -cp vtol-db-backend.jar -Dloader.main=com.vtoldb.storage.SnapshotConverter \
+ *            org.springframework.boot.loader.launch.PropertiesLauncher <input> <output>
+ * The direction is chosen from the file extensions (.json / .bin)
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.Drone;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class SnapshotConverter {
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: SnapshotConverter <input.json|input.bin> <output.bin|output.json>");
+            System.exit(1);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+
+        DroneSnapshotStore source = storeFor(Paths.get(args[0]), objectMapper);
+        DroneSnapshotStore target = storeFor(Paths.get(args[1]), objectMapper);
+
+        long start = System.nanoTime();
+        List<Drone> drones = source.load();
+        target.write(drones);
+        System.out.printf("Converted %d drones from %s to %s in %dms%n",
+                drones.size(), source.path(), target.path(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static DroneSnapshotStore storeFor(Path path, ObjectMapper objectMapper) {
+        return path.getFileName().toString().endsWith(".bin")
+                ? new BinaryDroneSnapshotStore(path, null)
+                : new JsonDroneSnapshotStore(path, objectMapper);
+    }
+}
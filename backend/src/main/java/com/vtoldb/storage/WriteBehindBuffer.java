@@ -0,0 +1,100 @@
+/**
+ * Tracks drones whose cached state has not been persisted yet and flushes them
+ * in batches, either on a fixed interval or once enough drones are dirty
+ * Only ids are tracked: a flush always writes the latest cached version, so
+ * repeated updates to one drone between flushes collapse into a single write
+ */
+package com.vtoldb.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class WriteBehindBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final Set<String> dirtyIds = ConcurrentHashMap.newKeySet();
+    private final Consumer<Set<String>> flusher;
+    private final long flushIntervalMs;
+    private final int maxDirty;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean earlyFlushQueued = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+
+    public WriteBehindBuffer(Consumer<Set<String>> flusher, long flushIntervalMs, int maxDirty) {
+        this.flusher = flusher;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxDirty = maxDirty;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "drone-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Write-behind enabled: flush every {}ms or at {} dirty drones", flushIntervalMs, maxDirty);
+    }
+
+    public void markDirty(String id) {
+        dirtyIds.add(id);
+        if (dirtyIds.size() >= maxDirty && earlyFlushQueued.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                earlyFlushQueued.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    public int getPendingCount() {
+        return dirtyIds.size();
+    }
+
+    // Drains the dirty set and hands it to the flusher; failed ids are re-queued
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirtyIds.isEmpty()) {
+                return;
+            }
+            Set<String> batch = new HashSet<>();
+            for (Iterator<String> it = dirtyIds.iterator(); it.hasNext(); ) {
+                batch.add(it.next());
+                it.remove();
+            }
+            try {
+                flusher.accept(batch);
+            } catch (RuntimeException e) {
+                dirtyIds.addAll(batch);
+                throw e;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Write-behind flush failed, {} drones remain dirty", dirtyIds.size(), e);
+        }
+    }
+
+    // Stops the scheduler and writes out everything still pending
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(flushIntervalMs + 5000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        logger.info("Write-behind buffer flushed on shutdown");
+    }
+}
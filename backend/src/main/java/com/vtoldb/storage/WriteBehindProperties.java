@@ -0,0 +1,33 @@
+/**
+ * Write-behind settings shared by all cached DroneRepository implementations
+ */
+package com.vtoldb.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class WriteBehindProperties {
+    @Value("${storage.write-behind.enabled:false}")
+    private boolean enabled;
+
+    // Upper bound on how long a change may stay in memory before it is flushed
+    @Value("${storage.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    // Dirty-drone count that triggers an early flush
+    @Value("${storage.write-behind.max-dirty:500}")
+    private int maxDirty;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public int getMaxDirty() {
+        return maxDirty;
+    }
+}
@@ -0,0 +1,407 @@
+/**
+ * Struct-of-arrays table of the hot, frequently updated drone fields
+ * Each drone owns a dense slot; position, battery, status and last-seen time live in primitive
+ * columns indexed by that slot, so telemetry writes allocate nothing and fleet-wide scans walk
+ * contiguous arrays instead of chasing Drone objects and boxed values
+ * Rows are guarded by a per-slot sequence lock: writers make the version odd while they write,
+ * readers retry until they see the same even version before and after reading
+ */
+package com.vtoldb.storage.fleet;
+
+import com.vtoldb.model.DroneStatus;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+
+public class FleetStateTable {
+    // Marks an absent value in a column: NaN for doubles, NO_STATUS for the status column
+    public static final double UNKNOWN = Double.NaN;
+    private static final byte NO_STATUS = -1;
+    private static final DroneStatus[] STATUSES = DroneStatus.values();
+
+    // Result bits of update(): which columns took a new value; NOT_FOUND for unknown drones
+    public static final int NOT_FOUND = -1;
+    public static final int CHANGED_LATITUDE = 1;
+    public static final int CHANGED_LONGITUDE = 1 << 1;
+    public static final int CHANGED_ALTITUDE = 1 << 2;
+    public static final int CHANGED_BATTERY = 1 << 3;
+    public static final int CHANGED_STATUS = 1 << 4;
+
+    private static final VarHandle VERSION = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final Map<String, Integer> slotById = new ConcurrentHashMap<>();
+    private final Object slotLock = new Object();
+    // Writers share the read side; only growing the columns takes the write side
+    private final StampedLock resizeLock = new StampedLock();
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int highWater;
+    private volatile Columns columns;
+
+    public record Row(String id, double latitude, double longitude, double altitude,
+                      double batteryLevel, DroneStatus status, long lastSeenMillis) {}
+
+    private static final class Columns {
+        final String[] ids;
+        final long[] versions;
+        final double[] latitude;
+        final double[] longitude;
+        final double[] altitude;
+        final double[] batteryLevel;
+        final long[] lastSeenMillis;
+        final byte[] status;
+        // Rows changed by telemetry since they were last copied back onto the Drone entity
+        final boolean[] dirty;
+
+        Columns(int capacity) {
+            ids = new String[capacity];
+            versions = new long[capacity];
+            latitude = new double[capacity];
+            longitude = new double[capacity];
+            altitude = new double[capacity];
+            batteryLevel = new double[capacity];
+            lastSeenMillis = new long[capacity];
+            status = new byte[capacity];
+            dirty = new boolean[capacity];
+        }
+
+        Columns(Columns source, int capacity) {
+            ids = Arrays.copyOf(source.ids, capacity);
+            versions = Arrays.copyOf(source.versions, capacity);
+            latitude = Arrays.copyOf(source.latitude, capacity);
+            longitude = Arrays.copyOf(source.longitude, capacity);
+            altitude = Arrays.copyOf(source.altitude, capacity);
+            batteryLevel = Arrays.copyOf(source.batteryLevel, capacity);
+            lastSeenMillis = Arrays.copyOf(source.lastSeenMillis, capacity);
+            status = Arrays.copyOf(source.status, capacity);
+            dirty = Arrays.copyOf(source.dirty, capacity);
+        }
+    }
+
+    public FleetStateTable(int initialCapacity) {
+        this.columns = new Columns(Math.max(16, initialCapacity));
+    }
+
+    public int size() {
+        return slotById.size();
+    }
+
+    public boolean contains(String id) {
+        return slotById.containsKey(id);
+    }
+
+    // Replaces the whole row, assigning a slot on first sight; clears the dirty mark
+    public void put(String id, double latitude, double longitude, double altitude,
+                    double batteryLevel, DroneStatus status, long lastSeenMillis) {
+        int slot = slotFor(id);
+        long stamp = resizeLock.readLock();
+        try {
+            Columns c = columns;
+            long version = beginWrite(c, slot);
+            // A concurrent remove may already have freed the slot
+            Integer current = slotById.get(id);
+            if (current == null || current != slot) {
+                endWrite(c, slot, version);
+                return;
+            }
+            c.ids[slot] = id;
+            c.latitude[slot] = latitude;
+            c.longitude[slot] = longitude;
+            c.altitude[slot] = altitude;
+            c.batteryLevel[slot] = batteryLevel;
+            c.status[slot] = status != null ? (byte) status.ordinal() : NO_STATUS;
+            c.lastSeenMillis[slot] = lastSeenMillis;
+            c.dirty[slot] = false;
+            endWrite(c, slot, version);
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+    }
+
+    // Telemetry write path: NaN / null leaves a column unchanged
+    // Returns the CHANGED_* bits of columns whose value differs from before, or NOT_FOUND
+    public int update(String id, double latitude, double longitude, double altitude,
+                      double batteryLevel, DroneStatus status, long timestampMillis) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return NOT_FOUND;
+        }
+        long stamp = resizeLock.readLock();
+        try {
+            Columns c = columns;
+            long version = beginWrite(c, slot);
+            // The slot may have been freed and reused between the lookup and the lock
+            if (!id.equals(c.ids[slot])) {
+                endWrite(c, slot, version);
+                return NOT_FOUND;
+            }
+            int changed = 0;
+            if (!Double.isNaN(latitude) && c.latitude[slot] != latitude) {
+                c.latitude[slot] = latitude;
+                changed |= CHANGED_LATITUDE;
+            }
+            if (!Double.isNaN(longitude) && c.longitude[slot] != longitude) {
+                c.longitude[slot] = longitude;
+                changed |= CHANGED_LONGITUDE;
+            }
+            if (!Double.isNaN(altitude) && c.altitude[slot] != altitude) {
+                c.altitude[slot] = altitude;
+                changed |= CHANGED_ALTITUDE;
+            }
+            if (!Double.isNaN(batteryLevel) && c.batteryLevel[slot] != batteryLevel) {
+                c.batteryLevel[slot] = batteryLevel;
+                changed |= CHANGED_BATTERY;
+            }
+            if (status != null && c.status[slot] != status.ordinal()) {
+                c.status[slot] = (byte) status.ordinal();
+                changed |= CHANGED_STATUS;
+            }
+            c.lastSeenMillis[slot] = Math.max(c.lastSeenMillis[slot], timestampMillis);
+            c.dirty[slot] = true;
+            endWrite(c, slot, version);
+            return changed;
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+    }
+
+    public void remove(String id) {
+        synchronized (slotLock) {
+            Integer slot = slotById.remove(id);
+            if (slot == null) {
+                return;
+            }
+            long stamp = resizeLock.readLock();
+            try {
+                Columns c = columns;
+                long version = beginWrite(c, slot);
+                c.ids[slot] = null;
+                c.dirty[slot] = false;
+                endWrite(c, slot, version);
+            } finally {
+                resizeLock.unlockRead(stamp);
+            }
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    // Consistent copy of one row, or null if the drone has no slot
+    public Row get(String id) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return null;
+        }
+        Row row = readRow(columns, slot);
+        return row != null && id.equals(row.id()) ? row : null;
+    }
+
+    // Hands each dirty row to the consumer with the version it was read at, for markClean
+    public void forEachDirty(BiConsumer<Row, Long> consumer) {
+        Columns c = columns;
+        int limit = Math.min(highWater(), c.ids.length);
+        for (int slot = 0; slot < limit; slot++) {
+            if (!c.dirty[slot]) {
+                continue;
+            }
+            long version = (long) VERSION.getAcquire(c.versions, slot);
+            Row row = readRow(c, slot);
+            if (row != null && (long) VERSION.getAcquire(c.versions, slot) == version) {
+                consumer.accept(row, version);
+            }
+        }
+    }
+
+    // Clears the dirty mark unless the row was written again after it was read
+    public void markClean(String id, long readVersion) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return;
+        }
+        long stamp = resizeLock.readLock();
+        try {
+            Columns c = columns;
+            if (VERSION.compareAndSet(c.versions, (int) slot, readVersion, readVersion + 1)) {
+                c.dirty[slot] = false;
+                VERSION.setRelease(c.versions, (int) slot, readVersion + 2);
+            }
+        } finally {
+            resizeLock.unlockRead(stamp);
+        }
+    }
+
+    // One pass over the columns; rows caught mid-write are re-read
+    public Summary summarize(double lowBatteryThreshold, long staleBeforeMillis) {
+        Columns c = columns;
+        int limit = Math.min(highWater(), c.ids.length);
+        Summary summary = new Summary();
+        for (int slot = 0; slot < limit; slot++) {
+            double latitude, longitude, altitude, battery;
+            long lastSeen;
+            byte status;
+            boolean present;
+            long before;
+            do {
+                before = (long) VERSION.getAcquire(c.versions, slot);
+                present = c.ids[slot] != null;
+                latitude = c.latitude[slot];
+                longitude = c.longitude[slot];
+                altitude = c.altitude[slot];
+                battery = c.batteryLevel[slot];
+                lastSeen = c.lastSeenMillis[slot];
+                status = c.status[slot];
+                VarHandle.loadLoadFence();
+            } while ((before & 1) != 0 || before != (long) VERSION.getAcquire(c.versions, slot));
+            if (present) {
+                summary.add(latitude, longitude, altitude, battery, status, lastSeen,
+                        lowBatteryThreshold, staleBeforeMillis);
+            }
+        }
+        return summary;
+    }
+
+    // Aggregates over the hot columns; NaN values are skipped per column
+    public static class Summary {
+        private long total;
+        private final long[] statusCounts = new long[STATUSES.length];
+        private long withPosition;
+        private double minLatitude = Double.POSITIVE_INFINITY;
+        private double maxLatitude = Double.NEGATIVE_INFINITY;
+        private double minLongitude = Double.POSITIVE_INFINITY;
+        private double maxLongitude = Double.NEGATIVE_INFINITY;
+        private long withAltitude;
+        private double altitudeSum;
+        private double maxAltitude = Double.NEGATIVE_INFINITY;
+        private long withBattery;
+        private double batterySum;
+        private double minBattery = Double.POSITIVE_INFINITY;
+        private long lowBattery;
+        private long stale;
+
+        void add(double latitude, double longitude, double altitude, double battery, byte status,
+                 long lastSeen, double lowBatteryThreshold, long staleBeforeMillis) {
+            total++;
+            if (status >= 0) {
+                statusCounts[status]++;
+            }
+            if (!Double.isNaN(latitude) && !Double.isNaN(longitude)) {
+                withPosition++;
+                minLatitude = Math.min(minLatitude, latitude);
+                maxLatitude = Math.max(maxLatitude, latitude);
+                minLongitude = Math.min(minLongitude, longitude);
+                maxLongitude = Math.max(maxLongitude, longitude);
+            }
+            if (!Double.isNaN(altitude)) {
+                withAltitude++;
+                altitudeSum += altitude;
+                maxAltitude = Math.max(maxAltitude, altitude);
+            }
+            if (!Double.isNaN(battery)) {
+                withBattery++;
+                batterySum += battery;
+                minBattery = Math.min(minBattery, battery);
+                if (battery < lowBatteryThreshold) {
+                    lowBattery++;
+                }
+            }
+            if (lastSeen < staleBeforeMillis) {
+                stale++;
+            }
+        }
+
+        public long getTotal() { return total; }
+        public long getStatusCount(DroneStatus status) { return statusCounts[status.ordinal()]; }
+        public long getWithPosition() { return withPosition; }
+        public double getMinLatitude() { return withPosition > 0 ? minLatitude : UNKNOWN; }
+        public double getMaxLatitude() { return withPosition > 0 ? maxLatitude : UNKNOWN; }
+        public double getMinLongitude() { return withPosition > 0 ? minLongitude : UNKNOWN; }
+        public double getMaxLongitude() { return withPosition > 0 ? maxLongitude : UNKNOWN; }
+        public double getAverageAltitude() { return withAltitude > 0 ? altitudeSum / withAltitude : UNKNOWN; }
+        public double getMaxAltitude() { return withAltitude > 0 ? maxAltitude : UNKNOWN; }
+        public long getWithBattery() { return withBattery; }
+        public double getAverageBattery() { return withBattery > 0 ? batterySum / withBattery : UNKNOWN; }
+        public double getMinBattery() { return withBattery > 0 ? minBattery : UNKNOWN; }
+        public long getLowBattery() { return lowBattery; }
+        public long getStale() { return stale; }
+    }
+
+    private Row readRow(Columns c, int slot) {
+        while (true) {
+            long before = (long) VERSION.getAcquire(c.versions, slot);
+            if ((before & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            String id = c.ids[slot];
+            double latitude = c.latitude[slot];
+            double longitude = c.longitude[slot];
+            double altitude = c.altitude[slot];
+            double battery = c.batteryLevel[slot];
+            long lastSeen = c.lastSeenMillis[slot];
+            byte status = c.status[slot];
+            VarHandle.loadLoadFence();
+            if (before == (long) VERSION.getAcquire(c.versions, slot)) {
+                return id == null ? null : new Row(id, latitude, longitude, altitude, battery,
+                        status >= 0 ? STATUSES[status] : null, lastSeen);
+            }
+        }
+    }
+
+    // Spins until the slot's version is even and this writer has made it odd
+    private static long beginWrite(Columns c, int slot) {
+        while (true) {
+            long version = (long) VERSION.getAcquire(c.versions, slot);
+            if ((version & 1) == 0 && VERSION.compareAndSet(c.versions, slot, version, version + 1)) {
+                return version + 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static void endWrite(Columns c, int slot, long oddVersion) {
+        VERSION.setRelease(c.versions, slot, oddVersion + 1);
+    }
+
+    private int slotFor(String id) {
+        Integer existing = slotById.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (slotLock) {
+            existing = slotById.get(id);
+            if (existing != null) {
+                return existing;
+            }
+            int slot = freeCount > 0 ? freeSlots[--freeCount] : highWater++;
+            if (slot >= columns.ids.length) {
+                grow(slot + 1);
+            }
+            slotById.put(id, slot);
+            return slot;
+        }
+    }
+
+    private int highWater() {
+        synchronized (slotLock) {
+            return highWater;
+        }
+    }
+
+    private void grow(int minCapacity) {
+        long stamp = resizeLock.writeLock();
+        try {
+            Columns current = columns;
+            int capacity = Math.max(minCapacity, current.ids.length * 2);
+            columns = new Columns(current, capacity);
+        } finally {
+            resizeLock.unlockWrite(stamp);
+        }
+    }
+}
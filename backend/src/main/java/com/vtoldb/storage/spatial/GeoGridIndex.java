@@ -0,0 +1,331 @@
+/**
+ * In-memory multi-resolution lat/lon grid over point positions
+ * Every id lives in one cell per level; levels grow coarser by LEVEL_FACTOR from the base cell size
+ * Queries use the finest level whose covering cells fit in CELL_BUDGET, so the work per query
+ * tracks the result size rather than the number of indexed points or the query area
+ */
+package com.vtoldb.storage.spatial;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class GeoGridIndex {
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * EARTH_RADIUS_METERS;
+    private static final int LEVEL_FACTOR = 8;
+    private static final double COARSEST_CELL_DEGREES = 30;
+    private static final int CELL_BUDGET = 1024;
+
+    private final Level[] levels;
+    private final Map<String, Entry> positions = new ConcurrentHashMap<>();
+
+    private record Entry(double latitude, double longitude, long[] cells) {}
+
+    public record Hit(String id, double latitude, double longitude, double distanceMeters) {}
+
+    // One uniform grid; longitude wraps, latitude is clipped at the poles
+    private static class Level {
+        final double cellDegrees;
+        final int latCells;
+        final int lonCells;
+        final Map<Long, Set<String>> cells = new ConcurrentHashMap<>();
+
+        Level(double cellDegrees) {
+            this.cellDegrees = cellDegrees;
+            this.latCells = (int) Math.ceil(180 / cellDegrees);
+            this.lonCells = (int) Math.ceil(360 / cellDegrees);
+        }
+
+        int latIndex(double latitude) {
+            return Math.min(latCells - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+        }
+
+        int lonIndex(double longitude) {
+            return Math.min(lonCells - 1, (int) Math.floor((longitude + 180) / cellDegrees));
+        }
+
+        long cellOf(double latitude, double longitude) {
+            return cellKey(latIndex(latitude), lonIndex(longitude));
+        }
+
+        long boxCellCount(double minLat, double minLon, double maxLat, double maxLon) {
+            return (long) (latIndex(maxLat) - latIndex(minLat) + 1) * (lonIndex(maxLon) - lonIndex(minLon) + 1);
+        }
+    }
+
+    public GeoGridIndex(double cellDegrees) {
+        if (!(cellDegrees > 0) || cellDegrees > COARSEST_CELL_DEGREES) {
+            throw new IllegalArgumentException("cellDegrees must be in (0, " + COARSEST_CELL_DEGREES + "]");
+        }
+        List<Level> built = new ArrayList<>();
+        for (double size = cellDegrees; ; size *= LEVEL_FACTOR) {
+            built.add(new Level(Math.min(size, COARSEST_CELL_DEGREES)));
+            if (size >= COARSEST_CELL_DEGREES) {
+                break;
+            }
+        }
+        this.levels = built.toArray(new Level[0]);
+    }
+
+    public int size() {
+        return positions.size();
+    }
+
+    // Inserts or moves a point; cell changes happen inside the id's compute so moves are atomic per id
+    public void update(String id, double latitude, double longitude) {
+        validate(latitude, longitude);
+        positions.compute(id, (key, previous) -> {
+            // Same finest cell means the same cell on every coarser level too
+            if (previous != null && previous.cells()[0] == levels[0].cellOf(latitude, longitude)) {
+                return new Entry(latitude, longitude, previous.cells());
+            }
+            long[] cells = new long[levels.length];
+            for (int i = 0; i < levels.length; i++) {
+                cells[i] = levels[i].cellOf(latitude, longitude);
+                if (previous == null || previous.cells()[i] != cells[i]) {
+                    if (previous != null) {
+                        unlink(levels[i], previous.cells()[i], key);
+                    }
+                    link(levels[i], cells[i], key);
+                }
+            }
+            return new Entry(latitude, longitude, cells);
+        });
+    }
+
+    public void remove(String id) {
+        positions.computeIfPresent(id, (key, previous) -> {
+            for (int i = 0; i < levels.length; i++) {
+                unlink(levels[i], previous.cells()[i], key);
+            }
+            return null;
+        });
+    }
+
+    // Points inside the box; a box with minLongitude > maxLongitude crosses the antimeridian
+    public List<Hit> withinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+        validate(minLatitude, minLongitude);
+        validate(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new IllegalArgumentException("minLatitude must not exceed maxLatitude");
+        }
+        List<Hit> hits = new ArrayList<>();
+        if (minLongitude <= maxLongitude) {
+            collectBox(minLatitude, minLongitude, maxLatitude, maxLongitude, hits);
+        } else {
+            collectBox(minLatitude, minLongitude, maxLatitude, 180, hits);
+            collectBox(minLatitude, -180, maxLatitude, maxLongitude, hits);
+        }
+        return hits;
+    }
+
+    // Points within radiusMeters of the center, nearest first
+    public List<Hit> withinRadius(double latitude, double longitude, double radiusMeters) {
+        validate(latitude, longitude);
+        if (!(radiusMeters >= 0)) {
+            throw new IllegalArgumentException("radius must be >= 0");
+        }
+        double latDelta = radiusMeters / METERS_PER_DEGREE;
+        double minLat = Math.max(-90, latitude - latDelta);
+        double maxLat = Math.min(90, latitude + latDelta);
+        double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double lonDelta = cos > 0 ? latDelta / cos : 360;
+
+        List<Hit> candidates;
+        if (lonDelta >= 180 || minLat == -90 || maxLat == 90) {
+            candidates = withinBox(minLat, -180, maxLat, 180);
+        } else {
+            candidates = withinBox(minLat, wrapLongitude(longitude - lonDelta),
+                    maxLat, wrapLongitude(longitude + lonDelta));
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (Hit candidate : candidates) {
+            double distance = distanceMeters(latitude, longitude, candidate.latitude(), candidate.longitude());
+            if (distance <= radiusMeters) {
+                hits.add(new Hit(candidate.id(), candidate.latitude(), candidate.longitude(), distance));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::distanceMeters));
+        return hits;
+    }
+
+    // The k nearest points, searched ring by ring outward from the center cell;
+    // a search that outgrows the cell budget restarts one level coarser
+    public List<Hit> nearest(double latitude, double longitude, int k) {
+        validate(latitude, longitude);
+        if (k <= 0 || positions.isEmpty()) {
+            return List.of();
+        }
+        for (int i = startLevel(latitude, longitude, k); i < levels.length - 1; i++) {
+            List<Hit> hits = nearestOnLevel(levels[i], latitude, longitude, k, CELL_BUDGET);
+            if (hits != null) {
+                return hits;
+            }
+        }
+        return nearestOnLevel(levels[levels.length - 1], latitude, longitude, k, Integer.MAX_VALUE);
+    }
+
+    public static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private void collectBox(double minLat, double minLon, double maxLat, double maxLon, List<Hit> hits) {
+        Level level = levels[levels.length - 1];
+        for (Level candidate : levels) {
+            if (candidate.boxCellCount(minLat, minLon, maxLat, maxLon) <= CELL_BUDGET) {
+                level = candidate;
+                break;
+            }
+        }
+        int toLat = level.latIndex(maxLat);
+        int toLon = level.lonIndex(maxLon);
+        for (int latIndex = level.latIndex(minLat); latIndex <= toLat; latIndex++) {
+            for (int lonIndex = level.lonIndex(minLon); lonIndex <= toLon; lonIndex++) {
+                Set<String> ids = level.cells.get(cellKey(latIndex, lonIndex));
+                if (ids == null) {
+                    continue;
+                }
+                for (String id : ids) {
+                    Entry entry = positions.get(id);
+                    if (entry != null && inBox(entry, minLat, minLon, maxLat, maxLon)) {
+                        hits.add(new Hit(id, entry.latitude(), entry.longitude(), 0));
+                    }
+                }
+            }
+        }
+    }
+
+    // Finest level whose 3x3 block around the center already holds k points, so the ring search ends early
+    private int startLevel(double latitude, double longitude, int k) {
+        for (int i = 0; i < levels.length - 1; i++) {
+            Level level = levels[i];
+            int centerLat = level.latIndex(latitude);
+            int centerLon = level.lonIndex(longitude);
+            int count = 0;
+            for (int dLat = -1; dLat <= 1; dLat++) {
+                for (int dLon = -1; dLon <= 1; dLon++) {
+                    Set<String> ids = level.cells.get(
+                            cellKey(centerLat + dLat, Math.floorMod(centerLon + dLon, level.lonCells)));
+                    count += ids != null ? ids.size() : 0;
+                }
+            }
+            if (count >= k) {
+                return i;
+            }
+        }
+        return levels.length - 1;
+    }
+
+    // Returns null when the search would need more than cellBudget cells on this level
+    private List<Hit> nearestOnLevel(Level level, double latitude, double longitude, int k, int cellBudget) {
+        int centerLat = level.latIndex(latitude);
+        int centerLon = level.lonIndex(longitude);
+        int maxRing = Math.max(level.latCells, level.lonCells / 2 + 1);
+        PriorityQueue<Hit> best = new PriorityQueue<>(Comparator.comparingDouble(Hit::distanceMeters).reversed());
+        long visitedCells = 0;
+
+        for (int ring = 0; ring <= maxRing; ring++) {
+            visitedCells += ring == 0 ? 1 : 8L * ring;
+            if (visitedCells > cellBudget) {
+                return null;
+            }
+            for (long cell : ringCells(level, centerLat, centerLon, ring)) {
+                Set<String> ids = level.cells.get(cell);
+                if (ids != null) {
+                    for (String id : ids) {
+                        offer(best, k, id, latitude, longitude);
+                    }
+                }
+            }
+            if (best.size() == k && best.peek().distanceMeters() <= unvisitedLowerBound(level, latitude, ring)) {
+                break;
+            }
+        }
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Comparator.comparingDouble(Hit::distanceMeters));
+        return hits;
+    }
+
+    // Cells at Chebyshev distance `ring` from the center cell
+    private static Collection<Long> ringCells(Level level, int centerLat, int centerLon, int ring) {
+        if (ring == 0) {
+            return List.of(cellKey(centerLat, centerLon));
+        }
+        // Only a ring wider than the globe can reach the same cell twice through longitude wrap
+        Collection<Long> keys = 2 * ring + 1 > level.lonCells ? new LinkedHashSet<>() : new ArrayList<>(8 * ring);
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int latIndex = centerLat + dLat;
+            if (latIndex < 0 || latIndex >= level.latCells) {
+                continue;
+            }
+            boolean edgeRow = Math.abs(dLat) == ring;
+            for (int dLon = -ring; dLon <= ring; dLon += edgeRow ? 1 : 2 * ring) {
+                keys.add(cellKey(latIndex, Math.floorMod(centerLon + dLon, level.lonCells)));
+            }
+        }
+        return keys;
+    }
+
+    // Anything outside rings 0..ring is at least this far from a point in the center cell
+    private static double unvisitedLowerBound(Level level, double latitude, int ring) {
+        double latMeters = ring * level.cellDegrees * METERS_PER_DEGREE;
+        double farLat = Math.min(90, Math.abs(latitude) + (ring + 1) * level.cellDegrees);
+        double lonMeters = latMeters * Math.cos(Math.toRadians(farLat));
+        return Math.min(latMeters, lonMeters);
+    }
+
+    private void offer(PriorityQueue<Hit> best, int k, String id, double latitude, double longitude) {
+        Entry entry = positions.get(id);
+        if (entry == null) {
+            return;
+        }
+        double distance = distanceMeters(latitude, longitude, entry.latitude(), entry.longitude());
+        if (best.size() < k) {
+            best.add(new Hit(id, entry.latitude(), entry.longitude(), distance));
+        } else if (distance < best.peek().distanceMeters()) {
+            best.poll();
+            best.add(new Hit(id, entry.latitude(), entry.longitude(), distance));
+        }
+    }
+
+    // Adds inside the cell's compute so a concurrent unlink can't drop the set between lookup and add
+    private static void link(Level level, long cell, String id) {
+        level.cells.compute(cell, (key, ids) -> {
+            ids = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            ids.add(id);
+            return ids;
+        });
+    }
+
+    private static void unlink(Level level, long cell, String id) {
+        level.cells.computeIfPresent(cell, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static boolean inBox(Entry entry, double minLat, double minLon, double maxLat, double maxLon) {
+        return entry.latitude() >= minLat && entry.latitude() <= maxLat
+                && entry.longitude() >= minLon && entry.longitude() <= maxLon;
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+
+    private static double wrapLongitude(double longitude) {
+        return ((longitude + 180) % 360 + 360) % 360 - 180;
+    }
+
+    private static void validate(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range: " + latitude + ", " + longitude);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Big-endian bit reader over a (possibly memory-mapped) byte buffer
+ */
+package com.vtoldb.storage.timeseries;
+
+import java.nio.ByteBuffer;
+
+class BitInput {
+    private final ByteBuffer buffer;
+    private int bytePos;
+    private int bitPos;
+
+    BitInput(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.bytePos = buffer.position();
+    }
+
+    boolean readBit() {
+        return readBits(1) == 1;
+    }
+
+    long readBits(int bits) {
+        long value = 0;
+        while (bits > 0) {
+            int available = 8 - bitPos;
+            int take = Math.min(available, bits);
+            int current = buffer.get(bytePos) & 0xFF;
+            int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bitPos += take;
+            bits -= take;
+            if (bitPos == 8) {
+                bytePos++;
+                bitPos = 0;
+            }
+        }
+        return value;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Growable big-endian bit stream used by the chunk encoder
+ */
+package com.vtoldb.storage.timeseries;
+
+import java.util.Arrays;
+
+class BitOutput {
+    private byte[] buffer;
+    private int bytePos;
+    private int bitPos;
+
+    BitOutput(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    void writeBit(boolean bit) {
+        writeBits(bit ? 1 : 0, 1);
+    }
+
+    // Writes the low `bits` bits of value, most significant first
+    void writeBits(long value, int bits) {
+        while (bits > 0) {
+            ensureCapacity();
+            int free = 8 - bitPos;
+            int take = Math.min(free, bits);
+            int chunk = (int) ((value >>> (bits - take)) & ((1 << take) - 1));
+            buffer[bytePos] |= (byte) (chunk << (free - take));
+            bitPos += take;
+            bits -= take;
+            if (bitPos == 8) {
+                bytePos++;
+                bitPos = 0;
+            }
+        }
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, bitPos == 0 ? bytePos : bytePos + 1);
+    }
+
+    private void ensureCapacity() {
+        if (bytePos >= buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+    }
+}
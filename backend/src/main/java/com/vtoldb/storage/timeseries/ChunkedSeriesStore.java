@@ -0,0 +1,389 @@
+/**
+ * Append-only store of fixed-size compressed chunks, one directory per series
+ * Samples are buffered per series until a chunk fills up (or ages out), then
+ * compressed and appended to a per-day file by a background writer thread.
+ * Reads memory-map the day files and skip chunks outside the requested range
+ * using their headers, so only overlapping chunks are decoded
+ * A chunk torn by a crash is cut off before the first append to its day file,
+ * so later chunks never land behind unreadable bytes
+ *
+ * Chunk layout: u32 magic, u64 sequence, u64 min timestamp, u64 max timestamp,
+ *               u32 sample count, u16 column count, u16 reserved, u32 payload length, payload
+ */
+package com.vtoldb.storage.timeseries;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+public class ChunkedSeriesStore {
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedSeriesStore.class);
+
+    private static final int CHUNK_MAGIC = 0x54534348; // "TSCH"
+    private static final int CHUNK_HEADER_SIZE = 40;
+    private static final String FILE_SUFFIX = ".tsc";
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Path directory;
+    private final int columnCount;
+    private final int chunkSize;
+    private final long maxChunkAgeMs;
+    private final Map<String, SeriesBuffer> buffers = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+    // Day files whose tail has been checked since startup; added by the writer, pruned by retention
+    private final Set<Path> checkedFiles = ConcurrentHashMap.newKeySet();
+
+    // Seeded from the clock so chunk sequences stay unique across restarts
+    private final AtomicLong chunkSequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+    public ChunkedSeriesStore(Path directory, int columnCount, int chunkSize, long maxChunkAgeMs) {
+        this.directory = directory;
+        this.columnCount = columnCount;
+        this.chunkSize = chunkSize;
+        this.maxChunkAgeMs = maxChunkAgeMs;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "series-writer-" + directory.getFileName());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create series directory " + directory, e);
+        }
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    // values.length must equal the column count; use NaN for missing readings
+    public void append(String seriesKey, long timestamp, double[] values) {
+        while (true) {
+            SeriesBuffer buffer = buffers.computeIfAbsent(seriesKey, SeriesBuffer::new);
+            synchronized (buffer) {
+                if (buffer.retired) {
+                    continue;
+                }
+                buffer.add(timestamp, values);
+                if (buffer.count == chunkSize) {
+                    seal(buffer);
+                }
+                return;
+            }
+        }
+    }
+
+    // Returns every chunk overlapping [from, to], including samples not yet written to disk
+    public List<SeriesChunk> read(String seriesKey, long from, long to) {
+        List<PendingChunk> pending;
+        SeriesChunk open = null;
+        SeriesBuffer buffer = buffers.get(seriesKey);
+        if (buffer != null) {
+            synchronized (buffer) {
+                pending = new ArrayList<>(buffer.pending);
+                if (buffer.count > 0 && buffer.minTimestamp <= to && buffer.maxTimestamp >= from) {
+                    open = buffer.snapshot();
+                }
+            }
+        } else {
+            pending = List.of();
+        }
+
+        List<SeriesChunk> chunks = new ArrayList<>();
+        Set<Long> durableSequences = new HashSet<>();
+        Path seriesDir = directory.resolve(directoryName(seriesKey));
+        // A chunk is filed under the day it starts, so the previous day may still overlap
+        LocalDate firstDay = dayOf(from).minusDays(1);
+        LocalDate lastDay = dayOf(to);
+        for (Map.Entry<LocalDate, Path> dayFile : listDayFiles(seriesDir).entrySet()) {
+            if (!dayFile.getKey().isBefore(firstDay) && !dayFile.getKey().isAfter(lastDay)) {
+                readDayFile(dayFile.getValue(), from, to, chunks, durableSequences);
+            }
+        }
+
+        for (PendingChunk chunk : pending) {
+            if (!durableSequences.contains(chunk.sequence) && chunk.maxTimestamp >= from && chunk.minTimestamp <= to) {
+                chunks.add(new SeriesChunk(chunk.timestamps, chunk.columns, chunk.count));
+            }
+        }
+        if (open != null) {
+            chunks.add(open);
+        }
+        return chunks;
+    }
+
+    // Day files of one series, oldest first
+    private static SortedMap<LocalDate, Path> listDayFiles(Path seriesDir) {
+        SortedMap<LocalDate, Path> dayFiles = new TreeMap<>();
+        if (!Files.isDirectory(seriesDir)) {
+            return dayFiles;
+        }
+        try (Stream<Path> files = Files.list(seriesDir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.endsWith(FILE_SUFFIX)) {
+                    dayFiles.put(LocalDate.parse(name.substring(0, name.length() - FILE_SUFFIX.length())), file);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to list series directory " + seriesDir, e);
+        }
+        return dayFiles;
+    }
+
+    private void readDayFile(Path file, long from, long to, List<SeriesChunk> chunks, Set<Long> sequences) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                return;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int position = 0;
+            while (position + CHUNK_HEADER_SIZE <= size) {
+                if (mapped.getInt(position) != CHUNK_MAGIC) {
+                    logger.warn("Corrupt chunk header in {} at offset {}", file, position);
+                    return;
+                }
+                long sequence = mapped.getLong(position + 4);
+                long minTimestamp = mapped.getLong(position + 12);
+                long maxTimestamp = mapped.getLong(position + 20);
+                int count = mapped.getInt(position + 28);
+                int columns = mapped.getShort(position + 32);
+                int length = mapped.getInt(position + 36);
+                int payloadStart = position + CHUNK_HEADER_SIZE;
+                if (payloadStart + (long) length > size) {
+                    return; // chunk still being written
+                }
+                sequences.add(sequence);
+                if (maxTimestamp >= from && minTimestamp <= to) {
+                    chunks.add(GorillaChunkCodec.decode(mapped.slice(payloadStart, length), count, columns));
+                }
+                position = payloadStart + length;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read series file " + file, e);
+        }
+    }
+
+    // Seals buffers whose oldest sample exceeds the max chunk age and drops idle empty buffers
+    public void flushIdle() {
+        long cutoff = System.currentTimeMillis() - maxChunkAgeMs;
+        for (SeriesBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                if (buffer.count > 0 && buffer.createdAt < cutoff) {
+                    seal(buffer);
+                } else if (buffer.count == 0 && buffer.pending.isEmpty() && buffer.lastAppend < cutoff) {
+                    buffer.retired = true;
+                    buffers.remove(buffer.seriesKey, buffer);
+                }
+            }
+        }
+    }
+
+    public void flushAll() {
+        for (SeriesBuffer buffer : buffers.values()) {
+            synchronized (buffer) {
+                if (buffer.count > 0) {
+                    seal(buffer);
+                }
+            }
+        }
+    }
+
+    // Deletes day files that end before the cutoff; returns the number of files removed
+    public int deleteOlderThan(long cutoffMillis) {
+        LocalDate cutoffDay = dayOf(cutoffMillis);
+        int deleted = 0;
+        try (Stream<Path> seriesDirs = Files.list(directory)) {
+            for (Path seriesDir : seriesDirs.toList()) {
+                for (Map.Entry<LocalDate, Path> dayFile : listDayFiles(seriesDir).headMap(cutoffDay).entrySet()) {
+                    Files.deleteIfExists(dayFile.getValue());
+                    checkedFiles.remove(dayFile.getValue());
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to apply retention in {}", directory, e);
+        }
+        return deleted;
+    }
+
+    public void close() {
+        flushAll();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Hands the filled arrays to the writer thread and starts a fresh set; caller holds the buffer lock
+    private void seal(SeriesBuffer buffer) {
+        PendingChunk chunk = buffer.takeChunk(chunkSequence.incrementAndGet());
+        buffer.pending.add(chunk);
+        writer.execute(() -> writeChunk(buffer, chunk));
+    }
+
+    private void writeChunk(SeriesBuffer buffer, PendingChunk chunk) {
+        try {
+            byte[] payload = GorillaChunkCodec.encode(chunk.timestamps, chunk.columns, chunk.count);
+            ByteBuffer record = ByteBuffer.allocate(CHUNK_HEADER_SIZE + payload.length);
+            record.putInt(CHUNK_MAGIC);
+            record.putLong(chunk.sequence);
+            record.putLong(chunk.minTimestamp);
+            record.putLong(chunk.maxTimestamp);
+            record.putInt(chunk.count);
+            record.putShort((short) columnCount);
+            record.putShort((short) 0);
+            record.putInt(payload.length);
+            record.put(payload);
+            record.flip();
+
+            Path seriesDir = directory.resolve(directoryName(buffer.seriesKey));
+            Files.createDirectories(seriesDir);
+            Path file = seriesDir.resolve(dayOf(chunk.minTimestamp) + FILE_SUFFIX);
+            // Only this thread writes, so appending at the current size is safe
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                channel.position(checkedFiles.add(file) ? truncateTornTail(file, channel) : channel.size());
+                while (record.hasRemaining()) {
+                    channel.write(record);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to write chunk for series {}", buffer.seriesKey, e);
+        } finally {
+            synchronized (buffer) {
+                buffer.pending.remove(chunk);
+            }
+        }
+    }
+
+    // Walks the chunk headers and cuts the file after the last complete chunk; returns the new size
+    private static long truncateTornTail(Path file, FileChannel channel) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+        long position = 0;
+        while (position + CHUNK_HEADER_SIZE <= size) {
+            header.clear();
+            if (channel.read(header, position) < CHUNK_HEADER_SIZE || header.getInt(0) != CHUNK_MAGIC) {
+                break;
+            }
+            long next = position + CHUNK_HEADER_SIZE + header.getInt(36);
+            if (next > size) {
+                break;
+            }
+            position = next;
+        }
+        if (position < size) {
+            logger.warn("Truncating {} torn bytes at offset {} of {}", size - position, position, file);
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    private static LocalDate dayOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    // Series keys are drone ids; anything unsafe for a file name is replaced and disambiguated by a hash
+    private static String directoryName(String seriesKey) {
+        String safe = seriesKey.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (safe.equals(seriesKey) && !safe.startsWith(".")) {
+            return safe;
+        }
+        return safe + "-" + Integer.toHexString(Arrays.hashCode(seriesKey.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Arrays start small and double up to the chunk size, so sparse series such as the coarse
+    // rollup tiers never hold a full chunk's worth of columns; none are held between chunks
+    private class SeriesBuffer {
+        final String seriesKey;
+        final List<PendingChunk> pending = new ArrayList<>(2);
+        long[] timestamps;
+        double[][] columns;
+        int count;
+        long minTimestamp = Long.MAX_VALUE;
+        long maxTimestamp = Long.MIN_VALUE;
+        long createdAt;
+        long lastAppend;
+        boolean retired;
+
+        SeriesBuffer(String seriesKey) {
+            this.seriesKey = seriesKey;
+        }
+
+        void add(long timestamp, double[] values) {
+            if (count == 0) {
+                createdAt = System.currentTimeMillis();
+            }
+            if (timestamps == null || count == timestamps.length) {
+                grow();
+            }
+            timestamps[count] = timestamp;
+            for (int column = 0; column < columnCount; column++) {
+                columns[column][count] = values[column];
+            }
+            count++;
+            minTimestamp = Math.min(minTimestamp, timestamp);
+            maxTimestamp = Math.max(maxTimestamp, timestamp);
+            lastAppend = System.currentTimeMillis();
+        }
+
+        private void grow() {
+            int capacity = timestamps == null
+                    ? Math.min(chunkSize, INITIAL_CAPACITY)
+                    : Math.min(chunkSize, timestamps.length * 2);
+            if (timestamps == null) {
+                timestamps = new long[capacity];
+                columns = new double[columnCount][capacity];
+                return;
+            }
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            for (int column = 0; column < columnCount; column++) {
+                columns[column] = Arrays.copyOf(columns[column], capacity);
+            }
+        }
+
+        // The codec and readers only look at the first count entries, so the arrays are handed over as they are
+        PendingChunk takeChunk(long sequence) {
+            PendingChunk chunk = new PendingChunk(sequence, timestamps, columns, count, minTimestamp, maxTimestamp);
+            timestamps = null;
+            columns = null;
+            count = 0;
+            minTimestamp = Long.MAX_VALUE;
+            maxTimestamp = Long.MIN_VALUE;
+            return chunk;
+        }
+
+        SeriesChunk snapshot() {
+            double[][] copy = new double[columnCount][];
+            for (int column = 0; column < columnCount; column++) {
+                copy[column] = Arrays.copyOf(columns[column], count);
+            }
+            return new SeriesChunk(Arrays.copyOf(timestamps, count), copy, count);
+        }
+    }
+
+    private record PendingChunk(long sequence, long[] timestamps, double[][] columns, int count,
+                                long minTimestamp, long maxTimestamp) {
+    }
+}
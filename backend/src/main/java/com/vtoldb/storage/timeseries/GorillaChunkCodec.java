@@ -0,0 +1,159 @@
+/**
+ * Columnar chunk compression in the style of Facebook's Gorilla TSDB
+ * Timestamps are stored as delta-of-deltas with variable-width buckets and
+ * each value column as XORs against the previous value, so regular sampling
+ * intervals and slowly changing readings cost only a few bits per sample
+ */
+package com.vtoldb.storage.timeseries;
+
+import java.nio.ByteBuffer;
+
+final class GorillaChunkCodec {
+
+    private GorillaChunkCodec() {
+    }
+
+    static byte[] encode(long[] timestamps, double[][] columns, int count) {
+        BitOutput out = new BitOutput(count * (columns.length + 1) * 2);
+        encodeTimestamps(out, timestamps, count);
+        for (double[] column : columns) {
+            encodeValues(out, column, count);
+        }
+        return out.toByteArray();
+    }
+
+    static SeriesChunk decode(ByteBuffer payload, int count, int columnCount) {
+        BitInput in = new BitInput(payload);
+        long[] timestamps = decodeTimestamps(in, count);
+        double[][] columns = new double[columnCount][];
+        for (int column = 0; column < columnCount; column++) {
+            columns[column] = decodeValues(in, count);
+        }
+        return new SeriesChunk(timestamps, columns, count);
+    }
+
+    // First timestamp raw, then delta-of-delta in 0 / 7 / 9 / 12 / 64-bit buckets
+    private static void encodeTimestamps(BitOutput out, long[] timestamps, int count) {
+        if (count == 0) {
+            return;
+        }
+        out.writeBits(timestamps[0], 64);
+        long previous = timestamps[0];
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = timestamps[i] - previous;
+            long deltaOfDelta = delta - previousDelta;
+            if (deltaOfDelta == 0) {
+                out.writeBit(false);
+            } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+                out.writeBits(0b10, 2);
+                out.writeBits(deltaOfDelta, 7);
+            } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+                out.writeBits(0b110, 3);
+                out.writeBits(deltaOfDelta, 9);
+            } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(deltaOfDelta, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(deltaOfDelta, 64);
+            }
+            previous = timestamps[i];
+            previousDelta = delta;
+        }
+    }
+
+    private static long[] decodeTimestamps(BitInput in, int count) {
+        long[] timestamps = new long[count];
+        if (count == 0) {
+            return timestamps;
+        }
+        timestamps[0] = in.readBits(64);
+        long previousDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long deltaOfDelta;
+            if (!in.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!in.readBit()) {
+                deltaOfDelta = signExtend(in.readBits(7), 7);
+            } else if (!in.readBit()) {
+                deltaOfDelta = signExtend(in.readBits(9), 9);
+            } else if (!in.readBit()) {
+                deltaOfDelta = signExtend(in.readBits(12), 12);
+            } else {
+                deltaOfDelta = in.readBits(64);
+            }
+            long delta = previousDelta + deltaOfDelta;
+            timestamps[i] = timestamps[i - 1] + delta;
+            previousDelta = delta;
+        }
+        return timestamps;
+    }
+
+    // First value raw; then '0' for a repeat, '10' + bits reusing the previous window, or '11' + new window
+    private static void encodeValues(BitOutput out, double[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        long previous = Double.doubleToRawLongBits(values[0]);
+        out.writeBits(previous, 64);
+        int previousLeading = Integer.MAX_VALUE;
+        int previousTrailing = 0;
+        for (int i = 1; i < count; i++) {
+            long current = Double.doubleToRawLongBits(values[i]);
+            long xor = current ^ previous;
+            if (xor == 0) {
+                out.writeBit(false);
+            } else {
+                int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                int trailing = Long.numberOfTrailingZeros(xor);
+                out.writeBit(true);
+                if (previousLeading != Integer.MAX_VALUE && leading >= previousLeading && trailing >= previousTrailing) {
+                    out.writeBit(false);
+                    out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                } else {
+                    int significant = 64 - leading - trailing;
+                    out.writeBit(true);
+                    out.writeBits(leading, 5);
+                    out.writeBits(significant == 64 ? 0 : significant, 6);
+                    out.writeBits(xor >>> trailing, significant);
+                    previousLeading = leading;
+                    previousTrailing = trailing;
+                }
+            }
+            previous = current;
+        }
+    }
+
+    private static double[] decodeValues(BitInput in, int count) {
+        double[] values = new double[count];
+        if (count == 0) {
+            return values;
+        }
+        long previous = in.readBits(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+        for (int i = 1; i < count; i++) {
+            if (in.readBit()) {
+                if (in.readBit()) {
+                    leading = (int) in.readBits(5);
+                    int significant = (int) in.readBits(6);
+                    if (significant == 0) {
+                        significant = 64;
+                    }
+                    trailing = 64 - leading - significant;
+                }
+                long xor = in.readBits(64 - leading - trailing) << trailing;
+                previous ^= xor;
+            }
+            values[i] = Double.longBitsToDouble(previous);
+        }
+        return values;
+    }
+
+    private static long signExtend(long value, int bits) {
+        int shift = 64 - bits;
+        return (value << shift) >> shift;
+    }
+}
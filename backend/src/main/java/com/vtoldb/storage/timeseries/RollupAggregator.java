@@ -0,0 +1,155 @@
+/**
+ * Incrementally downsamples a series into fixed-width buckets
+ * Each closed bucket is appended to the tier's store with min/max/avg/last/count
+ * per field and cascaded into the next coarser tier, if any
+ * Samples older than the open bucket are kept in the raw tier only
+ */
+package com.vtoldb.storage.timeseries;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class RollupAggregator {
+    public static final int STATS_PER_FIELD = 5;
+    public static final int MIN = 0;
+    public static final int MAX = 1;
+    public static final int AVG = 2;
+    public static final int LAST = 3;
+    public static final int COUNT = 4;
+
+    private final long bucketMs;
+    private final int fieldCount;
+    private final ChunkedSeriesStore target;
+    private final RollupAggregator next;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RollupAggregator(long bucketMs, int fieldCount, ChunkedSeriesStore target, RollupAggregator next) {
+        this.bucketMs = bucketMs;
+        this.fieldCount = fieldCount;
+        this.target = target;
+        this.next = next;
+    }
+
+    public long getBucketMs() {
+        return bucketMs;
+    }
+
+    // Adds one raw sample; NaN values are skipped
+    public void addSample(String seriesKey, long timestamp, double[] values) {
+        buckets.compute(seriesKey, (key, bucket) -> {
+            Bucket current = advance(key, bucket, timestamp);
+            if (current != null) {
+                for (int field = 0; field < fieldCount; field++) {
+                    double value = values[field];
+                    if (!Double.isNaN(value)) {
+                        current.merge(field, value, value, value, value, 1);
+                    }
+                }
+            }
+            return current != null ? current : bucket;
+        });
+    }
+
+    // Merges a closed bucket from the next finer tier
+    public void addRollup(String seriesKey, long bucketStart, double[] stats) {
+        buckets.compute(seriesKey, (key, bucket) -> {
+            Bucket current = advance(key, bucket, bucketStart);
+            if (current != null) {
+                for (int field = 0; field < fieldCount; field++) {
+                    int base = field * STATS_PER_FIELD;
+                    double count = stats[base + COUNT];
+                    if (count > 0) {
+                        current.merge(field, stats[base + MIN], stats[base + MAX],
+                                stats[base + AVG] * count, stats[base + LAST], count);
+                    }
+                }
+            }
+            return current != null ? current : bucket;
+        });
+    }
+
+    // Closes every bucket that ended at or before the cutoff, e.g. for drones that went quiet
+    public void sealBefore(long cutoff) {
+        for (String seriesKey : buckets.keySet()) {
+            buckets.computeIfPresent(seriesKey, (key, bucket) -> {
+                if (bucket.start + bucketMs <= cutoff) {
+                    emit(key, bucket);
+                    return null;
+                }
+                return bucket;
+            });
+        }
+    }
+
+    public void sealAll() {
+        sealBefore(Long.MAX_VALUE);
+    }
+
+    // Returns the bucket that should receive a sample at `timestamp`, or null for a late sample
+    private Bucket advance(String seriesKey, Bucket bucket, long timestamp) {
+        long start = Math.floorDiv(timestamp, bucketMs) * bucketMs;
+        if (bucket == null) {
+            return new Bucket(start, fieldCount);
+        }
+        if (start < bucket.start) {
+            return null;
+        }
+        if (start > bucket.start) {
+            emit(seriesKey, bucket);
+            return new Bucket(start, fieldCount);
+        }
+        return bucket;
+    }
+
+    private void emit(String seriesKey, Bucket bucket) {
+        double[] stats = bucket.toStats();
+        target.append(seriesKey, bucket.start, stats);
+        if (next != null) {
+            next.addRollup(seriesKey, bucket.start, stats);
+        }
+    }
+
+    private static class Bucket {
+        final long start;
+        final double[] min;
+        final double[] max;
+        final double[] sum;
+        final double[] last;
+        final double[] count;
+
+        Bucket(long start, int fieldCount) {
+            this.start = start;
+            this.min = new double[fieldCount];
+            this.max = new double[fieldCount];
+            this.sum = new double[fieldCount];
+            this.last = new double[fieldCount];
+            this.count = new double[fieldCount];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            Arrays.fill(last, Double.NaN);
+        }
+
+        void merge(int field, double minValue, double maxValue, double sumValue, double lastValue, double samples) {
+            min[field] = Math.min(min[field], minValue);
+            max[field] = Math.max(max[field], maxValue);
+            sum[field] += sumValue;
+            last[field] = lastValue;
+            count[field] += samples;
+        }
+
+        double[] toStats() {
+            double[] stats = new double[min.length * STATS_PER_FIELD];
+            for (int field = 0; field < min.length; field++) {
+                int base = field * STATS_PER_FIELD;
+                boolean empty = count[field] == 0;
+                stats[base + MIN] = empty ? Double.NaN : min[field];
+                stats[base + MAX] = empty ? Double.NaN : max[field];
+                stats[base + AVG] = empty ? Double.NaN : sum[field] / count[field];
+                stats[base + LAST] = last[field];
+                stats[base + COUNT] = count[field];
+            }
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Decoded block of samples for one series: a timestamp column plus one value column per field
+ * Missing values are stored as NaN
+ */
+package com.vtoldb.storage.timeseries;
+
+public class SeriesChunk {
+    private final long[] timestamps;
+    private final double[][] columns;
+    private final int count;
+
+    public SeriesChunk(long[] timestamps, double[][] columns, int count) {
+        this.timestamps = timestamps;
+        this.columns = columns;
+        this.count = count;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    public double getValue(int column, int index) {
+        return columns[column][index];
+    }
+
+    public long getStartTime() {
+        return timestamps[0];
+    }
+
+    public long getEndTime() {
+        return timestamps[count - 1];
+    }
+}
@@ -3,6 +3,9 @@ package com.vtoldb.websocket.handler;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
+import com.vtoldb.websocket.ingest.IngestMailbox;
+import com.vtoldb.websocket.outbound.OutboundQueueManager;
 import com.vtoldb.websocket.protocol.*;
 import com.vtoldb.websocket.session.FleetSession;
 import com.vtoldb.websocket.session.FleetSessionManager;
@@ -10,57 +13,81 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
-import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Component
-public class FleetWebSocketHandler extends TextWebSocketHandler {
+public class FleetWebSocketHandler extends AbstractWebSocketHandler {
     private static final Logger log = LoggerFactory.getLogger(FleetWebSocketHandler.class);
 
     private final ObjectMapper objectMapper;
     private final FleetSessionManager sessionManager;
     private final RegistrationHandler registrationHandler;
     private final TelemetryHandler telemetryHandler;
+    private final IngestLaneExecutor ingestExecutor;
+    private final OutboundQueueManager outboundQueues;
+    private final JsonFleetDecoder messageDecoder;
 
     public FleetWebSocketHandler(ObjectMapper objectMapper,
                                   FleetSessionManager sessionManager,
                                   RegistrationHandler registrationHandler,
-                                  TelemetryHandler telemetryHandler) {
+                                  TelemetryHandler telemetryHandler,
+                                  IngestLaneExecutor ingestExecutor,
+                                  OutboundQueueManager outboundQueues) {
         this.objectMapper = objectMapper;
         this.sessionManager = sessionManager;
         this.registrationHandler = registrationHandler;
         this.telemetryHandler = telemetryHandler;
+        this.ingestExecutor = ingestExecutor;
+        this.outboundQueues = outboundQueues;
+        this.messageDecoder = new JsonFleetDecoder(objectMapper);
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
         log.info("New WebSocket connection established: {}", session.getId());
+        outboundQueues.open(session);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         String payload = message.getPayload();
-        log.debug("Received message from {}: {}", session.getId(), payload);
 
         try {
-            JsonNode root = objectMapper.readTree(payload);
-            String typeStr = root.path("type").asText();
-            MessageType type = MessageType.valueOf(typeStr);
+            FleetMessage<?> decoded = messageDecoder.decode(payload);
+            MessageType type = decoded.getType();
+            log.debug("Received {} from {} ({} chars)", type, session.getId(), payload.length());
 
+            if (decoded.getPayload() == null && (type == MessageType.REGISTER || type == MessageType.TELEMETRY
+                    || type == MessageType.TELEMETRY_BATCH || type == MessageType.TELEMETRY_DELTA)) {
+                sendError(session, "Missing payload");
+                return;
+            }
+            if (type == MessageType.TELEMETRY_DELTA && ((TelemetryPayload) decoded.getPayload()).getSequence() == null) {
+                sendError(session, "Telemetry delta without a sequence");
+                return;
+            }
             switch (type) {
-                case REGISTER -> handleRegister(session, root);
-                case HEARTBEAT -> handleHeartbeat(session);
-                case TELEMETRY -> handleTelemetry(session, root);
-                case COMMAND_ACK -> handleCommandAck(session, root);
-                case ALERT -> handleAlert(session, root);
+                case REGISTER -> handleRegister(session, (WorkerRegistration) decoded.getPayload());
+                case HEARTBEAT -> handleHeartbeat(session, false);
+                case TELEMETRY -> handleTelemetry(session, (TelemetryPayload) decoded.getPayload());
+                case TELEMETRY_BATCH -> handleTelemetryBatch(session, (TelemetryBatchPayload) decoded.getPayload());
+                case TELEMETRY_DELTA -> handleTelemetryDelta(session, (TelemetryPayload) decoded.getPayload());
+                case COMMAND_ACK -> handleCommandAck(session, decoded.getCorrelationId(),
+                        decoded.getPayload() != null ? ((CommandAck) decoded.getPayload()).getStatus() : null);
+                case ALERT -> handleAlert(session, (JsonNode) decoded.getPayload());
                 default -> log.warn("Unknown message type: {}", type);
             }
         } catch (IllegalArgumentException e) {
-            log.error("Invalid message type in message: {}", payload);
+            log.error("Invalid message type in message from {}: {}", session.getId(), e.getMessage());
             sendError(session, "Invalid message type");
         } catch (JsonProcessingException e) {
-            log.error("Failed to parse message: {}", payload, e);
+            log.error("Failed to parse message from {}: {}", session.getId(), e.getOriginalMessage());
             sendError(session, "Invalid JSON format");
         } catch (Exception e) {
             log.error("Error processing message", e);
@@ -68,77 +95,146 @@ public class FleetWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void handleRegister(WebSocketSession wsSession, JsonNode root) {
+    // Binary frames carry TELEMETRY, TELEMETRY_BATCH, TELEMETRY_DELTA, HEARTBEAT and COMMAND_ACK for sessions registered with protocol 2.0
+    @Override
+    protected void handleBinaryMessage(WebSocketSession wsSession, BinaryMessage message) {
+        Optional<FleetSession> session = sessionManager.getSessionByWsSession(wsSession);
+        if (session.isEmpty() || !session.get().isBinaryProtocol()) {
+            log.warn("Rejected binary frame from {} without a binary protocol registration", wsSession.getId());
+            sendError(wsSession, "Binary frames require registration with protocolVersion 2.0");
+            return;
+        }
+
         try {
-            JsonNode payloadNode = root.path("payload");
-            WorkerRegistration registration = objectMapper.treeToValue(payloadNode, WorkerRegistration.class);
+            FleetMessage<?> decoded = BinaryFleetCodec.decode(message.getPayload(), session.get().getDroneId());
+            switch (decoded.getType()) {
+                case TELEMETRY -> handleTelemetry(wsSession, (TelemetryPayload) decoded.getPayload());
+                case TELEMETRY_BATCH -> handleTelemetryBatch(wsSession, (TelemetryBatchPayload) decoded.getPayload());
+                case TELEMETRY_DELTA -> handleTelemetryDelta(wsSession, (TelemetryPayload) decoded.getPayload());
+                case HEARTBEAT -> handleHeartbeat(wsSession, true);
+                case COMMAND_ACK -> handleCommandAck(wsSession, decoded.getCorrelationId(),
+                        ((CommandAck) decoded.getPayload()).getStatus());
+                default -> log.warn("Unexpected binary message type: {}", decoded.getType());
+            }
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid binary frame from {}: {}", wsSession.getId(), e.getMessage());
+            sendError(wsSession, e.getMessage());
+        } catch (Exception e) {
+            log.error("Error processing binary message", e);
+            sendError(wsSession, "Internal error");
+        }
+    }
 
+    private void handleRegister(WebSocketSession wsSession, WorkerRegistration registration) {
+        try {
             FleetMessage<RegistrationAck> response = registrationHandler.handle(registration, wsSession);
             sendMessage(wsSession, response);
+            // Server-initiated messages such as RATE_CONTROL may follow from now on
+            sessionManager.getSessionByWsSession(wsSession).ifPresent(FleetSession::markAcknowledged);
         } catch (Exception e) {
             log.error("Failed to handle registration", e);
             sendError(wsSession, "Registration failed: " + e.getMessage());
         }
     }
 
-    private void handleHeartbeat(WebSocketSession wsSession) {
+    // Answers in the encoding the heartbeat arrived in
+    private void handleHeartbeat(WebSocketSession wsSession, boolean binary) {
         sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
             session.updateLastActivity();
             log.debug("Heartbeat received from worker: {}", session.getWorkerId());
 
             // Send heartbeat response
-            FleetMessage<Void> response = new FleetMessage<>(MessageType.HEARTBEAT, null);
-            sendMessage(wsSession, response);
+            if (binary) {
+                sendBinary(wsSession, MessageType.HEARTBEAT, new BinaryMessage(BinaryFleetCodec.encodeHeartbeat()));
+            } else {
+                FleetMessage<Void> response = new FleetMessage<>(MessageType.HEARTBEAT, null);
+                sendMessage(wsSession, response);
+            }
         });
     }
 
-    private void handleTelemetry(WebSocketSession wsSession, JsonNode root) {
+    // Telemetry is applied on the drone's ingest lane, in the order it arrived; under overload
+    // the session's mailbox drops the oldest queued messages
+    private void handleTelemetry(WebSocketSession wsSession, TelemetryPayload telemetry) {
         sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
             session.updateLastActivity();
+            ingestExecutor.submit(session.getIngestMailbox(), () -> telemetryHandler.handle(telemetry, session));
+        });
+    }
 
-            try {
-                JsonNode payloadNode = root.path("payload");
-                TelemetryPayload telemetry = objectMapper.treeToValue(payloadNode, TelemetryPayload.class);
-                telemetryHandler.handle(telemetry, session);
-            } catch (Exception e) {
-                log.error("Failed to handle telemetry", e);
+    // A relay's batch is split by drone and each part goes to that drone's own lane, so every
+    // drone's samples stay in order with the rest of its work
+    private void handleTelemetryBatch(WebSocketSession wsSession, TelemetryBatchPayload batch) {
+        sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
+            session.updateLastActivity();
+            if (batch.getSamples() == null) {
+                return;
+            }
+            Map<String, List<TelemetryPayload>> byDrone = new LinkedHashMap<>();
+            for (TelemetryPayload sample : batch.getSamples()) {
+                if (sample.getDroneId() == null) {
+                    sample.setDroneId(session.getDroneId());
+                }
+                byDrone.computeIfAbsent(sample.getDroneId(), id -> new ArrayList<>()).add(sample);
             }
+            byDrone.forEach((droneId, samples) -> {
+                IngestMailbox mailbox = droneId.equals(session.getDroneId())
+                        ? session.getIngestMailbox()
+                        : session.getRelayMailbox(droneId, ingestExecutor::newMailbox);
+                ingestExecutor.submit(mailbox, () -> telemetryHandler.handleBatch(samples, session));
+            });
         });
     }
 
-    private void handleCommandAck(WebSocketSession wsSession, JsonNode root) {
+    // Deltas share the session's mailbox with full telemetry, so they merge in arrival order
+    private void handleTelemetryDelta(WebSocketSession wsSession, TelemetryPayload delta) {
         sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
             session.updateLastActivity();
+            if (delta.getDroneId() == null) {
+                delta.setDroneId(session.getDroneId());
+            }
+            ingestExecutor.submit(session.getIngestMailbox(), () -> telemetryHandler.handleDelta(delta, session));
+        });
+    }
 
-            String correlationId = root.path("correlationId").asText();
-            JsonNode payloadNode = root.path("payload");
-            String status = payloadNode.path("status").asText();
+    private void handleCommandAck(WebSocketSession wsSession, String correlationId, String status) {
+        sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
+            session.updateLastActivity();
 
-            log.info("Command ACK received: correlationId={}, status={}", correlationId, status);
-            // TODO: Update command status tracking
+            // Acks and alerts take the priority lane, so they never wait behind queued telemetry
+            ingestExecutor.executePriority(session.getDroneId(), () -> {
+                log.info("Command ACK received: correlationId={}, status={}", correlationId, status);
+                // TODO: Update command status tracking
+            });
         });
     }
 
-    private void handleAlert(WebSocketSession wsSession, JsonNode root) {
+    private void handleAlert(WebSocketSession wsSession, JsonNode payloadNode) {
         sessionManager.getSessionByWsSession(wsSession).ifPresent(session -> {
             session.updateLastActivity();
 
-            JsonNode payloadNode = root.path("payload");
-            log.warn("Alert from drone {}: {}", session.getDroneId(), payloadNode);
-            // TODO: Broadcast alert to dashboard
+            // Puts the drone on the alarm telemetry rate
+            session.markAlert();
+            ingestExecutor.executePriority(session.getDroneId(), () -> {
+                log.warn("Alert from drone {}: {}", session.getDroneId(), payloadNode);
+                // TODO: Broadcast alert to dashboard
+            });
         });
     }
 
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
         log.info("WebSocket connection closed: {} with status: {}", session.getId(), status);
+        outboundQueues.close(session);
 
         sessionManager.getSessionByWsSession(session).ifPresent(fleetSession -> {
             String droneId = fleetSession.getDroneId();
-            sessionManager.removeSessionByWsSession(session);
 
-            // Notify that drone is now offline
-            telemetryHandler.markDroneOffline(droneId);
+            // Applied after the telemetry the worker sent before closing. Queued before the session
+            // is released, so a reconnect's ACTIVE lands behind it on the drone's lane
+            ingestExecutor.executeAfterPending(fleetSession.getIngestMailbox(), droneId,
+                    () -> telemetryHandler.markDroneOffline(droneId));
+            sessionManager.removeSessionByWsSession(session);
         });
     }
 
@@ -154,22 +250,36 @@ public class FleetWebSocketHandler extends TextWebSocketHandler {
         );
     }
 
+    // Server-initiated messages such as RATE_CONTROL and KEYFRAME_REQUEST; dropped until
+    // the worker has its REGISTER_ACK, or once the connection is gone
+    public void sendToWorker(FleetSession session, FleetMessage<?> message) {
+        if (session.isAcknowledged() && session.isOpen()) {
+            sendMessage(session.getWebSocketSession(), message);
+        }
+    }
+
+    // Replies, commands, rate control and keyframe requests come from different threads;
+    // all of them go through the session's outbound queue, so none of them waits on the socket
     private <T> void sendMessage(WebSocketSession session, FleetMessage<T> message) {
         try {
             String json = objectMapper.writeValueAsString(message);
-            session.sendMessage(new TextMessage(json));
-        } catch (IOException e) {
-            log.error("Failed to send message to session: {}", session.getId(), e);
+            outboundQueues.send(session, message.getType(), new TextMessage(json));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize message for session: {}", session.getId(), e);
         }
     }
 
+    private void sendBinary(WebSocketSession session, MessageType type, BinaryMessage message) {
+        outboundQueues.send(session, type, message);
+    }
+
     private void sendError(WebSocketSession session, String error) {
         try {
             String json = objectMapper.writeValueAsString(
                 java.util.Map.of("error", error)
             );
-            session.sendMessage(new TextMessage(json));
-        } catch (IOException e) {
+            outboundQueues.send(session, null, new TextMessage(json));
+        } catch (JsonProcessingException e) {
             log.error("Failed to send error message", e);
         }
     }
@@ -3,6 +3,8 @@ package com.vtoldb.websocket.handler;
 import com.vtoldb.model.Drone;
 import com.vtoldb.model.DroneStatus;
 import com.vtoldb.service.DroneService;
+import com.vtoldb.service.TelemetryRateService;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
 import com.vtoldb.websocket.protocol.*;
 import com.vtoldb.websocket.session.FleetSession;
 import com.vtoldb.websocket.session.FleetSessionManager;
@@ -20,13 +22,21 @@ public class RegistrationHandler {
 
     private final FleetSessionManager sessionManager;
     private final DroneService droneService;
+    private final IngestLaneExecutor ingestExecutor;
+    private final TelemetryRateService rateService;
 
     @Value("${websocket.fleet.heartbeat-interval:15000}")
     private long heartbeatInterval;
 
-    public RegistrationHandler(FleetSessionManager sessionManager, DroneService droneService) {
+    @Value("${websocket.fleet.binary-enabled:true}")
+    private boolean binaryEnabled;
+
+    public RegistrationHandler(FleetSessionManager sessionManager, DroneService droneService,
+                               IngestLaneExecutor ingestExecutor, TelemetryRateService rateService) {
         this.sessionManager = sessionManager;
         this.droneService = droneService;
+        this.ingestExecutor = ingestExecutor;
+        this.rateService = rateService;
     }
 
     public FleetMessage<RegistrationAck> handle(WorkerRegistration registration, WebSocketSession wsSession) {
@@ -44,16 +54,22 @@ public class RegistrationHandler {
         // Create the fleet session
         FleetSession session = sessionManager.createSession(workerId, droneId, wsSession);
         session.setCapabilities(registration.getCapabilities());
+        session.setProtocolVersion(BinaryFleetCodec.negotiate(registration.getProtocolVersion(), binaryEnabled));
+        session.setIngestMailbox(ingestExecutor.newMailbox(droneId));
+        session.setTelemetryInterval(rateService.getInitialInterval());
 
         // Update or create drone in database
         ensureDroneExists(registration);
 
-        // Update drone status to ACTIVE
-        droneService.updateDroneStatus(droneId, DroneStatus.ACTIVE);
+        // Update drone status to ACTIVE. A previous session queues its OFFLINE before releasing the
+        // drone, so that OFFLINE is already ahead of this task on the drone's lane
+        ingestExecutor.executePriority(droneId, () -> droneService.updateDroneStatus(droneId, DroneStatus.ACTIVE));
 
         // Build acknowledgment
         RegistrationAck ack = RegistrationAck.accepted(session.getSessionId(), heartbeatInterval);
         ack.setConfiguredChannels(List.of("telemetry", "commands"));
+        ack.setProtocolVersion(session.getProtocolVersion());
+        ack.setTelemetryInterval(session.getTelemetryInterval());
 
         log.info("Registration successful for worker: {} session: {}", workerId, session.getSessionId());
 
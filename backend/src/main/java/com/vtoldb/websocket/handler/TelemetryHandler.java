@@ -1,25 +1,54 @@
 package com.vtoldb.websocket.handler;
 
-import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneChangeDTO;
 import com.vtoldb.model.DroneStatus;
 import com.vtoldb.service.DroneService;
-import com.vtoldb.service.FleetBroadcastService;
+import com.vtoldb.service.TelemetryHistoryService;
+import com.vtoldb.websocket.protocol.FleetMessage;
+import com.vtoldb.websocket.protocol.KeyframeRequest;
+import com.vtoldb.websocket.protocol.MessageType;
 import com.vtoldb.websocket.protocol.TelemetryPayload;
 import com.vtoldb.websocket.session.FleetSession;
+import com.vtoldb.websocket.session.TelemetryDeltaState;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
 @Component
 public class TelemetryHandler {
     private static final Logger log = LoggerFactory.getLogger(TelemetryHandler.class);
 
     private final DroneService droneService;
-    private final FleetBroadcastService broadcastService;
+    private final TelemetryHistoryService historyService;
+    private final FleetWebSocketHandler webSocketHandler;
+    private final LongAdder deltasApplied = new LongAdder();
+    private final LongAdder keyframeRequests = new LongAdder();
+
+    @Value("${websocket.fleet.telemetry-delta.keyframe-retry-ms:2000}")
+    private long keyframeRetryMillis;
 
-    public TelemetryHandler(DroneService droneService, FleetBroadcastService broadcastService) {
+    public TelemetryHandler(DroneService droneService,
+                            TelemetryHistoryService historyService,
+                            @Lazy FleetWebSocketHandler webSocketHandler) {
         this.droneService = droneService;
-        this.broadcastService = broadcastService;
+        this.historyService = historyService;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    public long getDeltasApplied() {
+        return deltasApplied.sum();
+    }
+
+    public long getKeyframeRequests() {
+        return keyframeRequests.sum();
     }
 
     public void handle(TelemetryPayload telemetry, FleetSession session) {
@@ -27,69 +56,98 @@ public class TelemetryHandler {
         log.debug("Processing telemetry for drone: {}", droneId);
 
         try {
-            // Get current drone
-            DroneDTO drone = droneService.getDroneById(droneId);
-            if (drone == null) {
+            // A full sample with a sequence is a delta-mode worker's keyframe
+            if (telemetry.getSequence() != null) {
+                session.getDeltaState().applyKeyframe(telemetry);
+            }
+
+            // Writes the changed fields in place and broadcasts them to dashboard clients;
+            // the Drone entity is synced from the fleet state table
+            DroneChangeDTO change = droneService.applyTelemetry(droneId, telemetry);
+            if (change == null) {
                 log.warn("Drone not found for telemetry: {}", droneId);
                 return;
             }
 
-            // Update drone with telemetry data
-            boolean updated = false;
+            // Keep the full sample in the time-series history
+            long timestamp = telemetry.getTimestamp() != null ? telemetry.getTimestamp() : System.currentTimeMillis();
+            historyService.record(droneId, timestamp, telemetry);
+        } catch (Exception e) {
+            log.error("Failed to process telemetry for drone: {}", droneId, e);
+        }
+    }
 
-            if (telemetry.getPosition() != null) {
-                TelemetryPayload.Position pos = telemetry.getPosition();
-                if (pos.getLatitude() != null) {
-                    drone.setLatitude(pos.getLatitude());
-                    updated = true;
-                }
-                if (pos.getLongitude() != null) {
-                    drone.setLongitude(pos.getLongitude());
-                    updated = true;
-                }
-                if (pos.getAltitude() != null) {
-                    drone.setAltitude(pos.getAltitude());
-                    updated = true;
-                }
+    // Applies only the fields the worker reported as changed, so slow-moving fields are neither
+    // sent nor parsed; history still gets the full merged sample. A sequence gap, such as a
+    // delta shed under overload, makes the server ask the worker for a keyframe, and until it
+    // arrives history gets only the delta's own fields, since the merged rest may be stale
+    public void handleDelta(TelemetryPayload delta, FleetSession session) {
+        String droneId = delta.getDroneId();
+        try {
+            TelemetryDeltaState state = session.getDeltaState();
+            Long previous = state.getLastSequence();
+            if (!state.applyDelta(delta)) {
+                log.debug("Telemetry delta gap for drone {}: {} after {}", droneId, delta.getSequence(), previous);
             }
-
-            if (telemetry.getBattery() != null && telemetry.getBattery().getLevel() != null) {
-                drone.setBatteryLevel(telemetry.getBattery().getLevel());
-                updated = true;
+            long now = System.currentTimeMillis();
+            if (state.shouldRequestKeyframe(now, keyframeRetryMillis)) {
+                requestKeyframe(session, previous);
             }
 
-            if (telemetry.getStatus() != null) {
-                try {
-                    DroneStatus status = DroneStatus.valueOf(telemetry.getStatus());
-                    drone.setStatus(status);
-                    updated = true;
-                } catch (IllegalArgumentException e) {
-                    log.warn("Invalid status in telemetry: {}", telemetry.getStatus());
-                }
+            DroneChangeDTO change = droneService.applyTelemetry(droneId, delta);
+            if (change == null) {
+                log.warn("Drone not found for telemetry: {}", droneId);
+                return;
             }
+            deltasApplied.increment();
+            long timestamp = delta.getTimestamp() != null ? delta.getTimestamp() : now;
+            historyService.record(droneId, timestamp, state.isAwaitingKeyframe() ? delta : state.getState());
+        } catch (Exception e) {
+            log.error("Failed to process telemetry delta for drone: {}", droneId, e);
+        }
+    }
 
-            if (updated) {
-                // Update drone in database
-                droneService.updateDrone(droneId, drone);
+    // Applies one drone's part of a relay's or high-rate worker's batch in one pass; the drone is
+    // persisted and broadcast once with its net change, while history keeps every sample
+    public void handleBatch(List<TelemetryPayload> samples, FleetSession session) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        log.debug("Processing telemetry batch of {} samples from drone: {}", samples.size(), session.getDroneId());
 
-                // Broadcast update to dashboard clients
-                broadcastService.broadcastDroneUpdate(drone);
+        try {
+            Map<String, DroneChangeDTO> changes = droneService.applyTelemetryBatch(samples);
+
+            long now = System.currentTimeMillis();
+            Set<String> unknown = new HashSet<>();
+            for (TelemetryPayload sample : samples) {
+                if (changes.containsKey(sample.getDroneId())) {
+                    historyService.record(sample.getDroneId(),
+                            sample.getTimestamp() != null ? sample.getTimestamp() : now, sample);
+                } else if (unknown.add(sample.getDroneId())) {
+                    log.warn("Drone not found for telemetry: {}", sample.getDroneId());
+                }
             }
         } catch (Exception e) {
-            log.error("Failed to process telemetry for drone: {}", droneId, e);
+            log.error("Failed to process telemetry batch from drone: {}", session.getDroneId(), e);
         }
     }
 
+    private void requestKeyframe(FleetSession session, Long lastSequence) {
+        keyframeRequests.increment();
+        String reason = lastSequence != null ? KeyframeRequest.GAP : KeyframeRequest.NO_STATE;
+        log.debug("Requesting keyframe from drone {} ({})", session.getDroneId(), reason);
+        webSocketHandler.sendToWorker(session,
+                FleetMessage.of(MessageType.KEYFRAME_REQUEST, new KeyframeRequest(lastSequence, reason)));
+    }
+
     public void markDroneOffline(String droneId) {
         try {
-            droneService.updateDroneStatus(droneId, DroneStatus.OFFLINE);
-
-            DroneDTO drone = droneService.getDroneById(droneId);
-            if (drone != null) {
-                broadcastService.broadcastDroneUpdate(drone);
+            // The status change is broadcast by the drone service
+            if (droneService.updateDroneStatus(droneId, DroneStatus.OFFLINE)) {
                 log.info("Marked drone {} as OFFLINE", droneId);
             } else {
-                log.warn("Cannot broadcast offline status - drone not found: {}", droneId);
+                log.warn("Cannot mark drone offline - drone not found: {}", droneId);
             }
         } catch (Exception e) {
             log.error("Failed to mark drone offline: {}", droneId, e);
@@ -0,0 +1,246 @@
+/**
+ * Runs drone-mutating fleet work off the WebSocket I/O threads on a fixed set of lanes
+ * Each lane is a single thread, and a drone id always hashes to the same lane, so work for
+ * one drone runs strictly in submission order while different drones are processed in parallel
+ *
+ * Each lane drains two queues. The priority queue is unbounded and never drops; it carries
+ * registration and disconnect status changes, command acks and alerts, and is always served
+ * first. Telemetry is buffered in each session's bounded IngestMailbox, which sheds the
+ * oldest samples under overload. The lane's regular queue only holds mailbox drains, at most
+ * one per mailbox, so it is unbounded: a telemetry flood cannot delay priority work, and
+ * submitting never blocks the I/O thread
+ */
+package com.vtoldb.websocket.ingest;
+
+import com.vtoldb.dto.IngestMetricsDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+@Component
+public class IngestLaneExecutor {
+    private static final Logger log = LoggerFactory.getLogger(IngestLaneExecutor.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 10_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Lane[] lanes;
+    private final int mailboxCapacity;
+    private final LongAdder telemetryReceived = new LongAdder();
+    private volatile boolean running = true;
+
+    public IngestLaneExecutor(@Value("${websocket.fleet.ingest.lanes:0}") int laneCount,
+                              @Value("${websocket.fleet.ingest.session-capacity:16}") int mailboxCapacity) {
+        if (mailboxCapacity < 1) {
+            throw new IllegalArgumentException("Ingest session capacity must be positive");
+        }
+        this.mailboxCapacity = mailboxCapacity;
+        int count = laneCount > 0 ? laneCount : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[count];
+        for (int i = 0; i < count; i++) {
+            lanes[i] = new Lane(i);
+            lanes[i].thread.start();
+        }
+        log.info("Ingest executor started with {} lanes, {} telemetry messages per session", count, mailboxCapacity);
+    }
+
+    public IngestMailbox newMailbox(String droneId) {
+        return new IngestMailbox(droneId, mailboxCapacity);
+    }
+
+    // Queues sheddable work (telemetry) in the session's mailbox and makes sure the mailbox
+    // is scheduled on its lane. Never blocks; drops the oldest queued message when full
+    public void submit(IngestMailbox mailbox, Runnable task) {
+        Lane lane = laneFor(mailbox.getDroneId());
+        lane.submitted.increment();
+        telemetryReceived.increment();
+        if (!running) {
+            lane.run(task);
+            return;
+        }
+        if (mailbox.offer(task)) {
+            lane.shed.increment();
+        }
+        if (mailbox.markScheduled()) {
+            enqueue(lane, () -> drain(lane, mailbox));
+        }
+    }
+
+    // Queues never-drop work on the drone's lane ahead of any telemetry
+    public void executePriority(String droneId, Runnable task) {
+        Lane lane = laneFor(droneId);
+        lane.submitted.increment();
+        if (!running || Thread.currentThread() == lane.thread) {
+            lane.run(task);
+            return;
+        }
+        lane.priority.add(() -> lane.run(task));
+        LockSupport.unpark(lane.thread);
+    }
+
+    // Priority work that must not overtake the telemetry the session already sent, such as
+    // marking the drone offline when the session ends: applies the mailbox first
+    public void executeAfterPending(IngestMailbox mailbox, String droneId, Runnable task) {
+        if (mailbox == null) {
+            executePriority(droneId, task);
+            return;
+        }
+        Lane lane = laneFor(droneId);
+        executePriority(droneId, () -> {
+            for (Runnable pending = mailbox.poll(); pending != null; pending = mailbox.poll()) {
+                lane.run(pending);
+            }
+            task.run();
+        });
+    }
+
+    // Telemetry submitted since startup, including any later shed; a relayed batch counts once
+    // per drone it carries samples for
+    public long getTelemetryReceived() {
+        return telemetryReceived.sum();
+    }
+
+    public IngestMetricsDTO getMetrics() {
+        IngestMetricsDTO metrics = new IngestMetricsDTO();
+        List<IngestMetricsDTO.Lane> laneMetrics = new ArrayList<>(lanes.length);
+        for (Lane lane : lanes) {
+            IngestMetricsDTO.Lane entry = new IngestMetricsDTO.Lane();
+            entry.setIndex(lane.index);
+            entry.setDepth(lane.queue.size());
+            entry.setPriorityDepth(lane.priority.size());
+            entry.setMaxDepth(lane.maxDepth.get());
+            entry.setSubmitted(lane.submitted.sum());
+            entry.setCompleted(lane.completed.get());
+            entry.setFailed(lane.failed.get());
+            entry.setShed(lane.shed.sum());
+            laneMetrics.add(entry);
+
+            metrics.setQueued(metrics.getQueued() + entry.getDepth() + entry.getPriorityDepth());
+            metrics.setCompleted(metrics.getCompleted() + entry.getCompleted());
+            metrics.setFailed(metrics.getFailed() + entry.getFailed());
+            metrics.setShed(metrics.getShed() + entry.getShed());
+        }
+        metrics.setLanes(laneMetrics);
+        return metrics;
+    }
+
+    // Stops accepting queued work and lets each lane drain what it already holds
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        for (Lane lane : lanes) {
+            LockSupport.unpark(lane.thread);
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (lane.thread.isAlive()) {
+                log.warn("Ingest lane {} did not drain in time, {} tasks dropped",
+                        lane.index, lane.queue.size() + lane.priority.size());
+                lane.thread.interrupt();
+            }
+        }
+    }
+
+    // Spreads the hash bits before reducing, so ids differing only in high bits still spread out
+    private Lane laneFor(String droneId) {
+        int hash = droneId != null ? droneId.hashCode() : 0;
+        return lanes[Math.floorMod(hash ^ (hash >>> 16), lanes.length)];
+    }
+
+    private void enqueue(Lane lane, Runnable task) {
+        lane.queue.add(task);
+        lane.recordDepth();
+        LockSupport.unpark(lane.thread);
+    }
+
+    // Runs on the lane. Takes at most one mailbox's worth per turn, then goes to the back of
+    // the lane if more arrived, so one busy drone cannot starve the others sharing its lane
+    private void drain(Lane lane, IngestMailbox mailbox) {
+        for (int i = 0; i < mailbox.capacity(); i++) {
+            Runnable task = mailbox.poll();
+            if (task == null) {
+                break;
+            }
+            lane.run(task);
+        }
+        mailbox.clearScheduled();
+        if (mailbox.size() > 0 && mailbox.markScheduled()) {
+            enqueue(lane, () -> drain(lane, mailbox));
+        }
+    }
+
+    private final class Lane {
+        private final int index;
+        // Unbounded, with a constant-time size for the depth recorded on every enqueue
+        private final Queue<Runnable> queue = new LinkedBlockingQueue<>();
+        private final Queue<Runnable> priority = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+        private final LongAdder submitted = new LongAdder();
+        private final LongAdder shed = new LongAdder();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong maxDepth = new AtomicLong();
+
+        Lane(int index) {
+            this.index = index;
+            this.thread = new Thread(this::loop, "ingest-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void loop() {
+            while (true) {
+                Runnable task = priority.poll();
+                if (task == null) {
+                    task = queue.poll();
+                }
+                if (task != null) {
+                    task.run();
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                if (Thread.interrupted()) {
+                    return;
+                }
+            }
+        }
+
+        private void run(Runnable task) {
+            try {
+                task.run();
+                completed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("Ingest task failed on lane {}", index, e);
+            }
+        }
+
+        private void recordDepth() {
+            long depth = queue.size();
+            long max = maxDepth.get();
+            while (depth > max && !maxDepth.compareAndSet(max, depth)) {
+                max = maxDepth.get();
+            }
+        }
+    }
+}
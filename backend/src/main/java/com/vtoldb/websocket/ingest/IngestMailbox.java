@@ -0,0 +1,66 @@
+/**
+ * Bounded per-session queue of telemetry waiting for its drone's ingest lane
+ * When full, the oldest queued message is dropped to make room, so a flooding worker
+ * loses stale samples instead of building latency; capacity 1 keeps only the latest
+ * The mailbox is scheduled on its lane at most once at a time
+ */
+package com.vtoldb.websocket.ingest;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class IngestMailbox {
+    private final String droneId;
+    private final int capacity;
+    private final ArrayDeque<Runnable> pending;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    // Guarded by this
+    private long shed;
+
+    IngestMailbox(String droneId, int capacity) {
+        this.droneId = droneId;
+        this.capacity = capacity;
+        this.pending = new ArrayDeque<>(capacity);
+    }
+
+    public String getDroneId() {
+        return droneId;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long getShedCount() {
+        return shed;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // Returns true if the oldest message was dropped to make room
+    synchronized boolean offer(Runnable task) {
+        boolean dropped = false;
+        if (pending.size() == capacity) {
+            pending.pollFirst();
+            shed++;
+            dropped = true;
+        }
+        pending.addLast(task);
+        return dropped;
+    }
+
+    synchronized Runnable poll() {
+        return pending.pollFirst();
+    }
+
+    // True if the caller now owns the single pending drain of this mailbox
+    boolean markScheduled() {
+        return scheduled.compareAndSet(false, true);
+    }
+
+    void clearScheduled() {
+        scheduled.set(false);
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * What a session's outbound queue does with a message of a given type
+ * Applied when the queue's buffer is full, except REPLACE, which always coalesces
+ */
+package com.vtoldb.websocket.outbound;
+
+public enum OutboundPolicy {
+    // Discard the new message; for replies the worker can do without, such as errors
+    DROP,
+    // Overwrite a queued message of the same type in place, since only the latest one matters;
+    // if none is queued and the buffer is full, the new message is dropped
+    REPLACE,
+    // The message must not be lost, so a link this far behind is treated as broken and the
+    // session is closed; the worker reconnects and registers again
+    CLOSE
+}
@@ -0,0 +1,260 @@
+/**
+ * Bounded, non-blocking send queue of one worker WebSocket session
+ * Callers only enqueue and never wait on the socket. At most one message is in flight at a
+ * time, sent with the container's asynchronous remote endpoint; its completion starts the
+ * next one, so a slow drone link only delays its own messages
+ *
+ * Two limits apply. When the queued bytes would exceed the buffer size limit, the message
+ * type's OutboundPolicy decides. When a send has been in progress longer than the send-time
+ * limit, the link is considered stuck and the session is closed
+ */
+package com.vtoldb.websocket.outbound;
+
+import com.vtoldb.dto.OutboundQueueDTO;
+import com.vtoldb.websocket.protocol.MessageType;
+import jakarta.websocket.RemoteEndpoint;
+import jakarta.websocket.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+public class OutboundQueue {
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueue.class);
+
+    // Tomcat's timeout for blocking sends, which include the close frame
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final WebSocketSession session;
+    // Null when the session has no JSR-356 endpoint; messages are then sent blocking on the flushing thread
+    private final RemoteEndpoint.Async remote;
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitMillis;
+
+    // Guarded by this
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private long bufferedBytes;
+    private long maxBufferedBytes;
+    private boolean inFlight;
+    private long sendStartedMillis;
+    private Thread flushingThread;
+    private boolean closed;
+    private boolean closing;
+    private long sent;
+    private long sentBytes;
+    private long dropped;
+    private long replaced;
+    private long failed;
+
+    OutboundQueue(WebSocketSession session, int bufferSizeLimit, long sendTimeLimitMillis) {
+        this.session = session;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+        this.remote = asyncRemote(session, sendTimeLimitMillis);
+    }
+
+    // Returns false if the message was dropped, or the session is being closed because of it
+    public boolean offer(MessageType type, WebSocketMessage<?> message, OutboundPolicy policy) {
+        int size = message.getPayloadLength();
+        String closeReason = null;
+        synchronized (this) {
+            if (closed) {
+                dropped++;
+                return false;
+            }
+            if (inFlight && System.currentTimeMillis() - sendStartedMillis > sendTimeLimitMillis) {
+                closeReason = "send took longer than " + sendTimeLimitMillis + "ms";
+            } else if (policy == OutboundPolicy.REPLACE && replaceQueued(type, message, size)) {
+                replaced++;
+                return true;
+            } else if (!pending.isEmpty() && bufferedBytes + size > bufferSizeLimit) {
+                // An empty queue always takes the message, so one large message is never refused
+                if (policy != OutboundPolicy.CLOSE) {
+                    dropped++;
+                    log.debug("Dropped outbound {} for session {}: {} bytes already queued",
+                            type, session.getId(), bufferedBytes);
+                    return false;
+                }
+                closeReason = "outbound buffer full with " + bufferedBytes + " bytes";
+            } else {
+                pending.addLast(new Entry(type, message, size));
+                bufferedBytes += size;
+                maxBufferedBytes = Math.max(maxBufferedBytes, bufferedBytes);
+            }
+            if (closeReason != null) {
+                dropped++;
+            }
+        }
+        if (closeReason != null) {
+            closeSession(closeReason);
+            return false;
+        }
+        flush();
+        return true;
+    }
+
+    // Drops whatever is still queued; called once the connection has closed
+    public synchronized void close() {
+        if (!closed) {
+            discardPending();
+        }
+    }
+
+    public synchronized OutboundQueueDTO getStats() {
+        OutboundQueueDTO stats = new OutboundQueueDTO();
+        stats.setQueued(pending.size());
+        stats.setBufferedBytes(bufferedBytes);
+        stats.setMaxBufferedBytes(maxBufferedBytes);
+        stats.setSent(sent);
+        stats.setSentBytes(sentBytes);
+        stats.setDropped(dropped);
+        stats.setReplaced(replaced);
+        stats.setFailed(failed);
+        stats.setSendingMillis(inFlight ? System.currentTimeMillis() - sendStartedMillis : 0);
+        return stats;
+    }
+
+    // Overwrites the newest queued message of the same type, keeping its place in the queue
+    private boolean replaceQueued(MessageType type, WebSocketMessage<?> message, int size) {
+        if (type == null) {
+            return false;
+        }
+        var it = pending.descendingIterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (entry.type == type) {
+                bufferedBytes += size - entry.size;
+                maxBufferedBytes = Math.max(maxBufferedBytes, bufferedBytes);
+                entry.message = message;
+                entry.size = size;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Starts the next send if none is in flight. A send that completes on the calling thread
+    // lets this loop continue instead of recursing from the completion callback
+    private void flush() {
+        while (true) {
+            Entry next;
+            synchronized (this) {
+                if (inFlight || closed) {
+                    return;
+                }
+                next = pending.pollFirst();
+                if (next == null) {
+                    return;
+                }
+                bufferedBytes -= next.size;
+                inFlight = true;
+                sendStartedMillis = System.currentTimeMillis();
+                flushingThread = Thread.currentThread();
+            }
+            transmit(next);
+            synchronized (this) {
+                if (flushingThread == Thread.currentThread()) {
+                    flushingThread = null;
+                }
+            }
+        }
+    }
+
+    private void transmit(Entry entry) {
+        try {
+            if (remote != null && entry.message instanceof TextMessage text) {
+                remote.sendText(text.getPayload(), result -> onSent(entry, result.getException()));
+            } else if (remote != null && entry.message instanceof BinaryMessage binary) {
+                remote.sendBinary(binary.getPayload(), result -> onSent(entry, result.getException()));
+            } else {
+                session.sendMessage(entry.message);
+                onSent(entry, null);
+            }
+        } catch (IOException | RuntimeException e) {
+            onSent(entry, e);
+        }
+    }
+
+    private void onSent(Entry entry, Throwable error) {
+        boolean resume;
+        synchronized (this) {
+            inFlight = false;
+            if (error == null) {
+                sent++;
+                sentBytes += entry.size;
+            } else {
+                failed++;
+            }
+            resume = flushingThread != Thread.currentThread();
+        }
+        if (error != null) {
+            closeSession("send failed: " + error);
+            return;
+        }
+        if (resume) {
+            flush();
+        }
+    }
+
+    private void discardPending() {
+        closed = true;
+        dropped += pending.size();
+        pending.clear();
+        bufferedBytes = 0;
+    }
+
+    // Closing writes a close frame, which can block on the same stuck socket, so it runs on
+    // its own virtual thread rather than the caller's
+    private void closeSession(String reason) {
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+            discardPending();
+        }
+        if (!session.isOpen()) {
+            return;
+        }
+        log.warn("Closing fleet session {}: {}", session.getId(), reason);
+        Thread.ofVirtual().name("fleet-outbound-close-" + session.getId()).start(() -> {
+            try {
+                session.close(CloseStatus.SESSION_NOT_RELIABLE);
+            } catch (IOException e) {
+                log.debug("Failed to close session {}", session.getId(), e);
+            }
+        });
+    }
+
+    private static RemoteEndpoint.Async asyncRemote(WebSocketSession session, long sendTimeLimitMillis) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session endpoint = nativeSession.getNativeSession(Session.class);
+            if (endpoint != null) {
+                RemoteEndpoint.Async remote = endpoint.getAsyncRemote();
+                remote.setSendTimeout(sendTimeLimitMillis);
+                endpoint.getUserProperties().put(BLOCKING_SEND_TIMEOUT, sendTimeLimitMillis);
+                return remote;
+            }
+        }
+        return null;
+    }
+
+    private static final class Entry {
+        private final MessageType type;
+        private WebSocketMessage<?> message;
+        private int size;
+
+        Entry(MessageType type, WebSocketMessage<?> message, int size) {
+            this.type = type;
+            this.message = message;
+            this.size = size;
+        }
+    }
+}
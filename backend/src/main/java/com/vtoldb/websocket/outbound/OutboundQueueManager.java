@@ -0,0 +1,80 @@
+/**
+ * Owns the outbound queue of every open fleet WebSocket connection
+ * Every server-to-worker message goes through here, whichever thread sends it: replies on
+ * the I/O threads, commands, rate control and keyframe requests. Each message type has an
+ * overflow policy for when its session's buffer is full
+ */
+package com.vtoldb.websocket.outbound;
+
+import com.vtoldb.websocket.protocol.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class OutboundQueueManager {
+    private static final Logger log = LoggerFactory.getLogger(OutboundQueueManager.class);
+
+    private static final Map<MessageType, OutboundPolicy> POLICIES = new EnumMap<>(MessageType.class);
+
+    static {
+        POLICIES.put(MessageType.REGISTER_ACK, OutboundPolicy.CLOSE);
+        POLICIES.put(MessageType.COMMAND, OutboundPolicy.CLOSE);
+        POLICIES.put(MessageType.RATE_CONTROL, OutboundPolicy.REPLACE);
+        POLICIES.put(MessageType.KEYFRAME_REQUEST, OutboundPolicy.REPLACE);
+        POLICIES.put(MessageType.HEARTBEAT, OutboundPolicy.REPLACE);
+    }
+
+    // Map WebSocketSession.id -> queue
+    private final ConcurrentHashMap<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+    private final int bufferSizeLimit;
+    private final long sendTimeLimitMillis;
+
+    public OutboundQueueManager(@Value("${websocket.fleet.outbound.buffer-size-limit:65536}") int bufferSizeLimit,
+                                @Value("${websocket.fleet.outbound.send-time-limit-ms:10000}") long sendTimeLimitMillis) {
+        if (bufferSizeLimit < 1 || sendTimeLimitMillis < 1) {
+            throw new IllegalArgumentException("Outbound buffer size and send time limits must be positive");
+        }
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.sendTimeLimitMillis = sendTimeLimitMillis;
+    }
+
+    // Messages without a policy of their own, such as error replies, are dropped on overflow
+    public static OutboundPolicy policyFor(MessageType type) {
+        return type != null ? POLICIES.getOrDefault(type, OutboundPolicy.DROP) : OutboundPolicy.DROP;
+    }
+
+    public void open(WebSocketSession session) {
+        queues.put(session.getId(), new OutboundQueue(session, bufferSizeLimit, sendTimeLimitMillis));
+    }
+
+    public void close(WebSocketSession session) {
+        OutboundQueue queue = queues.remove(session.getId());
+        if (queue != null) {
+            queue.close();
+        }
+    }
+
+    // Queues the message without blocking; type is null for error replies.
+    // Returns false if it was dropped or the session is gone
+    public boolean send(WebSocketSession session, MessageType type, WebSocketMessage<?> message) {
+        OutboundQueue queue = queues.get(session.getId());
+        if (queue == null) {
+            log.debug("No outbound queue for session {}, {} not sent", session.getId(), type);
+            return false;
+        }
+        return queue.offer(type, message, policyFor(type));
+    }
+
+    public Optional<OutboundQueue> getQueue(WebSocketSession session) {
+        return Optional.ofNullable(queues.get(session.getId()));
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Compact binary encoding of the high-rate worker messages (protocol version 2.0)
+ * TELEMETRY, TELEMETRY_BATCH, TELEMETRY_DELTA, HEARTBEAT and COMMAND_ACK travel as binary frames that decode
+ * into the same payload classes as their JSON form; the layout is specified in docs/BINARY_PROTOCOL.md
+ * All numbers are big-endian; strings are UTF-8 prefixed by their byte length
+ */
+package com.vtoldb.websocket.protocol;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public final class BinaryFleetCodec {
+    public static final String PROTOCOL_JSON = "1.0";
+    public static final String PROTOCOL_BINARY = "2.0";
+
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte TYPE_TELEMETRY = 1;
+    static final byte TYPE_HEARTBEAT = 2;
+    static final byte TYPE_COMMAND_ACK = 3;
+    static final byte TYPE_TELEMETRY_BATCH = 4;
+    static final byte TYPE_TELEMETRY_DELTA = 5;
+
+    // Telemetry presence flags; present fields follow in bit order
+    static final int F_TIMESTAMP = 1;
+    static final int F_LATITUDE = 1 << 1;
+    static final int F_LONGITUDE = 1 << 2;
+    static final int F_ALTITUDE = 1 << 3;
+    static final int F_HEADING = 1 << 4;
+    static final int F_SPEED = 1 << 5;
+    static final int F_BATTERY_LEVEL = 1 << 6;
+    static final int F_BATTERY_VOLTAGE = 1 << 7;
+    static final int F_BATTERY_CURRENT = 1 << 8;
+    static final int F_BATTERY_TEMPERATURE = 1 << 9;
+    static final int F_STATUS = 1 << 10;
+    static final int F_FLIGHT_MODE = 1 << 11;
+    static final int F_GPS_FIX_TYPE = 1 << 12;
+    static final int F_SATELLITE_COUNT = 1 << 13;
+    static final int F_SIGNAL_STRENGTH = 1 << 14;
+    static final int F_SEQUENCE = 1 << 15;
+
+    private static final int POSITION_FLAGS = F_LATITUDE | F_LONGITUDE | F_ALTITUDE | F_HEADING | F_SPEED;
+    private static final int BATTERY_FLAGS = F_BATTERY_LEVEL | F_BATTERY_VOLTAGE | F_BATTERY_CURRENT | F_BATTERY_TEMPERATURE;
+    private static final int SENSOR_FLAGS = F_GPS_FIX_TYPE | F_SATELLITE_COUNT | F_SIGNAL_STRENGTH;
+
+    // Status codes are fixed by the schema; index 0 is unused
+    private static final String[] STATUS_CODES = {null, "ACTIVE", "INACTIVE", "MAINTENANCE", "OFFLINE"};
+
+    private BinaryFleetCodec() {}
+
+    // Picks the protocol answered in REGISTER_ACK; anything but a 2.x request stays on JSON
+    public static String negotiate(String requested, boolean binaryEnabled) {
+        return binaryEnabled && requested != null && requested.startsWith("2.") ? PROTOCOL_BINARY : PROTOCOL_JSON;
+    }
+
+    // Decodes one frame into the envelope the JSON path would have produced; the drone id
+    // comes from the session since binary telemetry does not repeat it
+    public static FleetMessage<?> decode(ByteBuffer frame, String droneId) {
+        try {
+            byte type = frame.get();
+            byte version = frame.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported binary format version: " + version);
+            }
+            return switch (type) {
+                case TYPE_TELEMETRY -> FleetMessage.of(MessageType.TELEMETRY, decodeTelemetry(frame, droneId));
+                case TYPE_TELEMETRY_DELTA -> {
+                    TelemetryPayload delta = decodeTelemetry(frame, droneId);
+                    if (delta.getSequence() == null) {
+                        throw new IllegalArgumentException("Telemetry delta without a sequence");
+                    }
+                    yield FleetMessage.of(MessageType.TELEMETRY_DELTA, delta);
+                }
+                case TYPE_TELEMETRY_BATCH -> FleetMessage.of(MessageType.TELEMETRY_BATCH, decodeTelemetryBatch(frame, droneId));
+                case TYPE_HEARTBEAT -> new FleetMessage<Void>(MessageType.HEARTBEAT, null);
+                case TYPE_COMMAND_ACK -> {
+                    String correlationId = getString(frame);
+                    CommandAck ack = new CommandAck(getString(frame), getString(frame));
+                    yield FleetMessage.of(MessageType.COMMAND_ACK, ack).withCorrelationId(correlationId);
+                }
+                default -> throw new IllegalArgumentException("Unknown binary message type: " + type);
+            };
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated binary frame");
+        }
+    }
+
+    // Each sample names its drone, or leaves it empty for the sender's own drone
+    private static TelemetryBatchPayload decodeTelemetryBatch(ByteBuffer frame, String droneId) {
+        int count = frame.getShort() & 0xFFFF;
+        List<TelemetryPayload> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String sampleDroneId = getString(frame);
+            samples.add(decodeTelemetry(frame, sampleDroneId != null ? sampleDroneId : droneId));
+        }
+        return new TelemetryBatchPayload(samples);
+    }
+
+    private static TelemetryPayload decodeTelemetry(ByteBuffer frame, String droneId) {
+        int flags = frame.getShort() & 0xFFFF;
+        TelemetryPayload telemetry = new TelemetryPayload();
+        telemetry.setDroneId(droneId);
+        if ((flags & F_TIMESTAMP) != 0) telemetry.setTimestamp(frame.getLong());
+        if ((flags & POSITION_FLAGS) != 0) {
+            TelemetryPayload.Position position = new TelemetryPayload.Position();
+            if ((flags & F_LATITUDE) != 0) position.setLatitude(frame.getDouble());
+            if ((flags & F_LONGITUDE) != 0) position.setLongitude(frame.getDouble());
+            if ((flags & F_ALTITUDE) != 0) position.setAltitude(frame.getDouble());
+            if ((flags & F_HEADING) != 0) position.setHeading(frame.getDouble());
+            if ((flags & F_SPEED) != 0) position.setSpeed(frame.getDouble());
+            telemetry.setPosition(position);
+        }
+        if ((flags & BATTERY_FLAGS) != 0) {
+            TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+            if ((flags & F_BATTERY_LEVEL) != 0) battery.setLevel(frame.getDouble());
+            if ((flags & F_BATTERY_VOLTAGE) != 0) battery.setVoltage(frame.getDouble());
+            if ((flags & F_BATTERY_CURRENT) != 0) battery.setCurrent(frame.getDouble());
+            if ((flags & F_BATTERY_TEMPERATURE) != 0) battery.setTemperature(frame.getDouble());
+            telemetry.setBattery(battery);
+        }
+        if ((flags & F_STATUS) != 0) {
+            int code = frame.get() & 0xFF;
+            telemetry.setStatus(code < STATUS_CODES.length ? STATUS_CODES[code] : null);
+        }
+        if ((flags & F_FLIGHT_MODE) != 0) telemetry.setFlightMode(getString(frame));
+        if ((flags & SENSOR_FLAGS) != 0) {
+            TelemetryPayload.Sensors sensors = new TelemetryPayload.Sensors();
+            if ((flags & F_GPS_FIX_TYPE) != 0) sensors.setGpsFixType(frame.get() & 0xFF);
+            if ((flags & F_SATELLITE_COUNT) != 0) sensors.setSatelliteCount(frame.get() & 0xFF);
+            if ((flags & F_SIGNAL_STRENGTH) != 0) sensors.setSignalStrength((int) frame.getShort());
+            telemetry.setSensors(sensors);
+        }
+        if ((flags & F_SEQUENCE) != 0) telemetry.setSequence(frame.getInt() & 0xFFFFFFFFL);
+        return telemetry;
+    }
+
+    public static ByteBuffer encodeHeartbeat() {
+        return ByteBuffer.wrap(new byte[] {TYPE_HEARTBEAT, FORMAT_VERSION});
+    }
+
+    // Encoders for worker clients and tests of the decoder; the server itself only sends heartbeats
+    public static ByteBuffer encodeTelemetry(TelemetryPayload telemetry) {
+        ByteBuffer out = ByteBuffer.allocate(2 + maxTelemetrySize(telemetry));
+        out.put(TYPE_TELEMETRY).put(FORMAT_VERSION);
+        putTelemetry(out, telemetry);
+        return out.flip();
+    }
+
+    // Same body as TELEMETRY; only the fields that changed need to be set, plus the sequence
+    public static ByteBuffer encodeTelemetryDelta(TelemetryPayload delta) {
+        if (delta.getSequence() == null) {
+            throw new IllegalArgumentException("Telemetry delta without a sequence");
+        }
+        ByteBuffer out = ByteBuffer.allocate(2 + maxTelemetrySize(delta));
+        out.put(TYPE_TELEMETRY_DELTA).put(FORMAT_VERSION);
+        putTelemetry(out, delta);
+        return out.flip();
+    }
+
+    // A sample whose droneId equals ownDroneId is sent without it
+    public static ByteBuffer encodeTelemetryBatch(List<TelemetryPayload> samples, String ownDroneId) {
+        if (samples.size() > 0xFFFF) {
+            throw new IllegalArgumentException("Batch larger than 65535 samples");
+        }
+        int size = 4;
+        for (TelemetryPayload sample : samples) {
+            size += 1 + bytes(sample.getDroneId()).length + maxTelemetrySize(sample);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.put(TYPE_TELEMETRY_BATCH).put(FORMAT_VERSION).putShort((short) samples.size());
+        for (TelemetryPayload sample : samples) {
+            String id = sample.getDroneId();
+            putString(out, id == null || id.equals(ownDroneId) ? new byte[0] : bytes(id));
+            putTelemetry(out, sample);
+        }
+        return out.flip();
+    }
+
+    private static int maxTelemetrySize(TelemetryPayload telemetry) {
+        int flightMode = telemetry.getFlightMode() != null ? 1 + bytes(telemetry.getFlightMode()).length : 0;
+        return 2 + 8 + 9 * 8 + 1 + flightMode + 4 + 4;
+    }
+
+    // Writes the presence flags and the present fields
+    private static void putTelemetry(ByteBuffer out, TelemetryPayload telemetry) {
+        int flagsAt = out.position();
+        out.putShort((short) 0);
+
+        int flags = 0;
+        if (telemetry.getTimestamp() != null) {
+            flags |= F_TIMESTAMP;
+            out.putLong(telemetry.getTimestamp());
+        }
+        TelemetryPayload.Position position = telemetry.getPosition();
+        if (position != null) {
+            flags |= putDouble(out, position.getLatitude(), F_LATITUDE);
+            flags |= putDouble(out, position.getLongitude(), F_LONGITUDE);
+            flags |= putDouble(out, position.getAltitude(), F_ALTITUDE);
+            flags |= putDouble(out, position.getHeading(), F_HEADING);
+            flags |= putDouble(out, position.getSpeed(), F_SPEED);
+        }
+        TelemetryPayload.Battery battery = telemetry.getBattery();
+        if (battery != null) {
+            flags |= putDouble(out, battery.getLevel(), F_BATTERY_LEVEL);
+            flags |= putDouble(out, battery.getVoltage(), F_BATTERY_VOLTAGE);
+            flags |= putDouble(out, battery.getCurrent(), F_BATTERY_CURRENT);
+            flags |= putDouble(out, battery.getTemperature(), F_BATTERY_TEMPERATURE);
+        }
+        int statusCode = statusCode(telemetry.getStatus());
+        if (statusCode > 0) {
+            flags |= F_STATUS;
+            out.put((byte) statusCode);
+        }
+        if (telemetry.getFlightMode() != null) {
+            flags |= F_FLIGHT_MODE;
+            putString(out, bytes(telemetry.getFlightMode()));
+        }
+        TelemetryPayload.Sensors sensors = telemetry.getSensors();
+        if (sensors != null) {
+            if (sensors.getGpsFixType() != null) {
+                flags |= F_GPS_FIX_TYPE;
+                out.put(sensors.getGpsFixType().byteValue());
+            }
+            if (sensors.getSatelliteCount() != null) {
+                flags |= F_SATELLITE_COUNT;
+                out.put(sensors.getSatelliteCount().byteValue());
+            }
+            if (sensors.getSignalStrength() != null) {
+                flags |= F_SIGNAL_STRENGTH;
+                out.putShort(sensors.getSignalStrength().shortValue());
+            }
+        }
+        if (telemetry.getSequence() != null) {
+            flags |= F_SEQUENCE;
+            out.putInt((int) telemetry.getSequence().longValue());
+        }
+        out.putShort(flagsAt, (short) flags);
+    }
+
+    public static ByteBuffer encodeCommandAck(String correlationId, CommandAck ack) {
+        byte[] id = bytes(correlationId);
+        byte[] status = bytes(ack.getStatus());
+        byte[] message = bytes(ack.getMessage());
+        ByteBuffer out = ByteBuffer.allocate(2 + 3 + id.length + status.length + message.length);
+        out.put(TYPE_COMMAND_ACK).put(FORMAT_VERSION);
+        putString(out, id);
+        putString(out, status);
+        putString(out, message);
+        return out.flip();
+    }
+
+    private static int putDouble(ByteBuffer out, Double value, int flag) {
+        if (value == null) {
+            return 0;
+        }
+        out.putDouble(value);
+        return flag;
+    }
+
+    private static int statusCode(String status) {
+        for (int code = 1; code < STATUS_CODES.length; code++) {
+            if (STATUS_CODES[code].equals(status)) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    private static byte[] bytes(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    // Strings are at most 255 bytes; an empty string decodes as null
+    private static void putString(ByteBuffer out, byte[] value) {
+        if (value.length > 255) {
+            throw new IllegalArgumentException("String longer than 255 bytes");
+        }
+        out.put((byte) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer frame) {
+        int length = frame.get() & 0xFF;
+        if (length == 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        frame.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
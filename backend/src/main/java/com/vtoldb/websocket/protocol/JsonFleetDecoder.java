@@ -0,0 +1,93 @@
+/**
+ * Single-pass decoder for JSON fleet messages
+ * Streams over the envelope once, reads the type and binds the payload straight into its
+ * payload class, without building a JsonNode tree for the whole message first
+ * Thread-safe; the per-type readers are created once and shared
+ */
+package com.vtoldb.websocket.protocol;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+
+public class JsonFleetDecoder {
+    private final ObjectMapper objectMapper;
+    private final ObjectReader registrationReader;
+    private final ObjectReader telemetryReader;
+    private final ObjectReader telemetryBatchReader;
+    private final ObjectReader commandAckReader;
+    private final ObjectReader nodeReader;
+
+    public JsonFleetDecoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.registrationReader = objectMapper.readerFor(WorkerRegistration.class);
+        this.telemetryReader = objectMapper.readerFor(TelemetryPayload.class);
+        this.telemetryBatchReader = objectMapper.readerFor(TelemetryBatchPayload.class);
+        this.commandAckReader = objectMapper.readerFor(CommandAck.class);
+        this.nodeReader = objectMapper.readerFor(JsonNode.class);
+    }
+
+    // Returns the envelope with its payload bound to the class for its type (JsonNode for ALERT,
+    // none for HEARTBEAT). Throws IllegalArgumentException for a missing or unknown type and
+    // JsonProcessingException for malformed JSON
+    public FleetMessage<?> decode(String json) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Message is not a JSON object");
+            }
+            MessageType type = null;
+            String correlationId = null;
+            Object payload = null;
+            // Holds the payload only when it arrives before the type
+            TokenBuffer pending = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "type" -> type = MessageType.valueOf(parser.getValueAsString(""));
+                    case "correlationId" -> correlationId = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "payload" -> {
+                        if (type != null) {
+                            payload = bindPayload(type, parser);
+                        } else {
+                            pending = new TokenBuffer(parser);
+                            pending.copyCurrentStructure(parser);
+                        }
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+            if (type == null) {
+                throw new IllegalArgumentException("Message has no type");
+            }
+            if (pending != null) {
+                try (JsonParser buffered = pending.asParser()) {
+                    buffered.nextToken();
+                    payload = bindPayload(type, buffered);
+                }
+            }
+            return new FleetMessage<>(type, payload).withCorrelationId(correlationId);
+        }
+    }
+
+    // Binds the value at the parser's current token; leaves the parser on its last token
+    private Object bindPayload(MessageType type, JsonParser parser) throws IOException {
+        return switch (type) {
+            case REGISTER -> registrationReader.readValue(parser);
+            case TELEMETRY, TELEMETRY_DELTA -> telemetryReader.readValue(parser);
+            case TELEMETRY_BATCH -> telemetryBatchReader.readValue(parser);
+            case COMMAND_ACK -> commandAckReader.readValue(parser);
+            case ALERT -> nodeReader.readValue(parser);
+            default -> {
+                parser.skipChildren();
+                yield null;
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.vtoldb.websocket.protocol;
+
+public class KeyframeRequest {
+    public static final String GAP = "GAP";
+    public static final String NO_STATE = "NO_STATE";
+
+    private Long lastSequence;
+    private String reason;
+
+    public KeyframeRequest() {}
+
+    public KeyframeRequest(Long lastSequence, String reason) {
+        this.lastSequence = lastSequence;
+        this.reason = reason;
+    }
+
+    // Getters and setters
+    // Sequence of the last telemetry applied before the gap; null when the server holds no state yet
+    public Long getLastSequence() {
+        return lastSequence;
+    }
+
+    public void setLastSequence(Long lastSequence) {
+        this.lastSequence = lastSequence;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+}
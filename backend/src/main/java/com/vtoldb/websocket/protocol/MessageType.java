@@ -5,12 +5,16 @@ public enum MessageType {
     REGISTER,
     HEARTBEAT,
     TELEMETRY,
+    TELEMETRY_BATCH,
+    TELEMETRY_DELTA,
     COMMAND_ACK,
     ALERT,
 
     // Server -> Worker
     REGISTER_ACK,
     COMMAND,
+    RATE_CONTROL,
+    KEYFRAME_REQUEST,
 
     // Server -> Dashboard
     SNAPSHOT,
@@ -0,0 +1,47 @@
+package com.vtoldb.websocket.protocol;
+
+public class RateControlPayload {
+    public static final String ALARM = "ALARM";
+    public static final String FLIGHT = "FLIGHT";
+    public static final String IDLE = "IDLE";
+    public static final String DEFAULT = "DEFAULT";
+
+    private long telemetryInterval;
+    private String reason;
+    private boolean throttled;
+
+    public RateControlPayload() {}
+
+    public RateControlPayload(long telemetryInterval, String reason, boolean throttled) {
+        this.telemetryInterval = telemetryInterval;
+        this.reason = reason;
+        this.throttled = throttled;
+    }
+
+    // Getters and setters
+    // Milliseconds the worker should wait between telemetry messages
+    public long getTelemetryInterval() {
+        return telemetryInterval;
+    }
+
+    public void setTelemetryInterval(long telemetryInterval) {
+        this.telemetryInterval = telemetryInterval;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    // True when the interval was stretched to keep fleet ingest within its budget
+    public boolean isThrottled() {
+        return throttled;
+    }
+
+    public void setThrottled(boolean throttled) {
+        this.throttled = throttled;
+    }
+}
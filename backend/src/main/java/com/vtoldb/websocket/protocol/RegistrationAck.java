@@ -7,6 +7,8 @@ public class RegistrationAck {
     private String sessionId;
     private long heartbeatInterval;
     private List<String> configuredChannels;
+    private String protocolVersion;
+    private long telemetryInterval;
 
     public RegistrationAck() {}
 
@@ -58,4 +60,22 @@ public class RegistrationAck {
     public void setConfiguredChannels(List<String> configuredChannels) {
         this.configuredChannels = configuredChannels;
     }
+
+    // Protocol the worker must use from now on; 2.0 enables binary frames
+    public String getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(String protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    // Starting telemetry interval in ms; later changes arrive as RATE_CONTROL messages
+    public long getTelemetryInterval() {
+        return telemetryInterval;
+    }
+
+    public void setTelemetryInterval(long telemetryInterval) {
+        this.telemetryInterval = telemetryInterval;
+    }
 }
@@ -0,0 +1,19 @@
+package com.vtoldb.websocket.protocol;
+
+import java.util.List;
+
+// Ordered telemetry samples sent in one frame; samples without a droneId belong to the
+// sender's own drone, so relays can mix samples of several drones
+public class TelemetryBatchPayload {
+    private List<TelemetryPayload> samples;
+
+    public TelemetryBatchPayload() {}
+
+    public TelemetryBatchPayload(List<TelemetryPayload> samples) {
+        this.samples = samples;
+    }
+
+    // Getters and setters
+    public List<TelemetryPayload> getSamples() { return samples; }
+    public void setSamples(List<TelemetryPayload> samples) { this.samples = samples; }
+}
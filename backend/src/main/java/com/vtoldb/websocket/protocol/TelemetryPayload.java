@@ -2,6 +2,8 @@ package com.vtoldb.websocket.protocol;
 
 public class TelemetryPayload {
     private String droneId;
+    private Long timestamp;
+    private Long sequence;
     private Position position;
     private Battery battery;
     private String status;
@@ -62,6 +64,12 @@ public class TelemetryPayload {
     // Getters and setters
     public String getDroneId() { return droneId; }
     public void setDroneId(String droneId) { this.droneId = droneId; }
+    // Sample time in epoch milliseconds as measured by the worker; optional
+    public Long getTimestamp() { return timestamp; }
+    public void setTimestamp(Long timestamp) { this.timestamp = timestamp; }
+    // Per-session message counter of delta-mode workers; on TELEMETRY it marks a keyframe
+    public Long getSequence() { return sequence; }
+    public void setSequence(Long sequence) { this.sequence = sequence; }
     public Position getPosition() { return position; }
     public void setPosition(Position position) { this.position = position; }
     public Battery getBattery() { return battery; }
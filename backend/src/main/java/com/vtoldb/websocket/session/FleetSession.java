@@ -1,8 +1,14 @@
 package com.vtoldb.websocket.session;
 
+import com.vtoldb.websocket.ingest.IngestMailbox;
+import com.vtoldb.websocket.protocol.BinaryFleetCodec;
 import org.springframework.web.socket.WebSocketSession;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 public class FleetSession {
     private final String sessionId;
@@ -10,8 +16,18 @@ public class FleetSession {
     private final String droneId;
     private final WebSocketSession webSocketSession;
     private final Instant connectedAt;
-    private Instant lastActivity;
+    // System.nanoTime() of the last message; a primitive, so recording activity never allocates
+    private volatile long lastActivityNanos;
+    private volatile boolean removed;
     private List<String> capabilities;
+    private volatile String protocolVersion = BinaryFleetCodec.PROTOCOL_JSON;
+    private volatile IngestMailbox ingestMailbox;
+    // Mailboxes for the other drones this worker relays telemetry for, created on first use
+    private final Map<String, IngestMailbox> relayMailboxes = new ConcurrentHashMap<>();
+    private volatile long telemetryInterval;
+    private volatile long lastAlertMillis;
+    private volatile boolean acknowledged;
+    private final TelemetryDeltaState deltaState = new TelemetryDeltaState();
 
     public FleetSession(String sessionId, String workerId, String droneId,
                         WebSocketSession webSocketSession) {
@@ -20,15 +36,28 @@ public class FleetSession {
         this.droneId = droneId;
         this.webSocketSession = webSocketSession;
         this.connectedAt = Instant.now();
-        this.lastActivity = Instant.now();
+        this.lastActivityNanos = System.nanoTime();
     }
 
     public void updateLastActivity() {
-        this.lastActivity = Instant.now();
+        this.lastActivityNanos = System.nanoTime();
     }
 
-    public boolean isExpired(long timeoutMillis) {
-        return Instant.now().toEpochMilli() - lastActivity.toEpochMilli() > timeoutMillis;
+    public long getLastActivityNanos() {
+        return lastActivityNanos;
+    }
+
+    public long getIdleMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastActivityNanos);
+    }
+
+    // Set once the session manager has dropped the session; the liveness wheel then forgets it
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    void markRemoved() {
+        this.removed = true;
     }
 
     public boolean isOpen() {
@@ -56,10 +85,6 @@ public class FleetSession {
         return connectedAt;
     }
 
-    public Instant getLastActivity() {
-        return lastActivity;
-    }
-
     public List<String> getCapabilities() {
         return capabilities;
     }
@@ -67,4 +92,60 @@ public class FleetSession {
     public void setCapabilities(List<String> capabilities) {
         this.capabilities = capabilities;
     }
+
+    public String getProtocolVersion() {
+        return protocolVersion;
+    }
+
+    public void setProtocolVersion(String protocolVersion) {
+        this.protocolVersion = protocolVersion;
+    }
+
+    public IngestMailbox getIngestMailbox() {
+        return ingestMailbox;
+    }
+
+    public void setIngestMailbox(IngestMailbox ingestMailbox) {
+        this.ingestMailbox = ingestMailbox;
+    }
+
+    public IngestMailbox getRelayMailbox(String droneId, Function<String, IngestMailbox> factory) {
+        return relayMailboxes.computeIfAbsent(droneId, factory);
+    }
+
+    // Interval the worker was last told to send telemetry at, in ms
+    public long getTelemetryInterval() {
+        return telemetryInterval;
+    }
+
+    public void setTelemetryInterval(long telemetryInterval) {
+        this.telemetryInterval = telemetryInterval;
+    }
+
+    public long getLastAlertMillis() {
+        return lastAlertMillis;
+    }
+
+    public void markAlert() {
+        this.lastAlertMillis = System.currentTimeMillis();
+    }
+
+    // True once REGISTER_ACK has been queued for the worker; later messages are sent after it
+    public boolean isAcknowledged() {
+        return acknowledged;
+    }
+
+    public void markAcknowledged() {
+        this.acknowledged = true;
+    }
+
+    // Last known telemetry of a worker sending deltas; only used on the drone's ingest lane
+    public TelemetryDeltaState getDeltaState() {
+        return deltaState;
+    }
+
+    // Binary frames are only accepted from sessions that negotiated them at registration
+    public boolean isBinaryProtocol() {
+        return BinaryFleetCodec.PROTOCOL_BINARY.equals(protocolVersion);
+    }
 }
@@ -2,12 +2,12 @@ package com.vtoldb.websocket.session;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
 
 @Component
 public class FleetSessionManager {
@@ -22,6 +22,14 @@ public class FleetSessionManager {
     // Map WebSocketSession.id -> sessionId
     private final ConcurrentHashMap<String, String> wsSessionToFleetSession = new ConcurrentHashMap<>();
 
+    // Idle deadlines of every session, so expiry does not scan them all
+    private final LivenessWheel livenessWheel;
+
+    public FleetSessionManager(@Value("${websocket.fleet.idle-timeout:60000}") long idleTimeout,
+                               @Value("${websocket.fleet.health-check-interval:1000}") long healthCheckInterval) {
+        this.livenessWheel = new LivenessWheel(idleTimeout, healthCheckInterval);
+    }
+
     public FleetSession createSession(String workerId, String droneId, WebSocketSession wsSession) {
         String sessionId = UUID.randomUUID().toString();
         FleetSession session = new FleetSession(sessionId, workerId, droneId, wsSession);
@@ -29,6 +37,7 @@ public class FleetSessionManager {
         sessions.put(sessionId, session);
         droneToSession.put(droneId, sessionId);
         wsSessionToFleetSession.put(wsSession.getId(), sessionId);
+        livenessWheel.add(session);
 
         log.info("Created fleet session: {} for worker: {} drone: {}", sessionId, workerId, droneId);
         return session;
@@ -57,6 +66,7 @@ public class FleetSessionManager {
     public void removeSession(String sessionId) {
         FleetSession session = sessions.remove(sessionId);
         if (session != null) {
+            session.markRemoved();
             droneToSession.remove(session.getDroneId());
             if (session.getWebSocketSession() != null) {
                 wsSessionToFleetSession.remove(session.getWebSocketSession().getId());
@@ -76,10 +86,10 @@ public class FleetSessionManager {
         return Collections.unmodifiableCollection(sessions.values());
     }
 
-    public List<FleetSession> getExpiredSessions(long timeoutMillis) {
-        return sessions.values().stream()
-                .filter(session -> session.isExpired(timeoutMillis))
-                .collect(Collectors.toList());
+    // Sessions idle for longer than the idle timeout since the last call; only visits the
+    // wheel buckets that came due. Call from a single thread
+    public List<FleetSession> getExpiredSessions() {
+        return livenessWheel.expire(System.nanoTime());
     }
 
     public int getActiveSessionCount() {
@@ -0,0 +1,99 @@
+/**
+ * Hashed timing wheel of worker session idle deadlines
+ * Each session sits in the bucket of the tick its idle timeout would run out, as of the last
+ * time it was filed. Messages only write the session's activity timestamp; they never touch
+ * the wheel. When a bucket comes due, each session in it has either expired or been active
+ * since, in which case it is filed again under its real deadline. A live session is thus
+ * looked at about once per idle timeout, and a tick only visits the sessions due in it
+ *
+ * Sessions are added from any thread; expire() is called from a single thread
+ */
+package com.vtoldb.websocket.session;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+public class LivenessWheel {
+    private final long timeoutNanos;
+    private final long tickNanos;
+    private final long startNanos;
+    private final List<FleetSession>[] buckets;
+    private final int mask;
+    private final Queue<FleetSession> added = new ConcurrentLinkedQueue<>();
+
+    // Only touched by the expiring thread
+    private long processedTick;
+    private int size;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LivenessWheel(long timeoutMillis, long tickMillis) {
+        if (timeoutMillis < 1 || tickMillis < 1) {
+            throw new IllegalArgumentException("Idle timeout and tick must be positive");
+        }
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.startNanos = System.nanoTime();
+        // Enough buckets that a full timeout never wraps onto the bucket being processed
+        int wanted = (int) Math.min(1 << 20, timeoutMillis / tickMillis + 2);
+        int count = Integer.highestOneBit(wanted - 1) << 1;
+        this.buckets = new List[count];
+        for (int i = 0; i < count; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.mask = count - 1;
+    }
+
+    public void add(FleetSession session) {
+        added.add(session);
+    }
+
+    // Sessions whose idle timeout ran out since the last call. Removed sessions are dropped
+    // from the wheel when their bucket comes due, without being reported
+    public List<FleetSession> expire(long nowNanos) {
+        for (FleetSession session = added.poll(); session != null; session = added.poll()) {
+            file(session);
+            size++;
+        }
+
+        List<FleetSession> expired = new ArrayList<>();
+        long target = (nowNanos - startNanos) / tickNanos;
+        // After a long pause every bucket is due; visiting each once is enough
+        if (target - processedTick > buckets.length) {
+            processedTick = target - buckets.length;
+        }
+        while (processedTick < target) {
+            processedTick++;
+            List<FleetSession> due = buckets[(int) (processedTick & mask)];
+            if (due.isEmpty()) {
+                continue;
+            }
+            buckets[(int) (processedTick & mask)] = new ArrayList<>();
+            for (FleetSession session : due) {
+                if (session.isRemoved()) {
+                    size--;
+                } else if (session.getLastActivityNanos() + timeoutNanos - nowNanos <= 0) {
+                    expired.add(session);
+                    size--;
+                } else {
+                    file(session);
+                }
+            }
+        }
+        return expired;
+    }
+
+    // Sessions in the wheel, including removed ones not yet dropped
+    public int size() {
+        return size;
+    }
+
+    // Files the session under the first tick at or after its deadline, never the one in progress
+    private void file(FleetSession session) {
+        long deadline = session.getLastActivityNanos() + timeoutNanos - startNanos;
+        long tick = Math.max(processedTick + 1, Math.floorDiv(deadline + tickNanos - 1, tickNanos));
+        buckets[(int) (tick & mask)].add(session);
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Last known telemetry of a delta-mode worker session
+ * A keyframe (TELEMETRY with a sequence) replaces the state; each TELEMETRY_DELTA carries only
+ * the fields that changed and is merged over it. Sequences are unsigned 32-bit counters that
+ * must advance by exactly one per message, so a missing or shed message shows up as a gap,
+ * after which the state is only trusted again once a new keyframe arrives
+ * Only touched on the drone's ingest lane, so it needs no locking
+ */
+package com.vtoldb.websocket.session;
+
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+
+public class TelemetryDeltaState {
+    private static final long SEQUENCE_MASK = 0xFFFFFFFFL;
+
+    private TelemetryPayload state;
+    private long lastSequence = -1;
+    private boolean awaitingKeyframe;
+    private long keyframeRequestedMillis;
+
+    public void applyKeyframe(TelemetryPayload keyframe) {
+        state = new TelemetryPayload();
+        state.setDroneId(keyframe.getDroneId());
+        merge(state, keyframe);
+        lastSequence = keyframe.getSequence() & SEQUENCE_MASK;
+        awaitingKeyframe = false;
+    }
+
+    // Merges the delta even after a gap, since its fields are still the newest values;
+    // returns false if the delta did not directly follow the previous message
+    public boolean applyDelta(TelemetryPayload delta) {
+        long sequence = delta.getSequence() & SEQUENCE_MASK;
+        boolean inOrder = state != null && sequence == ((lastSequence + 1) & SEQUENCE_MASK);
+        if (state == null) {
+            state = new TelemetryPayload();
+            state.setDroneId(delta.getDroneId());
+        }
+        merge(state, delta);
+        lastSequence = sequence;
+        if (!inOrder) {
+            awaitingKeyframe = true;
+        }
+        return inOrder;
+    }
+
+    // True if a keyframe should be asked for now: one is needed and none was requested within
+    // retryMillis, which also bounds how often a worker whose deltas keep being shed is asked
+    public boolean shouldRequestKeyframe(long nowMillis, long retryMillis) {
+        if (!awaitingKeyframe || nowMillis - keyframeRequestedMillis < retryMillis) {
+            return false;
+        }
+        keyframeRequestedMillis = nowMillis;
+        return true;
+    }
+
+    // True after a gap until the next keyframe; fields not sent since the gap may be stale
+    public boolean isAwaitingKeyframe() {
+        return awaitingKeyframe;
+    }
+
+    // Merged full state; owned by this object and changed by the next message
+    public TelemetryPayload getState() {
+        return state;
+    }
+
+    // Sequence of the last applied message, or null before the first one
+    public Long getLastSequence() {
+        return lastSequence >= 0 ? lastSequence : null;
+    }
+
+    // Copies every field set in update over target; nested groups are merged field by field
+    private static void merge(TelemetryPayload target, TelemetryPayload update) {
+        if (update.getTimestamp() != null) target.setTimestamp(update.getTimestamp());
+        if (update.getStatus() != null) target.setStatus(update.getStatus());
+        if (update.getFlightMode() != null) target.setFlightMode(update.getFlightMode());
+        target.setSequence(update.getSequence());
+
+        TelemetryPayload.Position position = update.getPosition();
+        if (position != null) {
+            if (target.getPosition() == null) {
+                target.setPosition(new TelemetryPayload.Position());
+            }
+            TelemetryPayload.Position to = target.getPosition();
+            if (position.getLatitude() != null) to.setLatitude(position.getLatitude());
+            if (position.getLongitude() != null) to.setLongitude(position.getLongitude());
+            if (position.getAltitude() != null) to.setAltitude(position.getAltitude());
+            if (position.getHeading() != null) to.setHeading(position.getHeading());
+            if (position.getSpeed() != null) to.setSpeed(position.getSpeed());
+        }
+        TelemetryPayload.Battery battery = update.getBattery();
+        if (battery != null) {
+            if (target.getBattery() == null) {
+                target.setBattery(new TelemetryPayload.Battery());
+            }
+            TelemetryPayload.Battery to = target.getBattery();
+            if (battery.getLevel() != null) to.setLevel(battery.getLevel());
+            if (battery.getVoltage() != null) to.setVoltage(battery.getVoltage());
+            if (battery.getCurrent() != null) to.setCurrent(battery.getCurrent());
+            if (battery.getTemperature() != null) to.setTemperature(battery.getTemperature());
+        }
+        TelemetryPayload.Sensors sensors = update.getSensors();
+        if (sensors != null) {
+            if (target.getSensors() == null) {
+                target.setSensors(new TelemetryPayload.Sensors());
+            }
+            TelemetryPayload.Sensors to = target.getSensors();
+            if (sensors.getGpsFixType() != null) to.setGpsFixType(sensors.getGpsFixType());
+            if (sensors.getSatelliteCount() != null) to.setSatelliteCount(sensors.getSatelliteCount());
+            if (sensors.getSignalStrength() != null) to.setSignalStrength(sensors.getSignalStrength());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * DroneController ETags on reads, conditional updates and revalidation
+ */
+package com.vtoldb.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.repository.VersionConflictException;
+import com.vtoldb.service.DroneService;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DroneControllerTest {
+    private final DroneService droneService = mock(DroneService.class);
+    private final DroneController controller = new DroneController(droneService, new ObjectMapper());
+
+    @Test
+    void ifNoneMatchWithTheCurrentETagAnswersNotModified() {
+        when(droneService.getDroneById("d1")).thenReturn(drone(7, 47.0));
+        String eTag = controller.getDroneById("d1", null).getHeaders().getETag();
+        assertThat(eTag).startsWith("\"7.");
+
+        ResponseEntity<DroneDTO> cached = controller.getDroneById("d1", "\"other\", W/" + eTag);
+        assertThat(cached.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(cached.getHeaders().getETag()).isEqualTo(eTag);
+        assertThat(cached.getBody()).isNull();
+
+        // Telemetry moved the drone: same version, new live part
+        when(droneService.getDroneById("d1")).thenReturn(drone(7, 47.5));
+        ResponseEntity<DroneDTO> moved = controller.getDroneById("d1", eTag);
+        assertThat(moved.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(moved.getHeaders().getETag()).isNotEqualTo(eTag).startsWith("\"7.");
+        assertThat(controller.getDroneById("d1", "*").getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void preconditionFailedCarriesTheSameETagAsAGet() {
+        DroneDTO current = drone(9, 47.0);
+        when(droneService.getDroneById("d1")).thenReturn(current);
+        when(droneService.updateDrone(eq("d1"), any(), eq(7L)))
+                .thenThrow(new VersionConflictException("d1", 7, 9));
+
+        ResponseEntity<?> conflict = controller.updateDrone("d1", drone(7, 47.0), "\"7.1f\"");
+        assertThat(conflict.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        assertThat(conflict.getHeaders().getETag())
+                .isEqualTo(controller.getDroneById("d1", null).getHeaders().getETag());
+    }
+
+    private static DroneDTO drone(long version, double latitude) {
+        DroneDTO drone = new DroneDTO();
+        drone.setId("d1");
+        drone.setVersion(version);
+        drone.setLatitude(latitude);
+        return drone;
+    }
+}
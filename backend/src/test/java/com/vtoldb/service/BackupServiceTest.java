@@ -0,0 +1,144 @@
+/**
+ * BackupService full/incremental chains, pruning and checksum verification
+ */
+package com.vtoldb.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.model.BackupRecord;
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.settings.AppSettings;
+import com.vtoldb.repository.SettingsRepository;
+import com.vtoldb.storage.FlatfileRepositoryImpl;
+import com.vtoldb.storage.WriteBehindProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BackupServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private FlatfileRepositoryImpl repository;
+    private AppSettings settings;
+    private BackupService backups;
+    private Path backupDir;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FlatfileRepositoryImpl(dir.resolve("drones.json").toString(), "json",
+                new WriteBehindProperties());
+        backupDir = dir.resolve("backups");
+        settings = new AppSettings();
+        settings.getBackup().setDirectoryPath(backupDir.toString());
+        settings.getBackup().setRetentionCount(10);
+        SettingsRepository settingsRepository = mock(SettingsRepository.class);
+        when(settingsRepository.get()).thenReturn(settings);
+        backups = new BackupService(repository, settingsRepository, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backups.shutdown();
+        repository.close();
+    }
+
+    @Test
+    void incrementalsCarryOnlyChangesSinceTheirParent() throws IOException {
+        repository.save(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        repository.save(new Drone("d2", "Two", "VTOL-X", "SN-2"));
+        BackupRecord full = backups.runBackup();
+        assertThat(full.isFull()).isTrue();
+        assertThat(full.getParentId()).isNull();
+        assertThat(full.getFromSequence()).isZero();
+        assertThat(full.getDroneCount()).isEqualTo(2);
+
+        repository.save(new Drone("d1", "Renamed", "VTOL-X", "SN-1"));
+        repository.deleteById("d2");
+        repository.save(new Drone("d3", "Three", "VTOL-X", "SN-3"));
+        BackupRecord incremental = backups.runBackup();
+        assertThat(incremental.isFull()).isFalse();
+        assertThat(incremental.getParentId()).isEqualTo(full.getId());
+        assertThat(incremental.getFromSequence()).isEqualTo(full.getToSequence());
+        assertThat(incremental.getToSequence()).isGreaterThan(full.getToSequence());
+
+        JsonNode content = read(incremental);
+        assertThat(ids(content.get("drones"))).containsExactlyInAnyOrder("d1", "d3");
+        assertThat(content.get("drones").findValuesAsText("name")).contains("Renamed");
+        assertThat(content.get("deleted")).extracting(JsonNode::asText).containsExactly("d2");
+
+        BackupRecord unchanged = backups.runBackup();
+        assertThat(unchanged.isFull()).isFalse();
+        assertThat(unchanged.getParentId()).isEqualTo(incremental.getId());
+        assertThat(unchanged.getDroneCount()).isZero();
+        assertThat(unchanged.getDeletedCount()).isZero();
+
+        // fullEvery = 3: two incrementals, then a new full
+        BackupRecord nextFull = backups.runBackup();
+        assertThat(nextFull.isFull()).isTrue();
+        assertThat(ids(read(nextFull).get("drones"))).containsExactlyInAnyOrder("d1", "d3");
+
+        assertThat(backups.listBackups()).extracting(BackupRecord::getType)
+                .containsExactly("full", "incremental", "incremental", "full");
+        assertThat(backups.verifyAll()).containsOnlyKeys(1L, 2L, 3L, 4L).doesNotContainValue(false);
+    }
+
+    @Test
+    void pruningKeepsTheFullBackupAnIncrementalDependsOn() throws IOException {
+        repository.save(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        settings.getBackup().setRetentionCount(1);
+        backups.runBackup();
+        repository.save(new Drone("d1", "Renamed", "VTOL-X", "SN-1"));
+        backups.runBackup();
+
+        // Only one backup is due for retention, but the incremental is useless without its full
+        assertThat(backups.listBackups()).extracting(BackupRecord::getId).containsExactly(1L, 2L);
+
+        backups.runBackup();
+        backups.runBackup();
+        assertThat(backups.listBackups()).extracting(BackupRecord::getId).containsExactly(4L);
+        try (var files = Files.list(backupDir)) {
+            assertThat(files.map(file -> file.getFileName().toString()))
+                    .containsExactlyInAnyOrder("manifest.json", "backup-000004-full.json.gz");
+        }
+    }
+
+    @Test
+    void verificationFlagsACorruptedBackup() throws IOException {
+        repository.save(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        BackupRecord record = backups.runBackup();
+        Path file = backupDir.resolve(record.getFileName());
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x55;
+        Files.write(file, bytes);
+
+        assertThat(backups.verifyAll()).containsEntry(record.getId(), false);
+    }
+
+    private JsonNode read(BackupRecord record) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(backupDir.resolve(record.getFileName())))) {
+            return objectMapper.readTree(in);
+        }
+    }
+
+    private static List<String> ids(JsonNode drones) {
+        List<String> ids = new ArrayList<>();
+        drones.forEach(drone -> ids.add(drone.get("id").asText()));
+        return ids;
+    }
+}
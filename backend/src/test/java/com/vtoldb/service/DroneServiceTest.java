@@ -0,0 +1,245 @@
+/**
+ * DroneService paging, change feed and telemetry batches over a flatfile repository
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.dto.DroneChangeDTO;
+import com.vtoldb.dto.DroneChangeFeedDTO;
+import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneEventDTO;
+import com.vtoldb.dto.DronePageDTO;
+import com.vtoldb.model.Drone;
+import com.vtoldb.storage.FlatfileRepositoryImpl;
+import com.vtoldb.storage.WriteBehindProperties;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class DroneServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private FlatfileRepositoryImpl repository;
+    private FleetBroadcastService broadcastService;
+    private DroneService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = new FlatfileRepositoryImpl(dir.resolve("drones.json").toString(), "json",
+                new WriteBehindProperties());
+        broadcastService = mock(FleetBroadcastService.class);
+        service = new DroneService(repository, broadcastService, 0.01, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void pagesWalkTheFleetInIdOrderWithoutRepeats() {
+        for (int i = 24; i >= 0; i--) {
+            service.createDrone(new Drone(String.format("d%02d", i), "Drone " + i, "VTOL-X", "SN-" + i));
+        }
+
+        List<String> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            DronePageDTO page = service.getDronePage(cursor, 10);
+            page.getItems().forEach(drone -> seen.add(drone.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+            if (pages == 1) {
+                // Deleting a drone already returned must not shift the next page
+                service.deleteDrone("d03");
+            }
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates().isSorted();
+        assertThat(service.getDronePage(null, 25).getNextCursor()).isNull();
+        assertThatThrownBy(() -> service.getDronePage("not base64!", 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void changeFeedResumesFromASequenceInTheSameEpoch() {
+        service.createDrone(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        service.createDrone(new Drone("d2", "Two", "VTOL-X", "SN-2"));
+        service.createDrone(new Drone("d3", "Three", "VTOL-X", "SN-3"));
+
+        DroneChangeFeedDTO initial = service.getChangesSince(null, null);
+        assertThat(initial.isReset()).isTrue();
+        assertThat(initial.getDrones()).extracting(DroneDTO::getId).containsExactlyInAnyOrder("d1", "d2", "d3");
+        assertThat(initial.getSequence()).isEqualTo(3);
+
+        service.applyTelemetry("d1", telemetry("d1", 47.0, 8.0));
+        service.deleteDrone("d2");
+
+        DroneChangeFeedDTO resumed = service.getChangesSince(initial.getSequence(), initial.getEpoch());
+        assertThat(resumed.isReset()).isFalse();
+        assertThat(resumed.getSequence()).isEqualTo(5);
+        assertThat(resumed.getChanges()).extracting(DroneEventDTO::getUpdateType)
+                .containsExactly(DroneEventDTO.TELEMETRY, DroneEventDTO.DELETED);
+        assertThat(resumed.getChanges().get(0).getChanges().getLatitude()).isEqualTo(47.0);
+
+        DroneChangeFeedDTO caughtUp = service.getChangesSince(resumed.getSequence(), resumed.getEpoch());
+        assertThat(caughtUp.isReset()).isFalse();
+        assertThat(caughtUp.getChanges()).isEmpty();
+        assertThat(caughtUp.getSequence()).isEqualTo(5);
+
+        ArgumentCaptor<DroneEventDTO> broadcast = ArgumentCaptor.forClass(DroneEventDTO.class);
+        verify(broadcastService, atLeastOnce()).broadcastDroneEvent(broadcast.capture());
+        assertThat(broadcast.getAllValues()).extracting(DroneEventDTO::getSequence).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void changeFeedResetsOnForeignEpochEvictionOrMoreChangesThanDrones() {
+        service.createDrone(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        DroneChangeFeedDTO start = service.getChangesSince(null, null);
+
+        DroneChangeFeedDTO foreign = service.getChangesSince(start.getSequence(), "previous-process");
+        assertThat(foreign.isReset()).isTrue();
+        assertThat(foreign.getEpoch()).isEqualTo(start.getEpoch());
+
+        // One drone, two changes: replaying is no cheaper than a snapshot
+        service.applyTelemetry("d1", telemetry("d1", 1.0, 1.0));
+        service.applyTelemetry("d1", telemetry("d1", 2.0, 2.0));
+        assertThat(service.getChangesSince(start.getSequence(), start.getEpoch()).isReset()).isTrue();
+
+        for (int i = 2; i <= 12; i++) {
+            service.createDrone(new Drone("d" + i, "Drone " + i, "VTOL-X", "SN-" + i));
+        }
+        // The log holds 8 events, so everything up to the first creates has been evicted
+        DroneChangeFeedDTO evicted = service.getChangesSince(start.getSequence(), start.getEpoch());
+        assertThat(evicted.isReset()).isTrue();
+        assertThat(evicted.getDrones()).hasSize(12);
+        assertThat(evicted.getSequence()).isEqualTo(14);
+    }
+
+    @Test
+    void batchAppliesSamplesInOrderAndPublishesOneNetChangePerDrone() {
+        service.createDrone(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        service.createDrone(new Drone("d2", "Two", "VTOL-X", "SN-2"));
+        long before = service.getChangesSince(null, null).getSequence();
+
+        TelemetryPayload charged = telemetry("d2", 10.0, 20.0);
+        TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+        battery.setLevel(55.0);
+        charged.setBattery(battery);
+        charged.setStatus("ACTIVE");
+
+        Map<String, DroneChangeDTO> changes = service.applyTelemetryBatch(List.of(
+                telemetry("d1", 1.0, 1.0),
+                telemetry("unknown", 3.0, 3.0),
+                charged,
+                telemetry("d1", 2.0, 1.0)));
+
+        assertThat(changes).containsOnlyKeys("d1", "d2");
+        assertThat(changes.get("d1").getLatitude()).isEqualTo(2.0);
+        assertThat(changes.get("d1").getLongitude()).isEqualTo(1.0);
+        assertThat(changes.get("d2").getBatteryLevel()).isEqualTo(55.0);
+        assertThat(service.getDroneById("d1").getLatitude()).isEqualTo(2.0);
+        assertThat(service.getDroneById("d2").getStatus().name()).isEqualTo("ACTIVE");
+
+        DroneChangeFeedDTO feed = service.getChangesSince(before, service.getChangesSince(null, null).getEpoch());
+        assertThat(feed.getChanges()).extracting(DroneEventDTO::getDroneId).containsExactly("d1", "d2");
+        assertThat(service.findDronesWithinRadius(2.0, 1.0, 1000)).extracting(DroneDTO::getId).containsExactly("d1");
+    }
+
+    @Test
+    void lastSeenIsTheReceiveTimeNotTheWorkerClock() {
+        service.createDrone(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        TelemetryPayload ahead = telemetry("d1", 1.0, 1.0);
+        ahead.setTimestamp(System.currentTimeMillis() + 86_400_000L);
+
+        long before = System.currentTimeMillis();
+        DroneChangeDTO change = service.applyTelemetry("d1", ahead);
+        long after = System.currentTimeMillis();
+
+        assertThat(service.getLiveState("d1").lastSeenMillis()).isBetween(before, after);
+        assertThat(change.getLastSeenMillis()).isBetween(before, after);
+    }
+
+    @Test
+    void eachDronesEventsAreLoggedInTheOrderTheyWereApplied() throws InterruptedException {
+        service.createDrone(new Drone("d1", "One", "VTOL-X", "SN-1"));
+        List<DroneEventDTO> logged = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> logged.add(invocation.getArgument(0)))
+                .when(broadcastService).broadcastDroneEvent(any());
+
+        // After every round, replaying the log in sequence order must end where the drone actually is
+        List<String> mismatches = Collections.synchronizedList(new ArrayList<>());
+        CyclicBarrier round = new CyclicBarrier(2, () -> {
+            DroneEventDTO last = logged.stream()
+                    .max(Comparator.comparingLong(DroneEventDTO::getSequence))
+                    .orElseThrow();
+            double live = service.getLiveState("d1").latitude();
+            if (last.getChanges().getLatitude() != live) {
+                mismatches.add(last.getChanges().getLatitude() + " logged last, " + live + " applied last");
+            }
+        });
+
+        // Two writers race on one drone with distinct latitudes; the alternating status makes
+        // most samples persist between being applied and being logged
+        Thread north = writer(round, 1, "ACTIVE");
+        Thread south = writer(round, -1, "MAINTENANCE");
+        north.start();
+        south.start();
+        north.join();
+        south.join();
+
+        assertThat(mismatches).isEmpty();
+    }
+
+    private Thread writer(CyclicBarrier round, int sign, String status) {
+        return new Thread(() -> {
+            try {
+                for (int i = 1; i <= 200; i++) {
+                    service.applyTelemetry("d1", telemetry("d1", sign * i * 0.001, 0.0, status));
+                    round.await();
+                }
+            } catch (InterruptedException | BrokenBarrierException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private static TelemetryPayload telemetry(String droneId, double latitude, double longitude, String status) {
+        TelemetryPayload telemetry = telemetry(droneId, latitude, longitude);
+        telemetry.setStatus(status);
+        return telemetry;
+    }
+
+    private static TelemetryPayload telemetry(String droneId, double latitude, double longitude) {
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setLatitude(latitude);
+        position.setLongitude(longitude);
+        TelemetryPayload telemetry = new TelemetryPayload();
+        telemetry.setDroneId(droneId);
+        telemetry.setPosition(position);
+        return telemetry;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * Cost per telemetry message of the old DTO round trip versus applyTelemetry
+ * Run with -Dbenchmark=true; skipped otherwise
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.dto.DroneDTO;
+import com.vtoldb.dto.DroneEventDTO;
+import com.vtoldb.model.Drone;
+import com.vtoldb.storage.FlatfileRepositoryImpl;
+import com.vtoldb.storage.WriteBehindProperties;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TelemetryApplyBenchmarkTest {
+    private static final int DRONES = 1000;
+    private static final int MESSAGES = 200_000;
+
+    @TempDir
+    Path dir;
+
+    private FlatfileRepositoryImpl repository;
+    private DroneService service;
+
+    @BeforeEach
+    void setUp() {
+        // Write-behind keeps file I/O off the measured thread, as in production
+        WriteBehindProperties writeBehind = new WriteBehindProperties();
+        ReflectionTestUtils.setField(writeBehind, "enabled", true);
+        ReflectionTestUtils.setField(writeBehind, "flushIntervalMs", 1000L);
+        ReflectionTestUtils.setField(writeBehind, "maxDirty", 500);
+        repository = new FlatfileRepositoryImpl(dir.resolve("drones.json").toString(), "json", writeBehind);
+        repository.startWriteBehind();
+        // Broadcasts are dropped so only the service's own work is measured
+        FleetBroadcastService broadcasts = new FleetBroadcastService(null) {
+            @Override
+            public void broadcastDroneEvent(DroneEventDTO event) {
+            }
+        };
+        service = new DroneService(repository, broadcasts, 0.01, 8);
+        for (int i = 0; i < DRONES; i++) {
+            service.createDrone(new Drone("d" + i, "Drone " + i, "VTOL-X", "SN-" + i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        repository.close();
+    }
+
+    @Test
+    void dtoRoundTripVersusApplyTelemetry() {
+        TelemetryPayload[] samples = new TelemetryPayload[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            samples[i] = sample("d" + (i % DRONES), i);
+        }
+
+        // Each case runs twice; the first pass is warm-up
+        for (int pass = 0; pass < 2; pass++) {
+            measure("DTO round trip", pass, () -> {
+                for (TelemetryPayload sample : samples) {
+                    DroneDTO dto = service.getDroneById(sample.getDroneId());
+                    dto.setLatitude(sample.getPosition().getLatitude());
+                    dto.setLongitude(sample.getPosition().getLongitude());
+                    dto.setAltitude(sample.getPosition().getAltitude());
+                    dto.setBatteryLevel(sample.getBattery().getLevel());
+                    service.updateDrone(sample.getDroneId(), dto);
+                }
+            });
+            measure("applyTelemetry", pass, () -> {
+                for (TelemetryPayload sample : samples) {
+                    service.applyTelemetry(sample.getDroneId(), sample);
+                }
+            });
+        }
+    }
+
+    private static TelemetryPayload sample(String droneId, int i) {
+        TelemetryPayload sample = new TelemetryPayload();
+        sample.setDroneId(droneId);
+        sample.setSequence((long) i);
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setLatitude(-19.0 - i * 1e-6);
+        position.setLongitude(-43.0 + i * 1e-6);
+        position.setAltitude(100.0 + i % 50);
+        sample.setPosition(position);
+        TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+        battery.setLevel(100.0 - i % 100);
+        sample.setBattery(battery);
+        return sample;
+    }
+
+    private static void measure(String name, int pass, Runnable run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        if (pass > 0) {
+            System.out.printf("%-16s %8.2f us/msg %8d B/msg%n", name, nanos / 1000.0 / MESSAGES, bytes / MESSAGES);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * TelemetryHistoryService rollup tiers and the tier chosen for a query
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.dto.TelemetrySeriesDTO;
+import com.vtoldb.model.TelemetryField;
+import com.vtoldb.storage.timeseries.SeriesChunk;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryHistoryServiceTest {
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long QUARTER_HOUR = TimeUnit.MINUTES.toMillis(15);
+
+    @TempDir
+    Path dir;
+
+    private TelemetryHistoryService history;
+    private long start;
+    private long now;
+
+    // Two samples a minute for half an hour, altitude counting up from 0, then sealed by shutdown
+    @BeforeEach
+    void recordHalfAnHour() {
+        history = new TelemetryHistoryService(true, dir.toString(), 64, 600_000, 14, true, 90, 730, 8192);
+        now = System.currentTimeMillis();
+        start = Math.floorDiv(now - TimeUnit.HOURS.toMillis(2), QUARTER_HOUR) * QUARTER_HOUR;
+        for (int i = 0; i < 60; i++) {
+            history.record("d1", start + i * MINUTE / 2, sample(i));
+        }
+        history.shutdown();
+    }
+
+    @Test
+    void zeroResolutionReadsRawSamples() {
+        TelemetrySeriesDTO series = history.query("d1", TelemetryField.ALTITUDE, start, now, 0);
+        assertThat(series.getTier()).isEqualTo("raw");
+        assertThat(series.getResolutionMs()).isZero();
+        assertThat(series.getPoints()).hasSize(60);
+        assertThat(series.getPoints().get(59).getLast()).isEqualTo(59.0);
+    }
+
+    @Test
+    void resolutionPicksTheCoarsestTierThatFits() {
+        TelemetrySeriesDTO minutes = history.query("d1", TelemetryField.ALTITUDE, start, now, MINUTE);
+        assertThat(minutes.getTier()).isEqualTo("1m");
+        assertThat(minutes.getPoints()).hasSize(30);
+        TelemetrySeriesDTO.Point first = minutes.getPoints().get(0);
+        assertThat(first.getTimestamp()).isEqualTo(start);
+        assertThat(first.getMin()).isEqualTo(0.0);
+        assertThat(first.getMax()).isEqualTo(1.0);
+        assertThat(first.getAvg()).isEqualTo(0.5);
+        assertThat(first.getCount()).isEqualTo(2);
+
+        // Between tier widths: the 1m tier re-bucketed to the requested resolution
+        TelemetrySeriesDTO fiveMinutes = history.query("d1", TelemetryField.ALTITUDE, start, now, 5 * MINUTE);
+        assertThat(fiveMinutes.getTier()).isEqualTo("1m");
+        assertThat(fiveMinutes.getResolutionMs()).isEqualTo(5 * MINUTE);
+        assertThat(fiveMinutes.getPoints()).hasSize(6);
+        assertThat(fiveMinutes.getPoints().get(0).getCount()).isEqualTo(10);
+        assertThat(fiveMinutes.getPoints().get(0).getAvg()).isEqualTo(4.5);
+
+        TelemetrySeriesDTO quarterHours = history.query("d1", TelemetryField.ALTITUDE, start, now, QUARTER_HOUR);
+        assertThat(quarterHours.getTier()).isEqualTo("15m");
+        assertThat(quarterHours.getPoints()).hasSize(2);
+        TelemetrySeriesDTO.Point quarter = quarterHours.getPoints().get(0);
+        assertThat(quarter.getMin()).isEqualTo(0.0);
+        assertThat(quarter.getMax()).isEqualTo(29.0);
+        assertThat(quarter.getLast()).isEqualTo(29.0);
+        assertThat(quarter.getCount()).isEqualTo(30);
+    }
+
+    @Test
+    void rangesBeyondATiersRetentionFallBackToACoarserTier() {
+        long twentyDaysAgo = now - TimeUnit.DAYS.toMillis(20);
+        TelemetrySeriesDTO series = history.query("d1", TelemetryField.ALTITUDE, twentyDaysAgo, now, 0);
+        assertThat(series.getTier()).isEqualTo("1m");
+        assertThat(series.getResolutionMs()).isEqualTo(MINUTE);
+        assertThat(series.getPoints()).hasSize(30);
+
+        long yearAgo = now - TimeUnit.DAYS.toMillis(365);
+        assertThat(history.query("d1", TelemetryField.ALTITUDE, yearAgo, now, 0).getTier()).isEqualTo("15m");
+    }
+
+    @Test
+    void aBackedUpRollupSkipsSamplesInsteadOfBlockingIngest() {
+        TelemetryHistoryService flooded = new TelemetryHistoryService(
+                true, dir.resolve("flooded").toString(), 64, 600_000, 14, true, 90, 730, 1);
+        int samples = 20_000;
+        for (int i = 0; i < samples; i++) {
+            flooded.record("d1", start + i * 100L, sample(i));
+        }
+        flooded.shutdown();
+
+        assertThat(flooded.getRollupDropped()).isPositive();
+        // The raw tier still has every sample
+        assertThat(flooded.readRaw("d1", start, start + samples * 100L).stream()
+                .mapToInt(SeriesChunk::getCount).sum()).isEqualTo(samples);
+    }
+
+    private static TelemetryPayload sample(double altitude) {
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setLatitude(47.0);
+        position.setLongitude(8.0);
+        position.setAltitude(altitude);
+        TelemetryPayload telemetry = new TelemetryPayload();
+        telemetry.setDroneId("d1");
+        telemetry.setPosition(position);
+        return telemetry;
+    }
+}
@@ -0,0 +1,155 @@
+/**
+ * TelemetryRateService planning: per-drone modes, fleet budget throttling and compliance
+ */
+package com.vtoldb.service;
+
+import com.vtoldb.model.DroneStatus;
+import com.vtoldb.model.settings.AppSettings;
+import com.vtoldb.repository.SettingsRepository;
+import com.vtoldb.storage.fleet.FleetStateTable;
+import com.vtoldb.websocket.handler.FleetWebSocketHandler;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
+import com.vtoldb.websocket.protocol.FleetMessage;
+import com.vtoldb.websocket.protocol.RateControlPayload;
+import com.vtoldb.websocket.session.FleetSession;
+import com.vtoldb.websocket.session.FleetSessionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TelemetryRateServiceTest {
+
+    private final List<FleetSession> sessions = new ArrayList<>();
+    private final FleetSessionManager sessionManager = mock(FleetSessionManager.class);
+    private final DroneService droneService = mock(DroneService.class);
+    private final IngestLaneExecutor ingestExecutor = mock(IngestLaneExecutor.class);
+    private final FleetWebSocketHandler webSocketHandler = mock(FleetWebSocketHandler.class);
+    private TelemetryRateService rates;
+
+    @BeforeEach
+    void setUp() {
+        SettingsRepository settingsRepository = mock(SettingsRepository.class);
+        when(settingsRepository.get()).thenReturn(new AppSettings());
+        when(sessionManager.getAllSessions()).thenReturn(sessions);
+        rates = new TelemetryRateService(sessionManager, droneService, settingsRepository,
+                ingestExecutor, webSocketHandler);
+        ReflectionTestUtils.setField(rates, "enabled", true);
+        ReflectionTestUtils.setField(rates, "budgetPerSecond", 1000.0);
+        ReflectionTestUtils.setField(rates, "alarmInterval", 250L);
+        ReflectionTestUtils.setField(rates, "flightInterval", 1000L);
+        ReflectionTestUtils.setField(rates, "idleInterval", 15000L);
+        ReflectionTestUtils.setField(rates, "maxInterval", 60000L);
+        ReflectionTestUtils.setField(rates, "flightAltitude", 2.0);
+        ReflectionTestUtils.setField(rates, "lowBattery", 20.0);
+        ReflectionTestUtils.setField(rates, "alarmHold", 60000L);
+    }
+
+    private FleetSession session(String droneId, DroneStatus status, double altitude, double battery) {
+        FleetSession session = new FleetSession("s-" + droneId, "worker", droneId, null);
+        session.markAcknowledged();
+        sessions.add(session);
+        if (status != null) {
+            when(droneService.getLiveState(droneId)).thenReturn(
+                    new FleetStateTable.Row(droneId, 47.0, 8.0, altitude, battery, status, 0));
+        }
+        return session;
+    }
+
+    @Test
+    void eachDroneGetsTheIntervalOfWhatItIsDoing() {
+        FleetSession alerted = session("alerted", DroneStatus.ACTIVE, 50, 90);
+        alerted.markAlert();
+        FleetSession lowBattery = session("low", DroneStatus.INACTIVE, 0, 12);
+        FleetSession flying = session("flying", DroneStatus.ACTIVE, 50, 90);
+        FleetSession landed = session("landed", DroneStatus.ACTIVE, 0, 90);
+        FleetSession unknown = session("unknown", null, 0, 0);
+        FleetSession pending = new FleetSession("s-pending", "worker", "pending", null);
+        sessions.add(pending);
+
+        rates.adjustRates();
+
+        assertThat(alerted.getTelemetryInterval()).isEqualTo(250);
+        assertThat(lowBattery.getTelemetryInterval()).isEqualTo(250);
+        assertThat(flying.getTelemetryInterval()).isEqualTo(1000);
+        assertThat(landed.getTelemetryInterval()).isEqualTo(15000);
+        assertThat(unknown.getTelemetryInterval()).isEqualTo(new AppSettings().getFleet().getDefaultTelemetryInterval());
+        // Not registered yet: left to REGISTER_ACK
+        assertThat(pending.getTelemetryInterval()).isZero();
+        assertThat(sent()).extracting(RateControlPayload::getReason)
+                .containsExactly("ALARM", "ALARM", "FLIGHT", "IDLE", "DEFAULT");
+        assertThat(rates.getThrottle()).isEqualTo(1.0);
+
+        // An unchanged plan is not sent again
+        clearInvocations(webSocketHandler);
+        rates.adjustRates();
+        verify(webSocketHandler, never()).sendToWorker(any(), any());
+    }
+
+    @Test
+    void overBudgetStretchesAllButAlarmIntervals() {
+        ReflectionTestUtils.setField(rates, "budgetPerSecond", 10.0);
+        ReflectionTestUtils.setField(rates, "maxInterval", 30000L);
+        FleetSession alerted = session("alerted", DroneStatus.ACTIVE, 50, 90);
+        alerted.markAlert();
+        List<FleetSession> flying = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            flying.add(session("flying-" + i, DroneStatus.ACTIVE, 50, 90));
+        }
+        FleetSession landed = session("landed", DroneStatus.INACTIVE, 0, 90);
+
+        rates.adjustRates();
+
+        // Alarm keeps 4 msg/s; the other 20 + 1/15 msg/s share the remaining 6
+        double factor = (20 + 1.0 / 15) / 6;
+        assertThat(rates.getThrottle()).isCloseTo(factor, offset(1e-9));
+        assertThat(alerted.getTelemetryInterval()).isEqualTo(250);
+        assertThat(flying).allSatisfy(session ->
+                assertThat(session.getTelemetryInterval()).isEqualTo(Math.round(1000 * factor)));
+        assertThat(landed.getTelemetryInterval()).isEqualTo(30000);
+        assertThat(sent()).filteredOn(payload -> !"ALARM".equals(payload.getReason()))
+                .allMatch(RateControlPayload::isThrottled);
+    }
+
+    @Test
+    void workersSendingFasterThanAskedTightenTheBudget() throws InterruptedException {
+        ReflectionTestUtils.setField(rates, "budgetPerSecond", 40.0);
+        List<FleetSession> flying = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            flying.add(session("flying-" + i, DroneStatus.ACTIVE, 50, 90));
+        }
+        when(ingestExecutor.getTelemetryReceived()).thenReturn(0L);
+        rates.adjustRates();
+        assertThat(rates.getThrottle()).isEqualTo(1.0);
+
+        // Far more arrived than the 20 msg/s assigned; compliance is capped at 4x, so the budget drops to 10
+        Thread.sleep(20);
+        when(ingestExecutor.getTelemetryReceived()).thenReturn(1000L);
+        rates.adjustRates();
+        assertThat(rates.getMeasuredRate()).isGreaterThan(80);
+        assertThat(rates.getThrottle()).isEqualTo(2.0);
+        assertThat(flying).allSatisfy(session -> assertThat(session.getTelemetryInterval()).isEqualTo(2000));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<RateControlPayload> sent() {
+        ArgumentCaptor<FleetMessage<?>> messages = ArgumentCaptor.forClass(FleetMessage.class);
+        verify(webSocketHandler, atLeast(0)).sendToWorker(any(), messages.capture());
+        return messages.getAllValues().stream()
+                .map(message -> (RateControlPayload) message.getPayload())
+                .toList();
+    }
+}
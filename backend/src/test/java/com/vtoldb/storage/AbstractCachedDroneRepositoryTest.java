@@ -0,0 +1,122 @@
+/**
+ * Versioning rules shared by every cached DroneRepository
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import com.vtoldb.repository.VersionConflictException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AbstractCachedDroneRepositoryTest {
+
+    // Records what would be persisted instead of writing anywhere
+    private static class RecordingRepository extends AbstractCachedDroneRepository {
+        final List<Drone> persisted = new ArrayList<>();
+        final List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+
+        RecordingRepository() {
+            super(new WriteBehindProperties());
+        }
+
+        @Override
+        protected void persist(Collection<Drone> upserts, Collection<String> deletes) {
+            persisted.addAll(upserts);
+            deleted.addAll(deletes);
+        }
+    }
+
+    @Test
+    void liveStateSyncKeepsVersionForConditionalUpdates() {
+        RecordingRepository repository = new RecordingRepository();
+        Drone saved = repository.save(new Drone("d1", "Drone", "VTOL-X", "SN-1"));
+        assertThat(saved.getVersion()).isEqualTo(1);
+
+        repository.updateLiveState(List.of("d1"), drone -> drone.setLatitude(-19.3));
+        repository.updateLiveState(List.of("d1"), drone -> drone.setLatitude(-19.4));
+        Drone synced = repository.findById("d1").orElseThrow();
+        assertThat(synced.getVersion()).isEqualTo(1);
+        assertThat(synced.getStateVersion()).isEqualTo(2);
+
+        Drone edit = new Drone(synced);
+        edit.setName("Renamed");
+        Drone updated = repository.saveIfVersion(edit, 1);
+        assertThat(updated.getVersion()).isEqualTo(2);
+        assertThat(updated.getStateVersion()).isEqualTo(2);
+        assertThat(repository.persisted).hasSize(4);
+    }
+
+    @Test
+    void everyWriteRaisesTheRevision() {
+        RecordingRepository repository = new RecordingRepository();
+        repository.save(new Drone("d1", "Drone", "VTOL-X", "SN-1"));
+        repository.updateLiveState(List.of("d1"), drone -> drone.setAltitude(10.0));
+        repository.update("d1", drone -> drone.setName("Renamed"));
+        repository.save(new Drone("d1", "Replaced", "VTOL-X", "SN-1"));
+
+        long[] revisions = repository.persisted.stream()
+                .mapToLong(AbstractCachedDroneRepository::revision)
+                .toArray();
+        assertThat(revisions).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void staleVersionIsRejected() {
+        RecordingRepository repository = new RecordingRepository();
+        repository.save(new Drone("d1", "Drone", "VTOL-X", "SN-1"));
+        repository.update("d1", drone -> drone.setName("Renamed"));
+
+        assertThatThrownBy(() -> repository.saveIfVersion(new Drone("d1", "Late", "VTOL-X", "SN-1"), 1))
+                .isInstanceOf(VersionConflictException.class);
+        assertThatThrownBy(() -> repository.deleteByIdIfVersion("d1", 1))
+                .isInstanceOf(VersionConflictException.class);
+        assertThat(repository.deleteByIdIfVersion("d1", 2)).isTrue();
+    }
+
+    @Test
+    void deletingAMissingDronePersistsNothing() {
+        RecordingRepository repository = new RecordingRepository();
+        repository.deleteById("missing");
+        assertThat(repository.deleted).isEmpty();
+
+        repository.save(new Drone("d1", "Drone", "VTOL-X", "SN-1"));
+        repository.deleteById("d1");
+        repository.deleteById("d1");
+        assertThat(repository.deleted).containsExactly("d1");
+    }
+
+    @Test
+    void storageSeesEachDronesWritesInCacheOrder() throws InterruptedException {
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        AbstractCachedDroneRepository repository = new AbstractCachedDroneRepository(new WriteBehindProperties()) {
+            @Override
+            protected void persist(Collection<Drone> upserts, Collection<String> deletes) {
+                // Widen the gap between the cache write and the storage write
+                Thread.yield();
+                upserts.forEach(drone -> writes.add("upsert"));
+                deletes.forEach(id -> writes.add("delete"));
+            }
+        };
+
+        for (int round = 0; round < 200; round++) {
+            writes.clear();
+            Thread saver = new Thread(() -> repository.save(new Drone("d1", "Drone", "VTOL-X", "SN-1")));
+            Thread deleter = new Thread(() -> repository.deleteById("d1"));
+            saver.start();
+            deleter.start();
+            saver.join();
+            deleter.join();
+
+            String last = writes.get(writes.size() - 1);
+            assertThat(last).isEqualTo(repository.existsById("d1") ? "upsert" : "delete");
+            repository.deleteById("d1");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * BinaryDroneSnapshotStore round trip and its file size limit
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryDroneSnapshotStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsDronesWithTheirVersions() throws IOException {
+        Drone drone = new Drone("d1", "Scout", "VT-1", "SN-1");
+        drone.setBatteryLevel(64.5);
+        drone.setVersion(3);
+        drone.setStateVersion(11);
+        Path file = dir.resolve("drones.bin");
+
+        BinaryDroneSnapshotStore.writeSnapshot(file, List.of(drone, new Drone("d2", "Relay", "VT-2", null)));
+
+        BinaryDroneSnapshotStore.Reader reader = BinaryDroneSnapshotStore.open(file);
+        assertThat(reader.size()).isEqualTo(2);
+        Drone loaded = reader.get(0);
+        assertThat(loaded.getId()).isEqualTo("d1");
+        assertThat(loaded.getSerialNumber()).isEqualTo("SN-1");
+        assertThat(loaded.getBatteryLevel()).isEqualTo(64.5);
+        assertThat(loaded.getVersion()).isEqualTo(3);
+        assertThat(loaded.getStateVersion()).isEqualTo(11);
+        assertThat(reader.get(1).getSerialNumber()).isNull();
+    }
+
+    @Test
+    void refusesToMapASnapshotTooLargeForIntOffsets() throws IOException {
+        Path file = dir.resolve("huge.bin");
+        // Sparse, so no disk space is actually used
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(BinaryDroneSnapshotStore.MAX_FILE_SIZE + 1);
+        }
+
+        assertThatThrownBy(() -> BinaryDroneSnapshotStore.open(file))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("more than");
+    }
+}
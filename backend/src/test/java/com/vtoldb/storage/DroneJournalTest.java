@@ -0,0 +1,163 @@
+/**
+ * DroneJournal replay and segment handling, and compaction of the journaled repository
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.Drone;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DroneJournalTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysSegmentsInNumericOrder() {
+        DroneJournal journal = journal();
+        journal.open();
+        journal.append(List.of(drone("d1", "first")), List.of());
+        // Segments 2..10 would sort wrongly as text
+        for (int i = 0; i < 10; i++) {
+            journal.roll();
+        }
+        journal.append(List.of(drone("d1", "last")), List.of("d2"));
+        journal.close();
+
+        List<String> replayed = new ArrayList<>();
+        int segments = journal().replay(record -> replayed.add(
+                record.getOp() + ":" + (record.getDrone() != null ? record.getDrone().getName() : record.getId())));
+        assertThat(segments).isEqualTo(11);
+        assertThat(replayed).containsExactly("PUT:first", "PUT:last", "DEL:d2");
+    }
+
+    @Test
+    void ignoresTornTrailingRecordButNotCorruptionElsewhere() throws IOException {
+        DroneJournal journal = journal();
+        journal.open();
+        journal.append(List.of(drone("d1", "kept")), List.of());
+        journal.close();
+        Path segment = segments().get(0);
+        Files.writeString(segment, "{\"op\":\"PUT\",\"drone\":{\"id\":\"d", StandardOpenOption.APPEND);
+
+        List<Drone> replayed = new ArrayList<>();
+        journal().replay(record -> replayed.add(record.getDrone()));
+        assertThat(replayed).extracting(Drone::getName).containsExactly("kept");
+
+        // The same torn line is corruption once a newer segment follows it
+        DroneJournal next = journal();
+        next.open();
+        next.close();
+        assertThatThrownBy(() -> journal().replay(record -> { }))
+                .hasMessageContaining("Corrupt journal record");
+    }
+
+    @Test
+    void openStartsAfterTheHighestSegmentAndDeleteKeepsNewerOnes() throws IOException {
+        DroneJournal journal = journal();
+        journal.open();
+        long sealed = journal.roll();
+        journal.append(List.of(drone("d1", "after roll")), List.of());
+        journal.deleteSegmentsUpTo(sealed);
+        journal.close();
+
+        assertThat(segments()).extracting(path -> path.getFileName().toString())
+                .containsExactly("drones.journal.000002");
+
+        DroneJournal reopened = journal();
+        reopened.open();
+        reopened.append(List.of(drone("d1", "reopened")), List.of());
+        reopened.close();
+        assertThat(segments()).hasSize(2);
+        assertThat(Files.readString(segments().get(0), StandardCharsets.UTF_8)).contains("after roll");
+    }
+
+    @Test
+    void repositoryRecoversFromJournalAndCompactsIntoSnapshot() throws IOException {
+        JournaledFlatfileRepositoryImpl repository = repository();
+        repository.save(drone("d1", "one"));
+        repository.save(drone("d2", "two"));
+        repository.update("d1", drone -> drone.setName("one renamed"));
+        repository.deleteById("d2");
+        repository.close();
+        assertThat(segments()).extracting(path -> path.getFileName().toString())
+                .containsExactly("drones.journal.000001");
+
+        // Recovery replays the segment and schedules a compaction, which close waits for
+        repository = repository();
+        assertThat(repository.findAll()).extracting(Drone::getName).containsExactly("one renamed");
+        repository.save(drone("d3", "three"));
+        repository.close();
+
+        assertThat(objectMapper.readTree(directory.resolve("drones.json").toFile()).findValuesAsText("id"))
+                .contains("d1");
+        assertThat(segments()).extracting(path -> path.getFileName().toString())
+                .doesNotContain("drones.journal.000001", "drones.journal.000002");
+
+        repository = repository();
+        try {
+            assertThat(repository.findAll()).extracting(Drone::getId).containsExactlyInAnyOrder("d1", "d3");
+            assertThat(repository.findById("d1").orElseThrow().getVersion()).isEqualTo(2);
+        } finally {
+            repository.close();
+        }
+    }
+
+    @Test
+    void replayKeepsTheNewestRevisionWhateverTheJournalOrder() {
+        Drone newer = drone("d1", "newer");
+        newer.setVersion(3);
+        Drone older = new Drone(newer);
+        older.setName("older");
+        older.setVersion(2);
+
+        DroneJournal journal = journal();
+        journal.open();
+        journal.append(List.of(newer), List.of());
+        journal.append(List.of(older), List.of());
+        journal.close();
+
+        JournaledFlatfileRepositoryImpl repository = repository();
+        try {
+            assertThat(repository.findById("d1").orElseThrow().getName()).isEqualTo("newer");
+        } finally {
+            repository.close();
+        }
+    }
+
+    private DroneJournal journal() {
+        return new DroneJournal(directory, "drones", objectMapper, false);
+    }
+
+    private JournaledFlatfileRepositoryImpl repository() {
+        return new JournaledFlatfileRepositoryImpl(directory.resolve("drones.json").toString(), "json",
+                Long.MAX_VALUE, false, new WriteBehindProperties());
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("drones.journal."))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static Drone drone(String id, String name) {
+        return new Drone(id, name, "VTOL-X", "SN-" + id);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * JdbcDroneRepositoryImpl against an in-process H2 database
+ * Exercises the MERGE dialect, batching across chunk sizes and the version guard on upserts
+ */
+package com.vtoldb.storage;
+
+import com.vtoldb.model.Drone;
+import com.vtoldb.model.DroneStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JdbcDroneRepositoryImplTest {
+    private String url;
+    private JdbcDroneRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        // DB_CLOSE_DELAY keeps the database alive between the repositories of one test
+        url = "jdbc:h2:mem:drones-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        repository = open(3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    @Test
+    void roundTripsThroughMergeDialect() {
+        Drone drone = drone("d1");
+        repository.save(drone);
+
+        JdbcDroneRepositoryImpl reopened = open(3);
+        try {
+            Drone loaded = reopened.findById("d1").orElseThrow();
+            assertThat(loaded.getName()).isEqualTo("Drone d1");
+            assertThat(loaded.getStatus()).isEqualTo(DroneStatus.ACTIVE);
+            assertThat(loaded.getCapabilities()).containsExactly("camera", "lidar");
+            assertThat(loaded.getPort()).isEqualTo(5760);
+            assertThat(loaded.getVersion()).isEqualTo(drone.getVersion());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void persistsFullChunksAndRemainder() {
+        List<Drone> drones = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            drones.add(drone("d" + i));
+        }
+        repository.saveAll(drones);
+        repository.update("d5", drone -> drone.setBatteryLevel(12.5));
+        repository.deleteById("d7");
+
+        JdbcDroneRepositoryImpl reopened = open(3);
+        try {
+            assertThat(reopened.findAll()).hasSize(7);
+            assertThat(reopened.findById("d5").orElseThrow().getBatteryLevel()).isEqualTo(12.5);
+            assertThat(reopened.findById("d7")).isEmpty();
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void olderVersionNeverOverwritesNewerRow() {
+        Drone newer = drone("d1");
+        newer.setName("newer");
+        newer.setVersion(5);
+        Drone older = new Drone(newer);
+        older.setName("older");
+        older.setVersion(4);
+
+        // Commit order reversed from apply order, as with two concurrent persists
+        repository.persist(List.of(newer), List.of());
+        repository.persist(List.of(older), List.of());
+
+        JdbcDroneRepositoryImpl reopened = open(3);
+        try {
+            Drone loaded = reopened.findById("d1").orElseThrow();
+            assertThat(loaded.getName()).isEqualTo("newer");
+            assertThat(loaded.getVersion()).isEqualTo(5);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void liveStateSyncReachesTheTableWithoutBumpingVersion() {
+        repository.save(drone("d1"));
+        repository.updateLiveState(List.of("d1"), drone -> drone.setAltitude(120.0));
+
+        JdbcDroneRepositoryImpl reopened = open(3);
+        try {
+            Drone loaded = reopened.findById("d1").orElseThrow();
+            assertThat(loaded.getAltitude()).isEqualTo(120.0);
+            assertThat(loaded.getVersion()).isEqualTo(1);
+            assertThat(loaded.getStateVersion()).isEqualTo(1);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    private JdbcDroneRepositoryImpl open(int batchSize) {
+        return new JdbcDroneRepositoryImpl(url, "localhost", 0, "", "sa", "", 2, batchSize,
+                new WriteBehindProperties());
+    }
+
+    private static Drone drone(String id) {
+        Drone drone = new Drone(id, "Drone " + id, "VTOL-X", "SN-" + id);
+        drone.setStatus(DroneStatus.ACTIVE);
+        drone.setLatitude(-19.33);
+        drone.setLongitude(146.76);
+        drone.setPort(5760);
+        drone.setCapabilities(List.of("camera", "lidar"));
+        return drone;
+    }
+}
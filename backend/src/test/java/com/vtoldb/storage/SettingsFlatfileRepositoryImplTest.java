@@ -0,0 +1,87 @@
+/**
+ * Settings snapshots and hot reload of external edits to the settings file
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.vtoldb.model.settings.AppSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SettingsFlatfileRepositoryImplTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SettingsFlatfileRepositoryImpl repository;
+
+    @AfterEach
+    void tearDown() {
+        if (repository != null) {
+            repository.stopWatcher();
+        }
+    }
+
+    @Test
+    void updatesPublishANewSnapshotAndLeaveTheOldOneAlone() {
+        repository = new SettingsFlatfileRepositoryImpl(dir.resolve("settings.json").toString(), false, 0);
+        AppSettings before = repository.get();
+        int interval = before.getBackup().getIntervalHours();
+
+        AppSettings after = repository.update(settings -> settings.getBackup().setIntervalHours(interval + 1));
+        assertThat(after.getBackup().getIntervalHours()).isEqualTo(interval + 1);
+        assertThat(repository.get()).isSameAs(after);
+        assertThat(before.getBackup().getIntervalHours()).isEqualTo(interval);
+
+        // A failing mutator publishes nothing
+        assertThatThrownBy(() -> repository.update(settings -> {
+            settings.getBackup().setIntervalHours(999);
+            throw new IllegalArgumentException("rejected");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(repository.get()).isSameAs(after);
+
+        SettingsFlatfileRepositoryImpl reopened =
+                new SettingsFlatfileRepositoryImpl(dir.resolve("settings.json").toString(), false, 0);
+        assertThat(reopened.get().getBackup().getIntervalHours()).isEqualTo(interval + 1);
+    }
+
+    @Test
+    void externalEditsAreReloadedAndBrokenFilesIgnored() throws Exception {
+        Path file = dir.resolve("settings.json");
+        repository = new SettingsFlatfileRepositoryImpl(file.toString(), true, 20);
+        repository.startWatcher();
+
+        ObjectNode json = (ObjectNode) objectMapper.readTree(file.toFile());
+        ((ObjectNode) json.get("backup")).put("intervalHours", 42);
+        Files.write(file, objectMapper.writeValueAsBytes(json));
+        await(() -> repository.get().getBackup().getIntervalHours() == 42);
+
+        AppSettings current = repository.get();
+        Files.writeString(file, "{ \"backup\": ");
+        // Give the watcher time to see the broken file before the valid one replaces it
+        Thread.sleep(500);
+        assertThat(repository.get()).isSameAs(current);
+
+        ((ObjectNode) json.get("backup")).put("intervalHours", 7);
+        Files.write(file, objectMapper.writeValueAsBytes(json));
+        await(() -> repository.get().getBackup().getIntervalHours() == 7);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
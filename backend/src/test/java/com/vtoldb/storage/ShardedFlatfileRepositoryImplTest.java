@@ -0,0 +1,73 @@
+/**
+ * ShardedFlatfileRepositoryImpl startup: importing the single flatfile snapshot and reopening shards
+ */
+package com.vtoldb.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.vtoldb.model.Drone;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedFlatfileRepositoryImplTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void importsJsonSnapshotIntoBinaryShards() {
+        writeLegacy("json", drone("a"), drone("b"), drone("c"));
+
+        ShardedFlatfileRepositoryImpl repository = open("binary");
+        try {
+            assertThat(repository.findAll()).extracting(Drone::getId).containsExactlyInAnyOrder("a", "b", "c");
+        } finally {
+            repository.close();
+        }
+
+        // The shards are now authoritative
+        ShardedFlatfileRepositoryImpl reopened = open("binary");
+        try {
+            assertThat(reopened.findAll()).hasSize(3);
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void importsBinarySnapshotIntoJsonShards() {
+        writeLegacy("binary", drone("a"), drone("b"));
+
+        ShardedFlatfileRepositoryImpl repository = open("json");
+        try {
+            assertThat(repository.findAll()).extracting(Drone::getId).containsExactlyInAnyOrder("a", "b");
+        } finally {
+            repository.close();
+        }
+    }
+
+    private void writeLegacy(String format, Drone... drones) {
+        DroneSnapshotStore store = DroneSnapshotStore.create(format, directory.resolve("drones.json"), objectMapper());
+        store.initialize();
+        store.write(List.of(drones));
+    }
+
+    private ShardedFlatfileRepositoryImpl open(String format) {
+        return new ShardedFlatfileRepositoryImpl(directory.resolve("shards").toString(), 4,
+                directory.resolve("drones.json").toString(), format, new WriteBehindProperties());
+    }
+
+    private static ObjectMapper objectMapper() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(new JavaTimeModule());
+        return objectMapper;
+    }
+
+    private static Drone drone(String id) {
+        return new Drone(id, "Drone " + id, "VTOL-X", "SN-" + id);
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * WriteBehindBuffer coalescing, early flush and re-queueing after a failed flush
+ */
+package com.vtoldb.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindBufferTest {
+
+    @Test
+    void repeatedUpdatesOfOneDroneCollapseIntoOneWrite() {
+        List<Set<String>> batches = new ArrayList<>();
+        WriteBehindBuffer buffer = new WriteBehindBuffer(batches::add, 60_000, 100);
+
+        for (int i = 0; i < 10; i++) {
+            buffer.markDirty("d1");
+        }
+        buffer.markDirty("d2");
+        assertThat(buffer.getPendingCount()).isEqualTo(2);
+
+        buffer.flush();
+        assertThat(batches).containsExactly(Set.of("d1", "d2"));
+        assertThat(buffer.getPendingCount()).isZero();
+
+        // Nothing dirty, nothing written
+        buffer.flush();
+        assertThat(batches).hasSize(1);
+    }
+
+    @Test
+    void failedFlushKeepsTheBatchDirtyForTheNextAttempt() {
+        List<Set<String>> batches = new ArrayList<>();
+        boolean[] fail = {true};
+        WriteBehindBuffer buffer = new WriteBehindBuffer(ids -> {
+            if (fail[0]) {
+                throw new IllegalStateException("disk full");
+            }
+            batches.add(ids);
+        }, 60_000, 100);
+
+        buffer.markDirty("d1");
+        buffer.markDirty("d2");
+        assertThatThrownBy(buffer::flush).isInstanceOf(IllegalStateException.class);
+        assertThat(buffer.getPendingCount()).isEqualTo(2);
+
+        // Drones dirtied while the store was down join the retried batch
+        buffer.markDirty("d3");
+        fail[0] = false;
+        buffer.flush();
+        assertThat(batches).containsExactly(Set.of("d1", "d2", "d3"));
+    }
+
+    @Test
+    void reachingMaxDirtyFlushesEarly() throws InterruptedException {
+        CountDownLatch flushed = new CountDownLatch(1);
+        WriteBehindBuffer buffer = new WriteBehindBuffer(ids -> flushed.countDown(), 60_000, 3);
+        buffer.start();
+        try {
+            buffer.markDirty("d1");
+            buffer.markDirty("d2");
+            assertThat(flushed.getCount()).isEqualTo(1);
+            buffer.markDirty("d3");
+            assertThat(flushed.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            buffer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * FleetStateTable row semantics and its per-slot sequence lock
+ */
+package com.vtoldb.storage.fleet;
+
+import com.vtoldb.model.DroneStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.vtoldb.storage.fleet.FleetStateTable.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FleetStateTableTest {
+
+    @Test
+    void updateReportsChangedColumnsAndSkipsUnknownValues() {
+        FleetStateTable table = new FleetStateTable(4);
+        table.put("d1", 1.0, 2.0, 3.0, 80.0, DroneStatus.ACTIVE, 100);
+
+        int changed = table.update("d1", 1.0, 2.5, UNKNOWN, 79.0, null, 50);
+        assertThat(changed).isEqualTo(CHANGED_LONGITUDE | CHANGED_BATTERY);
+
+        Row row = table.get("d1");
+        assertThat(row.latitude()).isEqualTo(1.0);
+        assertThat(row.longitude()).isEqualTo(2.5);
+        assertThat(row.altitude()).isEqualTo(3.0);
+        assertThat(row.status()).isEqualTo(DroneStatus.ACTIVE);
+        // An older timestamp never moves last-seen backwards
+        assertThat(row.lastSeenMillis()).isEqualTo(100);
+
+        assertThat(table.update("missing", 1.0, 1.0, 1.0, 1.0, null, 0)).isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    void markCleanKeepsRowsWrittenAfterTheyWereRead() {
+        FleetStateTable table = new FleetStateTable(4);
+        table.put("d1", 0, 0, 0, 50, DroneStatus.ACTIVE, 0);
+        table.put("d2", 0, 0, 0, 50, DroneStatus.ACTIVE, 0);
+        table.update("d1", 1, 1, 1, 49, null, 10);
+        table.update("d2", 1, 1, 1, 49, null, 10);
+
+        List<Row> rows = new ArrayList<>();
+        List<Long> versions = new ArrayList<>();
+        table.forEachDirty((row, version) -> {
+            rows.add(row);
+            versions.add(version);
+        });
+        assertThat(rows).extracting(Row::id).containsExactly("d1", "d2");
+
+        table.update("d2", 2, 2, 2, 48, null, 20);
+        table.markClean("d1", versions.get(0));
+        table.markClean("d2", versions.get(1));
+
+        List<String> stillDirty = new ArrayList<>();
+        table.forEachDirty((row, version) -> stillDirty.add(row.id()));
+        assertThat(stillDirty).containsExactly("d2");
+    }
+
+    @Test
+    void removedSlotsAreReusedAndColumnsGrow() {
+        FleetStateTable table = new FleetStateTable(16);
+        for (int i = 0; i < 40; i++) {
+            table.put("d" + i, i, i, i, i, DroneStatus.ACTIVE, i);
+        }
+        table.remove("d3");
+        assertThat(table.get("d3")).isNull();
+        assertThat(table.update("d3", 1, 1, 1, 1, null, 0)).isEqualTo(NOT_FOUND);
+
+        table.put("new", 7, 7, 7, 7, DroneStatus.OFFLINE, 7);
+        assertThat(table.size()).isEqualTo(40);
+        assertThat(table.get("new").status()).isEqualTo(DroneStatus.OFFLINE);
+        assertThat(table.get("d39").latitude()).isEqualTo(39.0);
+
+        Summary summary = table.summarize(10, 5);
+        assertThat(summary.getTotal()).isEqualTo(40);
+        assertThat(summary.getStatusCount(DroneStatus.OFFLINE)).isEqualTo(1);
+        assertThat(summary.getMaxLatitude()).isEqualTo(39.0);
+    }
+
+    @Test
+    void readersNeverSeeTornRows() throws InterruptedException {
+        FleetStateTable table = new FleetStateTable(16);
+        table.put("d1", 0, 0, 0, 0, DroneStatus.ACTIVE, 0);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> torn = new AtomicReference<>();
+
+        // Every write sets all columns to the same value, so a mixed row means a torn read
+        Thread writer = new Thread(() -> {
+            for (int value = 1; running.get(); value++) {
+                table.update("d1", value, value, value, value, null, value);
+            }
+        });
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                Row row = table.get("d1");
+                if (row.latitude() != row.longitude() || row.longitude() != row.altitude()
+                        || row.altitude() != row.batteryLevel()) {
+                    torn.compareAndSet(null, row.toString());
+                }
+                Summary summary = table.summarize(0, 0);
+                if (summary.getMinLatitude() != summary.getAverageAltitude()) {
+                    torn.compareAndSet(null, "summary at " + summary.getMinLatitude());
+                }
+            }
+        });
+        writer.start();
+        reader.start();
+        Thread.sleep(500);
+        running.set(false);
+        writer.join();
+        reader.join();
+
+        assertThat(torn.get()).isNull();
+        assertThat(table.get("d1").latitude()).isPositive();
+    }
+}
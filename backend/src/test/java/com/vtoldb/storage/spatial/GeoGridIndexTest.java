@@ -0,0 +1,66 @@
+/**
+ * GeoGridIndex queries and concurrent moves between shared cells
+ */
+package com.vtoldb.storage.spatial;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoGridIndexTest {
+
+    @Test
+    void findsPointsInBoxRadiusAndNearest() {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        index.update("a", -19.330, 146.760);
+        index.update("b", -19.335, 146.765);
+        index.update("c", -27.470, 153.020);
+
+        assertThat(index.withinBox(-19.34, 146.75, -19.32, 146.77))
+                .extracting(GeoGridIndex.Hit::id).containsExactlyInAnyOrder("a", "b");
+        assertThat(index.withinRadius(-19.330, 146.760, 1_000))
+                .extracting(GeoGridIndex.Hit::id).containsExactly("a", "b");
+        assertThat(index.nearest(-27.0, 153.0, 1))
+                .extracting(GeoGridIndex.Hit::id).containsExactly("c");
+
+        index.remove("a");
+        assertThat(index.withinBox(-19.34, 146.75, -19.32, 146.77))
+                .extracting(GeoGridIndex.Hit::id).containsExactly("b");
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentMovesBetweenSharedCellsKeepEveryPoint() throws InterruptedException {
+        GeoGridIndex index = new GeoGridIndex(0.01);
+        int threads = 4;
+        int dronesPerThread = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * dronesPerThread;
+            // Every drone hops between the same two fine cells, which keep emptying and refilling
+            workers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int round = 0; round < 20_000; round++) {
+                    for (int d = first; d < first + dronesPerThread; d++) {
+                        index.update("d" + d, 10.005, (round + d) % 2 == 0 ? 20.005 : 20.015);
+                    }
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertThat(index.withinBox(10.0, 20.0, 10.01, 20.02)).hasSize(threads * dronesPerThread);
+    }
+}
@@ -0,0 +1,95 @@
+/**
+ * ChunkedSeriesStore reads across buffered, pending and durable chunks and recovery from torn writes
+ */
+package com.vtoldb.storage.timeseries;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChunkedSeriesStoreTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsDurableAndBufferedSamplesInRange() {
+        ChunkedSeriesStore store = new ChunkedSeriesStore(dir, 2, 4, 60_000);
+        appendSamples(store, 0, 10);
+
+        assertThat(timestamps(store.read("d1", START, START + 9_000))).hasSize(10);
+        assertThat(timestamps(store.read("d1", START + 5_000, START + 6_000)))
+                .contains(START + 5_000, START + 6_000);
+        assertThat(store.read("other", START, START + 9_000)).isEmpty();
+        store.close();
+
+        ChunkedSeriesStore reopened = new ChunkedSeriesStore(dir, 2, 4, 60_000);
+        assertThat(timestamps(reopened.read("d1", START, START + 9_000))).hasSize(10);
+        reopened.close();
+    }
+
+    @Test
+    void aTornChunkIsCutOffBeforeTheNextAppend() throws IOException {
+        ChunkedSeriesStore store = new ChunkedSeriesStore(dir, 2, 4, 60_000);
+        appendSamples(store, 0, 8);
+        store.close();
+
+        // A crash halfway through writing a third chunk leaves part of its header behind
+        Path dayFile = dayFile();
+        byte[] complete = Files.readAllBytes(dayFile);
+        Files.write(dayFile, Arrays.copyOf(complete, 20), StandardOpenOption.APPEND);
+
+        ChunkedSeriesStore reopened = new ChunkedSeriesStore(dir, 2, 4, 60_000);
+        assertThat(timestamps(reopened.read("d1", START, START + 20_000))).hasSize(8);
+        appendSamples(reopened, 8, 4);
+        reopened.close();
+
+        assertThat(Files.size(dayFile)).isGreaterThan(complete.length);
+        ChunkedSeriesStore recovered = new ChunkedSeriesStore(dir, 2, 4, 60_000);
+        assertThat(timestamps(recovered.read("d1", START, START + 20_000)))
+                .containsExactlyInAnyOrderElementsOf(expectedTimestamps(12));
+        recovered.close();
+    }
+
+    private static void appendSamples(ChunkedSeriesStore store, int first, int count) {
+        for (int i = first; i < first + count; i++) {
+            store.append("d1", START + i * 1_000L, new double[]{i, -i});
+        }
+    }
+
+    private static List<Long> expectedTimestamps(int count) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            timestamps.add(START + i * 1_000L);
+        }
+        return timestamps;
+    }
+
+    private static List<Long> timestamps(List<SeriesChunk> chunks) {
+        List<Long> timestamps = new ArrayList<>();
+        for (SeriesChunk chunk : chunks) {
+            for (int i = 0; i < chunk.getCount(); i++) {
+                timestamps.add(chunk.getTimestamp(i));
+                assertThat(chunk.getValue(1, i)).isEqualTo(-chunk.getValue(0, i));
+            }
+        }
+        return timestamps;
+    }
+
+    private Path dayFile() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(file -> file.toString().endsWith(".tsc")).findFirst().orElseThrow();
+        }
+    }
+}
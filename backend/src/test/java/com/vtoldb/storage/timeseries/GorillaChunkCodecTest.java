@@ -0,0 +1,83 @@
+/**
+ * Bit-exact round trips through GorillaChunkCodec
+ */
+package com.vtoldb.storage.timeseries;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GorillaChunkCodecTest {
+
+    @Test
+    void regularSamplingCompressesWell() {
+        int count = 1000;
+        long[] timestamps = new long[count];
+        double[][] columns = new double[2][count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1_700_000_000_000L + i * 1000L;
+            columns[0][i] = 87.5;
+            columns[1][i] = -19.25 + (i / 100) * 0.0001;
+        }
+
+        byte[] payload = GorillaChunkCodec.encode(timestamps, columns, count);
+        assertRoundTrip(payload, timestamps, columns, count);
+        // Three raw 64-bit headers plus about a bit per repeated timestamp and value
+        assertThat(payload.length).isLessThan(count);
+    }
+
+    @Test
+    void everyTimestampBucketRoundTrips() {
+        // Delta-of-deltas of 0, +-63, +-255, within 12 bits, beyond 12 bits and a backwards jump
+        long[] timestamps = {1000, 2000, 3000, 4063, 5063, 6318, 7318, 9365, 11365, 61365, 1365, 1366};
+        double[][] columns = {new double[timestamps.length]};
+
+        byte[] payload = GorillaChunkCodec.encode(timestamps, columns, timestamps.length);
+        assertRoundTrip(payload, timestamps, columns, timestamps.length);
+    }
+
+    @Test
+    void specialAndRandomValuesRoundTripBitExactly() {
+        double[] special = {Double.NaN, Double.NaN, 0.0, -0.0, Double.MIN_VALUE, Double.MAX_VALUE,
+                Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1.0, Double.NaN, 1.0};
+        Random random = new Random(42);
+        int count = special.length + 500;
+        long[] timestamps = new long[count];
+        double[][] columns = new double[1][count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = i * 250L + random.nextInt(5);
+            columns[0][i] = i < special.length ? special[i]
+                    : i % 3 == 0 ? Double.longBitsToDouble(random.nextLong()) : random.nextGaussian();
+        }
+
+        byte[] payload = GorillaChunkCodec.encode(timestamps, columns, count);
+        assertRoundTrip(payload, timestamps, columns, count);
+    }
+
+    @Test
+    void encodesOnlyTheFirstCountSamples() {
+        long[] timestamps = {10, 20, 30, 0, 0};
+        double[][] columns = {{1.5, 2.5, 3.5, 99, 99}, {Double.NaN, 7, 7, 99, 99}};
+
+        assertRoundTrip(GorillaChunkCodec.encode(timestamps, columns, 3), timestamps, columns, 3);
+        assertRoundTrip(GorillaChunkCodec.encode(timestamps, columns, 1), timestamps, columns, 1);
+        assertThat(GorillaChunkCodec.decode(ByteBuffer.wrap(GorillaChunkCodec.encode(timestamps, columns, 0)), 0, 2)
+                .getCount()).isZero();
+    }
+
+    private static void assertRoundTrip(byte[] payload, long[] timestamps, double[][] columns, int count) {
+        SeriesChunk chunk = GorillaChunkCodec.decode(ByteBuffer.wrap(payload), count, columns.length);
+        assertThat(chunk.getCount()).isEqualTo(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(chunk.getTimestamp(i)).as("timestamp %d", i).isEqualTo(timestamps[i]);
+            for (int column = 0; column < columns.length; column++) {
+                assertThat(Double.doubleToRawLongBits(chunk.getValue(column, i)))
+                        .as("column %d value %d", column, i)
+                        .isEqualTo(Double.doubleToRawLongBits(columns[column][i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * FleetWebSocketHandler routing of telemetry batches onto each drone's ingest lane
+ */
+package com.vtoldb.websocket.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.vtoldb.websocket.ingest.IngestLaneExecutor;
+import com.vtoldb.websocket.ingest.IngestMailbox;
+import com.vtoldb.websocket.outbound.OutboundQueueManager;
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import com.vtoldb.websocket.session.FleetSession;
+import com.vtoldb.websocket.session.FleetSessionManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class FleetWebSocketHandlerTest {
+    private final FleetSessionManager sessionManager = mock(FleetSessionManager.class);
+    private final TelemetryHandler telemetryHandler = mock(TelemetryHandler.class);
+    private final IngestLaneExecutor ingestExecutor = mock(IngestLaneExecutor.class);
+    private final WebSocketSession wsSession = mock(WebSocketSession.class);
+    private final IngestMailbox ownMailbox = mock(IngestMailbox.class);
+    private final IngestMailbox relayMailbox = mock(IngestMailbox.class);
+    private FleetSession session;
+    private FleetWebSocketHandler handler;
+
+    @BeforeEach
+    void setUp() {
+        session = new FleetSession("s1", "w1", "d1", wsSession);
+        session.setIngestMailbox(ownMailbox);
+        when(sessionManager.getSessionByWsSession(wsSession)).thenReturn(Optional.of(session));
+        when(ingestExecutor.newMailbox("d2")).thenReturn(relayMailbox);
+        // Runs submitted work straight away
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(ingestExecutor).submit(any(), any());
+        handler = new FleetWebSocketHandler(new ObjectMapper(), sessionManager, mock(RegistrationHandler.class),
+                telemetryHandler, ingestExecutor, mock(OutboundQueueManager.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void relayedSamplesAreQueuedOnTheirOwnDronesMailbox() {
+        handler.handleTextMessage(wsSession, new TextMessage("""
+                {"type":"TELEMETRY_BATCH","payload":{"samples":[
+                  {"timestamp":1},{"droneId":"d2","timestamp":2},{"droneId":"d1","timestamp":3},
+                  {"droneId":"d2","timestamp":4}]}}"""));
+        handler.handleTextMessage(wsSession, new TextMessage("""
+                {"type":"TELEMETRY_BATCH","payload":{"samples":[{"droneId":"d2","timestamp":5}]}}"""));
+
+        verify(ingestExecutor, times(1)).submit(eq(ownMailbox), any());
+        verify(ingestExecutor, times(2)).submit(eq(relayMailbox), any());
+        verify(ingestExecutor, times(1)).newMailbox("d2");
+
+        ArgumentCaptor<List<TelemetryPayload>> parts = ArgumentCaptor.forClass(List.class);
+        verify(telemetryHandler, times(3)).handleBatch(parts.capture(), eq(session));
+        assertThat(parts.getAllValues().get(0)).extracting(TelemetryPayload::getDroneId, TelemetryPayload::getTimestamp)
+                .containsExactly(tuple("d1", 1L), tuple("d1", 3L));
+        assertThat(parts.getAllValues().get(1)).extracting(TelemetryPayload::getTimestamp).containsExactly(2L, 4L);
+        assertThat(parts.getAllValues().get(2)).extracting(TelemetryPayload::getTimestamp).containsExactly(5L);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * IngestLaneExecutor ordering, mailbox shedding and the priority lane
+ */
+package com.vtoldb.websocket.ingest;
+
+import com.vtoldb.dto.IngestMetricsDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IngestLaneExecutorTest {
+
+    private IngestLaneExecutor executor;
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        executor = new IngestLaneExecutor(1, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    // Parks the single lane so work piles up behind it
+    private void blockLane() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        executor.executePriority("d1", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private Runnable record(String name) {
+        return () -> ran.add(name);
+    }
+
+    @Test
+    void fullMailboxShedsTheOldestTelemetry() throws InterruptedException {
+        IngestMailbox mailbox = executor.newMailbox("d1");
+        blockLane();
+        for (int i = 0; i < 10; i++) {
+            executor.submit(mailbox, record("t" + i));
+        }
+        assertThat(mailbox.size()).isEqualTo(4);
+        assertThat(mailbox.getShedCount()).isEqualTo(6);
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(ran).containsExactly("t6", "t7", "t8", "t9");
+
+        IngestMetricsDTO metrics = executor.getMetrics();
+        assertThat(metrics.getShed()).isEqualTo(6);
+        assertThat(executor.getTelemetryReceived()).isEqualTo(10);
+    }
+
+    @Test
+    void submittingToABackedUpLaneNeverBlocks() throws InterruptedException {
+        blockLane();
+        // Far more scheduled sessions than a lane used to hold; the caller must not wait
+        for (int i = 0; i < 5000; i++) {
+            executor.submit(executor.newMailbox("d1"), record("s" + i));
+        }
+        assertThat(executor.getMetrics().getLanes().get(0).getDepth()).isEqualTo(5000);
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(ran).hasSize(5000).startsWith("s0", "s1").endsWith("s4999");
+    }
+
+    @Test
+    void priorityWorkOvertakesQueuedTelemetry() throws InterruptedException {
+        IngestMailbox mailbox = executor.newMailbox("d1");
+        blockLane();
+        executor.submit(mailbox, record("t1"));
+        executor.submit(mailbox, record("t2"));
+        executor.executePriority("d1", record("ack"));
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(ran).containsExactly("ack", "t1", "t2");
+    }
+
+    @Test
+    void workAfterPendingWaitsForTelemetryAlreadySent() throws InterruptedException {
+        IngestMailbox mailbox = executor.newMailbox("d1");
+        blockLane();
+        executor.submit(mailbox, record("t1"));
+        executor.submit(mailbox, record("t2"));
+        executor.executeAfterPending(mailbox, "d1", record("offline"));
+        executor.executePriority("d1", record("ack"));
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(ran).containsExactly("t1", "t2", "offline", "ack");
+    }
+
+    @Test
+    void failedTasksAreCountedAndDoNotStopTheLane() {
+        IngestMailbox mailbox = executor.newMailbox("d1");
+        executor.submit(mailbox, () -> {
+            throw new IllegalStateException("bad sample");
+        });
+        executor.submit(mailbox, record("next"));
+        executor.shutdown();
+
+        assertThat(ran).containsExactly("next");
+        assertThat(executor.getMetrics().getFailed()).isEqualTo(1);
+    }
+}
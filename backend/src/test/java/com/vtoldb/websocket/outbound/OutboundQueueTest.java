@@ -0,0 +1,145 @@
+/**
+ * OutboundQueue ordering, overflow policies and stuck-link handling
+ * A mocked session whose first send blocks stands in for a slow drone link
+ */
+package com.vtoldb.websocket.outbound;
+
+import com.vtoldb.dto.OutboundQueueDTO;
+import com.vtoldb.websocket.protocol.MessageType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class OutboundQueueTest {
+    private final List<String> delivered = new CopyOnWriteArrayList<>();
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private WebSocketSession session;
+    private Thread firstSender;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("ws-1");
+        when(session.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            WebSocketMessage<?> message = invocation.getArgument(0);
+            if (delivered.isEmpty()) {
+                sending.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            delivered.add((String) message.getPayload());
+            return null;
+        }).when(session).sendMessage(any());
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        if (firstSender != null) {
+            firstSender.join();
+        }
+    }
+
+    @Test
+    void sendsInOrderOnceTheLinkCatchesUp() throws InterruptedException {
+        OutboundQueue queue = new OutboundQueue(session, 1024, 10_000);
+        startBlockedSend(queue);
+
+        assertThat(queue.offer(MessageType.COMMAND, text("b"), OutboundPolicy.CLOSE)).isTrue();
+        assertThat(queue.offer(MessageType.COMMAND, text("c"), OutboundPolicy.CLOSE)).isTrue();
+        assertThat(queue.getStats().getQueued()).isEqualTo(2);
+        assertThat(delivered).isEmpty();
+
+        release.countDown();
+        firstSender.join();
+        assertThat(delivered).containsExactly("a", "b", "c");
+        OutboundQueueDTO stats = queue.getStats();
+        assertThat(stats.getSent()).isEqualTo(3);
+        assertThat(stats.getQueued()).isZero();
+        assertThat(stats.getBufferedBytes()).isZero();
+    }
+
+    @Test
+    void fullBufferDropsOrCoalescesByPolicy() throws Exception {
+        OutboundQueue queue = new OutboundQueue(session, 10, 10_000);
+        startBlockedSend(queue);
+
+        assertThat(queue.offer(MessageType.RATE_CONTROL, text("rate-1"), OutboundPolicy.REPLACE)).isTrue();
+        assertThat(queue.offer(MessageType.REGISTER_ACK, text("error"), OutboundPolicy.DROP)).isFalse();
+        // Coalesces into the queued RATE_CONTROL even though the buffer is full
+        assertThat(queue.offer(MessageType.RATE_CONTROL, text("rate-2"), OutboundPolicy.REPLACE)).isTrue();
+        // Nothing of its type to replace, and no room
+        assertThat(queue.offer(MessageType.KEYFRAME_REQUEST, text("keyframe"), OutboundPolicy.REPLACE)).isFalse();
+
+        release.countDown();
+        firstSender.join();
+        assertThat(delivered).containsExactly("a", "rate-2");
+        OutboundQueueDTO stats = queue.getStats();
+        assertThat(stats.getDropped()).isEqualTo(2);
+        assertThat(stats.getReplaced()).isEqualTo(1);
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void fullBufferClosesSessionForMessagesThatMustNotBeLost() throws Exception {
+        OutboundQueue queue = new OutboundQueue(session, 10, 10_000);
+        startBlockedSend(queue);
+
+        assertThat(queue.offer(MessageType.COMMAND, text("cmd-1"), OutboundPolicy.CLOSE)).isTrue();
+        assertThat(queue.offer(MessageType.COMMAND, text("cmd-2-too-long"), OutboundPolicy.CLOSE)).isFalse();
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+
+        // Everything queued was discarded and later messages are refused
+        assertThat(queue.getStats().getQueued()).isZero();
+        assertThat(queue.offer(MessageType.COMMAND, text("late"), OutboundPolicy.CLOSE)).isFalse();
+        release.countDown();
+        firstSender.join();
+        assertThat(delivered).containsExactly("a");
+    }
+
+    @Test
+    void stuckSendClosesSession() throws Exception {
+        OutboundQueue queue = new OutboundQueue(session, 1024, 50);
+        startBlockedSend(queue);
+        Thread.sleep(100);
+
+        assertThat(queue.offer(MessageType.COMMAND, text("b"), OutboundPolicy.CLOSE)).isFalse();
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void failedSendClosesSession() throws Exception {
+        doThrow(new IOException("broken pipe")).when(session).sendMessage(any());
+        OutboundQueue queue = new OutboundQueue(session, 1024, 10_000);
+
+        assertThat(queue.offer(MessageType.COMMAND, text("a"), OutboundPolicy.CLOSE)).isTrue();
+        verify(session, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        assertThat(queue.getStats().getFailed()).isEqualTo(1);
+    }
+
+    // Sends "a" from another thread and waits until it is stuck on the link
+    private void startBlockedSend(OutboundQueue queue) throws InterruptedException {
+        firstSender = new Thread(() -> queue.offer(MessageType.COMMAND, text("a"), OutboundPolicy.CLOSE));
+        firstSender.start();
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static TextMessage text(String payload) {
+        return new TextMessage(payload);
+    }
+}
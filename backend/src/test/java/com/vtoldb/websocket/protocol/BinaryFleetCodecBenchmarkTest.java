@@ -0,0 +1,117 @@
+/**
+ * Size and decode cost of a full telemetry sample as JSON versus BinaryFleetCodec
+ * Run with -Dbenchmark=true; skipped otherwise
+ */
+package com.vtoldb.websocket.protocol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BinaryFleetCodecBenchmarkTest {
+    private static final int SAMPLES = 2000;
+    private static final int ROUNDS = 250;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void jsonVersusBinaryTelemetry() throws IOException {
+        TelemetryPayload[] samples = new TelemetryPayload[SAMPLES];
+        String[] json = new String[SAMPLES];
+        ByteBuffer[] binary = new ByteBuffer[SAMPLES];
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = sample(i);
+            ObjectNode message = mapper.createObjectNode().put("type", "TELEMETRY").put("channel", "telemetry");
+            message.set("payload", mapper.valueToTree(samples[i]));
+            json[i] = mapper.writeValueAsString(message);
+            binary[i] = BinaryFleetCodec.encodeTelemetry(samples[i]);
+            jsonBytes += json[i].getBytes().length;
+            binaryBytes += binary[i].remaining();
+
+            assertThat(decodeJson(json[i])).usingRecursiveComparison().isEqualTo(samples[i]);
+            assertThat(BinaryFleetCodec.decode(binary[i].duplicate(), samples[i].getDroneId()).getPayload())
+                    .usingRecursiveComparison().isEqualTo(samples[i]);
+        }
+        System.out.printf("message size: JSON %d B, binary %d B%n", jsonBytes / SAMPLES, binaryBytes / SAMPLES);
+
+        // Each case runs twice; the first pass is warm-up
+        for (int pass = 0; pass < 2; pass++) {
+            measure("JSON tree decode", pass, () -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (String text : json) {
+                        decodeJson(text);
+                    }
+                }
+            });
+            measure("binary decode", pass, () -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (int i = 0; i < SAMPLES; i++) {
+                        BinaryFleetCodec.decode(binary[i].duplicate(), samples[i].getDroneId());
+                    }
+                }
+            });
+        }
+    }
+
+    // The JSON path before the binary codec: parse to a tree, then bind the payload
+    private TelemetryPayload decodeJson(String text) {
+        try {
+            JsonNode message = mapper.readTree(text);
+            return mapper.treeToValue(message.get("payload"), TelemetryPayload.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TelemetryPayload sample(int i) {
+        TelemetryPayload telemetry = new TelemetryPayload();
+        telemetry.setDroneId("d" + (i % 100));
+        telemetry.setTimestamp(1_700_000_000_000L + i * 100L);
+        telemetry.setSequence((long) i);
+        telemetry.setStatus("ACTIVE");
+        telemetry.setFlightMode("LOITER");
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setLatitude(-19.2589 - i * 1e-5);
+        position.setLongitude(146.8169 + i * 1e-5);
+        position.setAltitude(100.0 + i % 60 * 0.5);
+        position.setHeading((double) (i % 360));
+        position.setSpeed(10.0 + i % 9 * 0.7);
+        telemetry.setPosition(position);
+        TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+        battery.setLevel(100.0 - i % 100 * 0.5);
+        battery.setVoltage(22.4 - i % 20 * 0.05);
+        battery.setCurrent(-11.3 - i % 7 * 0.1);
+        battery.setTemperature(25.0 + i % 15);
+        telemetry.setBattery(battery);
+        TelemetryPayload.Sensors sensors = new TelemetryPayload.Sensors();
+        sensors.setGpsFixType(3);
+        sensors.setSatelliteCount(8 + i % 8);
+        sensors.setSignalStrength(-60 - i % 30);
+        telemetry.setSensors(sensors);
+        return telemetry;
+    }
+
+    private static void measure(String name, int pass, Runnable run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long decodes = (long) SAMPLES * ROUNDS;
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        if (pass > 0) {
+            System.out.printf("%-18s %8.2f us/msg %8d B/msg%n", name, nanos / 1000.0 / decodes, bytes / decodes);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Round trips through BinaryFleetCodec and rejection of malformed frames
+ */
+package com.vtoldb.websocket.protocol;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryFleetCodecTest {
+
+    @Test
+    void telemetryRoundTripsEveryField() {
+        TelemetryPayload sent = fullSample();
+        FleetMessage<?> message = BinaryFleetCodec.decode(BinaryFleetCodec.encodeTelemetry(sent), "d1");
+
+        assertThat(message.getType()).isEqualTo(MessageType.TELEMETRY);
+        TelemetryPayload received = (TelemetryPayload) message.getPayload();
+        assertThat(received).usingRecursiveComparison().isEqualTo(sent);
+    }
+
+    @Test
+    void absentFieldsStayAbsent() {
+        TelemetryPayload sent = new TelemetryPayload();
+        sent.setSequence(0xFFFFFFFFL);
+        TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+        battery.setLevel(42.0);
+        sent.setBattery(battery);
+
+        FleetMessage<?> message = BinaryFleetCodec.decode(BinaryFleetCodec.encodeTelemetryDelta(sent), "d1");
+        assertThat(message.getType()).isEqualTo(MessageType.TELEMETRY_DELTA);
+        TelemetryPayload received = (TelemetryPayload) message.getPayload();
+        assertThat(received.getDroneId()).isEqualTo("d1");
+        assertThat(received.getSequence()).isEqualTo(0xFFFFFFFFL);
+        assertThat(received.getBattery().getLevel()).isEqualTo(42.0);
+        assertThat(received.getBattery().getVoltage()).isNull();
+        assertThat(received.getPosition()).isNull();
+        assertThat(received.getSensors()).isNull();
+        assertThat(received.getTimestamp()).isNull();
+    }
+
+    @Test
+    void batchSamplesDefaultToTheSendersDrone() {
+        TelemetryPayload own = fullSample();
+        TelemetryPayload relayed = fullSample();
+        relayed.setDroneId("d2");
+
+        ByteBuffer frame = BinaryFleetCodec.encodeTelemetryBatch(List.of(own, relayed), "d1");
+        FleetMessage<?> message = BinaryFleetCodec.decode(frame, "d1");
+        assertThat(message.getType()).isEqualTo(MessageType.TELEMETRY_BATCH);
+        List<TelemetryPayload> samples = ((TelemetryBatchPayload) message.getPayload()).getSamples();
+        assertThat(samples).extracting(TelemetryPayload::getDroneId).containsExactly("d1", "d2");
+        assertThat(samples.get(1)).usingRecursiveComparison().isEqualTo(relayed);
+    }
+
+    @Test
+    void heartbeatAndCommandAckRoundTrip() {
+        assertThat(BinaryFleetCodec.decode(BinaryFleetCodec.encodeHeartbeat(), "d1").getType())
+                .isEqualTo(MessageType.HEARTBEAT);
+
+        FleetMessage<?> message = BinaryFleetCodec.decode(
+                BinaryFleetCodec.encodeCommandAck("c-1", CommandAck.failed("motor fault")), "d1");
+        assertThat(message.getType()).isEqualTo(MessageType.COMMAND_ACK);
+        assertThat(message.getCorrelationId()).isEqualTo("c-1");
+        CommandAck ack = (CommandAck) message.getPayload();
+        assertThat(ack.getStatus()).isEqualTo("FAILED");
+        assertThat(ack.getMessage()).isEqualTo("motor fault");
+    }
+
+    @Test
+    void rejectsMalformedFrames() {
+        ByteBuffer truncated = BinaryFleetCodec.encodeTelemetry(fullSample());
+        truncated.limit(truncated.limit() - 3);
+        assertThatThrownBy(() -> BinaryFleetCodec.decode(truncated, "d1"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("Truncated");
+
+        assertThatThrownBy(() -> BinaryFleetCodec.decode(ByteBuffer.wrap(new byte[] {1, 9}), "d1"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("version");
+        assertThatThrownBy(() -> BinaryFleetCodec.decode(ByteBuffer.wrap(new byte[] {99, 1}), "d1"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("type");
+
+        // A delta without a sequence cannot be placed in the stream
+        ByteBuffer unsequenced = BinaryFleetCodec.encodeTelemetry(new TelemetryPayload());
+        unsequenced.put(0, BinaryFleetCodec.TYPE_TELEMETRY_DELTA);
+        assertThatThrownBy(() -> BinaryFleetCodec.decode(unsequenced, "d1"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("sequence");
+    }
+
+    @Test
+    void negotiatesBinaryOnlyWhenEnabledAndRequested() {
+        assertThat(BinaryFleetCodec.negotiate("2.0", true)).isEqualTo(BinaryFleetCodec.PROTOCOL_BINARY);
+        assertThat(BinaryFleetCodec.negotiate("2.0", false)).isEqualTo(BinaryFleetCodec.PROTOCOL_JSON);
+        assertThat(BinaryFleetCodec.negotiate("1.0", true)).isEqualTo(BinaryFleetCodec.PROTOCOL_JSON);
+        assertThat(BinaryFleetCodec.negotiate(null, true)).isEqualTo(BinaryFleetCodec.PROTOCOL_JSON);
+    }
+
+    private static TelemetryPayload fullSample() {
+        TelemetryPayload telemetry = new TelemetryPayload();
+        telemetry.setDroneId("d1");
+        telemetry.setTimestamp(1_700_000_000_123L);
+        telemetry.setSequence(7L);
+        telemetry.setStatus("ACTIVE");
+        telemetry.setFlightMode("LOITER");
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setLatitude(-19.2589);
+        position.setLongitude(146.8169);
+        position.setAltitude(121.5);
+        position.setHeading(270.0);
+        position.setSpeed(14.2);
+        telemetry.setPosition(position);
+        TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+        battery.setLevel(87.5);
+        battery.setVoltage(22.4);
+        battery.setCurrent(-11.3);
+        battery.setTemperature(31.0);
+        telemetry.setBattery(battery);
+        TelemetryPayload.Sensors sensors = new TelemetryPayload.Sensors();
+        sensors.setGpsFixType(3);
+        sensors.setSatelliteCount(14);
+        sensors.setSignalStrength(-67);
+        telemetry.setSensors(sensors);
+        return telemetry;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Cost per message of the old tree decode (readTree + treeToValue) versus JsonFleetDecoder
+ * Run with -Dbenchmark=true; skipped otherwise
+ */
+package com.vtoldb.websocket.protocol;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JsonFleetDecoderBenchmarkTest {
+    private static final int MESSAGES = 1000;
+    private static final int ROUNDS = 400;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final JsonFleetDecoder decoder = new JsonFleetDecoder(mapper);
+
+    @Test
+    void treePathVersusStreaming() throws IOException {
+        run("REGISTER", WorkerRegistration.class, i -> String.format(Locale.ROOT, """
+                {"type":"REGISTER","channel":"control","timestamp":"2024-01-01T00:00:00Z",
+                 "payload":{"workerId":"worker-%1$d","droneId":"d%1$d","serialNumber":"SN-%1$d",
+                            "capabilities":["camera","lidar","relay"],"firmwareVersion":"4.2.%2$d",
+                            "protocolVersion":"1.0"}}""", i, i % 10));
+        run("TELEMETRY", TelemetryPayload.class, i -> String.format(Locale.ROOT, """
+                {"type":"TELEMETRY","channel":"telemetry","timestamp":"2024-01-01T00:00:00Z",
+                 "payload":{"droneId":"d%1$d","timestamp":%2$d,"sequence":%1$d,"status":"ACTIVE",
+                            "flightMode":"LOITER",
+                            "position":{"latitude":%3$.6f,"longitude":%4$.6f,"altitude":%5$.1f,
+                                        "heading":%6$.1f,"speed":%7$.1f},
+                            "battery":{"level":%8$.1f,"voltage":22.4,"current":-11.3,"temperature":31.0},
+                            "sensors":{"gpsFixType":3,"satelliteCount":%9$d,"signalStrength":-67}}}""",
+                i, 1_700_000_000_000L + i, -19.2589 - i * 1e-5, 146.8169 + i * 1e-5, 100.0 + i % 60,
+                (double) (i % 360), 10.0 + i % 9, 100.0 - i % 100, 8 + i % 8));
+        run("COMMAND_ACK", CommandAck.class, i -> String.format(Locale.ROOT, """
+                {"type":"COMMAND_ACK","correlationId":"cmd-%1$d","timestamp":"2024-01-01T00:00:00Z",
+                 "payload":{"status":"SUCCESS","message":"command %1$d done"}}""", i));
+    }
+
+    private void run(String name, Class<?> payloadClass, IntFunction<String> message) throws IOException {
+        String[] messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = message.apply(i);
+            assertThat(mapper.writeValueAsString(decoder.decode(messages[i]).getPayload()))
+                    .isEqualTo(mapper.writeValueAsString(decodeTree(messages[i], payloadClass)));
+        }
+
+        // Each case runs twice; the first pass is warm-up
+        for (int pass = 0; pass < 2; pass++) {
+            measure(name + " tree", pass, () -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (String text : messages) {
+                        decodeTree(text, payloadClass);
+                    }
+                }
+            });
+            measure(name + " streaming", pass, () -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    for (String text : messages) {
+                        try {
+                            decoder.decode(text);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    // The handler's path before JsonFleetDecoder: a tree for the envelope, then a second walk to bind
+    private Object decodeTree(String text, Class<?> payloadClass) {
+        try {
+            JsonNode root = mapper.readTree(text);
+            MessageType.valueOf(root.path("type").asText());
+            root.path("correlationId").asText();
+            return mapper.treeToValue(root.path("payload"), payloadClass);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void measure(String name, int pass, Runnable run) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long decodes = (long) MESSAGES * ROUNDS;
+        long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        run.run();
+        long nanos = System.nanoTime() - start;
+        long bytes = threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+        if (pass > 0) {
+            System.out.printf("%-22s %8.2f us/msg %8d B/msg%n", name, nanos / 1000.0 / decodes, bytes / decodes);
+        }
+    }
+}
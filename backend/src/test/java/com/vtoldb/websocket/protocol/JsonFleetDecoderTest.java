@@ -0,0 +1,83 @@
+/**
+ * JsonFleetDecoder binding of each message type and its error cases
+ */
+package com.vtoldb.websocket.protocol;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JsonFleetDecoderTest {
+    private final JsonFleetDecoder decoder = new JsonFleetDecoder(new ObjectMapper());
+
+    @Test
+    void bindsTelemetryAndSkipsUnhandledFields() throws IOException {
+        FleetMessage<?> message = decoder.decode("""
+                {"type":"TELEMETRY","channel":"telemetry","timestamp":"2024-01-01T00:00:00Z",
+                 "payload":{"droneId":"d1","sequence":5,"position":{"latitude":-19.3,"altitude":80.0},
+                            "battery":{"level":64.0}}}""");
+
+        assertThat(message.getType()).isEqualTo(MessageType.TELEMETRY);
+        TelemetryPayload telemetry = (TelemetryPayload) message.getPayload();
+        assertThat(telemetry.getDroneId()).isEqualTo("d1");
+        assertThat(telemetry.getSequence()).isEqualTo(5);
+        assertThat(telemetry.getPosition().getLatitude()).isEqualTo(-19.3);
+        assertThat(telemetry.getPosition().getLongitude()).isNull();
+        assertThat(telemetry.getBattery().getLevel()).isEqualTo(64.0);
+    }
+
+    @Test
+    void bindsPayloadThatArrivesBeforeTheType() throws IOException {
+        FleetMessage<?> message = decoder.decode("""
+                {"payload":{"status":"SUCCESS","message":"done"},"correlationId":"c-9","type":"COMMAND_ACK"}""");
+
+        assertThat(message.getType()).isEqualTo(MessageType.COMMAND_ACK);
+        assertThat(message.getCorrelationId()).isEqualTo("c-9");
+        CommandAck ack = (CommandAck) message.getPayload();
+        assertThat(ack.getStatus()).isEqualTo("SUCCESS");
+        assertThat(ack.getMessage()).isEqualTo("done");
+    }
+
+    @Test
+    void bindsEachTypeToItsPayloadClass() throws IOException {
+        FleetMessage<?> registration = decoder.decode("""
+                {"type":"REGISTER","payload":{"workerId":"w1","droneId":"d1","protocolVersion":"2.0",
+                 "capabilities":["camera"]}}""");
+        WorkerRegistration worker = (WorkerRegistration) registration.getPayload();
+        assertThat(worker.getWorkerId()).isEqualTo("w1");
+        assertThat(worker.getCapabilities()).containsExactly("camera");
+
+        FleetMessage<?> batch = decoder.decode("""
+                {"type":"TELEMETRY_BATCH","payload":{"samples":[{"droneId":"d1"},{"droneId":"d2"}]}}""");
+        assertThat(((TelemetryBatchPayload) batch.getPayload()).getSamples())
+                .extracting(TelemetryPayload::getDroneId).containsExactly("d1", "d2");
+
+        FleetMessage<?> alert = decoder.decode("""
+                {"type":"ALERT","payload":{"level":"WARN","nested":{"code":7}}}""");
+        assertThat(((JsonNode) alert.getPayload()).at("/nested/code").asInt()).isEqualTo(7);
+
+        FleetMessage<?> heartbeat = decoder.decode("""
+                {"type":"HEARTBEAT","payload":{"ignored":[1,2,{"deep":true}]},"correlationId":null}""");
+        assertThat(heartbeat.getType()).isEqualTo(MessageType.HEARTBEAT);
+        assertThat(heartbeat.getPayload()).isNull();
+        assertThat(heartbeat.getCorrelationId()).isNull();
+    }
+
+    @Test
+    void rejectsMessagesWithoutAValidType() {
+        assertThatThrownBy(() -> decoder.decode("{\"payload\":{}}"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("no type");
+        assertThatThrownBy(() -> decoder.decode("{\"type\":\"NOT_A_TYPE\"}"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decoder.decode("[1,2]"))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("not a JSON object");
+        assertThatThrownBy(() -> decoder.decode("{\"type\":\"HEARTBEAT\""))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+}
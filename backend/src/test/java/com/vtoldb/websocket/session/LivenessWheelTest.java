@@ -0,0 +1,93 @@
+/**
+ * LivenessWheel expiry, refiling of active sessions and dropping of removed ones
+ */
+package com.vtoldb.websocket.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LivenessWheelTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1000);
+
+    @Test
+    void expiresIdleSessionOnlyAfterItsTimeout() {
+        LivenessWheel wheel = new LivenessWheel(1000, 10);
+        FleetSession session = session("s1");
+        wheel.add(session);
+        long activity = session.getLastActivityNanos();
+
+        assertThat(wheel.expire(activity + TIMEOUT_NANOS / 2)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.expire(activity + TIMEOUT_NANOS + millis(20))).containsExactly(session);
+        assertThat(wheel.size()).isZero();
+        assertThat(wheel.expire(activity + 2 * TIMEOUT_NANOS)).isEmpty();
+    }
+
+    @Test
+    void activeSessionIsFiledAgainUnderItsNewDeadline() throws InterruptedException {
+        LivenessWheel wheel = new LivenessWheel(1000, 10);
+        FleetSession session = session("s1");
+        wheel.add(session);
+        long firstActivity = session.getLastActivityNanos();
+        wheel.expire(firstActivity);
+
+        Thread.sleep(50);
+        session.updateLastActivity();
+        long lastActivity = session.getLastActivityNanos();
+
+        // The old deadline comes due, but the session has been active since
+        assertThat(wheel.expire(firstActivity + TIMEOUT_NANOS + millis(20))).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.expire(lastActivity + TIMEOUT_NANOS + millis(20))).containsExactly(session);
+    }
+
+    @Test
+    void removedSessionsAreDroppedWithoutBeingReported() {
+        LivenessWheel wheel = new LivenessWheel(1000, 10);
+        FleetSession kept = session("kept");
+        FleetSession removed = session("removed");
+        wheel.add(kept);
+        wheel.add(removed);
+        removed.markRemoved();
+
+        List<FleetSession> expired = wheel.expire(removed.getLastActivityNanos() + TIMEOUT_NANOS + millis(20));
+        assertThat(expired).containsExactly(kept);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void longPauseReportsEverySessionOnce() {
+        LivenessWheel wheel = new LivenessWheel(1000, 10);
+        List<FleetSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            FleetSession session = session("s" + i);
+            sessions.add(session);
+            wheel.add(session);
+        }
+
+        // Far more than a full turn of the wheel
+        List<FleetSession> expired = wheel.expire(System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+        assertThat(expired).containsExactlyInAnyOrderElementsOf(sessions);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveTimeouts() {
+        assertThatThrownBy(() -> new LivenessWheel(0, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new LivenessWheel(1000, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static FleetSession session(String id) {
+        return new FleetSession(id, "worker-" + id, "drone-" + id, null);
+    }
+
+    private static long millis(long value) {
+        return TimeUnit.MILLISECONDS.toNanos(value);
+    }
+}
@@ -0,0 +1,68 @@
+/**
+ * Sequence tracking and merging of TelemetryDeltaState
+ */
+package com.vtoldb.websocket.session;
+
+import com.vtoldb.websocket.protocol.TelemetryPayload;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TelemetryDeltaStateTest {
+
+    @Test
+    void mergesInOrderDeltasOverTheKeyframe() {
+        TelemetryDeltaState state = new TelemetryDeltaState();
+        state.applyKeyframe(sample(10, 1.0, 90.0));
+
+        assertThat(state.applyDelta(sample(11, 2.0, null))).isTrue();
+        assertThat(state.isAwaitingKeyframe()).isFalse();
+        assertThat(state.getState().getPosition().getAltitude()).isEqualTo(2.0);
+        assertThat(state.getState().getBattery().getLevel()).isEqualTo(90.0);
+        assertThat(state.getLastSequence()).isEqualTo(11);
+    }
+
+    @Test
+    void gapAwaitsKeyframeAndRequestsItOncePerRetry() {
+        TelemetryDeltaState state = new TelemetryDeltaState();
+        state.applyKeyframe(sample(10, 1.0, 90.0));
+
+        assertThat(state.applyDelta(sample(13, 3.0, null))).isFalse();
+        assertThat(state.isAwaitingKeyframe()).isTrue();
+        assertThat(state.getState().getPosition().getAltitude()).isEqualTo(3.0);
+        assertThat(state.shouldRequestKeyframe(1_000, 500)).isTrue();
+        assertThat(state.shouldRequestKeyframe(1_200, 500)).isFalse();
+        assertThat(state.shouldRequestKeyframe(1_600, 500)).isTrue();
+
+        state.applyKeyframe(sample(14, 4.0, 80.0));
+        assertThat(state.isAwaitingKeyframe()).isFalse();
+        assertThat(state.shouldRequestKeyframe(5_000, 500)).isFalse();
+    }
+
+    @Test
+    void deltaBeforeKeyframeAndSequenceWrap() {
+        TelemetryDeltaState state = new TelemetryDeltaState();
+        assertThat(state.getLastSequence()).isNull();
+        assertThat(state.applyDelta(sample(0xFFFFFFFFL, 1.0, null))).isFalse();
+        assertThat(state.isAwaitingKeyframe()).isTrue();
+
+        state.applyKeyframe(sample(0xFFFFFFFFL, 1.0, 50.0));
+        assertThat(state.applyDelta(sample(0, 2.0, null))).isTrue();
+        assertThat(state.getLastSequence()).isZero();
+    }
+
+    private static TelemetryPayload sample(long sequence, Double altitude, Double batteryLevel) {
+        TelemetryPayload payload = new TelemetryPayload();
+        payload.setDroneId("d1");
+        payload.setSequence(sequence);
+        TelemetryPayload.Position position = new TelemetryPayload.Position();
+        position.setAltitude(altitude);
+        payload.setPosition(position);
+        if (batteryLevel != null) {
+            TelemetryPayload.Battery battery = new TelemetryPayload.Battery();
+            battery.setLevel(batteryLevel);
+            payload.setBattery(battery);
+        }
+        return payload;
+    }
+}
@@ -1,17 +1,66 @@
 /**
  * React hook for real-time fleet data via WebSocket
  * Provides drone list with automatic updates
+ * Tracks the change feed position so catch-ups only fetch what was missed
  */
 import { useState, useEffect, useCallback, useRef } from 'react';
 import { wsService, CHANNELS, MESSAGE_TYPES, UPDATE_TYPES } from '../services/websocket';
 import { droneAPI } from '../services/api';
 
+// Applies one change feed event to a drone map
+function applyEvent(droneMap, event) {
+  const { updateType, droneId, data, changes } = event;
+
+  switch (updateType) {
+    case UPDATE_TYPES.DRONE_CREATED:
+    case UPDATE_TYPES.DRONE_UPDATED:
+      if (data) {
+        droneMap.set(droneId, data);
+      }
+      break;
+    case UPDATE_TYPES.DRONE_DELETED:
+      droneMap.delete(droneId);
+      break;
+    default:
+      // Handle generic updates with changes object
+      if (changes && droneId) {
+        const existing = droneMap.get(droneId) || {};
+        droneMap.set(droneId, { ...existing, ...changes });
+      }
+  }
+}
+
 export function useFleetSocket() {
   const [drones, setDrones] = useState(new Map());
   const [isConnected, setIsConnected] = useState(false);
   const [useFallback, setUseFallback] = useState(false);
   const [error, setError] = useState(null);
   const pollingRef = useRef(null);
+  // Last change feed position applied to the drone map
+  const feedRef = useRef({ epoch: null, sequence: null });
+
+  // Fetches the changes since the last known position, or the whole fleet when they are gone
+  const syncDrones = useCallback(async () => {
+    try {
+      const { epoch, sequence } = feedRef.current;
+      const response = await droneAPI.getChanges(sequence, epoch);
+      const feed = response.data;
+      if (feed.reset) {
+        setDrones(new Map(feed.drones.map(d => [d.id, d])));
+      } else if (feed.changes.length > 0) {
+        setDrones(prev => {
+          const updated = new Map(prev);
+          feed.changes.forEach(event => applyEvent(updated, event));
+          return updated;
+        });
+      }
+      feedRef.current = { epoch: feed.epoch, sequence: feed.sequence };
+      setError(null);
+    } catch (err) {
+      console.error('Failed to fetch drones:', err);
+      setError(err);
+    }
+  }, []);
 
   // Handle incoming WebSocket messages
   const handleMessage = useCallback((message) => {
@@ -26,61 +75,48 @@ export function useFleetSocket() {
         }
         break;
 
-      case MESSAGE_TYPES.UPDATE:
+      case MESSAGE_TYPES.UPDATE: {
+        const feed = feedRef.current;
+        if (payload.sequence != null && feed.sequence != null) {
+          if (payload.sequence <= feed.sequence) {
+            // Already applied by a catch-up
+            break;
+          }
+          if (payload.sequence === feed.sequence + 1) {
+            feed.sequence = payload.sequence;
+          } else {
+            // Missed at least one change; fetch the gap
+            syncDrones();
+          }
+        }
         setDrones(prev => {
           const updated = new Map(prev);
-          const { updateType, droneId, data } = payload;
-
-          switch (updateType) {
-            case UPDATE_TYPES.DRONE_CREATED:
-            case UPDATE_TYPES.DRONE_UPDATED:
-              if (data) {
-                updated.set(droneId, data);
-              }
-              break;
-            case UPDATE_TYPES.DRONE_DELETED:
-              updated.delete(droneId);
-              break;
-            default:
-              // Handle generic updates with changes object
-              if (payload.changes && droneId) {
-                const existing = updated.get(droneId) || {};
-                updated.set(droneId, { ...existing, ...payload.changes });
-              }
-          }
+          applyEvent(updated, payload);
           return updated;
         });
         break;
+      }
 
       default:
         console.log('Unknown message type:', type);
     }
-  }, []);
-
-  // Fallback: REST polling
-  const fetchDronesREST = useCallback(async () => {
-    try {
-      const response = await droneAPI.getAll();
-      const droneMap = new Map(response.data.map(d => [d.id, d]));
-      setDrones(droneMap);
-      setError(null);
-    } catch (err) {
-      console.error('Failed to fetch drones:', err);
-      setError(err);
-    }
-  }, []);
+  }, [syncDrones]);
 
   // Connection status listener
   useEffect(() => {
     const removeListener = wsService.addListener('connection', ({ connected, fallback }) => {
       setIsConnected(connected);
+      if (connected) {
+        // Pick up whatever changed while disconnected
+        syncDrones();
+      }
       if (fallback) {
         setUseFallback(true);
       }
     });
 
     return removeListener;
-  }, []);
+  }, [syncDrones]);
 
   // Connect and subscribe
   useEffect(() => {
@@ -103,24 +139,24 @@ export function useFleetSocket() {
     connect();
 
     // Initial fetch via REST (WebSocket will update with real-time data)
-    fetchDronesREST();
+    syncDrones();
 
     return () => {
       mounted = false;
       wsService.unsubscribe(CHANNELS.DRONES);
     };
-  }, [handleMessage, fetchDronesREST]);
+  }, [handleMessage, syncDrones]);
 
   // Fallback polling when WebSocket unavailable
   useEffect(() => {
     if (useFallback && !isConnected) {
       console.log('Using REST polling fallback');
-      pollingRef.current = setInterval(fetchDronesREST, 30000);
+      pollingRef.current = setInterval(syncDrones, 30000);
       return () => clearInterval(pollingRef.current);
     } else if (pollingRef.current) {
       clearInterval(pollingRef.current);
     }
-  }, [useFallback, isConnected, fetchDronesREST]);
+  }, [useFallback, isConnected, syncDrones]);
 
   return {
     drones: Array.from(drones.values()),
@@ -128,7 +164,7 @@ export function useFleetSocket() {
     isConnected,
     useFallback,
     error,
-    refresh: fetchDronesREST
+    refresh: syncDrones
   };
 }
 
@@ -21,6 +21,7 @@ export const droneAPI = {
   create: (drone) => apiClient.post('/drones', drone),
   update: (id, drone) => apiClient.put(`/drones/${id}`, drone),
   delete: (id) => apiClient.delete(`/drones/${id}`),
+  getChanges: (since, epoch) => apiClient.get('/drones/changes', { params: { since, epoch } }),
 };
 
 // Settings API endpoints
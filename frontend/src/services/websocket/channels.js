@@ -16,5 +16,6 @@ export const MESSAGE_TYPES = {
 export const UPDATE_TYPES = {
   DRONE_CREATED: 'DRONE_CREATED',
   DRONE_UPDATED: 'DRONE_UPDATED',
-  DRONE_DELETED: 'DRONE_DELETED'
+  DRONE_DELETED: 'DRONE_DELETED',
+  DRONE_TELEMETRY: 'DRONE_TELEMETRY'
 };